@@ -0,0 +1,295 @@
+package racfPassTicket;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * JMH benchmarks for the PassTicket generator: the whole pipeline and each of its stages.
+ * Run them with <code>gradle jmh</code> (see {@link PassTicketBenchmarkRunner}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PassTicketBenchmark {
+	private static final String USER_ID = "USERID";
+	private static final String APPLICATION_NAME = "APPNAME";
+	private static final String SECURED_SIGNON_KEY = "A1B2C3D4E5F6A7B8";
+	private static final int BATCH_SIZE = 1024;
+
+	/** State shared by all benchmark threads: the immutable inputs. */
+	@State(Scope.Benchmark)
+	public static class Input {
+		String paddedUserId;
+		byte[] desBlock;
+		byte[] result4;
+		long padding1;
+		long padding2;
+		byte[] permutationInput;
+		byte[] result5;
+		List<String> batchUserIds;
+
+		@Setup
+		public void setUp() throws PassTicketInvalidInputException, UnsupportedEncodingException {
+			paddedUserId = PassTicketUtils.validateUserIdOrApplicationName(USER_ID);
+			desBlock = "TestByte".getBytes();
+			result4 = new byte[] {(byte) 0x1e, (byte) 0xc3, (byte) 0x75, (byte) 0x3d};
+			byte[] padding = new TimeCoder().generateTimeCoderPadding(paddedUserId);
+			padding1 = TimeCoder.toPaddingBlock(padding, 0);
+			padding2 = TimeCoder.toPaddingBlock(padding, 6);
+			permutationInput = new byte[] {1, 123};
+			result5 = new byte[] {(byte) 0x07, (byte) 0x24, (byte) 0x7f, (byte) 0x79};
+			batchUserIds = new ArrayList<>();
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				batchUserIds.add("USER" + i);
+			}
+		}
+	}
+
+	/** State owned by a single benchmark thread: the generator objects, which are not shared. */
+	@State(Scope.Thread)
+	public static class Generator {
+		PassTicketGenerator passTicketGenerator;
+		PassTicketGenerator cachingPassTicketGenerator;
+		PassTicketGenerator tablePassTicketGenerator;
+		PassTicketKey key;
+		DESEncrypter desEncrypter;
+		DESEncrypter longDESEncrypter;
+		/** The DES of libcrypto if it can be called from this JVM, otherwise the JCE cipher. */
+		DESEncrypter nativeDESEncrypter;
+		PassTicketKey nativeKey;
+		long[] blocks = new long[BATCH_SIZE];
+		TimeCoder timeCoder;
+		BitslicedPassTicketGenerator bitslicedPassTicketGenerator;
+		PassTicketVerifier passTicketVerifier;
+		String passTicketOfLastSecond;
+		PassTicketPrefetcher passTicketPrefetcher;
+		UserId userId;
+		ApplicationName applicationName;
+		ByteBuffer sendBuffer = ByteBuffer.allocateDirect(8);
+
+		@Setup
+		public void setUp() throws PassTicketException, PassTicketInvalidInputException {
+			SecretKey secretKey = PassTicketUtils.validateRACFsecuredSignonApplicationKey(SECURED_SIGNON_KEY);
+			passTicketGenerator = new PassTicketGenerator();
+			cachingPassTicketGenerator = new PassTicketGenerator();
+			cachingPassTicketGenerator.setPrefixCache(new PassTicketPrefixCache(1000, 0, TimeUnit.SECONDS));
+			key = PassTicketGenerator.forKey(SECURED_SIGNON_KEY);
+			TimeCoderTableCache timeCoderTableCache = new TimeCoderTableCache(256 * 1024);
+			timeCoderTableCache.designate(key, USER_ID);
+			tablePassTicketGenerator = new PassTicketGenerator();
+			tablePassTicketGenerator.setPrefixCache(new PassTicketPrefixCache(1000, 0, TimeUnit.SECONDS));
+			tablePassTicketGenerator.setTimeCoderTableCache(timeCoderTableCache);
+			desEncrypter = new DESEncrypter(secretKey);
+			longDESEncrypter = new LongDESEncrypter(secretKey.getEncoded());
+			nativeKey = PassTicketGenerator.forKey(SECURED_SIGNON_KEY, DESImplementation.NATIVE);
+			nativeDESEncrypter = nativeKey.getDESEncrypter();
+			timeCoder = new TimeCoder();
+			bitslicedPassTicketGenerator = new BitslicedPassTicketGenerator();
+			passTicketVerifier = new PassTicketVerifier(passTicketGenerator);
+			passTicketOfLastSecond = passTicketGenerator.generate(USER_ID, APPLICATION_NAME, key, 1_500_000_600);
+			PassTicketGenerator cachedClockPassTicketGenerator = new PassTicketGenerator();
+			cachedClockPassTicketGenerator.setClock(PassTicketClock.cached());
+			passTicketPrefetcher = new PassTicketPrefetcher(cachedClockPassTicketGenerator, 2, 1000, 0, TimeUnit.SECONDS);
+			passTicketPrefetcher.register(USER_ID, APPLICATION_NAME, key);
+			userId = UserId.of(USER_ID);
+			applicationName = ApplicationName.of(APPLICATION_NAME);
+		}
+
+		@TearDown
+		public void tearDown() {
+			passTicketPrefetcher.close();
+		}
+	}
+
+	@Benchmark
+	public String generate(Generator generator) throws PassTicketException, PassTicketInvalidInputException {
+		return generator.passTicketGenerator.generate(USER_ID, APPLICATION_NAME, SECURED_SIGNON_KEY);
+	}
+
+	@Benchmark
+	public String generateWithKey(Generator generator) throws PassTicketException, PassTicketInvalidInputException {
+		return generator.passTicketGenerator.generate(USER_ID, APPLICATION_NAME, generator.key);
+	}
+
+	@Benchmark
+	public String generateWithValueTypes(Generator generator) throws PassTicketException, PassTicketInvalidInputException {
+		return generator.passTicketGenerator.generate(generator.userId, generator.applicationName, generator.key);
+	}
+
+	@Benchmark
+	public ByteBuffer generateIntoByteBuffer(Generator generator) throws PassTicketException, PassTicketInvalidInputException {
+		generator.sendBuffer.clear();
+		generator.passTicketGenerator.generate(generator.userId, generator.applicationName, generator.key, generator.sendBuffer, PassTicketEncoding.EBCDIC);
+		return generator.sendBuffer;
+	}
+
+	@Benchmark
+	public PassTicketResult tryGenerateWithInvalidUserId(Generator generator) {
+		return generator.passTicketGenerator.tryGenerate("INVALID_USER_ID", APPLICATION_NAME, generator.key);
+	}
+
+	@Benchmark
+	public Exception generateWithInvalidUserId(Generator generator) {
+		try {
+			generator.passTicketGenerator.generate("INVALID_USER_ID", APPLICATION_NAME, generator.key);
+			return null;
+		} catch (PassTicketException | PassTicketInvalidInputException e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public String generateWithPrefixCache(Generator generator) throws PassTicketException, PassTicketInvalidInputException {
+		return generator.cachingPassTicketGenerator.generate(USER_ID, APPLICATION_NAME, generator.key);
+	}
+
+	@Benchmark
+	public String generateWithTimeCoderTables(Generator generator) throws PassTicketException, PassTicketInvalidInputException {
+		return generator.tablePassTicketGenerator.generate(USER_ID, APPLICATION_NAME, generator.key);
+	}
+
+	@Benchmark
+	public String generateWithPrefetcher(Generator generator) throws PassTicketException, PassTicketInvalidInputException {
+		return generator.passTicketPrefetcher.generate(USER_ID, APPLICATION_NAME, generator.key);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public List<String> generateBatchBitsliced(Input input, Generator generator) throws PassTicketException, PassTicketInvalidInputException {
+		return generator.bitslicedPassTicketGenerator.generate(input.batchUserIds, APPLICATION_NAME, generator.key);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public List<String> generateBatchNative(Input input, Generator generator) throws PassTicketException, PassTicketInvalidInputException {
+		return generator.bitslicedPassTicketGenerator.generate(input.batchUserIds, APPLICATION_NAME, generator.nativeKey);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public List<String> generateBatchInALoop(Input input, Generator generator) throws PassTicketException, PassTicketInvalidInputException {
+		List<String> passTickets = new ArrayList<>(BATCH_SIZE);
+		for (String userId : input.batchUserIds) {
+			passTickets.add(generator.passTicketGenerator.generate(userId, APPLICATION_NAME, generator.key));
+		}
+		return passTickets;
+	}
+
+	@Benchmark
+	public OptionalLong verifyWorstCase(Generator generator) throws PassTicketException, PassTicketInvalidInputException {
+		// the PassTicket of the last second of the window: all 1201 candidates are tried
+		return generator.passTicketVerifier.verify(USER_ID, APPLICATION_NAME, generator.key, generator.passTicketOfLastSecond, 600, 1_500_000_000);
+	}
+
+	@Benchmark
+	public SecretKey validateRACFsecuredSignonApplicationKey() throws PassTicketInvalidInputException {
+		return PassTicketUtils.validateRACFsecuredSignonApplicationKey(SECURED_SIGNON_KEY);
+	}
+
+	@Benchmark
+	public byte[] encrypt(Input input, Generator generator) throws PassTicketException {
+		return generator.desEncrypter.encrypt(input.desBlock);
+	}
+
+	@Benchmark
+	public long encryptLong(Generator generator) throws PassTicketException {
+		return generator.desEncrypter.encrypt(0x5465737442797465L);
+	}
+
+	@Benchmark
+	public long encryptLongWithLongDESEncrypter(Generator generator) throws PassTicketException {
+		return generator.longDESEncrypter.encrypt(0x5465737442797465L);
+	}
+
+	@Benchmark
+	public long encryptLongWithNativeDESEncrypter(Generator generator) throws PassTicketException {
+		return generator.nativeDESEncrypter.encrypt(0x5465737442797465L);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public long[] encryptBlocks(Generator generator) throws PassTicketException {
+		generator.desEncrypter.encrypt(generator.blocks, 0, BATCH_SIZE);
+		return generator.blocks;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public long[] encryptBlocksWithNativeDESEncrypter(Generator generator) throws PassTicketException {
+		generator.nativeDESEncrypter.encrypt(generator.blocks, 0, BATCH_SIZE);
+		return generator.blocks;
+	}
+
+	@Benchmark
+	public byte[] timeCoder(Input input, Generator generator) throws Exception {
+		// the time coder XORs into its working copies only, but copy anyway to keep the input stable
+		byte[] result4 = Arrays.copyOf(input.result4, input.result4.length);
+		return generator.timeCoder.timeCoder(result4, input.paddedUserId, generator.desEncrypter);
+	}
+
+	@Benchmark
+	public int timeCoderPrimitive(Input input, Generator generator) throws PassTicketException {
+		return generator.timeCoder.timeCoder(0x1ec3753d, input.padding1, input.padding2, generator.desEncrypter);
+	}
+
+	@Benchmark
+	public byte[] permute(Input input, Generator generator) throws PassTicketException {
+		return generator.timeCoder.permute(input.permutationInput, 1);
+	}
+
+	@Benchmark
+	public int permutePrimitive() {
+		return TimeCoder.permute(0x017B, 1);
+	}
+
+	@Benchmark
+	public String translate(Input input, Generator generator) {
+		return generator.passTicketGenerator.translate(input.result5);
+	}
+
+	@Benchmark
+	public String translatePrimitive() {
+		return PassTicketGenerator.translate(0x07247F79);
+	}
+
+	@Benchmark
+	public ByteBuffer translateIntoByteBuffer(Generator generator) {
+		generator.sendBuffer.clear();
+		PassTicketGenerator.translate(0x07247F79, generator.sendBuffer, PassTicketEncoding.EBCDIC);
+		return generator.sendBuffer;
+	}
+
+	@Benchmark
+	public int systemClock() {
+		return PassTicketClock.system().getTimeAndDateInformation();
+	}
+
+	@Benchmark
+	public int cachedClock() {
+		return PassTicketClock.cached().getTimeAndDateInformation();
+	}
+}
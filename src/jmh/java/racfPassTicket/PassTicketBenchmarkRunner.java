@@ -0,0 +1,47 @@
+package racfPassTicket;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Runs the {@link PassTicketBenchmark} suite once per thread count, with the GC profiler enabled
+ * so that the allocation rate is reported next to the throughput.</p>
+ *
+ * <p>Arguments (all optional): the maximum thread count (default: number of available processors)
+ * and a regular expression selecting the benchmarks to run (default: all of them).
+ * Example: <code>gradle jmh -PjmhArgs="4 translate"</code></p>
+ */
+public class PassTicketBenchmarkRunner {
+	private PassTicketBenchmarkRunner(){}
+
+	/** Runs the benchmarks with 1, 2, 4, ... up to the maximum number of threads. */
+	public static void main(String[] args) throws RunnerException {
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		String include = args.length > 1 ? args[1] : PassTicketBenchmark.class.getSimpleName();
+
+		for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+			Options options = new OptionsBuilder()
+					.include(include)
+					.threads(threads)
+					.addProfiler(GCProfiler.class)
+					.build();
+			new Runner(options).run();
+		}
+	}
+
+	/**
+	 * Doubles the thread count, but makes sure the maximum is measured as well.
+	 * @param threads The current thread count
+	 * @param maxThreads The maximum thread count
+	 * @return The next thread count
+	 */
+	private static int nextThreadCount(int threads, int maxThreads) {
+		if (threads < maxThreads && threads * 2 > maxThreads) {
+			return maxThreads;
+		}
+		return threads * 2;
+	}
+}
@@ -0,0 +1,80 @@
+package racfPassTicket;
+
+import java.io.UnsupportedEncodingException;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * <p>A validated RACF application name together with its EBCDIC encoding.</p>
+ *
+ * <p>The application name is validated and encoded once, so that generating PassTickets for it needs no further string
+ * or charset work. Instances are immutable and can be kept or cached by the caller; they are equal if the names are equal.</p>
+ */
+public final class ApplicationName {
+	private final String name;
+	private final long ebcdic;
+
+	private ApplicationName(String name, long ebcdic) {
+		this.name = name;
+		this.ebcdic = ebcdic;
+	}
+
+	/**
+	 * Validates an application name: 1 to 8 of the characters A to Z, 0 to 9, # $ @. Leading and trailing blanks are ignored.
+	 * @param applicationName The application name
+	 * @return The application name
+	 * @throws PassTicketInvalidInputException
+	 */
+	public static ApplicationName of(String applicationName) throws PassTicketInvalidInputException {
+		try {
+			return fromPadded(PassTicketUtils.validateRACFName(applicationName));
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e); // cannot happen, the allowed characters are in the table
+		}
+	}
+
+	/**
+	 * Checks an application name without throwing an exception, see {@link #of(String)}.
+	 * @param applicationName The application name
+	 * @return The error, or null if the application name is valid
+	 */
+	public static PassTicketError check(String applicationName) {
+		return PassTicketUtils.checkRACFName(applicationName);
+	}
+
+	/**
+	 * Creates an application name which has been validated by {@link PassTicketUtils#validateUserIdOrApplicationName(String)}.
+	 * @param paddedApplicationName The application name, padded to 8 characters
+	 * @return The application name
+	 * @throws UnsupportedEncodingException
+	 */
+	static ApplicationName fromPadded(String paddedApplicationName) throws UnsupportedEncodingException {
+		return new ApplicationName(paddedApplicationName, Cp1047.encode(paddedApplicationName));
+	}
+
+	/** @return The application name, padded with blanks to 8 characters */
+	public String getName() {
+		return name;
+	}
+
+	/** @return The application name in EBCDIC (8 bytes) */
+	long getEbcdic() {
+		return ebcdic;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof ApplicationName && name.equals(((ApplicationName) obj).name);
+	}
+
+	@Override
+	public int hashCode() {
+		return name.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return name.trim();
+	}
+}
@@ -0,0 +1,205 @@
+package racfPassTicket;
+
+/**
+ * <p>A bitsliced DES encrypter which encrypts up to 64 independent blocks with the same key at once.</p>
+ *
+ * <p>The blocks are transposed into 64 "slices": slice j holds bit j of all blocks, one block per bit of the <code>long</code>.
+ * All permutations of DES (IP, E, P, FP) then become a renaming of slices, and each S-box is evaluated for all blocks at
+ * once with bitwise operations: every output bit is a multiplexer tree over input bits 1 to 4, whose leaves are functions
+ * of input bits 5 and 6. All 16 such functions are computed once per S-box and shared by its 4 output bits.</p>
+ *
+ * <p>An instance keeps scratch arrays and is not thread-safe.</p>
+ */
+class BitslicedDESEncrypter {
+	/** The number of blocks encrypted at once. */
+	static final int LANES = 64;
+
+	/**
+	 * The leaves of the multiplexer trees: for S-box i, output bit o and input bits 1 to 4 having the value q,
+	 * LEAVES[(i * 4 + o) * 16 + q] is the truth table of output bit o as a function of input bits 5 and 6:
+	 * bit (2 * x5 + x6) of the leaf is the output for x5 and x6.
+	 */
+	private static final byte[] LEAVES = createLeaves();
+
+	/** E[k] - 1: the index of the right half slice which is expanded into bit k. */
+	private static final int[] EXPANSION = minusOne(DESTables.E);
+	/** P[j] - 1: the index of the S-box output slice which is permuted into bit j. */
+	private static final int[] PERMUTATION = minusOne(DESTables.P);
+
+	/** The round key bits: for round r and expanded bit k, 0 or -1 (all lanes set). */
+	private final long[][] roundKeyMasks = new long[16][48];
+
+	private final long[] slices = new long[64];
+	private final long[] output = new long[64];
+	private final long[] left = new long[32];
+	private final long[] right = new long[32];
+	private final long[] sboxInput = new long[6];
+	private final long[] sboxOutput = new long[32];
+	private final long[] functions = new long[16];
+
+	/**
+	 * Instantiates the DES encrypter.
+	 * @param key The 8 byte key
+	 */
+	BitslicedDESEncrypter(byte[] key) {
+		long[] roundKeys = DESTables.roundKeys(PassTicketUtils.byteArrayToLong(key, 0, 8));
+		for (int round = 0; round < 16; round++) {
+			for (int k = 0; k < 48; k++) {
+				roundKeyMasks[round][k] = ((roundKeys[round] >>> (47 - k)) & 1) == 0 ? 0L : -1L;
+			}
+		}
+	}
+
+	/**
+	 * Encrypts blocks in place.
+	 * @param blocks The blocks to encrypt, the left byte of each block being the most significant one
+	 * @param offset The index of the first block
+	 * @param count The number of blocks (at most {@value #LANES})
+	 */
+	void encrypt(long[] blocks, int offset, int count) {
+		if (count > LANES) {
+			throw new IllegalArgumentException("At most " + LANES + " blocks can be encrypted at once.");
+		}
+		System.arraycopy(blocks, offset, slices, 0, count);
+		for (int i = count; i < LANES; i++) {
+			slices[i] = 0;
+		}
+		transpose(slices);
+
+		// initial permutation
+		for (int j = 0; j < 32; j++) {
+			left[j] = slices[DESTables.IP[j] - 1];
+			right[j] = slices[DESTables.IP[j + 32] - 1];
+		}
+
+		long[] l = left;
+		long[] r = right;
+		for (int round = 0; round < 16; round++) {
+			long[] keyMasks = roundKeyMasks[round];
+			for (int box = 0; box < 8; box++) {
+				for (int k = 0; k < 6; k++) {
+					int expanded = box * 6 + k;
+					sboxInput[k] = r[EXPANSION[expanded]] ^ keyMasks[expanded];
+				}
+				sbox(box);
+			}
+			// the new right half is L XOR P(S-box outputs); it replaces L, then the halves are swapped
+			for (int j = 0; j < 32; j++) {
+				l[j] ^= sboxOutput[PERMUTATION[j]];
+			}
+			long[] tmp = l;
+			l = r;
+			r = tmp;
+		}
+
+		// the halves are swapped after the last round, then comes the final permutation
+		for (int j = 0; j < 32; j++) {
+			slices[j] = r[j];
+			slices[j + 32] = l[j];
+		}
+		for (int j = 0; j < 64; j++) {
+			output[j] = slices[DESTables.FP[j] - 1];
+		}
+		transpose(output);
+		System.arraycopy(output, 0, blocks, offset, count);
+	}
+
+	/**
+	 * Evaluates an S-box for all lanes: reads sboxInput and writes 4 slices of sboxOutput.
+	 * @param box The S-box (0 to 7)
+	 */
+	private void sbox(int box) {
+		// all 16 functions of input bits 5 and 6, built from the 4 minterms
+		long x5 = sboxInput[4];
+		long x6 = sboxInput[5];
+		functions[0] = 0;
+		functions[1] = ~x5 & ~x6;
+		functions[2] = ~x5 & x6;
+		functions[4] = x5 & ~x6;
+		functions[8] = x5 & x6;
+		for (int t = 3; t < 16; t++) {
+			if ((t & (t - 1)) != 0) {
+				functions[t] = functions[t & (t - 1)] | functions[t & -t];
+			}
+		}
+
+		long x1 = sboxInput[0];
+		long x2 = sboxInput[1];
+		long x3 = sboxInput[2];
+		long x4 = sboxInput[3];
+		for (int o = 0; o < 4; o++) {
+			int q = (box * 4 + o) * 16;
+			// reduce the tree: input bit 4 selects between the pairs of leaves, then bit 3, ..., finally bit 1
+			long m0 = mux(functions[LEAVES[q]], functions[LEAVES[q + 1]], x4);
+			long m1 = mux(functions[LEAVES[q + 2]], functions[LEAVES[q + 3]], x4);
+			long m2 = mux(functions[LEAVES[q + 4]], functions[LEAVES[q + 5]], x4);
+			long m3 = mux(functions[LEAVES[q + 6]], functions[LEAVES[q + 7]], x4);
+			long m4 = mux(functions[LEAVES[q + 8]], functions[LEAVES[q + 9]], x4);
+			long m5 = mux(functions[LEAVES[q + 10]], functions[LEAVES[q + 11]], x4);
+			long m6 = mux(functions[LEAVES[q + 12]], functions[LEAVES[q + 13]], x4);
+			long m7 = mux(functions[LEAVES[q + 14]], functions[LEAVES[q + 15]], x4);
+			m0 = mux(m0, m1, x3);
+			m2 = mux(m2, m3, x3);
+			m4 = mux(m4, m5, x3);
+			m6 = mux(m6, m7, x3);
+			m0 = mux(m0, m2, x2);
+			m4 = mux(m4, m6, x2);
+			sboxOutput[box * 4 + o] = mux(m0, m4, x1);
+		}
+	}
+
+	/**
+	 * Selects bitwise between two slices.
+	 * @param zero The bits selected where select is 0
+	 * @param one The bits selected where select is 1
+	 * @param select The selecting slice
+	 * @return The selected bits
+	 */
+	private static long mux(long zero, long one, long select) {
+		return zero ^ ((zero ^ one) & select);
+	}
+
+	/**
+	 * Transposes a 64x64 bit matrix in place: bit 63-c of row k is swapped with bit 63-k of row c.
+	 * @param rows The rows of the matrix
+	 */
+	static void transpose(long[] rows) {
+		long mask = 0x00000000FFFFFFFFL;
+		for (int j = 32; j != 0; j >>= 1, mask ^= (mask << j)) {
+			for (int k = 0; k < 64; k = (k + j + 1) & ~j) {
+				long t = (rows[k] ^ (rows[k + j] >>> j)) & mask;
+				rows[k] ^= t;
+				rows[k + j] ^= (t << j);
+			}
+		}
+	}
+
+	/**
+	 * Derives the leaves of the multiplexer trees from the S-box tables.
+	 * @return The leaves, see {@link #LEAVES}
+	 */
+	private static byte[] createLeaves() {
+		byte[] leaves = new byte[8 * 4 * 16];
+		for (int box = 0; box < 8; box++) {
+			for (int o = 0; o < 4; o++) {
+				for (int q = 0; q < 16; q++) {
+					int truthTable = 0;
+					for (int x56 = 0; x56 < 4; x56++) {
+						int output = (DESTables.sbox(box, (q << 2) | x56) >>> (3 - o)) & 1;
+						truthTable |= output << x56;
+					}
+					leaves[(box * 4 + o) * 16 + q] = (byte) truthTable;
+				}
+			}
+		}
+		return leaves;
+	}
+
+	private static int[] minusOne(int[] table) {
+		int[] result = new int[table.length];
+		for (int i = 0; i < table.length; i++) {
+			result[i] = table[i] - 1;
+		}
+		return result;
+	}
+}
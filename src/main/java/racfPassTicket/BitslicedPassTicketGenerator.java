@@ -0,0 +1,220 @@
+package racfPassTicket;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+import racfPassTicket.exceptions.PassTicketUnavailableException;
+
+/**
+ * <p>Generates many PassTickets with the same key at once, using the {@link BitslicedDESEncrypter}.</p>
+ *
+ * <p>Every step of the algorithm is executed for the whole batch before the next one: the DES encryptions of steps 1 and 2
+ * and of the six time-coder rounds are done for 64 tickets at a time. All tickets of a batch are generated for the same
+ * time and date information, unless an issuance guard moves some of them to a later second. This is meant for bulk
+ * workloads, e.g. tickets for thousands of users in a batch window.
+ * With an audit log, every ticket of a batch is recorded like those of the {@link PassTicketGenerator}.</p>
+ *
+ * <p>For a key with {@link DESImplementation#NATIVE} the blocks of each step are encrypted by <code>libcrypto</code>
+ * instead, {@value NativeDESEncrypter#BATCH_BLOCKS} blocks per downcall, see {@link NativeDESEncrypter}.</p>
+ *
+ * <p>Instances are not thread-safe.</p>
+ */
+public class BitslicedPassTicketGenerator {
+	private PassTicketClock clock = PassTicketClock.system();
+	private PassTicketAuditLog auditLog;
+	private PassTicketIssuanceGuard issuanceGuard;
+
+	/**
+	 * Sets the source of the time and date information.
+	 * @param clock The clock (the system clock by default)
+	 */
+	public void setClock(PassTicketClock clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * Records every PassTicket of a batch in an audit log, see {@link PassTicketGenerator#setAuditLog(PassTicketAuditLog)}.
+	 * @param auditLog The audit log, which can be shared with other generators, or null to record nothing
+	 */
+	public void setAuditLog(PassTicketAuditLog auditLog) {
+		this.auditLog = auditLog;
+	}
+
+	/** @return The audit log, or null */
+	public PassTicketAuditLog getAuditLog() {
+		return auditLog;
+	}
+
+	/**
+	 * Makes sure that no PassTicket of a batch generated at the current time of the clock is issued twice within a
+	 * second, see {@link PassTicketGenerator#setIssuanceGuard(PassTicketIssuanceGuard)}. The second of each ticket is
+	 * reserved with the guard, so a user ID occurring twice in a batch, or also logging on through a generator sharing the
+	 * guard, gets the PassTicket of a later second. A batch fails with a {@link PassTicketUnavailableException} if no
+	 * second is free for one of its tickets; the seconds reserved for the others are then left unused.
+	 * @param issuanceGuard The guard, which can be shared with other generators, or null to issue duplicates
+	 */
+	public void setIssuanceGuard(PassTicketIssuanceGuard issuanceGuard) {
+		this.issuanceGuard = issuanceGuard;
+	}
+
+	/** @return The issuance guard, or null */
+	public PassTicketIssuanceGuard getIssuanceGuard() {
+		return issuanceGuard;
+	}
+
+	/**
+	 * Generates PassTickets for several users of the same application.
+	 * @param userIds The user IDs
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @return The generated PassTickets, in the order of the user IDs
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public List<String> generate(List<String> userIds, String applicationName, PassTicketKey key) throws PassTicketException, PassTicketInvalidInputException {
+		return generate(userIds, Collections.nCopies(userIds.size(), applicationName), key);
+	}
+
+	/**
+	 * Generates PassTickets for pairs of user ID and application name.
+	 * @param userIds The user IDs
+	 * @param applicationNames The application names, one for each user ID
+	 * @param key The secured signon application key
+	 * @return The generated PassTickets, in the order of the user IDs
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public List<String> generate(List<String> userIds, List<String> applicationNames, PassTicketKey key) throws PassTicketException, PassTicketInvalidInputException {
+		return generate(userIds, applicationNames, key, clock.getTimeAndDateInformation(), true);
+	}
+
+	/**
+	 * Generates PassTickets for pairs of user ID and application name for the given time and date information.
+	 * @param userIds The user IDs
+	 * @param applicationNames The application names, one for each user ID
+	 * @param key The secured signon application key
+	 * @param timeInfo The time and date information (seconds since 1.1.1970, 00:00 UTC)
+	 * @return The generated PassTickets, in the order of the user IDs
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	protected List<String> generate(List<String> userIds, List<String> applicationNames, PassTicketKey key, int timeInfo) throws PassTicketException, PassTicketInvalidInputException {
+		return generate(userIds, applicationNames, key, timeInfo, false);
+	}
+
+	/**
+	 * Generates PassTickets for pairs of user ID and application name for the given time and date information or, with
+	 * the issuance guard, the next free second of each pair.
+	 * @param userIds The user IDs
+	 * @param applicationNames The application names, one for each user ID
+	 * @param key The secured signon application key
+	 * @param timeInfo The time and date information (seconds since 1.1.1970, 00:00 UTC)
+	 * @param guarded true if the time is the current time of the clock, which the issuance guard may move ahead
+	 * @return The generated PassTickets, in the order of the user IDs
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	private List<String> generate(List<String> userIds, List<String> applicationNames, PassTicketKey key, int timeInfo, boolean guarded) throws PassTicketException, PassTicketInvalidInputException {
+		if (userIds.size() != applicationNames.size()) {
+			throw new PassTicketInvalidInputException("There must be one application name for each user ID.");
+		}
+		int size = userIds.size();
+		DESEncrypter nativeDESEncrypter = key.usesNativeDES() ? key.getDESEncrypter() : null;
+		BitslicedDESEncrypter desEncrypter = nativeDESEncrypter == null ? new BitslicedDESEncrypter(key.getKeyBytes()) : null;
+
+		long[] blocks = new long[size];
+		long[] applicationNameBlocks = new long[size];
+		long[] padding1 = new long[size];
+		long[] padding2 = new long[size];
+		UserId[] encodedUserIds = new UserId[size];
+		ApplicationName[] encodedApplicationNames = new ApplicationName[size];
+		try {
+			// step 0: prepare all user input
+			for (int i = 0; i < size; i++) {
+				UserId userId = UserId.fromPadded(PassTicketUtils.validateUserIdOrApplicationName(userIds.get(i)));
+				ApplicationName applicationName = ApplicationName.fromPadded(PassTicketUtils.validateUserIdOrApplicationName(applicationNames.get(i)));
+				blocks[i] = userId.getEbcdic();
+				applicationNameBlocks[i] = applicationName.getEbcdic();
+				padding1[i] = userId.getPadding1();
+				padding2[i] = userId.getPadding2();
+				encodedUserIds[i] = userId;
+				encodedApplicationNames[i] = applicationName;
+			}
+		} catch (UnsupportedEncodingException e) {
+			throw new PassTicketException(PassTicketError.ENCODING_NOT_SUPPORTED, "Cannot get bytes in EBCDIC. " + e.getMessage(), e);
+		}
+
+		// the second of each ticket, reserved once the whole batch is valid
+		int[] timeInfos = new int[size];
+		PassTicketIssuanceGuard issuanceGuard = guarded ? this.issuanceGuard : null;
+		for (int i = 0; i < size; i++) {
+			timeInfos[i] = issuanceGuard == null ? timeInfo : issuanceGuard.reserve(key, encodedUserIds[i], encodedApplicationNames[i], timeInfo);
+		}
+
+		// step 1: encrypt the user IDs -> result1
+		encrypt(desEncrypter, nativeDESEncrypter, blocks);
+
+		// step 2: XOR result1 with the application names, encrypt -> result2
+		for (int i = 0; i < size; i++) {
+			blocks[i] ^= applicationNameBlocks[i];
+		}
+		encrypt(desEncrypter, nativeDESEncrypter, blocks);
+
+		// steps 3 and 4: the left 4 bytes XOR the time -> result4, split into l2b and r2b
+		int[] l2b = new int[size];
+		int[] r2b = new int[size];
+		for (int i = 0; i < size; i++) {
+			int result4 = (int) (blocks[i] >>> 32) ^ timeInfos[i];
+			l2b[i] = result4 >>> 16;
+			r2b[i] = result4 & 0xFFFF;
+		}
+
+		// step 5: the six rounds of the time coder, see TimeCoder.timeCoder(int, long, long, DESEncrypter)
+		for (int round = 1; round <= 6; round++) {
+			long[] padding = (round & 1) == 1 ? padding1 : padding2;
+			for (int i = 0; i < size; i++) {
+				blocks[i] = ((long) r2b[i] << 48) | padding[i];
+			}
+			encrypt(desEncrypter, nativeDESEncrypter, blocks);
+			for (int i = 0; i < size; i++) {
+				int resultE = (int) (blocks[i] >>> 48) ^ l2b[i];
+				l2b[i] = r2b[i];
+				r2b[i] = TimeCoder.permute(resultE, round);
+			}
+		}
+
+		// step 6: translation
+		List<String> passTickets = new ArrayList<>(size);
+		PassTicketAuditLog auditLog = this.auditLog;
+		for (int i = 0; i < size; i++) {
+			int result5 = (l2b[i] << 16) | r2b[i];
+			passTickets.add(PassTicketGenerator.translate(result5));
+			if (auditLog != null) {
+				auditLog.issued(timeInfos[i], encodedUserIds[i].getName(), encodedApplicationNames[i].getName(), key, result5, null);
+			}
+		}
+		return passTickets;
+	}
+
+	/**
+	 * Encrypts all blocks, {@value BitslicedDESEncrypter#LANES} at a time, or all at once with <code>libcrypto</code>.
+	 * @param desEncrypter The bitsliced DES encrypter, or null
+	 * @param nativeDESEncrypter The DES encrypter of <code>libcrypto</code>, or null
+	 * @param blocks The blocks to encrypt in place
+	 * @throws PassTicketException
+	 */
+	private static void encrypt(BitslicedDESEncrypter desEncrypter, DESEncrypter nativeDESEncrypter, long[] blocks) throws PassTicketException {
+		if (nativeDESEncrypter != null) {
+			nativeDESEncrypter.encrypt(blocks, 0, blocks.length);
+			return;
+		}
+		for (int offset = 0; offset < blocks.length; offset += BitslicedDESEncrypter.LANES) {
+			desEncrypter.encrypt(blocks, offset, Math.min(BitslicedDESEncrypter.LANES, blocks.length - offset));
+		}
+	}
+}
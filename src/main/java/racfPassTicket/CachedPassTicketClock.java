@@ -0,0 +1,35 @@
+package racfPassTicket;
+
+/** The clock returned by {@link PassTicketClock#cached()}: a daemon thread stores the current second at every second boundary. */
+final class CachedPassTicketClock implements PassTicketClock, Runnable {
+	static final CachedPassTicketClock INSTANCE = new CachedPassTicketClock();
+
+	private volatile int second = currentSecond();
+
+	private CachedPassTicketClock() {
+		Thread thread = new Thread(this, "passticket-clock");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public int getTimeAndDateInformation() {
+		return second;
+	}
+
+	@Override
+	public void run() {
+		while (true) {
+			try {
+				Thread.sleep(1000 - System.currentTimeMillis() % 1000);
+			} catch (InterruptedException e) {
+				// keep the clock running
+			}
+			second = currentSecond();
+		}
+	}
+
+	private static int currentSecond() {
+		return (int) (System.currentTimeMillis() / 1000L);
+	}
+}
@@ -0,0 +1,92 @@
+package racfPassTicket;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import racfPassTicket.exceptions.PassTicketException;
+
+/**
+ * <p>An engine whose results are checked against the reference engine for a sample of the PassTickets.</p>
+ *
+ * <p>The given fraction of the PassTickets, chosen at random, is computed with the reference engine as well. If the
+ * results differ, the listener is called and the result of the reference engine is used, so a faulty engine never
+ * issues a wrong PassTicket which has been checked. Create it with {@link PassTicketEngines#checked}.</p>
+ */
+public class CheckedPassTicketEngine implements PassTicketEngine {
+	private final PassTicketEngine engine;
+	private final PassTicketEngine reference;
+	private final double fraction;
+	private final MismatchListener listener;
+	private final LongAdder checks = new LongAdder();
+	private final LongAdder mismatches = new LongAdder();
+
+	/** Receives the results of the checked engine which differ from those of the reference engine. */
+	public interface MismatchListener {
+		/**
+		 * Called in the generating thread for each mismatch.
+		 * @param engine The checked engine
+		 * @param userId The user ID in EBCDIC, padded with blanks
+		 * @param applicationName The application name in EBCDIC, padded with blanks
+		 * @param timeInfo The time and date information
+		 * @param expected Result-5 of the reference engine, which is used
+		 * @param actual Result-5 of the checked engine
+		 */
+		void onMismatch(PassTicketEngine engine, long userId, long applicationName, int timeInfo, int expected, int actual);
+	}
+
+	CheckedPassTicketEngine(PassTicketEngine engine, PassTicketEngine reference, double fraction, MismatchListener listener) {
+		if (!(fraction >= 0 && fraction <= 1)) {
+			throw new IllegalArgumentException("The fraction must be between 0 and 1.");
+		}
+		this.engine = engine;
+		this.reference = reference;
+		this.fraction = fraction;
+		this.listener = listener;
+	}
+
+	@Override
+	public String getName() {
+		return engine.getName();
+	}
+
+	@Override
+	public Prepared prepare(byte[] keyBytes) throws PassTicketException {
+		Prepared prepared = engine.prepare(keyBytes);
+		Prepared preparedReference = reference.prepare(keyBytes);
+		return (userId, applicationName, padding1, padding2, timeInfo) -> {
+			int result5 = prepared.computeResult5(userId, applicationName, padding1, padding2, timeInfo);
+			if (fraction == 0 || ThreadLocalRandom.current().nextDouble() >= fraction) {
+				return result5;
+			}
+			checks.increment();
+			int expected = preparedReference.computeResult5(userId, applicationName, padding1, padding2, timeInfo);
+			if (expected != result5) {
+				mismatches.increment();
+				if (listener != null) {
+					listener.onMismatch(engine, userId, applicationName, timeInfo, expected, result5);
+				}
+			}
+			return expected;
+		};
+	}
+
+	/** @return The checked engine */
+	public PassTicketEngine getEngine() {
+		return engine;
+	}
+
+	/** @return The number of PassTickets computed with the reference engine as well */
+	public long getCheckCount() {
+		return checks.sum();
+	}
+
+	/** @return The number of checked PassTickets which differed */
+	public long getMismatchCount() {
+		return mismatches.sum();
+	}
+
+	@Override
+	public String toString() {
+		return engine + " (checked)";
+	}
+}
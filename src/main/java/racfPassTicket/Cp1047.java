@@ -0,0 +1,75 @@
+package racfPassTicket;
+
+import java.io.UnsupportedEncodingException;
+
+/**
+ * <p>Encoding of user IDs and application names in EBCDIC (code page 1047).</p>
+ *
+ * <p>The printable ASCII characters are translated with a precomputed table. Only strings with other characters are
+ * encoded by the CP1047 charset of the JRE.</p>
+ */
+final class Cp1047 {
+	/** The CP1047 codes of the printable ASCII characters 0x20 to 0x7E. */
+	private static final byte[] PRINTABLE = {
+		(byte) 0x40, (byte) 0x5A, (byte) 0x7F, (byte) 0x7B, (byte) 0x5B, (byte) 0x6C, (byte) 0x50, (byte) 0x7D,
+		(byte) 0x4D, (byte) 0x5D, (byte) 0x5C, (byte) 0x4E, (byte) 0x6B, (byte) 0x60, (byte) 0x4B, (byte) 0x61,
+		(byte) 0xF0, (byte) 0xF1, (byte) 0xF2, (byte) 0xF3, (byte) 0xF4, (byte) 0xF5, (byte) 0xF6, (byte) 0xF7,
+		(byte) 0xF8, (byte) 0xF9, (byte) 0x7A, (byte) 0x5E, (byte) 0x4C, (byte) 0x7E, (byte) 0x6E, (byte) 0x6F,
+		(byte) 0x7C, (byte) 0xC1, (byte) 0xC2, (byte) 0xC3, (byte) 0xC4, (byte) 0xC5, (byte) 0xC6, (byte) 0xC7,
+		(byte) 0xC8, (byte) 0xC9, (byte) 0xD1, (byte) 0xD2, (byte) 0xD3, (byte) 0xD4, (byte) 0xD5, (byte) 0xD6,
+		(byte) 0xD7, (byte) 0xD8, (byte) 0xD9, (byte) 0xE2, (byte) 0xE3, (byte) 0xE4, (byte) 0xE5, (byte) 0xE6,
+		(byte) 0xE7, (byte) 0xE8, (byte) 0xE9, (byte) 0xAD, (byte) 0xE0, (byte) 0xBD, (byte) 0x5F, (byte) 0x6D,
+		(byte) 0x79, (byte) 0x81, (byte) 0x82, (byte) 0x83, (byte) 0x84, (byte) 0x85, (byte) 0x86, (byte) 0x87,
+		(byte) 0x88, (byte) 0x89, (byte) 0x91, (byte) 0x92, (byte) 0x93, (byte) 0x94, (byte) 0x95, (byte) 0x96,
+		(byte) 0x97, (byte) 0x98, (byte) 0x99, (byte) 0xA2, (byte) 0xA3, (byte) 0xA4, (byte) 0xA5, (byte) 0xA6,
+		(byte) 0xA7, (byte) 0xA8, (byte) 0xA9, (byte) 0xC0, (byte) 0x4F, (byte) 0xD0, (byte) 0xA1
+	};
+
+	private Cp1047() {}
+
+	/**
+	 * Checks whether a character may be part of a RACF user ID or application name: A to Z, 0 to 9 and the national characters # $ @.
+	 * @param c The character
+	 * @return true if the character is allowed
+	 */
+	static boolean isAllowedInName(char c) {
+		return (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '#' || c == '$' || c == '@';
+	}
+
+	/**
+	 * Encodes a printable ASCII character in CP1047.
+	 * @param c The character (0x20 to 0x7E)
+	 * @return The CP1047 code
+	 */
+	static byte encode(char c) {
+		return PRINTABLE[c - 0x20];
+	}
+
+	/**
+	 * Encodes a string in CP1047.
+	 * @param str The string
+	 * @return The CP1047 bytes, one for each character
+	 * @throws UnsupportedEncodingException If the string has characters outside the table and the JRE does not support CP1047
+	 */
+	static byte[] getBytes(String str) throws UnsupportedEncodingException {
+		byte[] bytes = new byte[str.length()];
+		for (int i = 0; i < bytes.length; i++) {
+			char c = str.charAt(i);
+			if (c < 0x20 || c > 0x7E) {
+				return str.getBytes("CP1047");
+			}
+			bytes[i] = PRINTABLE[c - 0x20];
+		}
+		return bytes;
+	}
+
+	/**
+	 * Encodes a validated user ID or application name in CP1047.
+	 * @param name The user ID or application name, padded to 8 characters
+	 * @return The 8 CP1047 bytes, the first character being the most significant byte
+	 * @throws UnsupportedEncodingException If the name has characters outside the table and the JRE does not support CP1047
+	 */
+	static long encode(String name) throws UnsupportedEncodingException {
+		return PassTicketUtils.byteArrayToLong(getBytes(name), 0, 8);
+	}
+}
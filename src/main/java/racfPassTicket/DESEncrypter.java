@@ -3,11 +3,18 @@ package racfPassTicket;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 
+import racfPassTicket.exceptions.PassTicketError;
 import racfPassTicket.exceptions.PassTicketException;
 
 /** Class providing functions for performing DES encryption. */
 public class DESEncrypter {
 	private Cipher ecipher;
+	private final byte[] inputBlock = new byte[8];
+	private final byte[] outputBlock = new byte[8];
+
+	/** Constructor for subclasses which do not use the JCE cipher. */
+	protected DESEncrypter() {
+	}
 
 	/**
 	 * Instantiates the DES encrypter.
@@ -20,7 +27,7 @@ public class DESEncrypter {
 			ecipher.init(Cipher.ENCRYPT_MODE, key);
 		}
 		catch(Exception e) {
-			throw new PassTicketException("Cannot instantiate the DES encrypter", e.getCause());
+			throw new PassTicketException(PassTicketError.ENCRYPTION_FAILED, "Cannot instantiate the DES encrypter", e);
 		}
 	}
 
@@ -34,7 +41,36 @@ public class DESEncrypter {
 		try {
 			return ecipher.doFinal(bytesToEncrypt);
 		} catch (Exception e) {
-			throw new PassTicketException("Error during encryption.", e.getCause());
+			throw new PassTicketException(PassTicketError.ENCRYPTION_FAILED, e);
+		}
+	}
+
+	/**
+	 * Encrypts a single 8 byte block without allocating any objects. Not thread-safe.
+	 * @param block The block to be encrypted, the left byte being the most significant one
+	 * @return The encrypted block
+	 * @throws PassTicketException
+	 */
+	protected long encrypt(long block) throws PassTicketException {
+		PassTicketUtils.longToByteArray(block, inputBlock);
+		try {
+			ecipher.doFinal(inputBlock, 0, 8, outputBlock, 0);
+		} catch (Exception e) {
+			throw new PassTicketException(PassTicketError.ENCRYPTION_FAILED, e);
+		}
+		return PassTicketUtils.byteArrayToLong(outputBlock, 0, 8);
+	}
+
+	/**
+	 * Encrypts several 8 byte blocks in place. Not thread-safe. Subclasses may encrypt them all at once.
+	 * @param blocks The blocks, the left byte of each being the most significant one
+	 * @param offset The index of the first block to encrypt
+	 * @param count The number of blocks to encrypt
+	 * @throws PassTicketException
+	 */
+	protected void encrypt(long[] blocks, int offset, int count) throws PassTicketException {
+		for (int i = offset; i < offset + count; i++) {
+			blocks[i] = encrypt(blocks[i]);
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package racfPassTicket;
+
+/** The implementations of DES which can be used for generating PassTickets, see {@link PassTicketGenerator#forKey(String, DESImplementation)}. */
+public enum DESImplementation {
+	/** The <code>DES/ECB/NoPadding</code> cipher of the Java Cryptography Extension, one instance per thread. */
+	JCE,
+	/** A plain Java implementation working on primitive longs, one instance shared by all threads. */
+	LONG,
+	/**
+	 * DES of the OpenSSL <code>libcrypto</code>, called through the foreign function and memory API, one instance per
+	 * thread. Falls back to {@link #JCE} if the JRE or the library does not support it.
+	 */
+	NATIVE
+}
@@ -0,0 +1,74 @@
+package racfPassTicket;
+
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * The built-in engines: the {@link DESEncrypter}, {@link LongDESEncrypter} or {@link NativeDESEncrypter} of a
+ * {@link PassTicketKey} and the {@link TimeCoder}. With the JCE cipher this is the reference engine.
+ *
+ * <p>A {@link PassTicketGenerator} with a built-in engine only takes the DES encrypter from it, see
+ * {@link #getDESEncrypter(PassTicketKey)}, and keeps using its prefix cache and time-coder tables.</p>
+ */
+final class DESPassTicketEngine implements PassTicketEngine {
+	/** The time coder has no state, so one instance serves all threads. */
+	private static final TimeCoder TIME_CODER = new TimeCoder();
+
+	private final String name;
+	private final DESImplementation desImplementation;
+
+	DESPassTicketEngine(String name, DESImplementation desImplementation) {
+		this.name = name;
+		this.desImplementation = desImplementation;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public Prepared prepare(byte[] keyBytes) throws PassTicketException {
+		try {
+			return new PreparedKey(PassTicketKey.fromKeyBytes(keyBytes, desImplementation, null));
+		} catch (PassTicketInvalidInputException e) {
+			throw new PassTicketException(e.getError(), e);
+		}
+	}
+
+	/**
+	 * Returns the DES encrypter of this engine for a key: the key's own if it uses the same implementation of DES,
+	 * otherwise that of the key prepared for this engine.
+	 * @param key The secured signon application key
+	 * @return The DES encrypter for the calling thread
+	 * @throws PassTicketException
+	 */
+	DESEncrypter getDESEncrypter(PassTicketKey key) throws PassTicketException {
+		if (key.getDESImplementation() == desImplementation) {
+			return key.getDESEncrypter();
+		}
+		return ((PreparedKey) key.prepare(this)).key.getDESEncrypter();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+	/** The engine prepared for a key: a copy of the key with the implementation of DES of the engine. */
+	private static final class PreparedKey implements Prepared {
+		final PassTicketKey key;
+
+		PreparedKey(PassTicketKey key) {
+			this.key = key;
+		}
+
+		@Override
+		public int computeResult5(long userId, long applicationName, long padding1, long padding2, int timeInfo) throws PassTicketException {
+			DESEncrypter desEncrypter = key.getDESEncrypter();
+			int result3 = PassTicketGenerator.computeResult3(userId, applicationName, desEncrypter);
+			// step 4: XOR result3 with the date/time information -> result4, step 5: time coder algorithm -> result5
+			return TIME_CODER.timeCoder(result3 ^ timeInfo, padding1, padding2, desEncrypter);
+		}
+	}
+}
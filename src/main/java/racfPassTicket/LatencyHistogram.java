@@ -0,0 +1,114 @@
+package racfPassTicket;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A histogram of latencies with a relative precision of about 6 %, in the style of HdrHistogram.</p>
+ *
+ * <p>Values below 16 have a bucket each; above, every power of two is divided into 16 buckets of equal width.
+ * Recording is an increment of one bucket without locks or allocation. Percentiles are read from the buckets and
+ * reported as the highest value of the bucket, so they are never lower than the true value.</p>
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Records a value.
+	 * @param value The value, e.g. a latency in nanoseconds; negative values are recorded as 0
+	 */
+	public void record(long value) {
+		long v = Math.max(0, value);
+		counts.incrementAndGet(bucketIndex(v));
+		count.increment();
+		sum.add(v);
+		max.accumulate(v);
+	}
+
+	/** @return The number of recorded values */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/** @return The mean of the recorded values, or 0 if there are none */
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	/** @return The highest recorded value */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Returns a percentile of the recorded values.
+	 * @param percentile The percentile, from 0 to 100
+	 * @return The highest value of the bucket containing the percentile (at most the maximum), or 0 if there are no values
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(highestValue(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/** Removes all recorded values. Values recorded concurrently may be lost or kept. */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	/**
+	 * @param value The non-negative value
+	 * @return The index of the bucket of the value
+	 */
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @param index The index of a bucket
+	 * @return The highest value falling into the bucket
+	 */
+	static long highestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int shift = exponent - SUB_BUCKET_BITS;
+		long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
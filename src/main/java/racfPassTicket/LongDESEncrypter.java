@@ -0,0 +1,116 @@
+package racfPassTicket;
+
+import racfPassTicket.exceptions.PassTicketException;
+
+/**
+ * <p>A DES encrypter implemented in plain Java which encrypts one block held in a <code>long</code>.</p>
+ *
+ * <p>The round keys are computed once per key. The S-boxes are combined with the following permutation P into
+ * 8 tables of 32 bit words, and the initial and final permutations are done with byte-wise lookup tables.
+ * Unlike the JCE based {@link DESEncrypter}, an instance has no mutable state and can be shared by all threads.</p>
+ */
+class LongDESEncrypter extends DESEncrypter {
+	/** S-box and P permutation combined: SP[i][x] is the permuted output of S-box i+1 for the 6 bit input x. */
+	private static final int[][] SP = createSPTables();
+	private static final long[][] IP_LOOKUP = createPermutationLookupTables(DESTables.IP);
+	private static final long[][] FP_LOOKUP = createPermutationLookupTables(DESTables.FP);
+
+	/** The round keys, split into the 6 bit inputs of the S-boxes: round r, S-box i -> roundKeys[r * 8 + i]. */
+	private final int[] roundKeys = new int[16 * 8];
+
+	/**
+	 * Instantiates the DES encrypter.
+	 * @param key The 8 byte key
+	 */
+	LongDESEncrypter(byte[] key) {
+		long[] keys = DESTables.roundKeys(PassTicketUtils.byteArrayToLong(key, 0, 8));
+		for (int round = 0; round < 16; round++) {
+			for (int box = 0; box < 8; box++) {
+				roundKeys[round * 8 + box] = (int) (keys[round] >>> (42 - 6 * box)) & 0x3F;
+			}
+		}
+	}
+
+	@Override
+	protected byte[] encrypt(byte[] bytesToEncrypt) throws PassTicketException {
+		if (bytesToEncrypt.length % 8 != 0) {
+			throw new PassTicketException("Error during encryption. Input length must be a multiple of 8 bytes.");
+		}
+		byte[] result = new byte[bytesToEncrypt.length];
+		byte[] block = new byte[8];
+		for (int offset = 0; offset < bytesToEncrypt.length; offset += 8) {
+			PassTicketUtils.longToByteArray(encrypt(PassTicketUtils.byteArrayToLong(bytesToEncrypt, offset, 8)), block);
+			System.arraycopy(block, 0, result, offset, 8);
+		}
+		return result;
+	}
+
+	@Override
+	protected long encrypt(long block) {
+		block = permute(IP_LOOKUP, block);
+		int left = (int) (block >>> 32);
+		int right = (int) block;
+
+		for (int round = 0; round < 128; round += 8) {
+			// the expansion E selects bits 4i-1 to 4i+4 (modulo 32) as input of S-box i
+			int f = SP[0][((right << 5) | (right >>> 27)) & 0x3F ^ roundKeys[round]]
+					| SP[1][(right >>> 23) & 0x3F ^ roundKeys[round + 1]]
+					| SP[2][(right >>> 19) & 0x3F ^ roundKeys[round + 2]]
+					| SP[3][(right >>> 15) & 0x3F ^ roundKeys[round + 3]]
+					| SP[4][(right >>> 11) & 0x3F ^ roundKeys[round + 4]]
+					| SP[5][(right >>> 7) & 0x3F ^ roundKeys[round + 5]]
+					| SP[6][(right >>> 3) & 0x3F ^ roundKeys[round + 6]]
+					| SP[7][((right << 1) | (right >>> 31)) & 0x3F ^ roundKeys[round + 7]];
+			int newRight = left ^ f;
+			left = right;
+			right = newRight;
+		}
+
+		// the halves are swapped after the last round
+		return permute(FP_LOOKUP, ((long) right << 32) | (left & 0xFFFFFFFFL));
+	}
+
+	/**
+	 * Permutes a block with byte-wise lookup tables.
+	 * @param lookup The lookup tables of the permutation
+	 * @param block The block to permute
+	 * @return The permuted block
+	 */
+	private static long permute(long[][] lookup, long block) {
+		long result = 0;
+		for (int i = 0; i < 8; i++) {
+			result |= lookup[i][(int) (block >>> (56 - 8 * i)) & 0xFF];
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the lookup tables of a 64 bit permutation: lookup[i][b] is the permutation of byte i having the value b.
+	 * @param table The permutation table
+	 * @return The lookup tables
+	 */
+	private static long[][] createPermutationLookupTables(int[] table) {
+		long[][] lookup = new long[8][256];
+		for (int i = 0; i < 8; i++) {
+			for (int value = 0; value < 256; value++) {
+				lookup[i][value] = DESTables.permute((long) value << (56 - 8 * i), 64, table);
+			}
+		}
+		return lookup;
+	}
+
+	/**
+	 * Creates the combined S-box and P permutation tables.
+	 * @return The tables
+	 */
+	private static int[][] createSPTables() {
+		int[][] sp = new int[8][64];
+		for (int box = 0; box < 8; box++) {
+			for (int input = 0; input < 64; input++) {
+				long output = (long) DESTables.sbox(box, input) << (28 - 4 * box);
+				sp[box][input] = (int) DESTables.permute(output, 32, DESTables.P);
+			}
+		}
+		return sp;
+	}
+}
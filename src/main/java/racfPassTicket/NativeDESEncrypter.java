@@ -0,0 +1,419 @@
+package racfPassTicket;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Cleaner;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketException;
+
+/**
+ * <p>A DES encrypter calling the OpenSSL <code>libcrypto</code> through the foreign function and memory API
+ * (<code>java.lang.foreign</code>, final in Java 22).</p>
+ *
+ * <p>The key schedule is computed once per instance by <code>DES_set_key_unchecked</code> into off-heap memory, and a
+ * single block is encrypted by one downcall of <code>DES_ecb_encrypt</code>. {@link #encrypt(long[], int, int)}
+ * encrypts up to {@value #BATCH_BLOCKS} blocks with a single downcall of <code>EVP_EncryptUpdate</code>, with DES-ECB
+ * fetched from the OpenSSL legacy provider in a library context of its own; if that is not available, it makes one
+ * downcall per block. The blocks are passed in off-heap buffers of the instance, so like the JCE based
+ * {@link DESEncrypter} an instance is not thread-safe. The native memory is cleared and freed once the instance is
+ * no longer reachable.</p>
+ *
+ * <p>The API is looked up by reflection, so that the class compiles and runs on older JREs. {@link #isAvailable()}
+ * tells whether it can be used; {@link PassTicketKey} falls back to the JCE cipher otherwise. On Java 22 and later
+ * the JVM warns about the native access unless it is started with <code>--enable-native-access=ALL-UNNAMED</code>.</p>
+ */
+class NativeDESEncrypter extends DESEncrypter {
+	/** The number of blocks encrypted by one downcall of <code>EVP_EncryptUpdate</code>. */
+	static final int BATCH_BLOCKS = 1024;
+	private static final Cleaner CLEANER = Cleaner.create(runnable -> {
+		Thread thread = new Thread(runnable, "passticket-native-cleaner");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Resources resources;
+	private final Object schedule;
+	/** The <code>EVP_CIPHER_CTX</code> with the key, or null if one downcall is made per block */
+	private final Object context;
+	/** 16 bytes: the input block followed by the output block of <code>DES_ecb_encrypt</code>. */
+	private final Object block;
+	private final Object output;
+	private final Object outputLength;
+	private Object batch;
+
+	/**
+	 * Instantiates the DES encrypter.
+	 * @param key The 8 byte key, which is not kept
+	 * @throws PassTicketException If <code>libcrypto</code> is not available or fails
+	 */
+	NativeDESEncrypter(byte[] key) throws PassTicketException {
+		if (!isAvailable()) {
+			throw new PassTicketException(PassTicketError.ENCRYPTION_FAILED, "Cannot use libcrypto: " + LibCrypto.UNAVAILABLE_REASON, null);
+		}
+		try {
+			resources = new Resources(LibCrypto.OF_SHARED.invokeExact());
+		} catch (Throwable e) {
+			throw new PassTicketException(PassTicketError.ENCRYPTION_FAILED, "Cannot instantiate the DES encrypter", e);
+		}
+		try {
+			Object keyBlock = allocate(8);
+			block = allocate(16);
+			output = LibCrypto.SLICE.invokeExact(block, 8L);
+			outputLength = allocate(4);
+			LibCrypto.SET_LONG.invokeExact(keyBlock, 0L, PassTicketUtils.byteArrayToLong(key, 0, 8));
+			schedule = allocate(LibCrypto.SCHEDULE_SIZE);
+			resources.schedule = schedule;
+			LibCrypto.DES_SET_KEY_UNCHECKED.invokeExact(keyBlock, schedule);
+			if (LibCrypto.CIPHER != null) {
+				Object newContext = LibCrypto.EVP_CIPHER_CTX_NEW.invokeExact();
+				if (!LibCrypto.NULL.equals(newContext)) {
+					resources.context = newContext;
+					if ((int) LibCrypto.EVP_ENCRYPT_INIT_EX.invokeExact(newContext, LibCrypto.CIPHER, LibCrypto.NULL, keyBlock, LibCrypto.NULL) != 1
+							|| (int) LibCrypto.EVP_CIPHER_CTX_SET_PADDING.invokeExact(newContext, 0) != 1) {
+						resources.freeContext();
+					}
+				}
+			}
+			context = resources.context;
+			Object unused = LibCrypto.FILL.invokeExact(keyBlock, (byte) 0);
+		} catch (Throwable e) {
+			resources.run();
+			throw new PassTicketException(PassTicketError.ENCRYPTION_FAILED, "Cannot instantiate the DES encrypter", e);
+		}
+		CLEANER.register(this, resources);
+	}
+
+	/** @return true if <code>libcrypto</code> can be called from this JVM */
+	static boolean isAvailable() {
+		return LibCrypto.UNAVAILABLE_REASON == null;
+	}
+
+	/** @return Why <code>libcrypto</code> cannot be called, or null if it can */
+	static String getUnavailableReason() {
+		return LibCrypto.UNAVAILABLE_REASON;
+	}
+
+	/** @return true if blocks are encrypted in batches by one downcall, false if one downcall is made per block */
+	boolean isBatching() {
+		return context != null;
+	}
+
+	@Override
+	protected byte[] encrypt(byte[] bytesToEncrypt) throws PassTicketException {
+		if (bytesToEncrypt.length % 8 != 0) {
+			throw new PassTicketException("Error during encryption. Input length must be a multiple of 8 bytes.");
+		}
+		long[] blocks = new long[bytesToEncrypt.length / 8];
+		for (int i = 0; i < blocks.length; i++) {
+			blocks[i] = PassTicketUtils.byteArrayToLong(bytesToEncrypt, i * 8, 8);
+		}
+		encrypt(blocks, 0, blocks.length);
+		byte[] result = new byte[bytesToEncrypt.length];
+		byte[] bytes = new byte[8];
+		for (int i = 0; i < blocks.length; i++) {
+			PassTicketUtils.longToByteArray(blocks[i], bytes);
+			System.arraycopy(bytes, 0, result, i * 8, 8);
+		}
+		return result;
+	}
+
+	@Override
+	protected long encrypt(long block) throws PassTicketException {
+		try {
+			LibCrypto.SET_LONG.invokeExact(this.block, 0L, block);
+			LibCrypto.DES_ECB_ENCRYPT.invokeExact(this.block, output, schedule, 1);
+			return (long) LibCrypto.GET_LONG.invokeExact(this.block, 8L);
+		} catch (Throwable e) {
+			throw new PassTicketException(PassTicketError.ENCRYPTION_FAILED, e);
+		}
+	}
+
+	@Override
+	protected void encrypt(long[] blocks, int offset, int count) throws PassTicketException {
+		if (context == null) {
+			super.encrypt(blocks, offset, count);
+			return;
+		}
+		try {
+			if (batch == null) {
+				batch = allocate(BATCH_BLOCKS * 8);
+			}
+			for (int done = 0; done < count; done += BATCH_BLOCKS) {
+				int length = Math.min(BATCH_BLOCKS, count - done);
+				LibCrypto.COPY_TO_SEGMENT.invokeExact((Object) blocks, offset + done, batch, length);
+				if ((int) LibCrypto.EVP_ENCRYPT_UPDATE.invokeExact(context, batch, outputLength, batch, length * 8) != 1) {
+					throw new PassTicketException(PassTicketError.ENCRYPTION_FAILED, "EVP_EncryptUpdate failed", null);
+				}
+				LibCrypto.COPY_FROM_SEGMENT.invokeExact(batch, (Object) blocks, offset + done, length);
+			}
+		} catch (PassTicketException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new PassTicketException(PassTicketError.ENCRYPTION_FAILED, e);
+		}
+	}
+
+	/**
+	 * @param size The number of bytes
+	 * @return A segment of zeroed native memory, freed with the encrypter
+	 * @throws Throwable
+	 */
+	private Object allocate(long size) throws Throwable {
+		return LibCrypto.ALLOCATE.invokeExact(resources.arena, size, 8L);
+	}
+
+	/** The native memory of an encrypter, released by the {@link Cleaner}. It must not refer to the encrypter. */
+	private static final class Resources implements Runnable {
+		final Object arena;
+		volatile Object schedule;
+		volatile Object context;
+
+		Resources(Object arena) {
+			this.arena = arena;
+		}
+
+		void freeContext() throws Throwable {
+			Object context = this.context;
+			this.context = null;
+			if (context != null) {
+				LibCrypto.EVP_CIPHER_CTX_FREE.invokeExact(context);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (schedule != null) {
+					Object unused = LibCrypto.FILL.invokeExact(schedule, (byte) 0);
+				}
+				// EVP_CIPHER_CTX_free clears the expanded key itself
+				freeContext();
+				LibCrypto.CLOSE.invokeExact(arena);
+			} catch (Throwable e) {
+				// nothing more can be done while cleaning up
+			}
+		}
+	}
+
+	/**
+	 * The method handles for <code>libcrypto</code> and for the memory segments, adapted to <code>Object</code> in place
+	 * of the types of <code>java.lang.foreign</code>. They are constants for the JIT compiler.
+	 */
+	private static final class LibCrypto {
+		/** The size of <code>DES_key_schedule</code>: 16 round keys of 8 bytes. */
+		static final long SCHEDULE_SIZE = 128;
+
+		static final String UNAVAILABLE_REASON;
+		/** <code>MemorySegment.NULL</code> */
+		static final Object NULL;
+		/** The DES-ECB <code>EVP_CIPHER</code>, or null if blocks cannot be encrypted in batches */
+		static final Object CIPHER;
+		/** <code>() -> Arena.ofShared()</code> */
+		static final MethodHandle OF_SHARED;
+		/** <code>(arena, size, alignment) -> arena.allocate(size, alignment)</code> */
+		static final MethodHandle ALLOCATE;
+		/** <code>(arena) -> arena.close()</code> */
+		static final MethodHandle CLOSE;
+		/** <code>(segment, value) -> segment.fill(value)</code> */
+		static final MethodHandle FILL;
+		/** <code>(segment, offset) -> segment.asSlice(offset)</code> */
+		static final MethodHandle SLICE;
+		/** <code>(segment, offset) -> big-endian long at offset</code> */
+		static final MethodHandle GET_LONG;
+		/** <code>(segment, offset, value) -> set big-endian long at offset</code> */
+		static final MethodHandle SET_LONG;
+		/** <code>(long[] array, index, segment, count) -> copy count longs to the start of the segment, big-endian</code> */
+		static final MethodHandle COPY_TO_SEGMENT;
+		/** <code>(segment, long[] array, index, count) -> copy count big-endian longs from the start of the segment</code> */
+		static final MethodHandle COPY_FROM_SEGMENT;
+		static final MethodHandle DES_SET_KEY_UNCHECKED;
+		static final MethodHandle DES_ECB_ENCRYPT;
+		static final MethodHandle EVP_CIPHER_CTX_NEW;
+		static final MethodHandle EVP_CIPHER_CTX_FREE;
+		static final MethodHandle EVP_CIPHER_CTX_SET_PADDING;
+		static final MethodHandle EVP_ENCRYPT_INIT_EX;
+		static final MethodHandle EVP_ENCRYPT_UPDATE;
+
+		static {
+			String unavailableReason = null;
+			Object nullSegment = null;
+			Object cipher = null;
+			MethodHandle[] handles = new MethodHandle[16];
+			try {
+				Linking linking = new Linking();
+				nullSegment = linking.segmentClass.getField("NULL").get(null);
+				handles[0] = linking.lookup.findStatic(linking.arenaClass, "ofShared", methodType(linking.arenaClass));
+				handles[1] = linking.lookup.findVirtual(linking.arenaClass, "allocate", methodType(linking.segmentClass, long.class, long.class));
+				handles[2] = linking.lookup.findVirtual(linking.arenaClass, "close", methodType(void.class));
+				handles[3] = linking.lookup.findVirtual(linking.segmentClass, "fill", methodType(linking.segmentClass, byte.class));
+				handles[4] = linking.lookup.findVirtual(linking.segmentClass, "asSlice", methodType(linking.segmentClass, long.class));
+				handles[5] = MethodHandles.insertArguments(linking.lookup.findVirtual(linking.segmentClass, "get", methodType(long.class, linking.longLayoutClass, long.class)), 1, linking.bigEndianLong);
+				handles[6] = MethodHandles.insertArguments(linking.lookup.findVirtual(linking.segmentClass, "set", methodType(void.class, linking.longLayoutClass, long.class, long.class)), 1, linking.bigEndianLong);
+				// copy(Object srcArray, int srcIndex, MemorySegment dstSegment, ValueLayout dstLayout, long dstOffset, int elementCount)
+				handles[7] = MethodHandles.insertArguments(linking.lookup.findStatic(linking.segmentClass, "copy", methodType(void.class, Object.class, int.class, linking.segmentClass, linking.valueLayoutClass, long.class, int.class)), 3, linking.bigEndianLong, 0L);
+				// copy(MemorySegment srcSegment, ValueLayout srcLayout, long srcOffset, Object dstArray, int dstIndex, int elementCount)
+				handles[8] = MethodHandles.insertArguments(linking.lookup.findStatic(linking.segmentClass, "copy", methodType(void.class, linking.segmentClass, linking.valueLayoutClass, long.class, Object.class, int.class, int.class)), 1, linking.bigEndianLong, 0L);
+				handles[9] = linking.downcall("DES_set_key_unchecked", void.class, Object.class, Object.class);
+				handles[10] = linking.downcall("DES_ecb_encrypt", void.class, Object.class, Object.class, Object.class, int.class);
+				try {
+					handles[11] = linking.downcall("EVP_CIPHER_CTX_new", Object.class);
+					handles[12] = linking.downcall("EVP_CIPHER_CTX_free", void.class, Object.class);
+					handles[13] = linking.downcall("EVP_CIPHER_CTX_set_padding", int.class, Object.class, int.class);
+					handles[14] = linking.downcall("EVP_EncryptInit_ex", int.class, Object.class, Object.class, Object.class, Object.class, Object.class);
+					handles[15] = linking.downcall("EVP_EncryptUpdate", int.class, Object.class, Object.class, Object.class, Object.class, int.class);
+					cipher = linking.fetchDESCipher(nullSegment);
+				} catch (Throwable e) {
+					cipher = null; // one downcall per block
+				}
+			} catch (Throwable e) {
+				unavailableReason = e instanceof ClassNotFoundException ? "the foreign function and memory API is not available in this JRE" : e.toString();
+			}
+			UNAVAILABLE_REASON = unavailableReason;
+			NULL = nullSegment;
+			CIPHER = cipher;
+			OF_SHARED = adapt(handles[0]);
+			ALLOCATE = adapt(handles[1]);
+			CLOSE = adapt(handles[2]);
+			FILL = adapt(handles[3]);
+			SLICE = adapt(handles[4]);
+			GET_LONG = adapt(handles[5]);
+			SET_LONG = adapt(handles[6]);
+			COPY_TO_SEGMENT = adapt(handles[7]);
+			COPY_FROM_SEGMENT = adapt(handles[8]);
+			DES_SET_KEY_UNCHECKED = handles[9];
+			DES_ECB_ENCRYPT = handles[10];
+			EVP_CIPHER_CTX_NEW = handles[11];
+			EVP_CIPHER_CTX_FREE = handles[12];
+			EVP_CIPHER_CTX_SET_PADDING = handles[13];
+			EVP_ENCRYPT_INIT_EX = handles[14];
+			EVP_ENCRYPT_UPDATE = handles[15];
+		}
+
+		/**
+		 * @param handle A method handle, or null
+		 * @return The handle with the types of <code>java.lang.foreign</code> replaced by <code>Object</code>
+		 */
+		private static MethodHandle adapt(MethodHandle handle) {
+			return handle == null ? null : handle.asType(Linking.erase(handle.type()));
+		}
+	}
+
+	/** Looks up the foreign function and memory API and <code>libcrypto</code>, used once by {@link LibCrypto}. */
+	private static final class Linking {
+		private static final String[] LIBRARY_NAMES = {"libcrypto.so.3", "libcrypto.so.1.1", "libcrypto.so", "libcrypto.3.dylib", "libcrypto.dylib", "libcrypto-3-x64.dll", "libcrypto-3.dll"};
+
+		final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		final Class<?> arenaClass = Class.forName("java.lang.foreign.Arena");
+		final Class<?> segmentClass = Class.forName("java.lang.foreign.MemorySegment");
+		final Class<?> valueLayoutClass = Class.forName("java.lang.foreign.ValueLayout");
+		final Class<?> longLayoutClass = Class.forName("java.lang.foreign.ValueLayout$OfLong");
+		final Class<?> memoryLayoutClass = Class.forName("java.lang.foreign.MemoryLayout");
+		final Class<?> descriptorClass = Class.forName("java.lang.foreign.FunctionDescriptor");
+		final Class<?> linkerClass = Class.forName("java.lang.foreign.Linker");
+		final Class<?> optionClass = Class.forName("java.lang.foreign.Linker$Option");
+		final Class<?> symbolLookupClass = Class.forName("java.lang.foreign.SymbolLookup");
+		final Object globalArena = arenaClass.getMethod("global").invoke(null);
+		final Object linker = linkerClass.getMethod("nativeLinker").invoke(null);
+		final Object library = loadLibrary();
+		final Object bigEndianLong = longLayoutClass.getMethod("withOrder", ByteOrder.class).invoke(valueLayoutClass.getField("JAVA_LONG_UNALIGNED").get(null), ByteOrder.BIG_ENDIAN);
+
+		Linking() throws ReflectiveOperationException {
+		}
+
+		private Object loadLibrary() throws ReflectiveOperationException {
+			for (String name : LIBRARY_NAMES) {
+				try {
+					return symbolLookupClass.getMethod("libraryLookup", String.class, arenaClass).invoke(null, name, globalArena);
+				} catch (InvocationTargetException e) {
+					// not found under this name
+				}
+			}
+			throw new UnsatisfiedLinkError("libcrypto not found");
+		}
+
+		/**
+		 * @param name The name of the C function
+		 * @param returnType <code>void.class</code>, <code>int.class</code> or <code>Object.class</code> for a pointer
+		 * @param parameterTypes <code>int.class</code> or <code>Object.class</code> for a pointer
+		 * @return A downcall handle taking <code>Object</code> in place of <code>MemorySegment</code>
+		 * @throws ReflectiveOperationException If the function is not found
+		 */
+		MethodHandle downcall(String name, Class<?> returnType, Class<?>... parameterTypes) throws ReflectiveOperationException {
+			Optional<?> symbol = (Optional<?>) symbolLookupClass.getMethod("find", String.class).invoke(library, name);
+			if (!symbol.isPresent()) {
+				throw new NoSuchMethodException(name);
+			}
+			Object layouts = Array.newInstance(memoryLayoutClass, parameterTypes.length);
+			for (int i = 0; i < parameterTypes.length; i++) {
+				Array.set(layouts, i, layout(parameterTypes[i]));
+			}
+			Object descriptor = returnType == void.class
+					? descriptorClass.getMethod("ofVoid", layouts.getClass()).invoke(null, layouts)
+					: descriptorClass.getMethod("of", memoryLayoutClass, layouts.getClass()).invoke(null, layout(returnType), layouts);
+			Object options = Array.newInstance(optionClass, 0);
+			MethodHandle handle = (MethodHandle) linkerClass.getMethod("downcallHandle", segmentClass, descriptorClass, options.getClass())
+					.invoke(linker, symbol.get(), descriptor, options);
+			return handle.asType(erase(handle.type()));
+		}
+
+		private Object layout(Class<?> type) throws ReflectiveOperationException {
+			return valueLayoutClass.getField(type == int.class ? "JAVA_INT" : "ADDRESS").get(null);
+		}
+
+		/**
+		 * Fetches DES-ECB from the legacy provider of OpenSSL 3, loaded into a library context of its own so that the
+		 * configuration of the default context is left alone, or gets it with <code>EVP_des_ecb</code> from OpenSSL 1.1.
+		 * @param nullSegment <code>MemorySegment.NULL</code>
+		 * @return The <code>EVP_CIPHER</code>
+		 * @throws Throwable If DES-ECB is not available
+		 */
+		Object fetchDESCipher(Object nullSegment) throws Throwable {
+			Object cipher;
+			MethodHandle newLibraryContext;
+			try {
+				newLibraryContext = downcall("OSSL_LIB_CTX_new", Object.class);
+			} catch (NoSuchMethodException e) {
+				cipher = downcall("EVP_des_ecb", Object.class).invoke();
+				return nullSegment.equals(cipher) ? null : cipher;
+			}
+			Object libraryContext = newLibraryContext.invoke();
+			Object provider = downcall("OSSL_PROVIDER_load", Object.class, Object.class, Object.class).invoke(libraryContext, cString("legacy"));
+			if (nullSegment.equals(libraryContext) || nullSegment.equals(provider)) {
+				return null;
+			}
+			cipher = downcall("EVP_CIPHER_fetch", Object.class, Object.class, Object.class, Object.class).invoke(libraryContext, cString("DES-ECB"), nullSegment);
+			return nullSegment.equals(cipher) ? null : cipher;
+		}
+
+		private Object cString(String string) throws Throwable {
+			byte[] bytes = string.getBytes(StandardCharsets.US_ASCII);
+			Object segment = lookup.findVirtual(arenaClass, "allocate", methodType(segmentClass, long.class, long.class)).invoke(globalArena, (long) bytes.length + 1, 1L);
+			lookup.findStatic(segmentClass, "copy", methodType(void.class, Object.class, int.class, segmentClass, valueLayoutClass, long.class, int.class))
+					.invoke(bytes, 0, segment, valueLayoutClass.getField("JAVA_BYTE").get(null), 0L, bytes.length);
+			return segment;
+		}
+
+		/**
+		 * @param type A method type
+		 * @return The type with the types of <code>java.lang.foreign</code> replaced by <code>Object</code>
+		 */
+		static MethodType erase(MethodType type) {
+			MethodType erased = type;
+			for (int i = 0; i < type.parameterCount(); i++) {
+				if (type.parameterType(i).getName().startsWith("java.lang.foreign.")) {
+					erased = erased.changeParameterType(i, Object.class);
+				}
+			}
+			return type.returnType().getName().startsWith("java.lang.foreign.") ? erased.changeReturnType(Object.class) : erased;
+		}
+	}
+}
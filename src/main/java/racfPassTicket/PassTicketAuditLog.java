@@ -0,0 +1,389 @@
+package racfPassTicket;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * <p>Records every PassTicket issued by a {@link PassTicketGenerator} in binary segment files, see
+ * {@link PassTicketGenerator#setAuditLog(PassTicketAuditLog)}.</p>
+ *
+ * <p>A record holds the time of issue, the time and date information, the user ID, the application name, the alias of
+ * the key and the SHA-256 hash of the PassTicket, never the PassTicket itself. The generating thread only claims a
+ * slot of a ring buffer with an atomic increment and fills it in; it neither locks, allocates nor does I/O. A single
+ * writer thread takes the filled slots in batches, hashes the PassTickets and appends the records to a memory-mapped
+ * segment. If the ring buffer is full, the generating thread waits for the writer rather than losing the record. The
+ * writer parks while there are no records and is woken by the thread publishing the next one.</p>
+ *
+ * <p>{@link #close()} marks the log as closed in the same atomic counter the generating threads claim their slots from,
+ * so every slot is either claimed before, and written before <code>close()</code> returns, or refused and counted
+ * as {@link #getDroppedCount() dropped}.</p>
+ *
+ * <p>Each segment is a file <code>passtickets-NNNNNNNN.audit</code> in the directory, mapped at its maximum size and
+ * truncated to its records when the next one is started or the log is closed. Every log starts a new segment after the
+ * existing ones. Records are in the page cache as soon as they are written, so they survive a crash of the JVM; they are
+ * forced to the disk at the end of each segment. {@link #read(Path, Consumer)} reads the records of a directory.</p>
+ *
+ * <p>The segment format: the magic number <code>PTAU</code> and the version 1 as a 4-byte integer; then the records,
+ * each the version byte 1, the time of issue in milliseconds (8 bytes), the time and date information (4 bytes), the
+ * user ID and application name as they were encoded, padded with blanks to 8 characters, and the key alias, each a
+ * length byte followed by the characters in UTF-8, and the 32-byte hash.
+ * A version byte 0 ends the segment. Numbers are big-endian.</p>
+ */
+public class PassTicketAuditLog implements AutoCloseable {
+	private static final int MAGIC = 0x50544155;
+	private static final byte VERSION = 1;
+	private static final int HEADER_SIZE = 8;
+	private static final int MAXIMUM_RECORD_SIZE = 1 + 8 + 4 + 3 * (1 + 255) + 32;
+	private static final String PREFIX = "passtickets-";
+	private static final String SUFFIX = ".audit";
+	/** How long a generating thread sleeps between its checks while the ring buffer is full. */
+	private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+	/** Set in {@link #claimed} by {@link #close()}. */
+	private static final long CLOSED = Long.MIN_VALUE;
+
+	private final Path directory;
+	private final long segmentSize;
+	private final Slot[] slots;
+	private final int mask;
+	/** The next sequence number to be claimed by a generating thread, with the {@link #CLOSED} bit once the log is closed. */
+	private final AtomicLong claimed = new AtomicLong();
+	/** The next sequence number to be taken by the writer. */
+	private volatile long consumed;
+	/** The number of sequence numbers claimed before the log was closed, or -1 while it is open. */
+	private volatile long claimedBeforeClose = -1;
+	/** true while the writer is parked or about to park, so that the thread publishing a record wakes it. */
+	private volatile boolean writerParked;
+	private final Thread writer;
+
+	private final LongAdder written = new LongAdder();
+	private final LongAdder waits = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private volatile Exception lastFailure;
+
+	// used by the writer thread only
+	private final MessageDigest digest = PassTicketAuditRecord.newDigest();
+	private final byte[] hash = new byte[32];
+	private final byte[] passTicketBytes = new byte[8];
+	private int segmentNumber;
+	private FileChannel channel;
+	private MappedByteBuffer segment;
+	/** The position in {@link #segment} after its last complete record. */
+	private int recordsEnd;
+
+	/**
+	 * Opens the log and starts its writer thread.
+	 * @param directory The directory of the segments, which is created if it does not exist
+	 * @param bufferSize The number of records the ring buffer holds, rounded up to a power of 2
+	 * @param segmentSize The maximum size of a segment in bytes
+	 * @throws IOException If the directory cannot be created or read
+	 */
+	public PassTicketAuditLog(Path directory, int bufferSize, long segmentSize) throws IOException {
+		if (bufferSize < 1 || bufferSize > 1 << 30) {
+			throw new IllegalArgumentException("The buffer size must be between 1 and 2^30.");
+		} else if (segmentSize < HEADER_SIZE + MAXIMUM_RECORD_SIZE || segmentSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The segment size must be between " + (HEADER_SIZE + MAXIMUM_RECORD_SIZE) + " and 2^31 - 1.");
+		}
+		this.directory = Files.createDirectories(directory);
+		this.segmentSize = segmentSize;
+		this.slots = new Slot[bufferSize == 1 ? 1 : Integer.highestOneBit(bufferSize - 1) << 1];
+		this.mask = slots.length - 1;
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = new Slot(i - slots.length);
+		}
+		List<Path> existing = segments(directory);
+		segmentNumber = existing.isEmpty() ? 0 : segmentNumber(existing.get(existing.size() - 1));
+		writer = new Thread(this::write, "passticket-audit-log");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Records an issued PassTicket. Called by the generating thread.
+	 * @param timeInfo The time and date information of the PassTicket
+	 * @param userId The validated user ID, padded with blanks to 8 characters
+	 * @param applicationName The validated application name, padded with blanks to 8 characters
+	 * @param key The key
+	 * @param result5 Result-5 of the PassTicket algorithm, if passTicket is null
+	 * @param passTicket The PassTicket, or null to translate result5 in the writer thread
+	 */
+	void issued(int timeInfo, String userId, String applicationName, PassTicketKey key, int result5, String passTicket) {
+		long sequence = claimed.getAndIncrement();
+		if ((sequence & CLOSED) != 0) {
+			dropped.increment();
+			return;
+		}
+		if (sequence - consumed >= slots.length) {
+			// the writer takes every sequence number claimed before close(), so the slot becomes free
+			waits.increment();
+			for (int spins = 0; sequence - consumed >= slots.length; spins++) {
+				if (spins < 100) {
+					Thread.onSpinWait();
+				} else {
+					LockSupport.parkNanos(WAIT_NANOS);
+				}
+			}
+		}
+		Slot slot = slots[(int) sequence & mask];
+		slot.issuedMillis = System.currentTimeMillis();
+		slot.timeInfo = timeInfo;
+		slot.userId = userId;
+		slot.applicationName = applicationName;
+		slot.keyAlias = key.getAlias();
+		slot.result5 = result5;
+		slot.passTicket = passTicket;
+		slot.published = sequence;
+		if (writerParked) {
+			LockSupport.unpark(writer);
+		}
+	}
+
+	/**
+	 * Refuses further records, writes those claimed so far, stops the writer thread and truncates the last segment.
+	 */
+	@Override
+	public void close() {
+		long claims = claimed.getAndUpdate(value -> value | CLOSED);
+		if ((claims & CLOSED) == 0) {
+			claimedBeforeClose = claims;
+			LockSupport.unpark(writer);
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			// the writer finishes on its own
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** @return The number of records written */
+	public long getWrittenCount() {
+		return written.sum();
+	}
+
+	/** @return The number of times a generating thread had to wait because the ring buffer was full */
+	public long getWaitCount() {
+		return waits.sum();
+	}
+
+	/** @return The number of records which could not be written, see {@link #getLastFailure()} */
+	public long getFailureCount() {
+		return failures.sum();
+	}
+
+	/** @return The number of PassTickets issued once the log was being closed, which are not recorded */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/** @return The exception of the last record which could not be written, or null */
+	public Exception getLastFailure() {
+		return lastFailure;
+	}
+
+	/**
+	 * Reads the records of all segments of a directory, in the order in which they were written.
+	 * @param directory The directory of the segments
+	 * @param consumer Receives the records
+	 * @throws IOException If a segment cannot be read or is corrupt
+	 */
+	public static void read(Path directory, Consumer<PassTicketAuditRecord> consumer) throws IOException {
+		for (Path path : segments(directory)) {
+			try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+				ByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+				if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+					throw new IOException(path + " is not a PassTicket audit log segment.");
+				}
+				try {
+					while (buffer.hasRemaining() && buffer.get() == VERSION) {
+						long issuedMillis = buffer.getLong();
+						int timeInfo = buffer.getInt();
+						String userId = getString(buffer);
+						String applicationName = getString(buffer);
+						String keyAlias = getString(buffer);
+						byte[] passTicketHash = new byte[32];
+						buffer.get(passTicketHash);
+						consumer.accept(new PassTicketAuditRecord(issuedMillis, timeInfo, userId, applicationName, keyAlias, passTicketHash));
+					}
+				} catch (BufferUnderflowException e) {
+					throw new IOException(path + " ends within a record.", e);
+				}
+			}
+		}
+	}
+
+	/** The loop of the writer thread: takes the published slots in order until the log is closed and drained. */
+	private void write() {
+		long next = consumed;
+		while (true) {
+			Slot slot = slots[(int) next & mask];
+			if (slot.published != next) {
+				long end = claimedBeforeClose;
+				if (end < 0) {
+					park(slot, next);
+				} else if (next == end) {
+					break;
+				} else {
+					// claimed before close() by a thread which is still filling the slot in
+					Thread.onSpinWait();
+				}
+				continue;
+			}
+			// a batch: all slots published so far
+			do {
+				writeRecord(slot);
+				slot.userId = null;
+				slot.applicationName = null;
+				slot.keyAlias = null;
+				slot.passTicket = null;
+				next++;
+				slot = slots[(int) next & mask];
+			} while (slot.published == next);
+			consumed = next;
+		}
+		closeSegment();
+	}
+
+	/**
+	 * Parks the idle writer until a record is published in the slot or the log is closed.
+	 * @param slot The slot of the next record
+	 * @param sequence The sequence number of the next record
+	 */
+	private void park(Slot slot, long sequence) {
+		writerParked = true;
+		// a record published before the flag was visible has to be seen here
+		if (slot.published != sequence && claimedBeforeClose < 0) {
+			LockSupport.park(this);
+		}
+		writerParked = false;
+	}
+
+	private void writeRecord(Slot slot) {
+		try {
+			String passTicket = slot.passTicket != null ? slot.passTicket : PassTicketGenerator.translate(slot.result5);
+			for (int i = 0; i < passTicketBytes.length; i++) {
+				passTicketBytes[i] = (byte) passTicket.charAt(i);
+			}
+			digest.update(passTicketBytes);
+			digest.digest(hash, 0, hash.length);
+
+			byte[] userId = slot.userId.getBytes(StandardCharsets.UTF_8);
+			byte[] applicationName = slot.applicationName.getBytes(StandardCharsets.UTF_8);
+			byte[] keyAlias = slot.keyAlias == null ? new byte[0] : slot.keyAlias.getBytes(StandardCharsets.UTF_8);
+			int length = 1 + 8 + 4 + 3 + userId.length + applicationName.length + Math.min(keyAlias.length, 255) + hash.length;
+			if (segment == null || segment.remaining() < length + 1) {
+				closeSegment();
+				openSegment();
+			}
+			segment.put(VERSION).putLong(slot.issuedMillis).putInt(slot.timeInfo);
+			putString(segment, userId);
+			putString(segment, applicationName);
+			putString(segment, keyAlias);
+			segment.put(hash);
+			recordsEnd = segment.position();
+			written.increment();
+		} catch (IOException | DigestException | RuntimeException e) {
+			// the record is lost, the segment ends with the last complete one and the next one is written to a new segment
+			failures.increment();
+			lastFailure = e;
+			if (segment != null) {
+				segment.position(recordsEnd);
+			}
+			closeSegment();
+		}
+	}
+
+	private void openSegment() throws IOException {
+		Path path = directory.resolve(String.format("%s%08d%s", PREFIX, ++segmentNumber, SUFFIX));
+		channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		segment.putInt(MAGIC).putInt(VERSION);
+		recordsEnd = segment.position();
+	}
+
+	/** Forces the current segment to the disk and truncates it to its records. */
+	private void closeSegment() {
+		if (channel == null) {
+			return;
+		}
+		try {
+			if (segment != null) {
+				segment.force();
+				channel.truncate(segment.position());
+			}
+			channel.close();
+		} catch (IOException e) {
+			lastFailure = e;
+		}
+		channel = null;
+		segment = null;
+	}
+
+	private static void putString(ByteBuffer buffer, byte[] bytes) {
+		int length = Math.min(bytes.length, 255);
+		buffer.put((byte) length).put(bytes, 0, length);
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.get() & 0xFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param directory The directory
+	 * @return The segments of the directory, ordered by number
+	 * @throws IOException
+	 */
+	private static List<Path> segments(Path directory) throws IOException {
+		List<Path> segments = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+			for (Path path : stream) {
+				segments.add(path);
+			}
+		}
+		// the numbers have 8 digits, so the names sort like the numbers
+		Collections.sort(segments);
+		return segments;
+	}
+
+	private static int segmentNumber(Path segment) {
+		String name = segment.getFileName().toString();
+		return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+	}
+
+	/** A slot of the ring buffer, reused for the sequence numbers with the same index. */
+	private static final class Slot {
+		/** The sequence number of the record in the slot; set last by the generating thread. */
+		volatile long published;
+		long issuedMillis;
+		int timeInfo;
+		String userId;
+		String applicationName;
+		String keyAlias;
+		int result5;
+		String passTicket;
+
+		Slot(long published) {
+			this.published = published;
+		}
+	}
+}
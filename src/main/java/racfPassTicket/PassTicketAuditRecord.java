@@ -0,0 +1,106 @@
+package racfPassTicket;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * <p>A record of an issued PassTicket in the {@link PassTicketAuditLog}.</p>
+ *
+ * <p>The PassTicket itself is not stored, only its SHA-256 hash; {@link #matches(String)} tells whether a presented
+ * PassTicket is the recorded one.</p>
+ */
+public final class PassTicketAuditRecord {
+	private final long issuedMillis;
+	private final int timeInfo;
+	private final String userId;
+	private final String applicationName;
+	private final String keyAlias;
+	private final byte[] passTicketHash;
+
+	PassTicketAuditRecord(long issuedMillis, int timeInfo, String userId, String applicationName, String keyAlias, byte[] passTicketHash) {
+		this.issuedMillis = issuedMillis;
+		this.timeInfo = timeInfo;
+		this.userId = userId;
+		this.applicationName = applicationName;
+		this.keyAlias = keyAlias;
+		this.passTicketHash = passTicketHash;
+	}
+
+	/** @return The time the PassTicket was issued, in milliseconds since 1.1.1970, 00:00 UTC */
+	public long getIssuedMillis() {
+		return issuedMillis;
+	}
+
+	/** @return The time and date information of the PassTicket (seconds since 1.1.1970, 00:00 UTC) */
+	public int getTimeInfo() {
+		return timeInfo;
+	}
+
+	/** @return The user ID as it was encoded, padded with blanks to 8 characters */
+	public String getUserId() {
+		return userId;
+	}
+
+	/** @return The application name as it was encoded, padded with blanks to 8 characters */
+	public String getApplicationName() {
+		return applicationName;
+	}
+
+	/** @return The alias of the key, or an empty string if the key has none */
+	public String getKeyAlias() {
+		return keyAlias;
+	}
+
+	/** @return The SHA-256 hash of the PassTicket */
+	public byte[] getPassTicketHash() {
+		return passTicketHash.clone();
+	}
+
+	/**
+	 * @param passTicket A PassTicket
+	 * @return true if it is the recorded PassTicket
+	 */
+	public boolean matches(String passTicket) {
+		return passTicket != null && MessageDigest.isEqual(passTicketHash, hash(passTicket));
+	}
+
+	/**
+	 * @param passTicket The PassTicket
+	 * @return Its SHA-256 hash
+	 */
+	static byte[] hash(String passTicket) {
+		return newDigest().digest(passTicket.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/** @return A SHA-256 digest, which every JRE provides */
+	static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof PassTicketAuditRecord)) {
+			return false;
+		}
+		PassTicketAuditRecord other = (PassTicketAuditRecord) obj;
+		return issuedMillis == other.issuedMillis && timeInfo == other.timeInfo && userId.equals(other.userId)
+				&& applicationName.equals(other.applicationName) && keyAlias.equals(other.keyAlias)
+				&& Arrays.equals(passTicketHash, other.passTicketHash);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Long.hashCode(issuedMillis) + Arrays.hashCode(passTicketHash);
+	}
+
+	@Override
+	public String toString() {
+		return userId + " " + applicationName + " " + keyAlias + " " + timeInfo;
+	}
+}
@@ -0,0 +1,132 @@
+package racfPassTicket;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * <p>Generates PassTickets for many requests in parallel.</p>
+ *
+ * <p>The requests are grouped by key, so that each key is validated only once per batch. The PassTickets are then generated
+ * on a fork/join pool with the configured parallelism; each worker thread sets up its DES cipher once per key.
+ * Errors are reported per request: an invalid user ID or key only fails the affected requests.</p>
+ *
+ * <p>Instances are thread-safe. The pool is shut down by {@link #close()}.</p>
+ */
+public class PassTicketBatchGenerator implements AutoCloseable {
+	private final PassTicketGenerator passTicketGenerator;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a batch generator using all available processors.
+	 * @param passTicketGenerator The generator for the single PassTickets
+	 */
+	public PassTicketBatchGenerator(PassTicketGenerator passTicketGenerator) {
+		this(passTicketGenerator, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a batch generator.
+	 * @param passTicketGenerator The generator for the single PassTickets
+	 * @param parallelism The number of worker threads
+	 */
+	public PassTicketBatchGenerator(PassTicketGenerator passTicketGenerator, int parallelism) {
+		this.passTicketGenerator = passTicketGenerator;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Generates the PassTickets for a stream of requests.
+	 * @param requests The requests
+	 * @return The results, in the order of the requests
+	 * @throws PassTicketException
+	 */
+	public List<PassTicketResult> generate(Stream<PassTicketRequest> requests) throws PassTicketException {
+		return generate(requests.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Generates the PassTickets for a collection of requests.
+	 * @param requests The requests
+	 * @return The results, in the order of the requests
+	 * @throws PassTicketException If the batch cannot be executed at all
+	 */
+	public List<PassTicketResult> generate(Collection<PassTicketRequest> requests) throws PassTicketException {
+		final PassTicketRequest[] requestArray = requests.toArray(new PassTicketRequest[0]);
+		final Map<Object, Object> keys = validateKeys(requestArray);
+		final PassTicketResult[] results = new PassTicketResult[requestArray.length];
+
+		try {
+			pool.submit(() -> IntStream.range(0, requestArray.length).parallel()
+					.forEach(i -> results[i] = generate(requestArray[i], keys.get(requestArray[i].getKeyIdentity())))
+			).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PassTicketException("Batch generation was interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new PassTicketException("Batch generation failed.", e.getCause());
+		}
+		return Arrays.asList(results);
+	}
+
+	/** Shuts down the worker threads. */
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Validates each distinct key of the batch once.
+	 * @param requests The requests
+	 * @return For each key identity the validated key or the exception thrown during validation
+	 */
+	private Map<Object, Object> validateKeys(PassTicketRequest[] requests) {
+		Map<Object, Object> keys = new HashMap<>();
+		for (PassTicketRequest request : requests) {
+			Object keyIdentity = request.getKeyIdentity();
+			if (keyIdentity == null || keys.containsKey(keyIdentity)) {
+				continue;
+			}
+			if (request.getKey() != null) {
+				keys.put(keyIdentity, request.getKey());
+			} else {
+				try {
+					keys.put(keyIdentity, PassTicketGenerator.forKey(request.getSecuredSignonKey()));
+				} catch (PassTicketInvalidInputException e) {
+					keys.put(keyIdentity, e);
+				}
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Generates the PassTicket of one request.
+	 * @param request The request
+	 * @param key The validated key or the exception thrown during its validation
+	 * @return The result
+	 */
+	private PassTicketResult generate(PassTicketRequest request, Object key) {
+		if (key == null) {
+			return PassTicketResult.failure(request, new PassTicketInvalidInputException(PassTicketError.NULL_KEY));
+		} else if (key instanceof Exception) {
+			return PassTicketResult.failure(request, (Exception) key);
+		}
+		try {
+			return PassTicketResult.success(request, passTicketGenerator.generate(request.getUserId(), request.getApplicationName(), (PassTicketKey) key));
+		} catch (PassTicketException | PassTicketInvalidInputException e) {
+			return PassTicketResult.failure(request, e);
+		}
+	}
+}
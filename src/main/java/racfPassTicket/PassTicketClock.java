@@ -0,0 +1,50 @@
+package racfPassTicket;
+
+/**
+ * <p>The source of the time and date information used in step 4 of the algorithm.</p>
+ *
+ * <p>The default is the system clock. The cached clock avoids reading the system clock for every PassTicket; fixed and
+ * offset clocks make tests deterministic and compensate a known skew between this host and the z/OS system.</p>
+ */
+@FunctionalInterface
+public interface PassTicketClock {
+	/**
+	 * Returns the current time and date information.
+	 * @return The seconds since 1.1.1970, 00:00 UTC (unsigned, valid until 2106)
+	 */
+	int getTimeAndDateInformation();
+
+	/** @return A clock reading the system clock on every call */
+	static PassTicketClock system() {
+		return () -> (int) (System.currentTimeMillis() / 1000L);
+	}
+
+	/**
+	 * Returns a clock which reads a second updated by a background thread at every second boundary. Reading it is a
+	 * single volatile read; it may lag behind the system clock by a few milliseconds after a second boundary.
+	 * All callers share one instance and one thread, which is started on first use.
+	 * @return The cached clock
+	 */
+	static PassTicketClock cached() {
+		return CachedPassTicketClock.INSTANCE;
+	}
+
+	/**
+	 * Returns a clock which always returns the same time, e.g. for tests.
+	 * @param timeAndDateInformation The seconds since 1.1.1970, 00:00 UTC
+	 * @return The fixed clock
+	 */
+	static PassTicketClock fixed(int timeAndDateInformation) {
+		return () -> timeAndDateInformation;
+	}
+
+	/**
+	 * Returns a clock which adds an offset to another clock, e.g. to compensate the clock skew to the z/OS system.
+	 * @param clock The underlying clock
+	 * @param offsetSeconds The seconds added to the time of the underlying clock (may be negative)
+	 * @return The offset clock
+	 */
+	static PassTicketClock offset(PassTicketClock clock, int offsetSeconds) {
+		return () -> clock.getTimeAndDateInformation() + offsetSeconds;
+	}
+}
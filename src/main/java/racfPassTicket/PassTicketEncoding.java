@@ -0,0 +1,9 @@
+package racfPassTicket;
+
+/** The encodings in which a PassTicket can be written into a byte buffer, see {@link PassTicketGenerator#generate(UserId, ApplicationName, PassTicketKey, java.nio.ByteBuffer, PassTicketEncoding)}. */
+public enum PassTicketEncoding {
+	/** One ASCII (and UTF-8) byte per character. */
+	ASCII,
+	/** One EBCDIC byte per character (code page 1047), e.g. for 3270 or APPC send buffers. */
+	EBCDIC
+}
@@ -0,0 +1,40 @@
+package racfPassTicket;
+
+import racfPassTicket.exceptions.PassTicketException;
+
+/**
+ * <p>An implementation of steps 1 to 5 of the PassTicket algorithm: the two DES encryptions of user ID and application
+ * name and the time coder. Translation into characters is left to the {@link PassTicketGenerator}.</p>
+ *
+ * <p>Engines are selected with {@link PassTicketGenerator#setEngine(PassTicketEngine)}. Besides the built-in engines,
+ * {@link PassTicketEngines} finds engines registered with the {@link java.util.ServiceLoader} under
+ * <code>META-INF/services/racfPassTicket.PassTicketEngine</code>. Implementations must be thread-safe.</p>
+ */
+public interface PassTicketEngine {
+	/** @return The unique name of the engine, used to select it */
+	String getName();
+
+	/**
+	 * Prepares the engine for a key, e.g. computes its key schedule. The result is kept by the {@link PassTicketKey}
+	 * and shared by all threads.
+	 * @param keyBytes The secured signon application key (8 bytes), which is cleared after the call
+	 * @return The engine for the key
+	 * @throws PassTicketException
+	 */
+	Prepared prepare(byte[] keyBytes) throws PassTicketException;
+
+	/** An engine prepared for a key. */
+	interface Prepared {
+		/**
+		 * Executes steps 1 to 5 of the algorithm. The blocks are 8 bytes, the left byte being the most significant one.
+		 * @param userId The user ID in EBCDIC, padded with blanks
+		 * @param applicationName The application name in EBCDIC, padded with blanks
+		 * @param padding1 The left 6 bytes of the time-coder padding
+		 * @param padding2 The right 6 bytes of the time-coder padding
+		 * @param timeInfo The time and date information (seconds since 1.1.1970, 00:00 UTC)
+		 * @return Result-5 of the PassTicket algorithm
+		 * @throws PassTicketException
+		 */
+		int computeResult5(long userId, long applicationName, long padding1, long padding2, int timeInfo) throws PassTicketException;
+	}
+}
@@ -0,0 +1,249 @@
+package racfPassTicket;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * <p>Finds, selects, calibrates and checks {@link PassTicketEngine}s.</p>
+ *
+ * <p>The built-in engines are {@link #REFERENCE}, the JCE cipher with the time coder as documented, and {@link #LONG},
+ * the plain Java DES on primitive longs, and {@link #NATIVE}, the DES of the OpenSSL <code>libcrypto</code>, if it can be
+ * called from this JVM. Further engines are loaded once with the {@link ServiceLoader}; providers
+ * which cannot be loaded are left out.</p>
+ *
+ * <p>{@link #calibrate(Collection, long, TimeUnit)} first compares each engine with the reference engine on random
+ * input, then measures the engines which agree on the current JVM and hardware and selects the fastest.
+ * {@link #checked(PassTicketEngine, double, CheckedPassTicketEngine.MismatchListener)} keeps checking a sample of the
+ * PassTickets of an engine in production.</p>
+ */
+public final class PassTicketEngines {
+	/** The name of the reference engine. */
+	public static final String REFERENCE = "reference";
+	/** The name of the engine using {@link DESImplementation#LONG}. */
+	public static final String LONG = "long";
+	/** The name of the engine using {@link DESImplementation#NATIVE}, available only if <code>libcrypto</code> can be called. */
+	public static final String NATIVE = "native";
+
+	private static final PassTicketEngine REFERENCE_ENGINE = new DESPassTicketEngine(REFERENCE, DESImplementation.JCE);
+	private static final PassTicketEngine LONG_ENGINE = new DESPassTicketEngine(LONG, DESImplementation.LONG);
+	private static final PassTicketEngine NATIVE_ENGINE = new DESPassTicketEngine(NATIVE, DESImplementation.NATIVE);
+	private static final int SAMPLES = 64;
+
+	private PassTicketEngines() {
+	}
+
+	/** @return The reference engine */
+	public static PassTicketEngine reference() {
+		return REFERENCE_ENGINE;
+	}
+
+	/** @return The built-in engines followed by those of the service providers */
+	public static List<PassTicketEngine> available() {
+		return Providers.ENGINES;
+	}
+
+	/**
+	 * Selects an engine by name, e.g. from the configuration.
+	 * @param name The name of the engine
+	 * @return The engine
+	 * @throws IllegalArgumentException If there is no engine with that name
+	 */
+	public static PassTicketEngine get(String name) {
+		for (PassTicketEngine engine : available()) {
+			if (engine.getName().equals(name)) {
+				return engine;
+			}
+		}
+		throw new IllegalArgumentException("There is no PassTicket engine " + name + ".");
+	}
+
+	/**
+	 * Wraps an engine so that a sample of its results is compared with the reference engine.
+	 * @param engine The engine
+	 * @param fraction The fraction of the PassTickets to check, from 0 to 1
+	 * @param listener Receives the mismatches, or null
+	 * @return The checked engine
+	 */
+	public static CheckedPassTicketEngine checked(PassTicketEngine engine, double fraction, CheckedPassTicketEngine.MismatchListener listener) {
+		return new CheckedPassTicketEngine(engine, REFERENCE_ENGINE, fraction, listener);
+	}
+
+	/**
+	 * Calibrates all available engines for 100 ms each.
+	 * @return The calibration
+	 */
+	public static Calibration calibrate() {
+		return calibrate(available(), 100, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Checks the engines against the reference engine and measures those which agree with it. Each PassTicket is computed
+	 * as a whole, without the prefix cache and the time-coder tables, which a generator only keeps with a built-in engine.
+	 * @param engines The engines
+	 * @param time The time to measure each engine, half of which is spent warming it up
+	 * @param unit The unit of time
+	 * @return The calibration, selecting the fastest engine
+	 */
+	public static Calibration calibrate(Collection<? extends PassTicketEngine> engines, long time, TimeUnit unit) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		byte[] keyBytes = new byte[8];
+		do {
+			random.nextBytes(keyBytes);
+		} while (PassTicketUtils.checkKeyBytes(keyBytes) != null);
+		UserId[] userIds = new UserId[SAMPLES];
+		ApplicationName[] applicationNames = new ApplicationName[SAMPLES];
+		int[] timeInfos = new int[SAMPLES];
+		try {
+			for (int i = 0; i < SAMPLES; i++) {
+				userIds[i] = UserId.of("U" + random.nextInt(10000000));
+				applicationNames[i] = ApplicationName.of("A" + random.nextInt(10000000));
+				timeInfos[i] = random.nextInt();
+			}
+		} catch (PassTicketInvalidInputException e) {
+			throw new IllegalStateException(e); // cannot happen, the names are valid
+		}
+
+		Map<String, Double> nanosPerPassTicket = new LinkedHashMap<>();
+		Map<String, String> rejected = new LinkedHashMap<>();
+		PassTicketEngine fastest = null;
+		try {
+			PassTicketEngine.Prepared reference = REFERENCE_ENGINE.prepare(keyBytes.clone());
+			int[] expected = new int[SAMPLES];
+			for (int i = 0; i < SAMPLES; i++) {
+				expected[i] = reference.computeResult5(userIds[i].getEbcdic(), applicationNames[i].getEbcdic(), userIds[i].getPadding1(), userIds[i].getPadding2(), timeInfos[i]);
+			}
+			for (PassTicketEngine engine : engines) {
+				try {
+					PassTicketEngine.Prepared prepared = engine.prepare(keyBytes.clone());
+					for (int i = 0; i < SAMPLES; i++) {
+						if (prepared.computeResult5(userIds[i].getEbcdic(), applicationNames[i].getEbcdic(), userIds[i].getPadding1(), userIds[i].getPadding2(), timeInfos[i]) != expected[i]) {
+							throw new PassTicketException("Result differs from the reference engine for user ID " + userIds[i] + ".");
+						}
+					}
+					measure(prepared, userIds, applicationNames, unit.toNanos(time) / 2);
+					double nanos = measure(prepared, userIds, applicationNames, unit.toNanos(time) / 2);
+					nanosPerPassTicket.put(engine.getName(), nanos);
+					if (fastest == null || nanos < nanosPerPassTicket.get(fastest.getName())) {
+						fastest = engine;
+					}
+				} catch (PassTicketException | RuntimeException e) {
+					rejected.put(engine.getName(), e.getMessage());
+				}
+			}
+		} catch (PassTicketException e) {
+			throw new IllegalStateException("The reference engine fails.", e);
+		}
+		return new Calibration(fastest != null ? fastest : REFERENCE_ENGINE, nanosPerPassTicket, rejected);
+	}
+
+	/**
+	 * Runs an engine for the given time.
+	 * @param prepared The engine prepared for a key
+	 * @param userIds The user IDs
+	 * @param applicationNames The application names
+	 * @param nanos The time
+	 * @return The mean time of a PassTicket in nanoseconds
+	 * @throws PassTicketException
+	 */
+	private static double measure(PassTicketEngine.Prepared prepared, UserId[] userIds, ApplicationName[] applicationNames, long nanos) throws PassTicketException {
+		int sink = 0;
+		long count = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			for (int i = 0; i < 256; i++) {
+				int sample = i & (SAMPLES - 1);
+				sink ^= prepared.computeResult5(userIds[sample].getEbcdic(), applicationNames[sample].getEbcdic(), userIds[sample].getPadding1(), userIds[sample].getPadding2(), (int) count + i);
+			}
+			count += 256;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < nanos);
+		// keeps the results alive for the JIT compiler
+		if (sink == 42 && count < 0) {
+			throw new IllegalStateException();
+		}
+		return (double) elapsed / count;
+	}
+
+	/** The result of a calibration. */
+	public static final class Calibration {
+		private final PassTicketEngine fastest;
+		private final Map<String, Double> nanosPerPassTicket;
+		private final Map<String, String> rejected;
+
+		Calibration(PassTicketEngine fastest, Map<String, Double> nanosPerPassTicket, Map<String, String> rejected) {
+			this.fastest = fastest;
+			this.nanosPerPassTicket = Collections.unmodifiableMap(nanosPerPassTicket);
+			this.rejected = Collections.unmodifiableMap(rejected);
+		}
+
+		/** @return The fastest engine which agrees with the reference engine */
+		public PassTicketEngine getFastest() {
+			return fastest;
+		}
+
+		/** @return The mean time per PassTicket in nanoseconds by engine name, for the engines which were measured */
+		public Map<String, Double> getNanosPerPassTicket() {
+			return nanosPerPassTicket;
+		}
+
+		/** @return The reason by engine name, for the engines which failed or differed from the reference engine */
+		public Map<String, String> getRejected() {
+			return rejected;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder report = new StringBuilder("Fastest PassTicket engine: ").append(fastest.getName());
+			for (Map.Entry<String, Double> entry : nanosPerPassTicket.entrySet()) {
+				report.append(String.format("%n  %s: %.0f ns", entry.getKey(), entry.getValue()));
+			}
+			for (Map.Entry<String, String> entry : rejected.entrySet()) {
+				report.append(String.format("%n  %s: rejected, %s", entry.getKey(), entry.getValue()));
+			}
+			return report.toString();
+		}
+	}
+
+	/** The engines, loaded on first use. */
+	private static class Providers {
+		static final List<PassTicketEngine> ENGINES = load();
+
+		private static List<PassTicketEngine> load() {
+			List<PassTicketEngine> engines = new ArrayList<>();
+			engines.add(REFERENCE_ENGINE);
+			engines.add(LONG_ENGINE);
+			if (NativeDESEncrypter.isAvailable()) {
+				engines.add(NATIVE_ENGINE);
+			}
+			Iterator<PassTicketEngine> providers = ServiceLoader.load(PassTicketEngine.class).iterator();
+			try {
+				while (providers.hasNext()) {
+					try {
+						PassTicketEngine engine = providers.next();
+						if (engines.stream().noneMatch(other -> other.getName().equals(engine.getName()))) {
+							engines.add(engine);
+						}
+					} catch (ServiceConfigurationError e) {
+						// a provider which cannot be instantiated is left out
+					}
+				}
+			} catch (ServiceConfigurationError e) {
+				// the remaining providers cannot be read
+			}
+			return Collections.unmodifiableList(engines);
+		}
+	}
+}
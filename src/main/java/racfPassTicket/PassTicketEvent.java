@@ -0,0 +1,74 @@
+package racfPassTicket;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * <p>A JDK Flight Recorder event for each generated PassTicket, with the durations of its stages.</p>
+ *
+ * <p>The event is disabled by default. It is switched on at runtime by a recording which enables
+ * <code>racfPassTicket.Generation</code>, e.g. <code>jfr configure +racfPassTicket.Generation#enabled=true</code>
+ * and <code>jcmd &lt;pid&gt; JFR.start settings=custom.jfc</code>.</p>
+ */
+@Name("racfPassTicket.Generation")
+@Label("PassTicket Generation")
+@Category("RACF PassTicket")
+@Description("Generation of a PassTicket with the durations of its stages")
+@Enabled(false)
+@StackTrace(false)
+final class PassTicketEvent extends Event {
+	private static final EventType TYPE = EventType.getEventType(PassTicketEvent.class);
+
+	@Label("Application Name")
+	String applicationName;
+
+	@Label("Prefix Cache Hit")
+	boolean prefixCacheHit;
+
+	@Label("Validation")
+	@Timespan(Timespan.NANOSECONDS)
+	long validation;
+
+	@Label("Key Setup")
+	@Timespan(Timespan.NANOSECONDS)
+	long keySetup;
+
+	@Label("Steps 1 to 3")
+	@Description("The encryptions of the user ID and the application name, if the prefix is not cached")
+	@Timespan(Timespan.NANOSECONDS)
+	long prefix;
+
+	@Label("Time Coder")
+	@Timespan(Timespan.NANOSECONDS)
+	long timeCoder;
+
+	@Label("Translation")
+	@Timespan(Timespan.NANOSECONDS)
+	long translation;
+
+	// transient fields are not recorded: they tell the generator which stages to report to the metrics
+
+	/** The start of the generation (System.nanoTime()). */
+	transient long start;
+
+	/** true if the user input has been validated and encoded during the generation. */
+	transient boolean validated;
+
+	/** true if steps 1 to 5 have been measured one by one, i.e. no engine or a built-in engine is set. */
+	transient boolean stepsMeasured;
+
+	/** true if the time coder used precomputed tables. */
+	transient boolean timeCoderTableHit;
+
+	/** @return true if a running recording has enabled the event */
+	static boolean isTypeEnabled() {
+		return TYPE.isEnabled();
+	}
+}
@@ -5,11 +5,20 @@
 package racfPassTicket;
 
 import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
-import javax.crypto.SecretKey;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import racfPassTicket.exceptions.PassTicketError;
 import racfPassTicket.exceptions.PassTicketException;
 import racfPassTicket.exceptions.PassTicketInvalidInputException;
+import racfPassTicket.exceptions.PassTicketUnavailableException;
 
 /**  
  * <p>Implementation of the RACF PassTicket generator algorithm.</p>
@@ -22,8 +31,172 @@ import racfPassTicket.exceptions.PassTicketInvalidInputException;
  * @since 2016-09-28
  */
 public class PassTicketGenerator {
+	private static final char[] TRANSLATION_TABLE = {'A','B','C','D','E','F','G','H','I','J','K','L','M','N','O','P','Q','R','S','T','U','V','W','X','Y','Z','0','1','2','3','4','5','6','7','8','9'};
+	private static final byte[] EBCDIC_TRANSLATION_TABLE = new byte[TRANSLATION_TABLE.length];
+
+	static {
+		for (int i = 0; i < TRANSLATION_TABLE.length; i++) {
+			EBCDIC_TRANSLATION_TABLE[i] = Cp1047.encode(TRANSLATION_TABLE[i]);
+		}
+	}
+
+	private static final PassTicketMetrics NO_METRICS = new PassTicketMetrics() {
+		@Override
+		public void recordLatency(Stage stage, long nanos) {}
+
+		@Override
+		public void increment(Counter counter) {}
+	};
+
+	/** The time coder has no state, so one instance serves all threads. */
+	private static final TimeCoder TIME_CODER = new TimeCoder();
+
+	private PassTicketPrefixCache prefixCache;
+	private TimeCoderTableCache timeCoderTableCache;
+	private PassTicketClock clock = PassTicketClock.system();
+	private Executor asyncExecutor;
+	private PassTicketMetrics metrics;
+	private PassTicketAuditLog auditLog;
+	private PassTicketEngine engine;
+	private PassTicketIssuanceGuard issuanceGuard;
+
+	/**
+	 * Validates a secured signon application key once, so that it can be reused for many PassTickets.
+	 * @param securedSignonKey The secured signon application key (16 hexadecimal numbers)
+	 * @return The validated key, which can be shared by all threads
+	 * @throws PassTicketInvalidInputException
+	 */
+	public static PassTicketKey forKey(String securedSignonKey) throws PassTicketInvalidInputException {
+		return new PassTicketKey(securedSignonKey);
+	}
+
+	/**
+	 * Validates a secured signon application key once and selects the implementation of DES used with it.
+	 * @param securedSignonKey The secured signon application key (16 hexadecimal numbers)
+	 * @param desImplementation The implementation of DES
+	 * @return The validated key, which can be shared by all threads
+	 * @throws PassTicketInvalidInputException
+	 */
+	public static PassTicketKey forKey(String securedSignonKey, DESImplementation desImplementation) throws PassTicketInvalidInputException {
+		return new PassTicketKey(securedSignonKey, desImplementation);
+	}
+
+	/**
+	 * Enables caching of the time-independent steps 1 to 3 for recurring (key, user ID, application name) combinations.
+	 * The cache can be shared by several generators. Configure the generator before sharing it between threads.
+	 * @param prefixCache The cache to use, or null to disable caching
+	 */
+	public void setPrefixCache(PassTicketPrefixCache prefixCache) {
+		this.prefixCache = prefixCache;
+	}
+
+	/**
+	 * Enables precomputed time-coder tables for the (key, user ID) pairs designated in the given cache.
+	 * Configure the generator before sharing it between threads.
+	 * @param timeCoderTableCache The cache to use, or null to disable the tables
+	 */
+	public void setTimeCoderTableCache(TimeCoderTableCache timeCoderTableCache) {
+		this.timeCoderTableCache = timeCoderTableCache;
+	}
+
+	/**
+	 * Sets the source of the time and date information, e.g. {@link PassTicketClock#cached()}.
+	 * Configure the generator before sharing it between threads.
+	 * @param clock The clock (the system clock by default)
+	 */
+	public void setClock(PassTicketClock clock) {
+		this.clock = clock;
+	}
+
+	/** @return The source of the time and date information */
+	public PassTicketClock getClock() {
+		return clock;
+	}
+
+	/**
+	 * Reports the latencies of the stages of each PassTicket and the cache hits, e.g. to a {@link PassTicketMetricsRegistry}.
+	 * This applies to all PassTickets generated by this generator; those computed ahead of time by a
+	 * {@link PassTicketPrefetcher} are not measured, but counted as generated when they are looked up. Without metrics
+	 * no time is measured.
+	 * Configure the generator before sharing it between threads.
+	 * @param metrics The metrics, or null to disable them
+	 */
+	public void setMetrics(PassTicketMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/** @return The metrics, or null */
+	public PassTicketMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the engine executing steps 1 to 5 of the algorithm, see {@link PassTicketEngines}. A built-in engine only
+	 * selects the implementation of DES, so the prefix cache, the time-coder tables and the metrics of all stages still
+	 * apply. Any other engine, including a {@link CheckedPassTicketEngine}, computes each PassTicket as a whole: the
+	 * prefix cache and the time-coder tables are not used, and the metrics only report validation, translation and
+	 * total latency.
+	 * Configure the generator before sharing it between threads.
+	 * @param engine The engine, or null for the built-in implementation with its caches
+	 */
+	public void setEngine(PassTicketEngine engine) {
+		this.engine = engine;
+	}
+
+	/** @return The engine, or null for the built-in implementation */
+	public PassTicketEngine getEngine() {
+		return engine;
+	}
+
 	/**
-	 * Generates a PassTicket.
+	 * Records every PassTicket issued by this generator in an audit log. The generating thread only hands the record
+	 * over to the writer thread of the log.
+	 * Configure the generator before sharing it between threads.
+	 * @param auditLog The audit log, or null to record nothing
+	 */
+	public void setAuditLog(PassTicketAuditLog auditLog) {
+		this.auditLog = auditLog;
+	}
+
+	/** @return The audit log, or null */
+	public PassTicketAuditLog getAuditLog() {
+		return auditLog;
+	}
+
+	/**
+	 * Makes sure that no PassTicket is issued twice within a second, see {@link PassTicketIssuanceGuard}. It applies to
+	 * the PassTickets generated at the current time of the clock; a PassTicket generated for a given time and date
+	 * information is left to the caller. Generation fails with a {@link PassTicketUnavailableException} if no second
+	 * is free.
+	 * Configure the generator before sharing it between threads.
+	 * @param issuanceGuard The guard, which can be shared by several generators, or null to issue duplicates
+	 */
+	public void setIssuanceGuard(PassTicketIssuanceGuard issuanceGuard) {
+		this.issuanceGuard = issuanceGuard;
+	}
+
+	/** @return The issuance guard, or null */
+	public PassTicketIssuanceGuard getIssuanceGuard() {
+		return issuanceGuard;
+	}
+
+	/**
+	 * Sets the executor of {@link #generateAsync(String, String, PassTicketKey)} and of the {@link PassTicketProcessor}.
+	 * Configure the generator before sharing it between threads.
+	 * @param asyncExecutor The executor, or null for a shared pool of daemon threads, one per processor
+	 */
+	public void setAsyncExecutor(Executor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	/** @return The executor for asynchronous generation */
+	public Executor getAsyncExecutor() {
+		return asyncExecutor != null ? asyncExecutor : DefaultAsyncExecutor.INSTANCE;
+	}
+
+	/**
+	 * Generates a PassTicket. The key is validated for this PassTicket only; to generate many PassTickets with the same
+	 * key, validate it once with {@link #forKey(String)}.
 	 * @param userId	The user ID
 	 * @param applicationName The application name
 	 * @param securedSignonKey The secured signon application key (16 hexadecimal numbers) 
@@ -32,43 +205,766 @@ public class PassTicketGenerator {
 	 * @throws PassTicketInvalidInputException
 	 */
 	public String generate(String userId, String applicationName, String securedSignonKey) throws PassTicketException, PassTicketInvalidInputException {
+		return generate(userId, applicationName, PassTicketKey.forSingleUse(securedSignonKey));
+	}
+
+	/**
+	 * Generates a PassTicket with a key which has already been validated.
+	 * @param userId	The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key, see {@link #forKey(String)}
+	 * @return The generated PassTicket
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public String generate(String userId, String applicationName, PassTicketKey key) throws PassTicketException, PassTicketInvalidInputException {
+		return generate(userId, applicationName, key, clock.getTimeAndDateInformation(), Purpose.ISSUED_NOW);
+	}
+
+	/**
+	 * Generates a PassTicket without throwing an exception if the input is invalid.
+	 * @param userId	The user ID
+	 * @param applicationName The application name
+	 * @param securedSignonKey The secured signon application key (16 hexadecimal numbers)
+	 * @return The PassTicket, or the error code if it cannot be generated
+	 */
+	public PassTicketResult tryGenerate(String userId, String applicationName, String securedSignonKey) {
+		return tryGenerate(new PassTicketRequest(userId, applicationName, securedSignonKey));
+	}
+
+	/**
+	 * Generates a PassTicket with a key which has already been validated, without throwing an exception if the input is invalid.
+	 * @param userId	The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key, see {@link #forKey(String)}
+	 * @return The PassTicket, or the error code if it cannot be generated
+	 */
+	public PassTicketResult tryGenerate(String userId, String applicationName, PassTicketKey key) {
+		return tryGenerate(new PassTicketRequest(userId, applicationName, key));
+	}
+
+	/**
+	 * Generates the PassTicket of a request without throwing an exception if the input is invalid.
+	 * @param request The request
+	 * @return The PassTicket, or the error code if it cannot be generated
+	 */
+	public PassTicketResult tryGenerate(PassTicketRequest request) {
+		PassTicketKey key = request.getKey();
+		PassTicketError error = key != null ? null : PassTicketKey.check(request.getSecuredSignonKey());
+		if (error == null) {
+			error = checkUserIdAndApplicationName(request.getUserId(), request.getApplicationName());
+		}
+		if (error != null) {
+			return PassTicketResult.failure(request, error);
+		}
 		try {
-			// step 0: prepare all user input: check if valid and bring into right format
-			userId = PassTicketUtils.validateUserIdOrApplicationName(userId);
-			applicationName = PassTicketUtils.validateUserIdOrApplicationName(applicationName);
-			SecretKey secretKey = PassTicketUtils.validateRACFsecuredSignonApplicationKey(securedSignonKey);
-	
-			DESEncrypter desEncrypter = new DESEncrypter(secretKey);				
-							
-			// step 1: encrypt userId with the secured signon key -> result1				
-			byte[] result1 = desEncrypter.encrypt(userId.getBytes("CP1047"));
-							
-			// step 2: XOR result1 with the application name -> result2a, then
-			// encrypt result2a with the secured signon application key -> result2
-			byte[] result2a = PassTicketUtils.xor(result1, applicationName.getBytes("CP1047"));
-			byte[] result2 = desEncrypter.encrypt(result2a);
-			
-			// step 3: Select the left 4 bytes -> result3
-			byte[] result3 = Arrays.copyOfRange(result2, 0, 4);
-
-			// step 4: XOR result3 with the date/time information -> result4
-			byte[] timeInfoBytes = PassTicketUtils.getTimeAndDateInformation();
-			byte[] result4 = PassTicketUtils.xor(result3, timeInfoBytes);
-							
-			// step 5: time coder algorithm -> result5
-			TimeCoder tc = new TimeCoder();				
-			byte[] result5 = tc.timeCoder(result4, userId, desEncrypter);
-							
+			if (key == null) {
+				key = PassTicketKey.forSingleUse(request.getSecuredSignonKey());
+			}
+			return PassTicketResult.success(request, generate(request.getUserId(), request.getApplicationName(), key));
+		} catch (PassTicketException | PassTicketInvalidInputException e) {
+			return PassTicketResult.failure(request, e);
+		}
+	}
+
+	/**
+	 * Generates a PassTicket on the asynchronous executor, so that the calling thread, e.g. an I/O thread, never blocks on
+	 * the setup of the JCE. The future fails with a {@link PassTicketException} or {@link PassTicketInvalidInputException}
+	 * if the PassTicket cannot be generated.
+	 * @param userId	The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key, see {@link #forKey(String)}
+	 * @return The future PassTicket
+	 */
+	public CompletableFuture<String> generateAsync(String userId, String applicationName, PassTicketKey key) {
+		CompletableFuture<String> future = new CompletableFuture<>();
+		try {
+			getAsyncExecutor().execute(() -> {
+				try {
+					future.complete(generate(userId, applicationName, key));
+				} catch (PassTicketException | PassTicketInvalidInputException | RuntimeException e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Generates a PassTicket on the asynchronous executor, see {@link #generateAsync(String, String, PassTicketKey)}.
+	 * The key is validated on the executor as well.
+	 * @param userId	The user ID
+	 * @param applicationName The application name
+	 * @param securedSignonKey The secured signon application key (16 hexadecimal numbers)
+	 * @return The future PassTicket
+	 */
+	public CompletableFuture<String> generateAsync(String userId, String applicationName, String securedSignonKey) {
+		CompletableFuture<String> future = new CompletableFuture<>();
+		try {
+			getAsyncExecutor().execute(() -> {
+				try {
+					future.complete(generate(userId, applicationName, securedSignonKey));
+				} catch (PassTicketException | PassTicketInvalidInputException | RuntimeException e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Checks the user ID and the application name like {@link #generate(String, String, PassTicketKey)} does.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @return The error, or null if both are valid
+	 */
+	private static PassTicketError checkUserIdAndApplicationName(String userId, String applicationName) {
+		PassTicketError error = PassTicketUtils.checkUserIdOrApplicationName(userId);
+		return error != null ? error : PassTicketUtils.checkUserIdOrApplicationName(applicationName);
+	}
+
+	/**
+	 * Generates a PassTicket for the given time and date information, e.g. to compute PassTickets ahead of time.
+	 * @param userId	The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key, see {@link #forKey(String)}
+	 * @param timeInfo The time and date information (seconds since 1.1.1970, 00:00 UTC)
+	 * @return The generated PassTicket
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public String generate(String userId, String applicationName, PassTicketKey key, int timeInfo) throws PassTicketException, PassTicketInvalidInputException {
+		return generate(userId, applicationName, key, timeInfo, true);
+	}
+
+	/**
+	 * Generates a PassTicket for the given time and date information.
+	 * @param userId	The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param timeInfo The time and date information (seconds since 1.1.1970, 00:00 UTC)
+	 * @param issued true if the PassTicket is issued and recorded in the audit log, false if it is only computed ahead of time
+	 * @return The generated PassTicket
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	String generate(String userId, String applicationName, PassTicketKey key, int timeInfo, boolean issued) throws PassTicketException, PassTicketInvalidInputException {
+		return generate(userId, applicationName, key, timeInfo, issued ? Purpose.ISSUED : Purpose.AHEAD_OF_TIME);
+	}
+
+	/**
+	 * Generates a synthetic PassTicket, e.g. to warm up the generator. It runs the same code as any other PassTicket,
+	 * but it is not measured, does not use or fill the prefix cache and the time-coder tables, and is not recorded in
+	 * the audit log.
+	 * @param userId	The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param timeInfo The time and date information (seconds since 1.1.1970, 00:00 UTC)
+	 * @return The generated PassTicket
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	String generateSynthetic(String userId, String applicationName, PassTicketKey key, int timeInfo) throws PassTicketException, PassTicketInvalidInputException {
+		return generate(userId, applicationName, key, timeInfo, Purpose.SYNTHETIC);
+	}
+
+	/**
+	 * Generates a PassTicket for the given time and date information or, with the issuance guard, the next free second.
+	 * @param userId	The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param timeInfo The time and date information (seconds since 1.1.1970, 00:00 UTC)
+	 * @param purpose What the PassTicket is for
+	 * @return The generated PassTicket
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	private String generate(String userId, String applicationName, PassTicketKey key, int timeInfo, Purpose purpose) throws PassTicketException, PassTicketInvalidInputException {
+		PassTicketEvent event = purpose == Purpose.SYNTHETIC || purpose == Purpose.AHEAD_OF_TIME ? null : beginMeasurement();
+		boolean success = false;
+		try {
+			UserId encodedUserId;
+			ApplicationName encodedApplicationName;
+			try {
+				// step 0: prepare all user input: check if valid and bring into right format
+				String validUserId = PassTicketUtils.validateUserIdOrApplicationName(userId);
+				String validApplicationName = PassTicketUtils.validateUserIdOrApplicationName(applicationName);
+				encodedUserId = UserId.fromPadded(validUserId);
+				encodedApplicationName = ApplicationName.fromPadded(validApplicationName);
+			}
+			catch(UnsupportedEncodingException e) {
+				throw new PassTicketException(PassTicketError.ENCODING_NOT_SUPPORTED, "Cannot get bytes in EBCDIC. " + e.getMessage(), e);
+			}
+			if (event != null) {
+				event.validation = System.nanoTime() - event.start;
+				event.validated = true;
+			}
+			if (purpose == Purpose.ISSUED_NOW) {
+				timeInfo = reserveSecond(encodedUserId, encodedApplicationName, key, timeInfo);
+			}
+			int result5 = computeResult5(encodedUserId, encodedApplicationName, key, timeInfo, event, purpose != Purpose.SYNTHETIC);
+			long translationStart = nanoTime(event);
 			// step 6: translation to an 8-character string = the PassTicket
 			String passTicket = translate(result5);
+			if (event != null) {
+				event.translation = System.nanoTime() - translationStart;
+			}
+			if (purpose == Purpose.ISSUED_NOW || purpose == Purpose.ISSUED) {
+				audit(timeInfo, encodedUserId, encodedApplicationName, key, result5);
+			}
+			success = true;
+			return passTicket;
+		} finally {
+			endMeasurement(event, success);
+		}
+	}
 
+	/**
+	 * Generates a PassTicket for a user ID and an application name which have already been validated and encoded.
+	 * @param userId The user ID, see {@link UserId#of(String)}
+	 * @param applicationName The application name, see {@link ApplicationName#of(String)}
+	 * @param key The secured signon application key, see {@link #forKey(String)}
+	 * @return The generated PassTicket
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public String generate(UserId userId, ApplicationName applicationName, PassTicketKey key) throws PassTicketException, PassTicketInvalidInputException {
+		return generate(userId, applicationName, key, clock.getTimeAndDateInformation(), true);
+	}
+
+	/**
+	 * Generates a PassTicket for a user ID and an application name which have already been validated and encoded,
+	 * for the given time and date information.
+	 * @param userId The user ID, see {@link UserId#of(String)}
+	 * @param applicationName The application name, see {@link ApplicationName#of(String)}
+	 * @param key The secured signon application key, see {@link #forKey(String)}
+	 * @param timeInfo The time and date information (seconds since 1.1.1970, 00:00 UTC)
+	 * @return The generated PassTicket
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public String generate(UserId userId, ApplicationName applicationName, PassTicketKey key, int timeInfo) throws PassTicketException, PassTicketInvalidInputException {
+		return generate(userId, applicationName, key, timeInfo, false);
+	}
+
+	/**
+	 * Generates a PassTicket for a user ID and an application name which have already been validated and encoded.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param timeInfo The time and date information (seconds since 1.1.1970, 00:00 UTC)
+	 * @param guarded true if the time is the current time of the clock, which the issuance guard may move ahead
+	 * @return The generated PassTicket
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	private String generate(UserId userId, ApplicationName applicationName, PassTicketKey key, int timeInfo, boolean guarded) throws PassTicketException, PassTicketInvalidInputException {
+		PassTicketEvent event = beginMeasurement();
+		boolean success = false;
+		try {
+			if (guarded) {
+				timeInfo = reserveSecond(userId, applicationName, key, timeInfo);
+			}
+			int result5 = computeResult5(userId, applicationName, key, timeInfo, event, true);
+			long translationStart = nanoTime(event);
+			// step 6: translation to an 8-character string = the PassTicket
+			String passTicket = translate(result5);
+			if (event != null) {
+				event.translation = System.nanoTime() - translationStart;
+			}
+			audit(timeInfo, userId, applicationName, key, result5);
+			success = true;
 			return passTicket;
+		} finally {
+			endMeasurement(event, success);
 		}
-		catch(UnsupportedEncodingException e) {
-			throw new PassTicketException("Cannot get bytes in EBCDIC. " + e.getMessage(), e.getCause());
+	}
+
+	/**
+	 * Reserves the second of a PassTicket issued at the current time with the issuance guard, if there is one,
+	 * and counts a failure in the metrics if no second is free.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param now The current time and date information
+	 * @return The time and date information to generate the PassTicket for
+	 * @throws PassTicketException If the PassTickets of all seconds the guard may move ahead to have been issued
+	 * @throws PassTicketInvalidInputException
+	 */
+	int reserve(UserId userId, ApplicationName applicationName, PassTicketKey key, int now) throws PassTicketException, PassTicketInvalidInputException {
+		try {
+			return reserveSecond(userId, applicationName, key, now);
+		} catch (PassTicketUnavailableException e) {
+			PassTicketMetrics metrics = this.metrics;
+			if (metrics != null) {
+				metrics.increment(PassTicketMetrics.Counter.FAILED);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Reserves the second of a PassTicket issued at the current time with the issuance guard, if there is one.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param now The current time and date information
+	 * @return The time and date information to generate the PassTicket for
+	 * @throws PassTicketException If the PassTickets of all seconds the guard may move ahead to have been issued
+	 * @throws PassTicketInvalidInputException
+	 */
+	private int reserveSecond(UserId userId, ApplicationName applicationName, PassTicketKey key, int now) throws PassTicketException, PassTicketInvalidInputException {
+		PassTicketIssuanceGuard issuanceGuard = this.issuanceGuard;
+		if (issuanceGuard == null) {
+			return now;
+		}
+		if (userId == null || applicationName == null) {
+			throw new PassTicketInvalidInputException(PassTicketError.NULL_INPUT);
+		}
+		return issuanceGuard.reserve(key, userId, applicationName, now);
+	}
+
+	/**
+	 * Hands an issued PassTicket to the audit log, if there is one.
+	 * @param timeInfo The time and date information
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The key
+	 * @param result5 Result-5 of the PassTicket algorithm
+	 */
+	private void audit(int timeInfo, UserId userId, ApplicationName applicationName, PassTicketKey key, int result5) {
+		PassTicketAuditLog auditLog = this.auditLog;
+		if (auditLog != null) {
+			auditLog.issued(timeInfo, userId.getName(), applicationName.getName(), key, result5, null);
+		}
+	}
+
+	/**
+	 * Hands a PassTicket computed ahead of time to the audit log when it is issued, if there is a log.
+	 * @param timeInfo The time and date information
+	 * @param userId The validated user ID, padded with blanks to 8 characters
+	 * @param applicationName The validated application name, padded with blanks to 8 characters
+	 * @param key The key
+	 * @param passTicket The PassTicket
+	 */
+	void audit(int timeInfo, String userId, String applicationName, PassTicketKey key, String passTicket) {
+		PassTicketAuditLog auditLog = this.auditLog;
+		if (auditLog != null) {
+			auditLog.issued(timeInfo, userId, applicationName, key, 0, passTicket);
+		}
+	}
+
+	/** Counts a PassTicket computed ahead of time as generated when it is issued, if there are metrics. */
+	void countIssued() {
+		PassTicketMetrics metrics = this.metrics;
+		if (metrics != null) {
+			metrics.increment(PassTicketMetrics.Counter.GENERATED);
+		}
+	}
+
+	/**
+	 * Starts to measure a generation if metrics are set or a JFR recording has enabled the {@link PassTicketEvent}.
+	 * The event collects the durations of the stages, which are reported by {@link #endMeasurement(PassTicketEvent, boolean)}.
+	 * @return The event, or null if nothing is measured
+	 */
+	private PassTicketEvent beginMeasurement() {
+		if (metrics == null && !PassTicketEvent.isTypeEnabled()) {
+			return null;
+		}
+		PassTicketEvent event = new PassTicketEvent();
+		event.begin();
+		event.start = System.nanoTime();
+		return event;
+	}
+
+	/**
+	 * @param event The event of the generation, or null if nothing is measured
+	 * @return The current time (System.nanoTime()) if the generation is measured, otherwise 0
+	 */
+	private static long nanoTime(PassTicketEvent event) {
+		return event == null ? 0 : System.nanoTime();
+	}
+
+	/**
+	 * Reports a measured generation to the metrics and commits its event if a recording wants it.
+	 * @param event The event of the generation, or null if nothing is measured
+	 * @param success true if the PassTicket has been generated
+	 */
+	private void endMeasurement(PassTicketEvent event, boolean success) {
+		if (event == null) {
+			return;
+		}
+		PassTicketMetrics metrics = this.metrics != null ? this.metrics : NO_METRICS;
+		if (!success) {
+			metrics.increment(PassTicketMetrics.Counter.FAILED);
+			return;
+		}
+		if (event.validated) {
+			metrics.recordLatency(PassTicketMetrics.Stage.VALIDATION, event.validation);
+		}
+		if (event.stepsMeasured) {
+			metrics.recordLatency(PassTicketMetrics.Stage.KEY_SETUP, event.keySetup);
+			if (event.prefixCacheHit) {
+				metrics.increment(PassTicketMetrics.Counter.PREFIX_CACHE_HIT);
+			} else {
+				if (prefixCache != null) {
+					metrics.increment(PassTicketMetrics.Counter.PREFIX_CACHE_MISS);
+				}
+				metrics.recordLatency(PassTicketMetrics.Stage.PREFIX, event.prefix);
+			}
+			if (event.timeCoderTableHit) {
+				metrics.increment(PassTicketMetrics.Counter.TIME_CODER_TABLE_HIT);
+			}
+			metrics.recordLatency(PassTicketMetrics.Stage.TIME_CODER, event.timeCoder);
+		}
+		metrics.recordLatency(PassTicketMetrics.Stage.TRANSLATION, event.translation);
+		metrics.recordLatency(PassTicketMetrics.Stage.TOTAL, System.nanoTime() - event.start);
+		metrics.increment(PassTicketMetrics.Counter.GENERATED);
+		if (event.shouldCommit()) {
+			event.commit();
+		}
+	}
+
+	/**
+	 * Generates a PassTicket and writes its 8 characters into a char array instead of creating a String.
+	 * Small short-lived objects are still allocated: the lookup keys of the caches and, without a cached prefix, the prefix.
+	 * @param userId The user ID, see {@link UserId#of(String)}
+	 * @param applicationName The application name, see {@link ApplicationName#of(String)}
+	 * @param key The secured signon application key, see {@link #forKey(String)}
+	 * @param destination The array receiving the PassTicket
+	 * @param offset The index of the first character in the array
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public void generate(UserId userId, ApplicationName applicationName, PassTicketKey key, char[] destination, int offset) throws PassTicketException, PassTicketInvalidInputException {
+		if (offset < 0 || offset > destination.length - 8) {
+			throw new IndexOutOfBoundsException("The PassTicket does not fit into the array at offset " + offset + ".");
+		}
+		PassTicketEvent event = beginMeasurement();
+		boolean success = false;
+		try {
+			int timeInfo = reserveSecond(userId, applicationName, key, clock.getTimeAndDateInformation());
+			int result5 = computeResult5(userId, applicationName, key, timeInfo, event, true);
+			long translationStart = nanoTime(event);
+			translate(result5, destination, offset);
+			if (event != null) {
+				event.translation = System.nanoTime() - translationStart;
+			}
+			audit(timeInfo, userId, applicationName, key, result5);
+			success = true;
+		} finally {
+			endMeasurement(event, success);
+		}
+	}
+
+	/**
+	 * Generates a PassTicket and puts its 8 characters into a char buffer instead of creating a String.
+	 * Small short-lived objects are still allocated: the lookup keys of the caches and, without a cached prefix, the prefix.
+	 * @param userId The user ID, see {@link UserId#of(String)}
+	 * @param applicationName The application name, see {@link ApplicationName#of(String)}
+	 * @param key The secured signon application key, see {@link #forKey(String)}
+	 * @param destination The buffer receiving the PassTicket at its position
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public void generate(UserId userId, ApplicationName applicationName, PassTicketKey key, CharBuffer destination) throws PassTicketException, PassTicketInvalidInputException {
+		if (destination.remaining() < 8) {
+			throw new BufferOverflowException();
+		}
+		PassTicketEvent event = beginMeasurement();
+		boolean success = false;
+		try {
+			int timeInfo = reserveSecond(userId, applicationName, key, clock.getTimeAndDateInformation());
+			int result5 = computeResult5(userId, applicationName, key, timeInfo, event, true);
+			long translationStart = nanoTime(event);
+			translate(result5, destination);
+			if (event != null) {
+				event.translation = System.nanoTime() - translationStart;
+			}
+			audit(timeInfo, userId, applicationName, key, result5);
+			success = true;
+		} finally {
+			endMeasurement(event, success);
 		}
 	}
+
+	/**
+	 * Generates a PassTicket and puts its 8 characters into a byte buffer instead of creating a String.
+	 * Small short-lived objects are still allocated: the lookup keys of the caches and, without a cached prefix, the prefix.
+	 * @param userId The user ID, see {@link UserId#of(String)}
+	 * @param applicationName The application name, see {@link ApplicationName#of(String)}
+	 * @param key The secured signon application key, see {@link #forKey(String)}
+	 * @param destination The buffer receiving the PassTicket at its position
+	 * @param encoding The encoding of the characters
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public void generate(UserId userId, ApplicationName applicationName, PassTicketKey key, ByteBuffer destination, PassTicketEncoding encoding) throws PassTicketException, PassTicketInvalidInputException {
+		if (destination.remaining() < 8) {
+			throw new BufferOverflowException();
+		}
+		PassTicketEvent event = beginMeasurement();
+		boolean success = false;
+		try {
+			int timeInfo = reserveSecond(userId, applicationName, key, clock.getTimeAndDateInformation());
+			int result5 = computeResult5(userId, applicationName, key, timeInfo, event, true);
+			long translationStart = nanoTime(event);
+			translate(result5, destination, encoding);
+			if (event != null) {
+				event.translation = System.nanoTime() - translationStart;
+			}
+			audit(timeInfo, userId, applicationName, key, result5);
+			success = true;
+		} finally {
+			endMeasurement(event, success);
+		}
+	}
+
+	/**
+	 * Executes steps 1 to 5 of the algorithm.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param timeInfo The time and date information (seconds since 1.1.1970, 00:00 UTC)
+	 * @param event The event receiving the durations of the stages, or null if nothing is measured
+	 * @param cached true to use the prefix cache and the time-coder tables, if the generator has them
+	 * @return Result-5 of the PassTicket algorithm
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	private int computeResult5(UserId userId, ApplicationName applicationName, PassTicketKey key, int timeInfo, PassTicketEvent event, boolean cached) throws PassTicketException, PassTicketInvalidInputException {
+		if (userId == null || applicationName == null) {
+			throw new PassTicketInvalidInputException(PassTicketError.NULL_INPUT);
+		}
+		if (event != null) {
+			event.applicationName = applicationName.toString();
+		}
+		PassTicketEngine engine = this.engine;
+		if (engine != null && !(engine instanceof DESPassTicketEngine)) {
+			// the engine executes steps 1 to 5 at once, so they are not measured one by one
+			return key.prepare(engine).computeResult5(userId.getEbcdic(), applicationName.getEbcdic(), userId.getPadding1(), userId.getPadding2(), timeInfo);
+		}
+		if (event != null) {
+			long keySetupStart = System.nanoTime();
+			getDESEncrypter(key);
+			event.keySetup = System.nanoTime() - keySetupStart;
+			event.stepsMeasured = true;
+		}
+
+		// steps 1 to 3 only depend on the user input, so they can be taken from the cache
+		PassTicketPrefix prefix = getPrefix(userId, applicationName, key, cached ? prefixCache : null, event);
+
+		long timeCoderStart = nanoTime(event);
+		// step 4: XOR result3 with the date/time information -> result4
+		int result4 = prefix.getResult3() ^ timeInfo;
+
+		// step 5: time coder algorithm -> result5
+		int result5 = timeCoder(result4, userId, key, prefix, cached ? timeCoderTableCache : null, event);
+		if (event != null) {
+			event.timeCoder = System.nanoTime() - timeCoderStart;
+		}
+		return result5;
+	}
 	
+	/**
+	 * Returns the time-independent part of the PassTicket, either from the prefix cache or by computing it.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @return Result-3 and the time-coder padding
+	 * @throws PassTicketException
+	 */
+	PassTicketPrefix getPrefix(UserId userId, ApplicationName applicationName, PassTicketKey key) throws PassTicketException {
+		return getPrefix(userId, applicationName, key, prefixCache, null);
+	}
+
+	/**
+	 * Returns the time-independent part of the PassTicket, either from the prefix cache or by computing it.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param prefixCache The prefix cache, or null
+	 * @param event The event receiving the cache hit and the duration of steps 1 to 3, or null
+	 * @return Result-3 and the time-coder padding
+	 * @throws PassTicketException
+	 */
+	private PassTicketPrefix getPrefix(UserId userId, ApplicationName applicationName, PassTicketKey key, PassTicketPrefixCache prefixCache, PassTicketEvent event) throws PassTicketException {
+		PassTicketPrefix prefix = prefixCache == null ? null : prefixCache.get(key, userId.getName(), applicationName.getName());
+		if (prefix != null) {
+			if (event != null) {
+				event.prefixCacheHit = true;
+			}
+			return prefix;
+		}
+		long prefixStart = nanoTime(event);
+		prefix = computePrefix(userId, applicationName, getDESEncrypter(key));
+		if (event != null) {
+			event.prefix = System.nanoTime() - prefixStart;
+		}
+		if (prefixCache != null) {
+			prefixCache.put(key, userId.getName(), applicationName.getName(), prefix);
+		}
+		return prefix;
+	}
+
+	/**
+	 * Executes the time coder, with the precomputed tables if the (key, user ID) pair has been designated.
+	 * @param result4 Result-4 of the PassTicket algorithm
+	 * @param userId The user ID
+	 * @param key The secured signon application key
+	 * @param prefix The time-independent part of the PassTicket
+	 * @return Result-5 of the PassTicket algorithm
+	 * @throws PassTicketException
+	 */
+	int timeCoder(int result4, UserId userId, PassTicketKey key, PassTicketPrefix prefix) throws PassTicketException {
+		return timeCoder(result4, userId, key, prefix, timeCoderTableCache, null);
+	}
+
+	/**
+	 * Executes the time coder, with the precomputed tables if the (key, user ID) pair has been designated.
+	 * @param result4 Result-4 of the PassTicket algorithm
+	 * @param userId The user ID
+	 * @param key The secured signon application key
+	 * @param prefix The time-independent part of the PassTicket
+	 * @param timeCoderTableCache The time-coder tables, or null
+	 * @param event The event receiving the table hit, or null
+	 * @return Result-5 of the PassTicket algorithm
+	 * @throws PassTicketException
+	 */
+	private int timeCoder(int result4, UserId userId, PassTicketKey key, PassTicketPrefix prefix, TimeCoderTableCache timeCoderTableCache, PassTicketEvent event) throws PassTicketException {
+		TimeCoder tc = TIME_CODER;
+		TimeCoderTables tables = timeCoderTableCache == null ? null : timeCoderTableCache.get(key, userId.getName());
+		if (tables != null) {
+			if (event != null) {
+				event.timeCoderTableHit = true;
+			}
+			return tc.timeCoder(result4, tables);
+		}
+		return tc.timeCoder(result4, prefix.getPadding1(), prefix.getPadding2(), getDESEncrypter(key));
+	}
+
+	/**
+	 * Returns the DES encrypter for steps 1 to 5: that of the key, or that of the built-in engine if one is set.
+	 * @param key The secured signon application key
+	 * @return The DES encrypter for the calling thread
+	 * @throws PassTicketException
+	 */
+	private DESEncrypter getDESEncrypter(PassTicketKey key) throws PassTicketException {
+		PassTicketEngine engine = this.engine;
+		return engine instanceof DESPassTicketEngine ? ((DESPassTicketEngine) engine).getDESEncrypter(key) : key.getDESEncrypter();
+	}
+
+	/**
+	 * Executes the time-independent steps 1 to 3 of the algorithm on the encoded user input.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param desEncrypter The DES encrypter for the key
+	 * @return Result-3 and the time-coder padding
+	 * @throws PassTicketException
+	 */
+	protected PassTicketPrefix computePrefix(UserId userId, ApplicationName applicationName, DESEncrypter desEncrypter) throws PassTicketException {
+		int result3 = computeResult3(userId.getEbcdic(), applicationName.getEbcdic(), desEncrypter);
+		return new PassTicketPrefix(result3, userId.getPadding1(), userId.getPadding2());
+	}
+
+	/**
+	 * Executes steps 1 to 3 of the algorithm on the EBCDIC blocks of the user ID and the application name.
+	 * @param userId The user ID, see {@link UserId#getEbcdic()}
+	 * @param applicationName The application name, see {@link ApplicationName#getEbcdic()}
+	 * @param desEncrypter The DES encrypter for the key
+	 * @return Result-3 of the PassTicket algorithm
+	 * @throws PassTicketException
+	 */
+	static int computeResult3(long userId, long applicationName, DESEncrypter desEncrypter) throws PassTicketException {
+		// step 1: encrypt userId with the secured signon key -> result1
+		long result1 = desEncrypter.encrypt(userId);
+
+		// step 2: XOR result1 with the application name -> result2a, then
+		// encrypt result2a with the secured signon application key -> result2
+		long result2 = desEncrypter.encrypt(result1 ^ applicationName);
+
+		// step 3: Select the left 4 bytes -> result3
+		return (int) (result2 >>> 32);
+	}
+
+	/**
+	 * Translates Result-5 into the PassTicket.
+	 * @param result5 Result-5 of the PassTicket algorithm
+	 * @return The generated PassTicket
+	 */
+	protected static String translate(int result5) {
+		char[] passTicket = new char[8];
+		translate(result5, passTicket, 0);
+		return new String(passTicket);
+	}
+
+	/**
+	 * Translates Result-5 into the 8 characters of the PassTicket.
+	 * @param result5 Result-5 of the PassTicket algorithm
+	 * @param destination The array receiving the characters
+	 * @param offset The index of the first character
+	 */
+	protected static void translate(int result5, char[] destination, int offset) {
+		for (int position = 0; position < 8; position++) {
+			destination[offset + position] = TRANSLATION_TABLE[translationIndex(result5, position)];
+		}
+	}
+
+	/**
+	 * Translates Result-5 into the 8 characters of the PassTicket.
+	 * @param result5 Result-5 of the PassTicket algorithm
+	 * @param destination The buffer receiving the characters
+	 */
+	protected static void translate(int result5, CharBuffer destination) {
+		for (int position = 0; position < 8; position++) {
+			destination.put(TRANSLATION_TABLE[translationIndex(result5, position)]);
+		}
+	}
+
+	/**
+	 * Translates Result-5 into the 8 characters of the PassTicket.
+	 * @param result5 Result-5 of the PassTicket algorithm
+	 * @param destination The buffer receiving the characters
+	 * @param encoding The encoding of the characters
+	 */
+	protected static void translate(int result5, ByteBuffer destination, PassTicketEncoding encoding) {
+		for (int position = 0; position < 8; position++) {
+			int index = translationIndex(result5, position);
+			destination.put(encoding == PassTicketEncoding.EBCDIC ? EBCDIC_TRANSLATION_TABLE[index] : (byte) TRANSLATION_TABLE[index]);
+		}
+	}
+
+	/**
+	 * Checks whether Result-5 translates into the given PassTicket, without allocating any objects.
+	 * @param result5 Result-5 of the PassTicket algorithm
+	 * @param passTicket The PassTicket (8 characters)
+	 * @return true if the PassTicket matches
+	 */
+	static boolean matches(int result5, String passTicket) {
+		for (int position = 0; position < 8; position++) {
+			if (passTicket.charAt(position) != TRANSLATION_TABLE[translationIndex(result5, position)]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Selects the six bits of Result-5 which are translated into a character: bits 31, 32, 1, 2, 3 and 4 for position 0,
+	 * bits 3 to 8 for position 1, ..., bits 27 to 32 for position 7. The remainder of their division by 36 is the index into the translation table.
+	 * @param result5 Result-5 of the PassTicket algorithm
+	 * @param position The character position (0 to 7)
+	 * @return The index into the translation table
+	 */
+	private static int translationIndex(int result5, int position) {
+		int start = position == 0 ? 31 : 4 * position - 1;
+		return (Integer.rotateLeft(result5, start - 1) >>> 26) % 36;
+	}
+
 	/**
 	 * Translates the input byte array into 8 alphanumeric characters (= the PassTicket).
 	 * @param result5 Result-5 of the PassTicket algorithm
@@ -104,8 +1000,33 @@ public class PassTicketGenerator {
 		}
 
 		int charNumber = Integer.parseInt(binary.toString(), 2) % 36;
-		final char[] translationTable = {'A','B','C','D','E','F','G','H','I','J','K','L','M','N','O','P','Q','R','S','T','U','V','W','X','Y','Z','0','1','2','3','4','5','6','7','8','9'};	
 		
-		return translationTable[charNumber];
+		return TRANSLATION_TABLE[charNumber];
+	}
+
+	/** What a PassTicket generated from a String user ID and application name is for. */
+	private enum Purpose {
+		/** Issued at the current time of the clock, which the issuance guard may move ahead. */
+		ISSUED_NOW,
+		/** Issued for the given time and date information. */
+		ISSUED,
+		/** Computed ahead of time, counted and recorded in the audit log when it is issued. */
+		AHEAD_OF_TIME,
+		/** Neither issued, measured nor cached. */
+		SYNTHETIC
+	}
+
+	/** The shared executor for asynchronous generation, created on first use. */
+	private static class DefaultAsyncExecutor {
+		static final ExecutorService INSTANCE;
+
+		static {
+			AtomicInteger threadNumber = new AtomicInteger();
+			INSTANCE = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+				Thread thread = new Thread(runnable, "passticket-async-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package racfPassTicket;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import racfPassTicket.exceptions.PassTicketUnavailableException;
+
+/**
+ * <p>Makes sure that a PassTicket is issued at most once, although the algorithm yields the same PassTicket for the
+ * same key, user ID and application name within a second. RACF rejects a PassTicket which is presented again as a
+ * replay, so two logons of the same user within a second would otherwise fail.</p>
+ *
+ * <p>The guard remembers the seconds for which a PassTicket has been issued. If the current second is taken, the
+ * PassTicket of the next free second up to <code>maxSecondsAhead</code> seconds in the future is issued instead; RACF
+ * accepts it, as it lies within its time window. If all these seconds are taken as well, a
+ * {@link PassTicketUnavailableException} tells when a fresh PassTicket can be issued: at the start of the next
+ * second, which frees the next second of the window.</p>
+ *
+ * <p>The issued PassTickets are kept in one set per second, in a ring of buckets indexed by the second. A bucket is
+ * replaced as a whole when the ring comes round to it again, so PassTickets expire without any sweeping and memory is
+ * bounded by the PassTickets of the last few seconds. Reservations are lock-free apart from the bins of the
+ * concurrent sets. The guard only knows the PassTickets issued by this JVM; set it on a {@link PassTicketGenerator}
+ * with {@link PassTicketGenerator#setIssuanceGuard(PassTicketIssuanceGuard)}.</p>
+ */
+public class PassTicketIssuanceGuard {
+	/** The seconds before the current one which are still known, for threads whose clock lags behind. */
+	private static final int HISTORY_SECONDS = 2;
+
+	private final int maxSecondsAhead;
+	private final AtomicReferenceArray<Bucket> buckets;
+	private final LongAdder movedAhead = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+
+	/**
+	 * @param maxSecondsAhead How many seconds ahead of the current one a PassTicket may be issued, 0 to issue only
+	 * PassTickets of the current second; it must be well within the time window accepted by RACF (10 minutes)
+	 */
+	public PassTicketIssuanceGuard(int maxSecondsAhead) {
+		if (maxSecondsAhead < 0 || maxSecondsAhead > 300) {
+			throw new IllegalArgumentException("The guard may move between 0 and 300 seconds ahead.");
+		}
+		this.maxSecondsAhead = maxSecondsAhead;
+		this.buckets = new AtomicReferenceArray<>(HISTORY_SECONDS + maxSecondsAhead + 1);
+	}
+
+	/**
+	 * Reserves the second of a PassTicket to be issued.
+	 * @param key The secured signon application key
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param now The current time and date information (seconds since 1.1.1970, 00:00 UTC)
+	 * @return The time and date information to generate the PassTicket for, <code>now</code> unless it was taken
+	 * @throws PassTicketUnavailableException If the PassTickets of all seconds up to the maximum have been issued
+	 */
+	public int reserve(PassTicketKey key, UserId userId, ApplicationName applicationName, int now) throws PassTicketUnavailableException {
+		Issued issued = new Issued(key, userId.getEbcdic(), applicationName.getEbcdic());
+		for (int ahead = 0; ahead <= maxSecondsAhead; ahead++) {
+			Set<Issued> bucket = bucket(now + ahead);
+			if (bucket != null && bucket.add(issued)) {
+				if (ahead > 0) {
+					movedAhead.increment();
+				}
+				return now + ahead;
+			}
+		}
+		rejected.increment();
+		// the clock of the generator ticks with the system clock
+		throw new PassTicketUnavailableException(now + 1, 1000 - Math.floorMod(System.currentTimeMillis(), 1000L));
+	}
+
+	/**
+	 * Returns the set of the PassTickets issued for a second, replacing the bucket of an expired second.
+	 * @param second The time and date information
+	 * @return The set, or null if the second has expired, so that it is unknown which PassTickets were issued for it
+	 */
+	private Set<Issued> bucket(int second) {
+		int index = Math.floorMod(second, buckets.length());
+		while (true) {
+			Bucket bucket = buckets.get(index);
+			// differences rather than comparisons, so that the overflow of the time information in 2038 does no harm
+			if (bucket != null && bucket.second - second >= 0) {
+				return bucket.second == second ? bucket.issued : null;
+			}
+			Bucket next = new Bucket(second);
+			if (buckets.compareAndSet(index, bucket, next)) {
+				return next.issued;
+			}
+		}
+	}
+
+	/** @return How many seconds ahead a PassTicket may be issued */
+	public int getMaxSecondsAhead() {
+		return maxSecondsAhead;
+	}
+
+	/** @return The number of PassTickets issued for a later second because the current one was taken */
+	public long getMovedAheadCount() {
+		return movedAhead.sum();
+	}
+
+	/** @return The number of PassTickets refused because all seconds up to the maximum were taken */
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	/** The PassTickets issued for one second. */
+	private static final class Bucket {
+		final int second;
+		final Set<Issued> issued = ConcurrentHashMap.newKeySet();
+
+		Bucket(int second) {
+			this.second = second;
+		}
+	}
+
+	/** An issued PassTicket: the inputs which determine it within a second. */
+	private static final class Issued {
+		final PassTicketKey key;
+		final long userId;
+		final long applicationName;
+
+		Issued(PassTicketKey key, long userId, long applicationName) {
+			this.key = key;
+			this.userId = userId;
+			this.applicationName = applicationName;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Issued)) {
+				return false;
+			}
+			Issued other = (Issued) obj;
+			return userId == other.userId && applicationName == other.applicationName && Objects.equals(key, other.key);
+		}
+
+		@Override
+		public int hashCode() {
+			return (Long.hashCode(userId) * 31 + Long.hashCode(applicationName)) * 31 + Objects.hashCode(key);
+		}
+	}
+}
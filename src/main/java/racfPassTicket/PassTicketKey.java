@@ -0,0 +1,193 @@
+package racfPassTicket;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.SecretKey;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * <p>A validated secured signon application key which can be reused for many PassTickets.</p>
+ *
+ * <p>The key is parsed and validated only once. Instances are immutable and can be shared by all threads.
+ * With the {@link DESImplementation#JCE} implementation each thread gets its own {@link DESEncrypter} (and thus its own
+ * <code>Cipher</code>), which is created on first use and reused for every following PassTicket generated by that thread.
+ * The {@link DESImplementation#LONG} implementation is stateless, so a single instance is shared by all threads.
+ * {@link DESImplementation#NATIVE} gets a {@link NativeDESEncrypter} per thread like the JCE cipher, and the JCE cipher
+ * in its place if <code>libcrypto</code> cannot be called.</p>
+ *
+ * <p>Two keys are equal if they consist of the same key material, whatever their alias.</p>
+ */
+public final class PassTicketKey {
+	private final SecretKey secretKey;
+	private final byte[] keyBytes;
+	private final ThreadLocal<DESEncrypter> desEncrypters = new ThreadLocal<>();
+	private final DESEncrypter sharedDESEncrypter;
+	private final DESImplementation desImplementation;
+	private final String alias;
+	/** true for a key used by a single thread for a single PassTicket, whose encrypter is kept in a field instead of the ThreadLocal. */
+	private final boolean singleUse;
+	private DESEncrypter singleUseDESEncrypter;
+	/** The engines prepared for this key; the last one is kept in a field as well, as usually there is only one. */
+	private final Map<PassTicketEngine, PassTicketEngine.Prepared> preparedEngines = new ConcurrentHashMap<>();
+	private volatile PreparedEngine lastPreparedEngine;
+
+	/**
+	 * Validates the secured signon application key. DES is done by the JCE.
+	 * @param securedSignonKey The secured signon application key (16 hexadecimal numbers)
+	 * @throws PassTicketInvalidInputException
+	 */
+	public PassTicketKey(String securedSignonKey) throws PassTicketInvalidInputException {
+		this(securedSignonKey, DESImplementation.JCE);
+	}
+
+	/**
+	 * Validates the secured signon application key.
+	 * @param securedSignonKey The secured signon application key (16 hexadecimal numbers)
+	 * @param desImplementation The implementation of DES to use with this key
+	 * @throws PassTicketInvalidInputException
+	 */
+	public PassTicketKey(String securedSignonKey, DESImplementation desImplementation) throws PassTicketInvalidInputException {
+		this(PassTicketUtils.validateRACFsecuredSignonApplicationKey(securedSignonKey), desImplementation, null, false);
+	}
+
+	private PassTicketKey(SecretKey secretKey, DESImplementation desImplementation, String alias, boolean singleUse) {
+		this.secretKey = secretKey;
+		this.keyBytes = secretKey.getEncoded();
+		this.desImplementation = desImplementation;
+		this.sharedDESEncrypter = desImplementation == DESImplementation.LONG ? new LongDESEncrypter(keyBytes) : null;
+		this.alias = alias;
+		this.singleUse = singleUse;
+	}
+
+	/**
+	 * Validates a secured signon application key which is only used by the calling thread for a single PassTicket.
+	 * Its JCE cipher is kept by the key rather than in a thread-local variable, so that nothing is left behind in the
+	 * thread once the key is no longer referenced.
+	 * @param securedSignonKey The secured signon application key (16 hexadecimal numbers)
+	 * @return The key, which must not be shared between threads
+	 * @throws PassTicketInvalidInputException
+	 */
+	static PassTicketKey forSingleUse(String securedSignonKey) throws PassTicketInvalidInputException {
+		return new PassTicketKey(PassTicketUtils.validateRACFsecuredSignonApplicationKey(securedSignonKey), DESImplementation.JCE, null, true);
+	}
+
+	/**
+	 * Validates key material loaded from a key store or a key file.
+	 * @param keyBytes The 8 bytes of the key
+	 * @param desImplementation The implementation of DES to use with this key
+	 * @param alias The name under which the key is stored
+	 * @return The key
+	 * @throws PassTicketInvalidInputException
+	 */
+	static PassTicketKey fromKeyBytes(byte[] keyBytes, DESImplementation desImplementation, String alias) throws PassTicketInvalidInputException {
+		return new PassTicketKey(PassTicketUtils.validateRACFsecuredSignonApplicationKey(keyBytes), desImplementation, alias, false);
+	}
+
+	/**
+	 * Checks a secured signon application key without throwing an exception.
+	 * @param securedSignonKey The secured signon application key (16 hexadecimal numbers)
+	 * @return The error, or null if the key is valid
+	 */
+	public static PassTicketError check(String securedSignonKey) {
+		return PassTicketUtils.parseRACFsecuredSignonApplicationKey(securedSignonKey, new byte[8]);
+	}
+
+	/** @return The name of the key in the {@link PassTicketKeyRegistry} it was loaded from, or null */
+	public String getAlias() {
+		return alias;
+	}
+
+	/** @return The implementation of DES used with this key */
+	DESImplementation getDESImplementation() {
+		return desImplementation;
+	}
+
+	/** @return true if DES is done by <code>libcrypto</code>, false if by Java code */
+	boolean usesNativeDES() {
+		return desImplementation == DESImplementation.NATIVE && NativeDESEncrypter.isAvailable();
+	}
+
+	/** @return A copy of the key material (8 bytes) */
+	byte[] getKeyBytes() {
+		return Arrays.copyOf(keyBytes, keyBytes.length);
+	}
+
+	/**
+	 * Returns the DES encrypter of the calling thread, creating it on first use.
+	 * @return The DES encrypter for this key
+	 * @throws PassTicketException
+	 */
+	protected DESEncrypter getDESEncrypter() throws PassTicketException {
+		if (sharedDESEncrypter != null) {
+			return sharedDESEncrypter;
+		} else if (singleUse) {
+			if (singleUseDESEncrypter == null) {
+				singleUseDESEncrypter = new DESEncrypter(secretKey);
+			}
+			return singleUseDESEncrypter;
+		}
+		DESEncrypter desEncrypter = desEncrypters.get();
+		if (desEncrypter == null) {
+			desEncrypter = usesNativeDES() ? new NativeDESEncrypter(keyBytes) : new DESEncrypter(secretKey);
+			desEncrypters.set(desEncrypter);
+		}
+		return desEncrypter;
+	}
+
+	/**
+	 * Returns an engine prepared for this key, preparing it on first use.
+	 * @param engine The engine
+	 * @return The prepared engine
+	 * @throws PassTicketException
+	 */
+	PassTicketEngine.Prepared prepare(PassTicketEngine engine) throws PassTicketException {
+		PreparedEngine last = lastPreparedEngine;
+		if (last != null && last.engine == engine) {
+			return last.prepared;
+		}
+		PassTicketEngine.Prepared prepared = preparedEngines.get(engine);
+		if (prepared == null) {
+			byte[] copy = getKeyBytes();
+			try {
+				prepared = engine.prepare(copy);
+			} finally {
+				Arrays.fill(copy, (byte) 0);
+			}
+			PassTicketEngine.Prepared previous = preparedEngines.putIfAbsent(engine, prepared);
+			if (previous != null) {
+				prepared = previous;
+			}
+		}
+		lastPreparedEngine = new PreparedEngine(engine, prepared);
+		return prepared;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof PassTicketKey)) {
+			return false;
+		}
+		return MessageDigest.isEqual(keyBytes, ((PassTicketKey) obj).keyBytes);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(keyBytes);
+	}
+
+	/** An engine and its preparation for this key. */
+	private static final class PreparedEngine {
+		final PassTicketEngine engine;
+		final PassTicketEngine.Prepared prepared;
+
+		PreparedEngine(PassTicketEngine engine, PassTicketEngine.Prepared prepared) {
+			this.engine = engine;
+			this.prepared = prepared;
+		}
+	}
+}
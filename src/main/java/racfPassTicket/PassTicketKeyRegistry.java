@@ -0,0 +1,320 @@
+package racfPassTicket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.SecretKey;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * <p>The secured signon application keys of many applications, loaded from a key store or a key file.</p>
+ *
+ * <p>The keys are stored under aliases, by convention the application names; aliases are case-insensitive. Sources are
+ * a JCEKS or PKCS12 key store with DES secret key entries, or a properties file with lines of the form
+ * <code>APPNAME=0123456789ABCDEF</code> which must not be readable by group or others.</p>
+ *
+ * <p>The keys are held in an immutable snapshot, so {@link #getKey(String)} does not lock. {@link #reload()} reads the
+ * file again and replaces the snapshot at once; if the file is invalid the old snapshot stays. Keys whose material has not
+ * changed are carried over, so their DES encrypters and the caches of the generator stay warm. {@link #watch()} reloads
+ * the file whenever it changes; the watching thread is stopped by {@link #close()}.</p>
+ */
+public class PassTicketKeyRegistry implements AutoCloseable {
+	private final Path path;
+	private final String keyStoreType;
+	private final char[] password;
+	private final DESImplementation desImplementation;
+	private volatile Map<String, PassTicketKey> keys = Collections.emptyMap();
+	private WatchService watchService;
+
+	private final AtomicLong reloads = new AtomicLong();
+	private final AtomicLong reloadFailures = new AtomicLong();
+	private volatile Exception lastReloadFailure;
+
+	private PassTicketKeyRegistry(Path path, String keyStoreType, char[] password, DESImplementation desImplementation) {
+		this.path = path;
+		this.keyStoreType = keyStoreType;
+		this.password = password == null ? null : password.clone();
+		this.desImplementation = desImplementation;
+	}
+
+	/**
+	 * Loads the keys from a key store.
+	 * @param path The key store file
+	 * @param keyStoreType The type of the key store, JCEKS or PKCS12
+	 * @param password The password of the key store and its entries
+	 * @param desImplementation The implementation of DES to use with the keys
+	 * @return The registry
+	 * @throws PassTicketException
+	 */
+	public static PassTicketKeyRegistry fromKeyStore(Path path, String keyStoreType, char[] password, DESImplementation desImplementation) throws PassTicketException {
+		PassTicketKeyRegistry registry = new PassTicketKeyRegistry(path, keyStoreType, password, desImplementation);
+		registry.reload();
+		return registry;
+	}
+
+	/**
+	 * Loads the keys from a properties file with one <code>alias=key</code> line per application.
+	 * @param path The properties file, which must not be readable by group or others
+	 * @param desImplementation The implementation of DES to use with the keys
+	 * @return The registry
+	 * @throws PassTicketException
+	 */
+	public static PassTicketKeyRegistry fromProperties(Path path, DESImplementation desImplementation) throws PassTicketException {
+		PassTicketKeyRegistry registry = new PassTicketKeyRegistry(path, null, null, desImplementation);
+		registry.reload();
+		return registry;
+	}
+
+	/**
+	 * Returns the key stored under an alias.
+	 * @param alias The alias, usually the application name
+	 * @return The key, or null if there is none
+	 */
+	public PassTicketKey getKey(String alias) {
+		return alias == null ? null : keys.get(normalize(alias));
+	}
+
+	/** @return The aliases of all keys (upper case) */
+	public Set<String> getAliases() {
+		return keys.keySet();
+	}
+
+	/** @return All keys, e.g. to warm them up with a {@link PassTicketWarmUp} */
+	public Collection<PassTicketKey> getKeys() {
+		return keys.values();
+	}
+
+	/** @return The number of keys */
+	public int size() {
+		return keys.size();
+	}
+
+	/**
+	 * Reads the file again and replaces the keys. If the file cannot be read or contains an invalid key, the keys are kept.
+	 * @throws PassTicketException
+	 */
+	public synchronized void reload() throws PassTicketException {
+		Map<String, byte[]> keyBytes;
+		try {
+			keyBytes = keyStoreType == null ? readProperties() : readKeyStore();
+		} catch (PassTicketException e) {
+			reloadFailures.incrementAndGet();
+			lastReloadFailure = e;
+			throw e;
+		}
+
+		Map<String, PassTicketKey> previous = keys;
+		Map<String, PassTicketKey> next = new HashMap<>();
+		try {
+			for (Map.Entry<String, byte[]> entry : keyBytes.entrySet()) {
+				PassTicketKey key = previous.get(entry.getKey());
+				if (key == null || !sameKeyMaterial(key.getKeyBytes(), entry.getValue())) {
+					key = PassTicketKey.fromKeyBytes(entry.getValue(), desImplementation, entry.getKey());
+				}
+				next.put(entry.getKey(), key);
+			}
+		} catch (PassTicketInvalidInputException e) {
+			// cannot happen, the key material has been checked while reading
+			throw new PassTicketException(e.getMessage(), e);
+		} finally {
+			for (byte[] bytes : keyBytes.values()) {
+				Arrays.fill(bytes, (byte) 0);
+			}
+		}
+		keys = Collections.unmodifiableMap(next);
+		reloads.incrementAndGet();
+	}
+
+	/**
+	 * Starts a daemon thread which reloads the keys whenever the file is modified or replaced.
+	 * Failed reloads are counted, see {@link #getReloadFailureCount()}.
+	 * @throws IOException If the directory of the file cannot be watched
+	 */
+	public synchronized void watch() throws IOException {
+		if (watchService != null) {
+			return;
+		}
+		Path directory = path.toAbsolutePath().getParent();
+		watchService = FileSystems.getDefault().newWatchService();
+		directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+		WatchService service = watchService;
+		Path fileName = path.getFileName();
+		Thread thread = new Thread(() -> {
+			try {
+				while (true) {
+					WatchKey watchKey = service.take();
+					boolean changed = false;
+					for (WatchEvent<?> event : watchKey.pollEvents()) {
+						changed |= fileName.equals(event.context());
+					}
+					watchKey.reset();
+					if (changed) {
+						try {
+							reload();
+						} catch (PassTicketException e) {
+							// counted by reload(), the old keys stay
+						}
+					}
+				}
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				// closed
+			}
+		}, "passticket-key-registry");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/** Stops watching the file. The keys stay available. */
+	@Override
+	public synchronized void close() throws IOException {
+		if (watchService != null) {
+			watchService.close();
+			watchService = null;
+		}
+	}
+
+	/** @return The number of successful loads of the file, including the first one */
+	public long getReloadCount() {
+		return reloads.get();
+	}
+
+	/** @return The number of loads which failed and kept the old keys */
+	public long getReloadFailureCount() {
+		return reloadFailures.get();
+	}
+
+	/** @return The exception of the last failed load, or null */
+	public Exception getLastReloadFailure() {
+		return lastReloadFailure;
+	}
+
+	/**
+	 * Reads the key store.
+	 * @return The key material by alias
+	 * @throws PassTicketException
+	 */
+	private Map<String, byte[]> readKeyStore() throws PassTicketException {
+		Map<String, byte[]> keyBytes = new HashMap<>();
+		try (InputStream in = Files.newInputStream(path)) {
+			KeyStore keyStore = KeyStore.getInstance(keyStoreType);
+			keyStore.load(in, password);
+			for (Enumeration<String> aliases = keyStore.aliases(); aliases.hasMoreElements();) {
+				String alias = aliases.nextElement();
+				Key key = keyStore.isKeyEntry(alias) ? keyStore.getKey(alias, password) : null;
+				if (!(key instanceof SecretKey)) {
+					continue;
+				}
+				put(keyBytes, alias, key.getEncoded());
+			}
+		} catch (IOException | GeneralSecurityException e) {
+			throw new PassTicketException("Cannot read key store " + path + ". " + e.getMessage(), e);
+		}
+		return keyBytes;
+	}
+
+	/**
+	 * Reads the properties file.
+	 * @return The key material by alias
+	 * @throws PassTicketException
+	 */
+	private Map<String, byte[]> readProperties() throws PassTicketException {
+		Properties properties = new Properties();
+		try {
+			checkPermissions();
+			try (Reader reader = Files.newBufferedReader(path, StandardCharsets.ISO_8859_1)) {
+				properties.load(reader);
+			}
+		} catch (IOException e) {
+			throw new PassTicketException("Cannot read key file " + path + ". " + e.getMessage(), e);
+		}
+
+		Map<String, byte[]> keyBytes = new HashMap<>();
+		for (String alias : properties.stringPropertyNames()) {
+			byte[] bytes = new byte[8];
+			PassTicketError error = PassTicketUtils.parseRACFsecuredSignonApplicationKey(properties.getProperty(alias), bytes);
+			if (error != null) {
+				throw new PassTicketException("Invalid key " + normalize(alias) + " in " + path + ". " + error.getMessage(), new PassTicketInvalidInputException(error));
+			}
+			put(keyBytes, alias, bytes);
+		}
+		return keyBytes;
+	}
+
+	/**
+	 * Adds the checked key material of an alias.
+	 * @param keyBytes The key material by alias
+	 * @param alias The alias
+	 * @param bytes The key material
+	 * @throws PassTicketException
+	 */
+	private void put(Map<String, byte[]> keyBytes, String alias, byte[] bytes) throws PassTicketException {
+		String normalizedAlias = normalize(alias);
+		PassTicketError error = PassTicketUtils.checkKeyBytes(bytes);
+		if (error != null) {
+			throw new PassTicketException("Invalid key " + normalizedAlias + " in " + path + ". " + error.getMessage(), new PassTicketInvalidInputException(error));
+		} else if (keyBytes.put(normalizedAlias, bytes) != null) {
+			throw new PassTicketException("Duplicate key " + normalizedAlias + " in " + path + ".");
+		}
+	}
+
+	/**
+	 * Rejects a key file which can be read by group or others. Skipped on file systems without POSIX permissions.
+	 * @throws IOException
+	 */
+	private void checkPermissions() throws IOException {
+		PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+		if (view == null) {
+			return;
+		}
+		Set<PosixFilePermission> permissions = view.readAttributes().permissions();
+		if (permissions.contains(PosixFilePermission.GROUP_READ) || permissions.contains(PosixFilePermission.OTHERS_READ)) {
+			throw new IOException("The key file must not be readable by group or others.");
+		}
+	}
+
+	/**
+	 * Compares key material, ignoring the DES parity bits which the JCE may have adjusted.
+	 * @param a The first key
+	 * @param b The second key
+	 * @return true if the keys encrypt alike
+	 */
+	private static boolean sameKeyMaterial(byte[] a, byte[] b) {
+		int difference = a.length ^ b.length;
+		for (int i = 0; i < Math.min(a.length, b.length); i++) {
+			difference |= (a[i] ^ b[i]) & 0xFE;
+		}
+		return difference == 0;
+	}
+
+	private static String normalize(String alias) {
+		return alias.trim().toUpperCase(Locale.ROOT);
+	}
+}
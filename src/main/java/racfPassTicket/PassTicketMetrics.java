@@ -0,0 +1,54 @@
+package racfPassTicket;
+
+/**
+ * <p>Receives the latencies of the stages of PassTicket generation and the counts of cache hits and outcomes,
+ * see {@link PassTicketGenerator#setMetrics(PassTicketMetrics)}.</p>
+ *
+ * <p>{@link PassTicketMetricsRegistry} keeps histograms and counters and publishes them through JMX. Other monitoring
+ * systems can be connected by implementing this interface. Implementations are called by all generating threads and
+ * must be thread-safe and cheap.</p>
+ */
+public interface PassTicketMetrics {
+	/** The measured stages of PassTicket generation. */
+	enum Stage {
+		/** Step 0: validation and encoding of the user ID and application name. */
+		VALIDATION,
+		/** Getting the DES encrypter of the key, which sets up the cipher on first use in a thread. */
+		KEY_SETUP,
+		/** Steps 1 to 3: encryptions of the user ID and of result1 XOR the application name (only if the prefix is not cached). */
+		PREFIX,
+		/** Step 5: the time coder. */
+		TIME_CODER,
+		/** Step 6: translation of result5 into the PassTicket. */
+		TRANSLATION,
+		/** The whole generation. */
+		TOTAL
+	}
+
+	/** The counted events. */
+	enum Counter {
+		/** A PassTicket has been generated. */
+		GENERATED,
+		/** A PassTicket could not be generated. */
+		FAILED,
+		/** Steps 1 to 3 were taken from the prefix cache. */
+		PREFIX_CACHE_HIT,
+		/** Steps 1 to 3 were computed although a prefix cache is configured. */
+		PREFIX_CACHE_MISS,
+		/** The time coder used precomputed tables. */
+		TIME_CODER_TABLE_HIT
+	}
+
+	/**
+	 * Records the latency of a stage.
+	 * @param stage The stage
+	 * @param nanos The latency in nanoseconds
+	 */
+	void recordLatency(Stage stage, long nanos);
+
+	/**
+	 * Counts an event.
+	 * @param counter The event
+	 */
+	void increment(Counter counter);
+}
@@ -0,0 +1,175 @@
+package racfPassTicket;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+
+/**
+ * <p>Keeps a {@link LatencyHistogram} for each stage of PassTicket generation and a counter for each event.</p>
+ *
+ * <p>{@link #registerMBean(String)} publishes them through JMX: for each counter an attribute with its name, e.g.
+ * <code>PREFIX_CACHE_HIT</code>, and for each stage the attributes <code>&lt;STAGE&gt;_count</code>,
+ * <code>_mean</code>, <code>_p50</code>, <code>_p99</code>, <code>_p999</code> and <code>_max</code> in nanoseconds.
+ * The operation <code>reset</code> clears the histograms.</p>
+ */
+public class PassTicketMetricsRegistry implements PassTicketMetrics {
+	private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+	private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+	private ObjectName objectName;
+
+	/** Creates empty histograms and counters. */
+	public PassTicketMetricsRegistry() {
+		for (Stage stage : Stage.values()) {
+			histograms.put(stage, new LatencyHistogram());
+		}
+		for (Counter counter : Counter.values()) {
+			counters.put(counter, new LongAdder());
+		}
+	}
+
+	@Override
+	public void recordLatency(Stage stage, long nanos) {
+		histograms.get(stage).record(nanos);
+	}
+
+	@Override
+	public void increment(Counter counter) {
+		counters.get(counter).increment();
+	}
+
+	/**
+	 * @param stage The stage
+	 * @return The histogram of the latencies of the stage in nanoseconds
+	 */
+	public LatencyHistogram getHistogram(Stage stage) {
+		return histograms.get(stage);
+	}
+
+	/**
+	 * @param counter The event
+	 * @return The number of events
+	 */
+	public long getCount(Counter counter) {
+		return counters.get(counter).sum();
+	}
+
+	/** Clears the histograms. The counters keep counting. */
+	public void reset() {
+		for (LatencyHistogram histogram : histograms.values()) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * Publishes the metrics in the platform MBean server.
+	 * @param name The object name, e.g. <code>racfPassTicket:type=Metrics,name=gateway</code>
+	 * @throws JMException If the name is invalid or already registered
+	 */
+	public synchronized void registerMBean(String name) throws JMException {
+		ObjectName newObjectName = new ObjectName(name);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), newObjectName);
+		objectName = newObjectName;
+	}
+
+	/**
+	 * Removes the metrics from the platform MBean server.
+	 * @throws JMException If they are not registered
+	 */
+	public synchronized void unregisterMBean() throws JMException {
+		if (objectName != null) {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			objectName = null;
+		}
+	}
+
+	/** The metrics as MBean attributes. */
+	private class MetricsMBean implements DynamicMBean {
+		private final Map<String, Supplier<Object>> attributes = new LinkedHashMap<>();
+		private final MBeanInfo info;
+
+		MetricsMBean() {
+			List<MBeanAttributeInfo> attributeInfos = new ArrayList<>();
+			for (Counter counter : Counter.values()) {
+				attributes.put(counter.name(), () -> getCount(counter));
+				attributeInfos.add(new MBeanAttributeInfo(counter.name(), "long", "Number of " + counter.name() + " events", true, false, false));
+			}
+			for (Stage stage : Stage.values()) {
+				LatencyHistogram histogram = getHistogram(stage);
+				attributes.put(stage.name() + "_count", histogram::getCount);
+				attributes.put(stage.name() + "_mean", histogram::getMean);
+				attributes.put(stage.name() + "_p50", () -> histogram.getPercentile(50));
+				attributes.put(stage.name() + "_p99", () -> histogram.getPercentile(99));
+				attributes.put(stage.name() + "_p999", () -> histogram.getPercentile(99.9));
+				attributes.put(stage.name() + "_max", histogram::getMax);
+				for (String attribute : new String[] {"_count", "_mean", "_p50", "_p99", "_p999", "_max"}) {
+					String type = "_mean".equals(attribute) ? "double" : "long";
+					String description = "_count".equals(attribute) ? "Number of measurements" : "Latency in ns";
+					attributeInfos.add(new MBeanAttributeInfo(stage.name() + attribute, type, description, true, false, false));
+				}
+			}
+			MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Clears the histograms", null, "void", MBeanOperationInfo.ACTION);
+			info = new MBeanInfo(PassTicketMetricsRegistry.class.getName(), "PassTicket generation metrics",
+					attributeInfos.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] {reset}, null);
+		}
+
+		@Override
+		public Object getAttribute(String attribute) throws AttributeNotFoundException {
+			Supplier<Object> value = attributes.get(attribute);
+			if (value == null) {
+				throw new AttributeNotFoundException(attribute);
+			}
+			return value.get();
+		}
+
+		@Override
+		public AttributeList getAttributes(String[] attributes) {
+			AttributeList list = new AttributeList();
+			for (String attribute : attributes) {
+				try {
+					list.add(new Attribute(attribute, getAttribute(attribute)));
+				} catch (AttributeNotFoundException e) {
+					// left out, as specified by DynamicMBean
+				}
+			}
+			return list;
+		}
+
+		@Override
+		public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+			throw new AttributeNotFoundException("The metrics are read-only.");
+		}
+
+		@Override
+		public AttributeList setAttributes(AttributeList attributes) {
+			return new AttributeList();
+		}
+
+		@Override
+		public Object invoke(String actionName, Object[] params, String[] signature) {
+			if ("reset".equals(actionName)) {
+				reset();
+				return null;
+			}
+			throw new UnsupportedOperationException(actionName);
+		}
+
+		@Override
+		public MBeanInfo getMBeanInfo() {
+			return info;
+		}
+	}
+}
@@ -0,0 +1,320 @@
+package racfPassTicket;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * <p>Precomputes the PassTickets of registered hot (key, user ID, application name) triples in the background.</p>
+ *
+ * <p>A PassTicket only changes once per second. At every epoch-second boundary a background thread generates the
+ * PassTickets of each registered triple for the current and the next few seconds, so a lookup for a registered triple
+ * is a map access and an array read. Lookups for other triples, or which the background thread has not caught up with,
+ * fall back to generating the PassTicket in the calling thread.</p>
+ *
+ * <p>The number of triples is limited: if it is exceeded, the least recently used triple is removed. Triples which
+ * have not been looked up for the idle time are removed, too. Lookups do not lock. The background thread is stopped by
+ * {@link #close()}.</p>
+ */
+public class PassTicketPrefetcher implements AutoCloseable {
+	private final PassTicketGenerator passTicketGenerator;
+	private final int secondsAhead;
+	private final int maximumSize;
+	private final long idleSeconds;
+	private final PassTicketClock clock;
+	private final Map<CacheKey, Entry> entries = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService scheduler;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates the prefetcher and starts its background thread.
+	 * @param passTicketGenerator The generator for the PassTickets, whose clock is used
+	 * @param secondsAhead The number of seconds after the current one whose PassTickets are precomputed (at least 1)
+	 * @param maximumSize The maximum number of registered triples
+	 * @param idleTime How long a triple may go without lookups before it is removed, or 0 for no limit
+	 * @param unit The time unit of idleTime
+	 */
+	public PassTicketPrefetcher(PassTicketGenerator passTicketGenerator, int secondsAhead, int maximumSize, long idleTime, TimeUnit unit) {
+		if (secondsAhead < 1) {
+			throw new IllegalArgumentException("At least one second ahead must be precomputed.");
+		} else if (maximumSize < 1) {
+			throw new IllegalArgumentException("The maximum size must be at least 1.");
+		} else if (idleTime < 0) {
+			throw new IllegalArgumentException("The idle time cannot be negative.");
+		}
+		this.passTicketGenerator = passTicketGenerator;
+		this.secondsAhead = secondsAhead;
+		this.maximumSize = maximumSize;
+		this.idleSeconds = unit.toSeconds(idleTime);
+		this.clock = passTicketGenerator.getClock();
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "passticket-prefetcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduleRefresh();
+	}
+
+	/**
+	 * Registers a triple and computes its PassTickets in the calling thread. Lookups must use the same user ID and
+	 * application name as the registration.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public void register(String userId, String applicationName, PassTicketKey key) throws PassTicketException, PassTicketInvalidInputException {
+		String paddedUserId = PassTicketUtils.validateUserIdOrApplicationName(userId);
+		String paddedApplicationName = PassTicketUtils.validateUserIdOrApplicationName(applicationName);
+		if (key == null) {
+			throw new PassTicketInvalidInputException(PassTicketError.NULL_KEY);
+		}
+		CacheKey cacheKey = new CacheKey(key, userId, applicationName);
+		if (entries.containsKey(cacheKey)) {
+			return;
+		}
+		int now = clock.getTimeAndDateInformation();
+		Entry entry = new Entry(computeWindow(cacheKey, null, now), now, paddedUserId, paddedApplicationName);
+
+		synchronized (this) {
+			while (entries.size() >= maximumSize) {
+				evictLeastRecentlyUsed();
+			}
+			entries.putIfAbsent(cacheKey, entry);
+		}
+	}
+
+	/**
+	 * Removes a triple.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 */
+	public void unregister(String userId, String applicationName, PassTicketKey key) {
+		entries.remove(new CacheKey(key, userId, applicationName));
+	}
+
+	/**
+	 * Returns the PassTicket for the current second, or for the second the issuance guard of the generator moves it to:
+	 * the precomputed one for a registered triple, or a newly generated one.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @return The PassTicket
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public String generate(String userId, String applicationName, PassTicketKey key) throws PassTicketException, PassTicketInvalidInputException {
+		int now = clock.getTimeAndDateInformation();
+		// the issuance guard of the generator may move the PassTicket to a later second of the window
+		int second = passTicketGenerator.getIssuanceGuard() == null ? now : reserve(userId, applicationName, key, now);
+		Entry entry = userId == null || applicationName == null || key == null ? null : entries.get(new CacheKey(key, userId, applicationName));
+		if (entry != null) {
+			if (entry.lastUsed != now) {
+				entry.lastUsed = now;
+			}
+			String passTicket = entry.window.get(second);
+			if (passTicket != null) {
+				hits.increment();
+				passTicketGenerator.countIssued();
+				passTicketGenerator.audit(second, entry.paddedUserId, entry.paddedApplicationName, key, passTicket);
+				return passTicket;
+			}
+		}
+		misses.increment();
+		return passTicketGenerator.generate(userId, applicationName, key, second);
+	}
+
+	/**
+	 * Reserves the second of a lookup with the issuance guard of the generator. The user input is validated and encoded
+	 * like the generator does for String input, so that the guard does not reject what the generator accepts.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param now The current time and date information
+	 * @return The second to hand out the PassTicket of
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	private int reserve(String userId, String applicationName, PassTicketKey key, int now) throws PassTicketException, PassTicketInvalidInputException {
+		try {
+			UserId encodedUserId = UserId.fromPadded(PassTicketUtils.validateUserIdOrApplicationName(userId));
+			ApplicationName encodedApplicationName = ApplicationName.fromPadded(PassTicketUtils.validateUserIdOrApplicationName(applicationName));
+			return passTicketGenerator.reserve(encodedUserId, encodedApplicationName, key, now);
+		} catch (UnsupportedEncodingException e) {
+			throw new PassTicketException(PassTicketError.ENCODING_NOT_SUPPORTED, "Cannot get bytes in EBCDIC. " + e.getMessage(), e);
+		}
+	}
+
+	/** Stops the background thread. Lookups fall back to the generator once the precomputed PassTickets run out. */
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	/** @return The number of registered triples */
+	public int size() {
+		return entries.size();
+	}
+
+	/** @return The number of lookups answered with a precomputed PassTicket */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/** @return The number of lookups which generated the PassTicket in the calling thread */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/** @return The number of triples removed because of the maximum size or the idle time */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Moves the windows of all triples to the current second and removes idle triples.
+	 * Called by the background thread at every epoch-second boundary.
+	 */
+	void refresh() {
+		int now = clock.getTimeAndDateInformation();
+		for (Map.Entry<CacheKey, Entry> mapEntry : entries.entrySet()) {
+			Entry entry = mapEntry.getValue();
+			if (idleSeconds > 0 && now - entry.lastUsed > idleSeconds) {
+				if (entries.remove(mapEntry.getKey(), entry)) {
+					evictions.increment();
+				}
+			} else if (entry.window.firstSecond != now) {
+				try {
+					entry.window = computeWindow(mapEntry.getKey(), entry.window, now);
+				} catch (PassTicketException | PassTicketInvalidInputException e) {
+					// cannot happen for a registered triple; lookups fall back to the generator
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the PassTickets of a triple for the current and the next seconds, reusing those already computed.
+	 * @param cacheKey The triple
+	 * @param previous The previous window or null
+	 * @param now The current second
+	 * @return The new window
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	private Window computeWindow(CacheKey cacheKey, Window previous, int now) throws PassTicketException, PassTicketInvalidInputException {
+		String[] passTickets = new String[secondsAhead + 1];
+		for (int i = 0; i < passTickets.length; i++) {
+			String passTicket = previous == null ? null : previous.get(now + i);
+			passTickets[i] = passTicket != null ? passTicket : passTicketGenerator.generate(cacheKey.userId, cacheKey.applicationName, cacheKey.key, now + i, false);
+		}
+		return new Window(now, passTickets);
+	}
+
+	/** Runs {@link #refresh()} right after the next epoch-second boundary. */
+	private void scheduleRefresh() {
+		long delay = 1000 - System.currentTimeMillis() % 1000;
+		try {
+			scheduler.schedule(() -> {
+				try {
+					refresh();
+				} finally {
+					scheduleRefresh();
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// closed
+		}
+	}
+
+	/** Removes the triple which has not been looked up for the longest time. */
+	private void evictLeastRecentlyUsed() {
+		CacheKey eldest = null;
+		int eldestLastUsed = 0;
+		for (Map.Entry<CacheKey, Entry> entry : entries.entrySet()) {
+			if (eldest == null || entry.getValue().lastUsed - eldestLastUsed < 0) {
+				eldest = entry.getKey();
+				eldestLastUsed = entry.getValue().lastUsed;
+			}
+		}
+		if (eldest != null && entries.remove(eldest) != null) {
+			evictions.increment();
+		}
+	}
+
+	/** The PassTickets of consecutive seconds. Instances are immutable. */
+	private static class Window {
+		final int firstSecond;
+		final String[] passTickets;
+
+		Window(int firstSecond, String[] passTickets) {
+			this.firstSecond = firstSecond;
+			this.passTickets = passTickets;
+		}
+
+		/**
+		 * @param second The second
+		 * @return The PassTicket for the second, or null if it is not in the window
+		 */
+		String get(int second) {
+			int index = second - firstSecond;
+			return index >= 0 && index < passTickets.length ? passTickets[index] : null;
+		}
+	}
+
+	/** The window of a triple, the second it was last looked up and the names as the generator encodes them. */
+	private static class Entry {
+		volatile Window window;
+		volatile int lastUsed;
+		final String paddedUserId;
+		final String paddedApplicationName;
+
+		Entry(Window window, int lastUsed, String paddedUserId, String paddedApplicationName) {
+			this.window = window;
+			this.lastUsed = lastUsed;
+			this.paddedUserId = paddedUserId;
+			this.paddedApplicationName = paddedApplicationName;
+		}
+	}
+
+	/** The (key, user ID, application name) triple. */
+	private static class CacheKey {
+		final PassTicketKey key;
+		final String userId;
+		final String applicationName;
+
+		CacheKey(PassTicketKey key, String userId, String applicationName) {
+			this.key = key;
+			this.userId = userId;
+			this.applicationName = applicationName;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return key.equals(other.key) && userId.equals(other.userId) && applicationName.equals(other.applicationName);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * key.hashCode() + userId.hashCode()) + applicationName.hashCode();
+		}
+	}
+}
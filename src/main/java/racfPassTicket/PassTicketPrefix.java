@@ -0,0 +1,38 @@
+package racfPassTicket;
+
+/**
+ * The time-independent part of a PassTicket: Result-3 (steps 1 to 3 of the algorithm) and the time-coder padding.
+ * Both only depend on the key, the user ID and the application name.
+ */
+class PassTicketPrefix {
+	private final int result3;
+	private final long padding1;
+	private final long padding2;
+
+	/**
+	 * Creates the prefix.
+	 * @param result3 Result-3 of the PassTicket algorithm
+	 * @param padding1 The time-coder padding for rounds 1, 3 and 5, see {@link TimeCoder#toPaddingBlock(byte[], int)}
+	 * @param padding2 The time-coder padding for rounds 2, 4 and 6
+	 */
+	PassTicketPrefix(int result3, long padding1, long padding2) {
+		this.result3 = result3;
+		this.padding1 = padding1;
+		this.padding2 = padding2;
+	}
+
+	/** @return Result-3 of the PassTicket algorithm */
+	int getResult3() {
+		return result3;
+	}
+
+	/** @return The time-coder padding for rounds 1, 3 and 5 */
+	long getPadding1() {
+		return padding1;
+	}
+
+	/** @return The time-coder padding for rounds 2, 4 and 6 */
+	long getPadding2() {
+		return padding2;
+	}
+}
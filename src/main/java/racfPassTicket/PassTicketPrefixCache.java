@@ -0,0 +1,204 @@
+package racfPassTicket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>Bounded cache for the time-independent part of PassTickets (see {@link PassTicketGenerator#setPrefixCache}).</p>
+ *
+ * <p>Steps 1 to 3 of the algorithm and the time-coder padding only depend on the key, the user ID and the application name.
+ * On a cache hit only the time-dependent steps 4 to 6 have to be executed, which saves two of the eight DES encryptions.</p>
+ *
+ * <p>The cache is split into up to 16 segments which are locked independently. The maximum size is divided between
+ * the segments, so the cache never holds more entries than that. Each segment evicts its least recently used entry
+ * when it is full, even if other segments have room; entries older than the time to live are treated as missing.</p>
+ */
+public class PassTicketPrefixCache {
+	private static final int MAXIMUM_SEGMENTS = 16;
+
+	private final Segment[] segments;
+	private final long timeToLiveNanos;
+	private final LongSupplier ticker;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates the cache.
+	 * @param maximumSize The maximum number of (key, user ID, application name) entries
+	 * @param timeToLive How long an entry may be used, or 0 for no limit
+	 * @param unit The time unit of timeToLive
+	 */
+	public PassTicketPrefixCache(int maximumSize, long timeToLive, TimeUnit unit) {
+		this(maximumSize, timeToLive, unit, System::nanoTime);
+	}
+
+	/**
+	 * Creates the cache with a custom time source for the time to live.
+	 * @param maximumSize The maximum number of entries
+	 * @param timeToLive How long an entry may be used, or 0 for no limit
+	 * @param unit The time unit of timeToLive
+	 * @param ticker The time source in nanoseconds
+	 */
+	PassTicketPrefixCache(int maximumSize, long timeToLive, TimeUnit unit, LongSupplier ticker) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("The maximum size must be at least 1.");
+		} else if (timeToLive < 0) {
+			throw new IllegalArgumentException("The time to live cannot be negative.");
+		}
+		// a power of two, but no more segments than entries, so that each segment holds at least one entry
+		segments = new Segment[Integer.highestOneBit(Math.min(maximumSize, MAXIMUM_SEGMENTS))];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment(maximumSize / segments.length + (i < maximumSize % segments.length ? 1 : 0));
+		}
+		this.timeToLiveNanos = unit.toNanos(timeToLive);
+		this.ticker = ticker;
+	}
+
+	/**
+	 * Looks up the prefix of a PassTicket.
+	 * @param key The secured signon application key
+	 * @param userId The validated user ID
+	 * @param applicationName The validated application name
+	 * @return The cached prefix or null if there is none
+	 */
+	PassTicketPrefix get(PassTicketKey key, String userId, String applicationName) {
+		CacheKey cacheKey = new CacheKey(key, userId, applicationName);
+		Segment segment = segmentFor(cacheKey);
+		Entry entry;
+		synchronized (segment) {
+			entry = segment.get(cacheKey);
+			if (entry != null && isExpired(entry)) {
+				segment.remove(cacheKey);
+				entry = null;
+			}
+		}
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return entry.prefix;
+	}
+
+	/**
+	 * Stores the prefix of a PassTicket.
+	 * @param key The secured signon application key
+	 * @param userId The validated user ID
+	 * @param applicationName The validated application name
+	 * @param prefix The prefix to store
+	 */
+	void put(PassTicketKey key, String userId, String applicationName, PassTicketPrefix prefix) {
+		CacheKey cacheKey = new CacheKey(key, userId, applicationName);
+		Segment segment = segmentFor(cacheKey);
+		synchronized (segment) {
+			segment.put(cacheKey, new Entry(prefix, ticker.getAsLong()));
+		}
+	}
+
+	/** Removes all entries. The statistics are not reset. */
+	public void clear() {
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	/** @return The number of entries, including expired ones which have not been removed yet */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/** @return The number of lookups which found a prefix */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/** @return The number of lookups which did not find a (valid) prefix */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/** @return The number of entries removed because the cache was full */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	private boolean isExpired(Entry entry) {
+		return timeToLiveNanos > 0 && ticker.getAsLong() - entry.createdNanos >= timeToLiveNanos;
+	}
+
+	private Segment segmentFor(CacheKey cacheKey) {
+		int hash = cacheKey.hashCode();
+		return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+	}
+
+	/** A part of the cache: a map in access order which removes its eldest entry when it is full. */
+	@SuppressWarnings("serial")
+	private class Segment extends LinkedHashMap<CacheKey, Entry> {
+		private final int maximumSize;
+
+		Segment(int maximumSize) {
+			super(16, 0.75f, true);
+			this.maximumSize = maximumSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, Entry> eldest) {
+			if (size() > maximumSize) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/** A cached prefix and the time it was created. */
+	private static class Entry {
+		final PassTicketPrefix prefix;
+		final long createdNanos;
+
+		Entry(PassTicketPrefix prefix, long createdNanos) {
+			this.prefix = prefix;
+			this.createdNanos = createdNanos;
+		}
+	}
+
+	/** The (key, user ID, application name) triple identifying a prefix. */
+	private static class CacheKey {
+		final PassTicketKey key;
+		final String userId;
+		final String applicationName;
+
+		CacheKey(PassTicketKey key, String userId, String applicationName) {
+			this.key = key;
+			this.userId = userId;
+			this.applicationName = applicationName;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return key.equals(other.key) && userId.equals(other.userId) && applicationName.equals(other.applicationName);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * key.hashCode() + userId.hashCode()) + applicationName.hashCode();
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package racfPassTicket;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import racfPassTicket.exceptions.PassTicketException;
+
+/**
+ * <p>Generates the PassTickets of a stream of requests, for event-driven applications.</p>
+ *
+ * <p>The processor subscribes to a publisher of {@link PassTicketRequest}s and publishes a {@link PassTicketResult} for
+ * each request to a single subscriber, in the order of the requests. The PassTickets are generated on the executor,
+ * never in the threads of the publisher or subscriber. An invalid request fails only its result, not the stream.</p>
+ *
+ * <p>At most <code>bufferSize</code> requests are in progress or waiting for demand: the processor requests that many
+ * from the publisher at first and one more for every result taken by the subscriber. A slow subscriber therefore slows
+ * down the publisher instead of filling memory.</p>
+ */
+public class PassTicketProcessor implements Flow.Processor<PassTicketRequest, PassTicketResult> {
+	private final PassTicketGenerator passTicketGenerator;
+	private final Executor executor;
+	private final int bufferSize;
+
+	/** The results in the order of the requests, completed or not. */
+	private final Queue<CompletableFuture<PassTicketResult>> results = new ConcurrentLinkedQueue<>();
+	private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+	private final AtomicReference<Flow.Subscriber<? super PassTicketResult>> downstream = new AtomicReference<>();
+	private final AtomicBoolean upstreamRequested = new AtomicBoolean();
+	private final AtomicLong demand = new AtomicLong();
+	private final AtomicInteger drains = new AtomicInteger();
+	private volatile boolean done;
+	private volatile Throwable error;
+	private volatile Throwable invalidDemand;
+	private volatile boolean cancelled;
+
+	/**
+	 * Creates a processor running on the asynchronous executor of the generator.
+	 * @param passTicketGenerator The generator
+	 * @param bufferSize The maximum number of requests in progress or waiting for demand
+	 */
+	public PassTicketProcessor(PassTicketGenerator passTicketGenerator, int bufferSize) {
+		this(passTicketGenerator, passTicketGenerator.getAsyncExecutor(), bufferSize);
+	}
+
+	/**
+	 * Creates a processor.
+	 * @param passTicketGenerator The generator
+	 * @param executor The executor generating the PassTickets
+	 * @param bufferSize The maximum number of requests in progress or waiting for demand
+	 */
+	public PassTicketProcessor(PassTicketGenerator passTicketGenerator, Executor executor, int bufferSize) {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("The buffer size must be at least 1.");
+		}
+		this.passTicketGenerator = passTicketGenerator;
+		this.executor = executor;
+		this.bufferSize = bufferSize;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super PassTicketResult> subscriber) {
+		if (!downstream.compareAndSet(null, subscriber)) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {}
+
+				@Override
+				public void cancel() {}
+			});
+			subscriber.onError(new IllegalStateException("The processor supports a single subscriber."));
+			return;
+		}
+		subscriber.onSubscribe(new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+				if (n <= 0) {
+					invalidDemand = new IllegalArgumentException("The number of requested results must be positive.");
+					cancelUpstream();
+				} else {
+					demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+				}
+				drain();
+			}
+
+			@Override
+			public void cancel() {
+				cancelled = true;
+				cancelUpstream();
+				drain();
+			}
+		});
+		requestUpstream();
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		if (!upstream.compareAndSet(null, subscription)) {
+			subscription.cancel();
+			return;
+		}
+		requestUpstream();
+	}
+
+	@Override
+	public void onNext(PassTicketRequest request) {
+		CompletableFuture<PassTicketResult> result = new CompletableFuture<>();
+		results.add(result);
+		try {
+			executor.execute(() -> {
+				try {
+					result.complete(passTicketGenerator.tryGenerate(request));
+				} catch (RuntimeException e) {
+					result.complete(PassTicketResult.failure(request, new PassTicketException("Generation failed.", e)));
+				}
+				drain();
+			});
+		} catch (RejectedExecutionException e) {
+			result.complete(PassTicketResult.failure(request, new PassTicketException("Generation was rejected by the executor.", e)));
+			drain();
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		error = throwable;
+		done = true;
+		drain();
+	}
+
+	@Override
+	public void onComplete() {
+		done = true;
+		drain();
+	}
+
+	/** Requests the first requests from the publisher, once both the publisher and the subscriber are there. */
+	private void requestUpstream() {
+		Flow.Subscription subscription = upstream.get();
+		if (subscription != null && downstream.get() != null && upstreamRequested.compareAndSet(false, true)) {
+			subscription.request(bufferSize);
+		}
+	}
+
+	/**
+	 * Ends the stream of results.
+	 * @param subscriber The subscriber
+	 * @param throwable The error, or null for completion
+	 */
+	private void terminate(Flow.Subscriber<? super PassTicketResult> subscriber, Throwable throwable) {
+		cancelled = true;
+		results.clear();
+		if (throwable != null) {
+			subscriber.onError(throwable);
+		} else {
+			subscriber.onComplete();
+		}
+	}
+
+	private void cancelUpstream() {
+		Flow.Subscription subscription = upstream.get();
+		if (subscription != null) {
+			subscription.cancel();
+		}
+	}
+
+	/**
+	 * Passes the completed results at the head of the queue to the subscriber as far as it has demand, and the end of
+	 * the stream once all results are passed. Only one thread at a time drains; the others leave their work to it.
+	 */
+	private void drain() {
+		if (drains.getAndIncrement() != 0) {
+			return;
+		}
+		int missed = 1;
+		do {
+			Flow.Subscriber<? super PassTicketResult> subscriber = downstream.get();
+			if (subscriber != null && !cancelled) {
+				long emitted = 0;
+				CompletableFuture<PassTicketResult> head;
+				while (invalidDemand == null && demand.get() > 0 && (head = results.peek()) != null && head.isDone()) {
+					results.poll();
+					subscriber.onNext(head.join());
+					demand.decrementAndGet();
+					emitted++;
+				}
+				Flow.Subscription subscription = upstream.get();
+				if (emitted > 0 && subscription != null && !done) {
+					subscription.request(emitted);
+				}
+				if (invalidDemand != null) {
+					terminate(subscriber, invalidDemand);
+				} else if (done && results.isEmpty()) {
+					terminate(subscriber, error);
+				}
+			} else if (cancelled) {
+				results.clear();
+			}
+			missed = drains.addAndGet(-missed);
+		} while (missed != 0);
+	}
+}
@@ -0,0 +1,60 @@
+package racfPassTicket;
+
+/** A request for a PassTicket: user ID, application name and secured signon application key. Instances are immutable. */
+public final class PassTicketRequest {
+	private final String userId;
+	private final String applicationName;
+	private final String securedSignonKey;
+	private final PassTicketKey key;
+
+	/**
+	 * Creates a request with a key which has not been validated yet.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param securedSignonKey The secured signon application key (16 hexadecimal numbers)
+	 */
+	public PassTicketRequest(String userId, String applicationName, String securedSignonKey) {
+		this.userId = userId;
+		this.applicationName = applicationName;
+		this.securedSignonKey = securedSignonKey;
+		this.key = null;
+	}
+
+	/**
+	 * Creates a request with a key which has already been validated.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key, see {@link PassTicketGenerator#forKey(String)}
+	 */
+	public PassTicketRequest(String userId, String applicationName, PassTicketKey key) {
+		this.userId = userId;
+		this.applicationName = applicationName;
+		this.securedSignonKey = null;
+		this.key = key;
+	}
+
+	/** @return The user ID */
+	public String getUserId() {
+		return userId;
+	}
+
+	/** @return The application name */
+	public String getApplicationName() {
+		return applicationName;
+	}
+
+	/** @return The secured signon application key as a String, or null if the request holds a validated key */
+	public String getSecuredSignonKey() {
+		return securedSignonKey;
+	}
+
+	/** @return The validated key, or null if the request holds the key as a String */
+	public PassTicketKey getKey() {
+		return key;
+	}
+
+	/** @return The object identifying the key: the validated key or the key String */
+	Object getKeyIdentity() {
+		return key != null ? key : securedSignonKey;
+	}
+}
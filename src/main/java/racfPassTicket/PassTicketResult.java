@@ -0,0 +1,87 @@
+package racfPassTicket;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * The outcome of a {@link PassTicketRequest}: either the PassTicket or the error which prevented its generation.
+ * A failure is described by an error code; the exception is only created if it is asked for.
+ */
+public final class PassTicketResult {
+	private final PassTicketRequest request;
+	private final String passTicket;
+	private final PassTicketError error;
+	private Exception exception;
+
+	private PassTicketResult(PassTicketRequest request, String passTicket, PassTicketError error, Exception exception) {
+		this.request = request;
+		this.passTicket = passTicket;
+		this.error = error;
+		this.exception = exception;
+	}
+
+	/**
+	 * Creates a successful result.
+	 * @param request The request
+	 * @param passTicket The generated PassTicket
+	 * @return The result
+	 */
+	public static PassTicketResult success(PassTicketRequest request, String passTicket) {
+		return new PassTicketResult(request, passTicket, null, null);
+	}
+
+	/**
+	 * Creates a failed result.
+	 * @param request The request
+	 * @param exception The reason why no PassTicket was generated
+	 * @return The result
+	 */
+	public static PassTicketResult failure(PassTicketRequest request, Exception exception) {
+		PassTicketError error = null;
+		if (exception instanceof PassTicketInvalidInputException) {
+			error = ((PassTicketInvalidInputException) exception).getError();
+		} else if (exception instanceof PassTicketException) {
+			error = ((PassTicketException) exception).getError();
+		}
+		return new PassTicketResult(request, null, error, exception);
+	}
+
+	/**
+	 * Creates a failed result without an exception.
+	 * @param request The request
+	 * @param error The reason why no PassTicket was generated
+	 * @return The result
+	 */
+	public static PassTicketResult failure(PassTicketRequest request, PassTicketError error) {
+		return new PassTicketResult(request, null, error, null);
+	}
+
+	/** @return The request */
+	public PassTicketRequest getRequest() {
+		return request;
+	}
+
+	/** @return true if a PassTicket was generated */
+	public boolean isSuccess() {
+		return passTicket != null;
+	}
+
+	/** @return The generated PassTicket, or null if the generation failed */
+	public String getPassTicket() {
+		return passTicket;
+	}
+
+	/** @return The error code of the failure, or null if the generation succeeded or failed for a reason without an error code */
+	public PassTicketError getError() {
+		return error;
+	}
+
+	/** @return The exception which prevented the generation (PassTicketException or PassTicketInvalidInputException), or null */
+	public Exception getException() {
+		if (exception == null && error != null) {
+			exception = error.isInvalidInput() ? new PassTicketInvalidInputException(error) : new PassTicketException(error, null);
+		}
+		return exception;
+	}
+}
@@ -0,0 +1,297 @@
+package racfPassTicket;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * <p>Generates PassTickets on shards, each a single thread with its own generator, routed by key.</p>
+ *
+ * <p>All requests for a key (and, if configured, user ID) go to the same shard. The DES encrypters of the key, which
+ * are kept per thread, and the prefix cache and time-coder tables of the shard's generator are therefore used by one
+ * thread only and stay in the cache of its core. A few busy keys would leave the other shards idle, so an idle shard
+ * takes the oldest request of another shard once it has waited longer than the steal delay; the stolen requests are
+ * generated with the idle shard's state. Requests which are taken by their own shard within the delay never move, so
+ * the affinity holds under normal load. Idle shards park until a request arrives for them, or until a waiting request
+ * of another shard reaches the steal delay.</p>
+ *
+ * <p>The queue of each shard is bounded: if it is full, the request fails with a {@link RejectedExecutionException}.
+ * Queue depth and the number of generated, stolen and rejected requests are counted per shard.
+ * The threads are stopped by {@link #close()}.</p>
+ */
+public class PassTicketShardedExecutor implements AutoCloseable {
+	/** The default time a request waits for its own shard before an idle shard may steal it, in microseconds. */
+	public static final long DEFAULT_STEAL_DELAY_MICROS = 1000;
+
+	private static final int RUNNING = 0;
+	/** Idle with no request of another shard waiting, parked until signalled. */
+	private static final int IDLE = 1;
+	/** Idle and parked until the oldest request of another shard reaches the steal delay. */
+	private static final int WATCHING = 2;
+
+	private final Shard[] shards;
+	private final boolean routeByUserId;
+	private final long stealDelayNanos;
+	private volatile boolean closed;
+
+	/**
+	 * Creates the shards and starts their threads.
+	 * @param shardCount The number of shards, e.g. the number of cores
+	 * @param queueCapacity The maximum number of waiting requests per shard
+	 * @param generatorFactory Creates the generator of each shard, e.g. with its own prefix cache
+	 * @param routeByUserId true to route by key and user ID, false to route by key only
+	 */
+	public PassTicketShardedExecutor(int shardCount, int queueCapacity, Supplier<PassTicketGenerator> generatorFactory, boolean routeByUserId) {
+		this(shardCount, queueCapacity, generatorFactory, routeByUserId, DEFAULT_STEAL_DELAY_MICROS, TimeUnit.MICROSECONDS);
+	}
+
+	/**
+	 * Creates the shards with a steal delay and starts their threads.
+	 * @param shardCount The number of shards, e.g. the number of cores
+	 * @param queueCapacity The maximum number of waiting requests per shard
+	 * @param generatorFactory Creates the generator of each shard, e.g. with its own prefix cache
+	 * @param routeByUserId true to route by key and user ID, false to route by key only
+	 * @param stealDelay How long a request waits for its own shard before an idle shard may take it
+	 * @param unit The time unit of stealDelay
+	 */
+	public PassTicketShardedExecutor(int shardCount, int queueCapacity, Supplier<PassTicketGenerator> generatorFactory, boolean routeByUserId, long stealDelay, TimeUnit unit) {
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("There must be at least one shard.");
+		} else if (queueCapacity < 1) {
+			throw new IllegalArgumentException("The queue capacity must be at least 1.");
+		} else if (stealDelay < 0) {
+			throw new IllegalArgumentException("The steal delay cannot be negative.");
+		}
+		this.routeByUserId = routeByUserId;
+		this.stealDelayNanos = unit.toNanos(stealDelay);
+		this.shards = new Shard[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new Shard(i, generatorFactory.get(), queueCapacity);
+		}
+		for (Shard shard : shards) {
+			shard.thread.start();
+		}
+	}
+
+	/**
+	 * Generates a PassTicket on the shard of the key.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @return The future PassTicket, failing with a {@link PassTicketException}, {@link PassTicketInvalidInputException}
+	 * or, if the queue of the shard is full, a {@link RejectedExecutionException}
+	 */
+	public CompletableFuture<String> submit(String userId, String applicationName, PassTicketKey key) {
+		Task task = new Task(userId, applicationName, key);
+		Shard shard = shards[shardIndex(userId, key)];
+		if (closed) {
+			task.future.completeExceptionally(new RejectedExecutionException("The executor is closed."));
+		} else if (!shard.queue.offer(task)) {
+			shard.rejected.increment();
+			task.future.completeExceptionally(new RejectedExecutionException("The queue of shard " + shard.index + " is full."));
+		} else if (closed && shard.queue.remove(task)) {
+			// closed while offering, after close() emptied the queues
+			task.future.completeExceptionally(new RejectedExecutionException("The executor is closed."));
+		} else if (shard.state != RUNNING) {
+			LockSupport.unpark(shard.thread);
+		} else {
+			// the request may have to wait: one idle shard starts watching the queues for requests to steal
+			for (Shard other : shards) {
+				if (other.state == IDLE) {
+					LockSupport.unpark(other.thread);
+					break;
+				}
+			}
+		}
+		return task.future;
+	}
+
+	/** Stops the threads. Waiting requests fail with a {@link RejectedExecutionException}. */
+	@Override
+	public void close() {
+		closed = true;
+		for (Shard shard : shards) {
+			LockSupport.unpark(shard.thread);
+		}
+		for (Shard shard : shards) {
+			for (Task task; (task = shard.queue.poll()) != null;) {
+				task.future.completeExceptionally(new RejectedExecutionException("The executor is closed."));
+			}
+		}
+	}
+
+	/** @return The number of shards */
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	/**
+	 * @param shard The index of the shard
+	 * @return The number of requests waiting in the queue of the shard
+	 */
+	public int getQueueDepth(int shard) {
+		return shards[shard].queue.size();
+	}
+
+	/**
+	 * @param shard The index of the shard
+	 * @return The number of requests generated by the shard, including stolen ones
+	 */
+	public long getCompletedCount(int shard) {
+		return shards[shard].completed.sum();
+	}
+
+	/**
+	 * @param shard The index of the shard
+	 * @return The number of requests the shard took from the queues of other shards
+	 */
+	public long getStolenCount(int shard) {
+		return shards[shard].stolen.sum();
+	}
+
+	/**
+	 * @param shard The index of the shard
+	 * @return The number of requests rejected because the queue of the shard was full
+	 */
+	public long getRejectedCount(int shard) {
+		return shards[shard].rejected.sum();
+	}
+
+	/**
+	 * Selects the shard of a request.
+	 * @param userId The user ID
+	 * @param key The key
+	 * @return The index of the shard
+	 */
+	int shardIndex(String userId, PassTicketKey key) {
+		int hash = key == null ? 0 : key.hashCode();
+		if (routeByUserId && userId != null) {
+			hash = 31 * hash + userId.hashCode();
+		}
+		hash ^= hash >>> 16;
+		return Math.floorMod(hash, shards.length);
+	}
+
+	/**
+	 * Takes the request of the other shards which has waited longest, if it has waited longer than the steal delay.
+	 * @param thief The idle shard
+	 * @return The request, or null if there is none to steal; then {@link Shard#stealableInNanos} tells when there may be one
+	 */
+	private Task steal(Shard thief) {
+		long now = System.nanoTime();
+		Shard victim = null;
+		long oldest = now;
+		thief.stealableInNanos = Long.MAX_VALUE;
+		for (Shard shard : shards) {
+			Task head = shard == thief ? null : shard.queue.peekFirst();
+			if (head == null) {
+				continue;
+			}
+			long waited = now - head.submittedNanos;
+			if (waited >= stealDelayNanos) {
+				if (head.submittedNanos - oldest < 0 || victim == null) {
+					victim = shard;
+					oldest = head.submittedNanos;
+				}
+			} else {
+				thief.stealableInNanos = Math.min(thief.stealableInNanos, stealDelayNanos - waited);
+			}
+		}
+		return victim == null ? null : victim.queue.pollFirst();
+	}
+
+	/** A request and its future PassTicket. */
+	private static class Task {
+		final String userId;
+		final String applicationName;
+		final PassTicketKey key;
+		final CompletableFuture<String> future = new CompletableFuture<>();
+		final long submittedNanos = System.nanoTime();
+
+		Task(String userId, String applicationName, PassTicketKey key) {
+			this.userId = userId;
+			this.applicationName = applicationName;
+			this.key = key;
+		}
+	}
+
+	/** A thread with its own generator and queue. */
+	private class Shard implements Runnable {
+		final int index;
+		final PassTicketGenerator passTicketGenerator;
+		final BlockingDeque<Task> queue;
+		final Thread thread;
+		final LongAdder completed = new LongAdder();
+		final LongAdder stolen = new LongAdder();
+		final LongAdder rejected = new LongAdder();
+		/** {@link #RUNNING}, {@link #IDLE} or {@link #WATCHING}, read by submitting threads to decide whom to signal. */
+		volatile int state = RUNNING;
+		/** Set by {@link PassTicketShardedExecutor#steal}: the time until a request of another shard may be stolen. */
+		long stealableInNanos;
+
+		Shard(int index, PassTicketGenerator passTicketGenerator, int queueCapacity) {
+			this.index = index;
+			this.passTicketGenerator = passTicketGenerator;
+			this.queue = new LinkedBlockingDeque<>(queueCapacity);
+			this.thread = new Thread(this, "passticket-shard-" + index);
+			thread.setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			while (!closed) {
+				Task task = queue.poll();
+				if (task == null) {
+					task = steal(this);
+					if (task != null) {
+						stolen.increment();
+					} else {
+						park();
+						continue;
+					}
+				}
+				execute(task);
+			}
+		}
+
+		/** Parks the idle thread until it is signalled or a request of another shard may be stolen. */
+		private void park() {
+			long nanos = stealableInNanos;
+			state = nanos == Long.MAX_VALUE ? IDLE : WATCHING;
+			// a request offered before the state was visible has to be seen here
+			if (queue.isEmpty() && !closed) {
+				if (nanos == Long.MAX_VALUE) {
+					LockSupport.park(this);
+				} else {
+					LockSupport.parkNanos(this, nanos);
+				}
+			}
+			state = RUNNING;
+		}
+
+		private void execute(Task task) {
+			String passTicket = null;
+			Exception exception = null;
+			try {
+				passTicket = passTicketGenerator.generate(task.userId, task.applicationName, task.key);
+			} catch (PassTicketException | PassTicketInvalidInputException | RuntimeException e) {
+				exception = e;
+			}
+			// counted before the future completes, so that callers waiting for it see the count
+			completed.increment();
+			if (exception == null) {
+				task.future.complete(passTicket);
+			} else {
+				task.future.completeExceptionally(exception);
+			}
+		}
+	}
+}
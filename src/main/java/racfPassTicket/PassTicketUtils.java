@@ -1,11 +1,11 @@
 package racfPassTicket;
 
-import java.math.BigInteger;
+import java.security.InvalidKeyException;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.DESKeySpec;
-import javax.xml.bind.DatatypeConverter;
 
+import racfPassTicket.exceptions.PassTicketError;
 import racfPassTicket.exceptions.PassTicketInvalidInputException;
 
 /**  Utility class for the PassTicket generator. */
@@ -19,17 +19,143 @@ public class PassTicketUtils {
 	 * @throws PassTicketInvalidInputException
 	 */
 	protected static String validateUserIdOrApplicationName(String str) throws PassTicketInvalidInputException {
+		PassTicketError error = checkUserIdOrApplicationName(str);
+		if (error != null) {
+			throw new PassTicketInvalidInputException(error);
+		}
+		return padRight(str.substring(leadingWhitespace(str))); // trim left, pad with blanks to the right to a size of 8
+	}
+
+	/**
+	 * Checks a user ID or an application name without throwing an exception, see {@link #validateUserIdOrApplicationName(String)}.
+	 * @param str The user ID or the application name.
+	 * @return The error, or null if the input is valid
+	 */
+	static PassTicketError checkUserIdOrApplicationName(String str) {
+		if (str == null) {
+			return PassTicketError.NULL_INPUT;
+		}
+		int start = leadingWhitespace(str);
+		int length = str.length() - start;
+
+		if (length == 0) {
+			return PassTicketError.EMPTY_INPUT;
+		} else if (length > 8 || (!isAscii(str) && str.substring(start).getBytes().length > 8)) {
+			return PassTicketError.INPUT_TOO_LONG;
+		}
+		return null;
+	}
+
+	/**
+	 * Validates a user ID or an application name against the naming rules of RACF: 1 to 8 of the characters A to Z, 0 to 9, # $ @.
+	 * Leading whitespace and trailing blanks are ignored.
+	 * @param str The user ID or the application name.
+	 * @return The user ID or application name, padded with blanks to 8 characters.
+	 * @throws PassTicketInvalidInputException
+	 */
+	protected static String validateRACFName(String str) throws PassTicketInvalidInputException {
+		PassTicketError error = checkRACFName(str);
+		if (error != null) {
+			throw new PassTicketInvalidInputException(error);
+		}
+		return padRight(str.substring(leadingWhitespace(str), trailingBlanksStart(str)));
+	}
+
+	/**
+	 * Checks a user ID or an application name against the naming rules of RACF without throwing an exception, see {@link #validateRACFName(String)}.
+	 * @param str The user ID or the application name.
+	 * @return The error, or null if the input is valid
+	 */
+	static PassTicketError checkRACFName(String str) {
 		if (str == null) {
-			throw new PassTicketInvalidInputException("Input cannot be null");
+			return PassTicketError.NULL_INPUT;
 		}
-		str = str.replaceAll("^\\s+", ""); // trim left
+		int start = leadingWhitespace(str);
+		int end = trailingBlanksStart(str);
 
-		if (str.isEmpty()) {
-			throw new PassTicketInvalidInputException("Input cannot be empty.");
-		} else if (str.getBytes().length > 8) {
-			throw new PassTicketInvalidInputException("Input is too long.");
+		if (end <= start) {
+			return PassTicketError.EMPTY_INPUT;
+		} else if (end - start > 8) {
+			return PassTicketError.INPUT_TOO_LONG;
+		}
+		for (int i = start; i < end; i++) {
+			if (!Cp1047.isAllowedInName(str.charAt(i))) {
+				return PassTicketError.INVALID_CHARACTER;
+			}
 		}
-		return String.format("%1$-8s", str); // pad with blanks to the right to a size of 8
+		return null;
+	}
+
+	/**
+	 * Counts the whitespace characters at the start of a string.
+	 * @param str The string
+	 * @return The number of leading whitespace characters
+	 */
+	private static int leadingWhitespace(String str) {
+		int start = 0;
+		while (start < str.length() && isWhitespace(str.charAt(start))) {
+			start++;
+		}
+		return start;
+	}
+
+	/**
+	 * Finds the blanks at the end of a string.
+	 * @param str The string
+	 * @return The index of the first of the trailing blanks
+	 */
+	private static int trailingBlanksStart(String str) {
+		int end = str.length();
+		while (end > 0 && str.charAt(end - 1) == ' ') {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * @param c The character
+	 * @return true for blank, tab, line feed, vertical tab, form feed and carriage return (the characters matched by the regular expression \s)
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || (c >= '\t' && c <= '\r');
+	}
+
+	/**
+	 * @param c The character
+	 * @return The value of the hexadecimal digit, or -1 if the character is not one
+	 */
+	private static int hexValue(char c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		} else if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		} else if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		return -1;
+	}
+
+	private static boolean isAscii(String str) {
+		for (int i = 0; i < str.length(); i++) {
+			if (str.charAt(i) > 0x7F) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Pads a string of at most 8 characters with blanks to the right to a size of 8.
+	 * @param str The string
+	 * @return The padded string
+	 */
+	private static String padRight(String str) {
+		if (str.length() >= 8) {
+			return str;
+		}
+		char[] padded = {' ', ' ', ' ', ' ', ' ', ' ', ' ', ' '};
+		str.getChars(0, str.length(), padded, 0);
+		return new String(padded);
 	}
 
 	/**
@@ -39,18 +165,94 @@ public class PassTicketUtils {
 	 * @throws PassTicketInvalidInputException
 	 */
 	protected static SecretKey validateRACFsecuredSignonApplicationKey(String secretKeyString) throws PassTicketInvalidInputException {
-		secretKeyString = secretKeyString.replaceAll("\\s+", "");
-		if (secretKeyString.length() != 16) {
-			throw new PassTicketInvalidInputException("Key must be 16 hex characters long.");
+		byte[] keyBytes = new byte[8];
+		PassTicketError error = parseRACFsecuredSignonApplicationKey(secretKeyString, keyBytes);
+		if (error != null) {
+			throw new PassTicketInvalidInputException(error);
 		}
-		byte[] keyBytes = DatatypeConverter.parseHexBinary(secretKeyString);
+		return toSecretKey(keyBytes);
+	}
 
+	/**
+	 * Validates the key material, e.g. from a key store, and returns a SecretKey.
+	 * @param keyBytes The 8 bytes of the key
+	 * @return The SecretKey for the DES encrypter
+	 * @throws PassTicketInvalidInputException
+	 */
+	protected static SecretKey validateRACFsecuredSignonApplicationKey(byte[] keyBytes) throws PassTicketInvalidInputException {
+		PassTicketError error = checkKeyBytes(keyBytes);
+		if (error != null) {
+			throw new PassTicketInvalidInputException(error);
+		}
+		return toSecretKey(keyBytes);
+	}
+
+	private static SecretKey toSecretKey(byte[] keyBytes) throws PassTicketInvalidInputException {
 		try {
 			SecretKeyFactory factory = SecretKeyFactory.getInstance("DES");
 			return factory.generateSecret(new DESKeySpec(keyBytes));
 		} catch (Exception e) {
-			throw new PassTicketInvalidInputException("SecretKey cannot be generated.", e.getCause());
+			throw new PassTicketInvalidInputException(PassTicketError.KEY_GENERATION_FAILED, e);
+		}
+	}
+
+	/**
+	 * Parses a secured signon application key without throwing an exception. Whitespace is ignored.
+	 * @param secretKeyString The secret key as a String (16 hexadecimal characters)
+	 * @param keyBytes The array receiving the 8 bytes of the key
+	 * @return The error, or null if the key is valid
+	 */
+	static PassTicketError parseRACFsecuredSignonApplicationKey(String secretKeyString, byte[] keyBytes) {
+		if (secretKeyString == null) {
+			return PassTicketError.NULL_KEY;
+		}
+		int digits = 0;
+		for (int i = 0; i < secretKeyString.length(); i++) {
+			char c = secretKeyString.charAt(i);
+			if (!isWhitespace(c)) {
+				digits++;
+			}
+		}
+		if (digits != 16) {
+			return PassTicketError.INVALID_KEY_LENGTH;
+		}
+
+		int digit = 0;
+		for (int i = 0; i < secretKeyString.length(); i++) {
+			char c = secretKeyString.charAt(i);
+			if (isWhitespace(c)) {
+				continue;
+			}
+			int value = hexValue(c);
+			if (value < 0) {
+				return PassTicketError.INVALID_KEY_CHARACTER;
+			}
+			keyBytes[digit / 2] = (byte) ((digit & 1) == 0 ? value << 4 : keyBytes[digit / 2] | value);
+			digit++;
+		}
+
+		return checkKeyBytes(keyBytes);
+	}
+
+	/**
+	 * Checks the key material without throwing an exception.
+	 * @param keyBytes The key
+	 * @return The error, or null if the key consists of 8 bytes and is not a weak DES key
+	 */
+	static PassTicketError checkKeyBytes(byte[] keyBytes) {
+		if (keyBytes == null) {
+			return PassTicketError.NULL_KEY;
+		} else if (keyBytes.length != 8) {
+			return PassTicketError.INVALID_KEY_LENGTH;
 		}
+		try {
+			if (DESKeySpec.isWeak(keyBytes, 0)) {
+				return PassTicketError.WEAK_KEY;
+			}
+		} catch (InvalidKeyException e) {
+			return PassTicketError.KEY_GENERATION_FAILED; // cannot happen, the key has 8 bytes
+		}
+		return null;
 	}
 
 	/**
@@ -58,10 +260,15 @@ public class PassTicketUtils {
 	 * @return A 4 byte integer representing unix time as byte array
 	 */
 	protected static byte[] getTimeAndDateInformation() {
-		Long currentTime = System.currentTimeMillis() / 1000L; // seconds since 1.1.1970, 00:00 UTC
-		String binaryTimeString = Long.toBinaryString(currentTime);		
-		BigInteger binaryTimeBi = new BigInteger(binaryTimeString, 2);
-		return binaryTimeBi.toByteArray();
+		return intToByteArray(getTimeAndDateInformationAsInt());
+	}
+
+	/**
+	 * Retrieve the time and date information needed for the PassTicket algorithm as an integer.
+	 * @return The unix time stamp (4 bytes)
+	 */
+	protected static int getTimeAndDateInformationAsInt() {
+		return (int) (System.currentTimeMillis() / 1000L); // seconds since 1.1.1970, 00:00 UTC
 	}
 
 	/**
@@ -96,4 +303,40 @@ public class PassTicketUtils {
 		}
 		return bitArray;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Converts bytes into a long (big-endian).
+	 * @param byteArray The byte array to convert
+	 * @param offset The index of the first (most significant) byte
+	 * @param length The number of bytes to convert (at most 8)
+	 * @return The resulting long
+	 */
+	protected static long byteArrayToLong(byte[] byteArray, int offset, int length) {
+		long value = 0;
+		for (int i = offset; i < offset + length; i++) {
+			value = (value << 8) | (byteArray[i] & 0xFF);
+		}
+		return value;
+	}
+
+	/**
+	 * Converts a long into 8 bytes (big-endian).
+	 * @param value The long to convert
+	 * @param byteArray The byte array receiving the result (at least 8 bytes)
+	 */
+	protected static void longToByteArray(long value, byte[] byteArray) {
+		for (int i = 7; i >= 0; i--) {
+			byteArray[i] = (byte) value;
+			value >>>= 8;
+		}
+	}
+
+	/**
+	 * Converts an int into a 4 byte array (big-endian).
+	 * @param value The int to convert
+	 * @return The resulting byte array
+	 */
+	protected static byte[] intToByteArray(int value) {
+		return new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+	}
+}
@@ -0,0 +1,159 @@
+package racfPassTicket;
+
+import java.io.UnsupportedEncodingException;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * <p>Checks PassTickets presented by a client.</p>
+ *
+ * <p>A PassTicket is valid for a window around the time it was generated. The verifier computes the time-independent
+ * Result-3 once and then tries the seconds of the window, nearest to the current time first, until a second yields
+ * the presented PassTicket. Only the time coder and the translation are executed for each candidate. The prefix cache
+ * and the time-coder tables of the generator are used, so verifying tickets of designated users needs no DES at all.</p>
+ *
+ * <p>The current time is read from the clock of the generator. With a fork/join pool the candidates are split into
+ * parallel lanes. Instances are thread-safe.</p>
+ */
+public class PassTicketVerifier {
+	/** The default tolerance: a PassTicket is valid for 10 minutes before and after its generation. */
+	public static final int DEFAULT_TOLERANCE_SECONDS = 600;
+
+	private final PassTicketGenerator passTicketGenerator;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a verifier which tries the candidates in the calling thread.
+	 * @param passTicketGenerator The generator whose caches are used
+	 */
+	public PassTicketVerifier(PassTicketGenerator passTicketGenerator) {
+		this(passTicketGenerator, null);
+	}
+
+	/**
+	 * Creates a verifier which tries the candidates in parallel.
+	 * @param passTicketGenerator The generator whose caches are used
+	 * @param pool The pool executing the parallel lanes, or null to use the calling thread
+	 */
+	public PassTicketVerifier(PassTicketGenerator passTicketGenerator, ForkJoinPool pool) {
+		this.passTicketGenerator = passTicketGenerator;
+		this.pool = pool;
+	}
+
+	/**
+	 * Verifies a PassTicket with the default tolerance of 10 minutes.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param passTicket The PassTicket to verify
+	 * @return The time and date information (seconds since 1.1.1970, 00:00 UTC) the PassTicket was generated for, or empty if it is not valid
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public OptionalLong verify(String userId, String applicationName, PassTicketKey key, String passTicket) throws PassTicketException, PassTicketInvalidInputException {
+		return verify(userId, applicationName, key, passTicket, DEFAULT_TOLERANCE_SECONDS);
+	}
+
+	/**
+	 * Verifies a PassTicket.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param passTicket The PassTicket to verify
+	 * @param toleranceSeconds The maximum difference between the current time and the time the PassTicket was generated for
+	 * @return The time and date information (seconds since 1.1.1970, 00:00 UTC) the PassTicket was generated for, or empty if it is not valid
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public OptionalLong verify(String userId, String applicationName, PassTicketKey key, String passTicket, int toleranceSeconds) throws PassTicketException, PassTicketInvalidInputException {
+		return verify(userId, applicationName, key, passTicket, toleranceSeconds, passTicketGenerator.getClock().getTimeAndDateInformation());
+	}
+
+	/**
+	 * Verifies a PassTicket at the given time.
+	 * @param userId The user ID
+	 * @param applicationName The application name
+	 * @param key The secured signon application key
+	 * @param passTicket The PassTicket to verify
+	 * @param toleranceSeconds The maximum difference between now and the time the PassTicket was generated for
+	 * @param now The current time and date information
+	 * @return The time and date information the PassTicket was generated for, or empty if it is not valid
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	protected OptionalLong verify(String userId, String applicationName, PassTicketKey key, String passTicket, int toleranceSeconds, int now) throws PassTicketException, PassTicketInvalidInputException {
+		if (passTicket == null) {
+			throw new PassTicketInvalidInputException("PassTicket cannot be null.");
+		} else if (toleranceSeconds < 0) {
+			throw new PassTicketInvalidInputException("Tolerance cannot be negative.");
+		} else if (passTicket.length() != 8) {
+			return OptionalLong.empty();
+		}
+
+		String validUserId = PassTicketUtils.validateUserIdOrApplicationName(userId);
+		String validApplicationName = PassTicketUtils.validateUserIdOrApplicationName(applicationName);
+		final UserId encodedUserId;
+		final PassTicketPrefix prefix;
+		try {
+			encodedUserId = UserId.fromPadded(validUserId);
+			prefix = passTicketGenerator.getPrefix(encodedUserId, ApplicationName.fromPadded(validApplicationName), key);
+		} catch (UnsupportedEncodingException e) {
+			throw new PassTicketException(PassTicketError.ENCODING_NOT_SUPPORTED, "Cannot get bytes in EBCDIC. " + e.getMessage(), e);
+		}
+
+		// candidate i is the offset 0, -1, +1, -2, +2, ... from now
+		IntStream candidates = IntStream.rangeClosed(0, 2 * toleranceSeconds);
+		OptionalInt match;
+		try {
+			if (pool == null) {
+				match = candidates.filter(i -> matches(encodedUserId, key, prefix, now + offset(i), passTicket)).findFirst();
+			} else {
+				match = pool.submit(() -> candidates.parallel().filter(i -> matches(encodedUserId, key, prefix, now + offset(i), passTicket)).findFirst()).get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PassTicketException("Verification was interrupted.", e);
+		} catch (ExecutionException | IllegalStateException e) {
+			Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+			if (cause instanceof IllegalStateException && cause.getCause() instanceof PassTicketException) {
+				throw (PassTicketException) cause.getCause();
+			}
+			throw new PassTicketException("Verification failed.", cause);
+		}
+		return match.isPresent() ? OptionalLong.of((now + offset(match.getAsInt())) & 0xFFFFFFFFL) : OptionalLong.empty();
+	}
+
+	/**
+	 * Maps the index of a candidate to its offset from now: 0, -1, +1, -2, +2, ...
+	 * @param i The index of the candidate
+	 * @return The offset in seconds
+	 */
+	private static int offset(int i) {
+		return (i & 1) == 1 ? -(i + 1) / 2 : i / 2;
+	}
+
+	/**
+	 * Checks whether the PassTicket was generated for the given time.
+	 * @param userId The user ID
+	 * @param key The secured signon application key
+	 * @param prefix The time-independent part of the PassTicket
+	 * @param timeInfo The candidate time and date information
+	 * @param passTicket The PassTicket to verify
+	 * @return true if the PassTicket matches
+	 */
+	private boolean matches(UserId userId, PassTicketKey key, PassTicketPrefix prefix, int timeInfo, String passTicket) {
+		try {
+			int result5 = passTicketGenerator.timeCoder(prefix.getResult3() ^ timeInfo, userId, key, prefix);
+			return PassTicketGenerator.matches(result5, passTicket);
+		} catch (PassTicketException e) {
+			throw new IllegalStateException(e); // unwrapped by verify
+		}
+	}
+}
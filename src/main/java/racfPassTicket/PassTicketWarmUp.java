@@ -0,0 +1,239 @@
+package racfPassTicket;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * <p>Warms up a {@link PassTicketGenerator} before it serves requests, so that the first PassTickets are not generated
+ * in the interpreter and do not pay for the initialization of the JCE providers.</p>
+ *
+ * <p>A warm-up first looks up the DES <code>SecretKeyFactory</code> and <code>Cipher</code> (and the SHA-256 digest if
+ * the generator has an audit log), then sets up every given key in the warming thread: its DES encrypter and the engine
+ * of the generator. Finally it generates the configured number of synthetic PassTickets with these keys, which triggers
+ * the JIT compilation of validation, encryption, time coder and translation. The synthetic PassTickets run the same
+ * code as real ones, but they are not recorded in the audit log, do not show in the metrics and leave the prefix cache
+ * and the time-coder tables alone. {@link #isReady()} turns true when the first warm-up has finished, e.g. for a
+ * readiness probe; the {@link Report} tells how long each part took.</p>
+ *
+ * <p>The JCE cipher and the <code>libcrypto</code> context of a key are kept per thread. The warm-up sets them up in the
+ * warming thread only, so each thread serving requests still sets up its own on its first PassTicket with a key,
+ * unless the key uses {@link DESImplementation#LONG}, whose encrypter is shared by all threads.</p>
+ */
+public class PassTicketWarmUp {
+	/** The number of synthetic PassTickets generated by default, enough for the JIT compiler to optimize the hot paths. */
+	public static final int DEFAULT_ITERATIONS = 20_000;
+	/** A valid key for a warm-up without keys. */
+	private static final String SYNTHETIC_KEY = "A1B2C3D4E5F6A7B8";
+	private static final String SYNTHETIC_APPLICATION_NAME = "WARMUP";
+	/** The number of synthetic user IDs, and thus of prefix cache entries per key. */
+	private static final int SYNTHETIC_USER_IDS = 16;
+
+	private final PassTicketGenerator passTicketGenerator;
+	private final int iterations;
+	private final CompletableFuture<Report> ready = new CompletableFuture<>();
+	private volatile Report report;
+
+	/**
+	 * @param passTicketGenerator The generator to warm up, configured as it will be used
+	 * @param iterations The number of synthetic PassTickets to generate, e.g. {@link #DEFAULT_ITERATIONS}
+	 */
+	public PassTicketWarmUp(PassTicketGenerator passTicketGenerator, int iterations) {
+		if (iterations < 1) {
+			throw new IllegalArgumentException("At least one PassTicket must be generated.");
+		}
+		this.passTicketGenerator = passTicketGenerator;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Warms up the generator in the calling thread. It can be run again, e.g. after the keys have been reloaded.
+	 * @param keys The keys which will be used, or an empty collection to warm up with a synthetic key
+	 * @return The report
+	 * @throws PassTicketException If the JCE providers or a key cannot be set up
+	 */
+	public Report run(Collection<PassTicketKey> keys) throws PassTicketException {
+		long start = System.nanoTime();
+		try {
+			// the providers: SecretKeyFactory for the validation of keys, Cipher for DES
+			SecretKey secretKey = PassTicketUtils.validateRACFsecuredSignonApplicationKey(SYNTHETIC_KEY);
+			new DESEncrypter(secretKey).encrypt(0L);
+			if (passTicketGenerator.getAuditLog() != null) {
+				PassTicketAuditRecord.newDigest();
+			}
+			long providers = System.nanoTime();
+
+			List<PassTicketKey> warmKeys = new ArrayList<>(keys);
+			if (warmKeys.isEmpty()) {
+				warmKeys.add(new PassTicketKey(SYNTHETIC_KEY));
+			}
+			PassTicketEngine engine = passTicketGenerator.getEngine();
+			for (PassTicketKey key : warmKeys) {
+				key.getDESEncrypter();
+				if (engine != null) {
+					key.prepare(engine);
+				}
+			}
+			long keySetup = System.nanoTime();
+
+			String[] userIds = new String[SYNTHETIC_USER_IDS];
+			for (int i = 0; i < SYNTHETIC_USER_IDS; i++) {
+				userIds[i] = "WARMUP" + i;
+			}
+			int timeInfo = passTicketGenerator.getClock().getTimeAndDateInformation();
+			int sink = generate(warmKeys, userIds, timeInfo, 0, 1);
+			long firstGeneration = System.nanoTime();
+			// the last tenth is timed separately as the steady state reached
+			int steadyFrom = Math.max(1, iterations - Math.max(1, iterations / 10));
+			sink ^= generate(warmKeys, userIds, timeInfo, 1, steadyFrom);
+			long steadyStart = System.nanoTime();
+			sink ^= generate(warmKeys, userIds, timeInfo, steadyFrom, iterations);
+			long end = System.nanoTime();
+			if (sink == 42 && end == 0) {
+				throw new IllegalStateException(); // keeps the PassTickets alive for the JIT compiler
+			}
+
+			Report report = new Report(providers - start, keySetup - providers, warmKeys.size(), firstGeneration - keySetup,
+					iterations, end - firstGeneration, iterations > steadyFrom ? (double) (end - steadyStart) / (iterations - steadyFrom) : firstGeneration - keySetup, end - start);
+			this.report = report;
+			ready.complete(report);
+			return report;
+		} catch (PassTicketInvalidInputException e) {
+			throw new PassTicketException(e.getError(), e); // cannot happen, the synthetic input is valid
+		}
+	}
+
+	/**
+	 * Generates the synthetic PassTickets from one index to another, spread over the keys and user IDs.
+	 * @param keys The keys
+	 * @param userIds The synthetic user IDs
+	 * @param timeInfo The time and date information of the first PassTicket
+	 * @param from The index of the first PassTicket
+	 * @param to The index after the last PassTicket
+	 * @return The hash codes of the PassTickets combined
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	private int generate(List<PassTicketKey> keys, String[] userIds, int timeInfo, int from, int to) throws PassTicketException, PassTicketInvalidInputException {
+		int sink = 0;
+		for (int i = from; i < to; i++) {
+			PassTicketKey key = keys.get(i % keys.size());
+			sink ^= passTicketGenerator.generateSynthetic(userIds[i % SYNTHETIC_USER_IDS], SYNTHETIC_APPLICATION_NAME, key, timeInfo + i).hashCode();
+		}
+		return sink;
+	}
+
+	/**
+	 * Warms up the generator in a daemon thread.
+	 * @param keys The keys which will be used, or an empty collection to warm up with a synthetic key
+	 * @return The report, once the generator is ready
+	 */
+	public CompletableFuture<Report> start(Collection<PassTicketKey> keys) {
+		List<PassTicketKey> copy = new ArrayList<>(keys);
+		Thread thread = new Thread(() -> {
+			try {
+				run(copy);
+			} catch (PassTicketException | RuntimeException e) {
+				ready.completeExceptionally(e);
+			}
+		}, "passticket-warm-up");
+		thread.setDaemon(true);
+		thread.start();
+		return ready;
+	}
+
+	/**
+	 * Tells whether a warm-up has finished: the providers are initialized and the code is compiled. The per-thread DES
+	 * ciphers of the keys are only set up in the warming thread, see the class description.
+	 * @return true once a warm-up has finished
+	 */
+	public boolean isReady() {
+		return report != null;
+	}
+
+	/** @return The report of the last warm-up, or null if none has finished */
+	public Report getReport() {
+		return report;
+	}
+
+	/** @return The report of the first warm-up once it has finished, or the failure of a warm-up started before */
+	public CompletableFuture<Report> whenReady() {
+		return ready;
+	}
+
+	/** The timings of a warm-up. */
+	public static final class Report {
+		private final long providerNanos;
+		private final long keySetupNanos;
+		private final int keyCount;
+		private final long firstPassTicketNanos;
+		private final int iterations;
+		private final long generationNanos;
+		private final double nanosPerPassTicket;
+		private final long totalNanos;
+
+		Report(long providerNanos, long keySetupNanos, int keyCount, long firstPassTicketNanos, int iterations, long generationNanos, double nanosPerPassTicket, long totalNanos) {
+			this.providerNanos = providerNanos;
+			this.keySetupNanos = keySetupNanos;
+			this.keyCount = keyCount;
+			this.firstPassTicketNanos = firstPassTicketNanos;
+			this.iterations = iterations;
+			this.generationNanos = generationNanos;
+			this.nanosPerPassTicket = nanosPerPassTicket;
+			this.totalNanos = totalNanos;
+		}
+
+		/** @return The time to initialize the JCE providers, in nanoseconds */
+		public long getProviderNanos() {
+			return providerNanos;
+		}
+
+		/** @return The time to set up the keys, in nanoseconds */
+		public long getKeySetupNanos() {
+			return keySetupNanos;
+		}
+
+		/** @return The number of keys set up, 1 for a warm-up with the synthetic key */
+		public int getKeyCount() {
+			return keyCount;
+		}
+
+		/** @return The time of the first synthetic PassTicket, in nanoseconds */
+		public long getFirstPassTicketNanos() {
+			return firstPassTicketNanos;
+		}
+
+		/** @return The number of synthetic PassTickets */
+		public int getIterations() {
+			return iterations;
+		}
+
+		/** @return The time of all synthetic PassTickets but the first, in nanoseconds */
+		public long getGenerationNanos() {
+			return generationNanos;
+		}
+
+		/** @return The mean time of the last tenth of the synthetic PassTickets, in nanoseconds */
+		public double getNanosPerPassTicket() {
+			return nanosPerPassTicket;
+		}
+
+		/** @return The time of the whole warm-up, in nanoseconds */
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Warmed up in %d ms: providers %.1f ms, %d keys %.1f ms, first PassTicket %.1f ms, %d PassTickets %d ms, now %.0f ns per PassTicket",
+					TimeUnit.NANOSECONDS.toMillis(totalNanos), providerNanos / 1e6, keyCount, keySetupNanos / 1e6,
+					firstPassTicketNanos / 1e6, iterations, TimeUnit.NANOSECONDS.toMillis(generationNanos), nanosPerPassTicket);
+		}
+	}
+}
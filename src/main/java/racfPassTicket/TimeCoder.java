@@ -5,8 +5,30 @@ import java.util.Arrays;
 
 import racfPassTicket.exceptions.PassTicketException;
 
-/** Implementation of the time-coder algorithm. */
+/**
+ * <p>Implementation of the time-coder algorithm.</p>
+ *
+ * <p>The methods working on byte arrays follow the documentation step by step and serve as the reference implementation.
+ * The methods working on primitive values are used by the generator: they use precomputed permutation lookup tables
+ * and do not allocate any objects.</p>
+ */
 public class TimeCoder {
+	/** For each round of the time-coder process there is a permutation table = a row in PERMUTATION_TABLE[][] (round i -> PERMUTATION_TABLE[i-1]). */
+	private static final int[][] PERMUTATION_TABLE = new int[][]{
+		{10,2,12,4,14,6,16,8,9,1,11,3,13,5,15,7},
+		{1,10,3,12,13,16,7,15,9,2,11,4,5,14,8,6},
+		{3,10,1,12,13,16,9,15,7,2,14,4,5,11,8,6},
+		{10,4,12,2,14,8,16,6,9,1,13,3,11,5,15,7},
+		{4,10,12,1,8,16,14,5,9,2,13,3,11,7,15,6},
+		{1,16,15,14,13,12,11,10,9,8,7,6,5,4,3,2}
+	};
+
+	/**
+	 * Permutation lookup tables: PERMUTATION_LOOKUP[round-1][0][b] holds the permuted bits of the left input byte b,
+	 * PERMUTATION_LOOKUP[round-1][1][b] those of the right input byte b. The permutation is the OR of both.
+	 */
+	private static final char[][][] PERMUTATION_LOOKUP = createPermutationLookupTables();
+
 	/**
 	 * Executes the time-coder algorithm.
 	 * @param input The time-coder input (Result-4)
@@ -17,6 +39,18 @@ public class TimeCoder {
 	 * @throws PassTicketException
 	 */
 	protected byte[] timeCoder(byte[] input, String userId, DESEncrypter desEncrypter) throws UnsupportedEncodingException, PassTicketException {
+		return timeCoder(input, generateTimeCoderPadding(userId), desEncrypter);
+	}
+
+	/**
+	 * Executes the time-coder algorithm with a padding which has already been generated.
+	 * @param input The time-coder input (Result-4)
+	 * @param padding The time-coder padding, see {@link #generateTimeCoderPadding(String)}
+	 * @param desEncrypter An instance of the DES encrypter
+	 * @return The result of the time-coder algorithm.
+	 * @throws PassTicketException
+	 */
+	protected byte[] timeCoder(byte[] input, byte[] padding, DESEncrypter desEncrypter) throws PassTicketException {
 		if (input == null || input.length != 4) {
 			throw new PassTicketException("Time coder input must be 4 bytes.");
 		}
@@ -26,7 +60,6 @@ public class TimeCoder {
 		byte[] r2b = Arrays.copyOfRange(input, 2, 4);
 
 		// step B: Concatenate R2B with 6 bytes of padding bits
-		byte[] padding = generateTimeCoderPadding(userId); 
 		byte[] pad1 = Arrays.copyOfRange(padding, 0, 6);
 		byte[] pad2 = Arrays.copyOfRange(padding, 6, 12);
 
@@ -105,20 +138,10 @@ public class TimeCoder {
 		// transform the two bytes into an array of bits
 		int[] inputBits =  PassTicketUtils.byteArrayToBitArray(input);
 
-		// For each round of the time-coder process there is a permutation table = a row in permutationTable[][] (round i -> permutationTable[i-1]).
-		int[][] permutationTable = new int[][]{
-			{10,2,12,4,14,6,16,8,9,1,11,3,13,5,15,7},
-			{1,10,3,12,13,16,7,15,9,2,11,4,5,14,8,6},
-			{3,10,1,12,13,16,9,15,7,2,14,4,5,11,8,6},
-			{10,4,12,2,14,8,16,6,9,1,13,3,11,5,15,7},
-			{4,10,12,1,8,16,14,5,9,2,13,3,11,7,15,6},
-			{1,16,15,14,13,12,11,10,9,8,7,6,5,4,3,2}
-		};
-		
 		// create a string containing the permuted bits
 		StringBuilder permutedBits  = new StringBuilder();
 		for (int i = 0; i < inputBits.length; i++) {
-			int inputPosition = permutationTable[roundNumber-1][i] - 1 ; // numbers in permutation table start with 1; array with 0 -> subtract 1
+			int inputPosition = PERMUTATION_TABLE[roundNumber-1][i] - 1 ; // numbers in permutation table start with 1; array with 0 -> subtract 1
 			permutedBits.append(inputBits[inputPosition]);
 		}
 		
@@ -131,4 +154,97 @@ public class TimeCoder {
 			
 		return permutedByteArray;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Executes the time-coder algorithm on primitive values, without allocating any objects.
+	 * @param input The time-coder input (Result-4)
+	 * @param padding1 The left 6 bytes of the time-coder padding (used in rounds 1, 3 and 5), see {@link #toPaddingBlock(byte[], int)}
+	 * @param padding2 The right 6 bytes of the time-coder padding (used in rounds 2, 4 and 6)
+	 * @param desEncrypter An instance of the DES encrypter
+	 * @return The result of the time-coder algorithm (Result-5)
+	 * @throws PassTicketException
+	 */
+	protected int timeCoder(int input, long padding1, long padding2, DESEncrypter desEncrypter) throws PassTicketException {
+		// step A: the left and right 2 bytes
+		int l2b = input >>> 16;
+		int r2b = input & 0xFFFF;
+
+		for (int i = 1; i <= 6; i++) {
+			// step B: R2B followed by 6 bytes of padding
+			long resultB = ((long) r2b << 48) | ((i & 1) == 1 ? padding1 : padding2);
+
+			// steps C and D: encrypt and keep the left 2 bytes
+			int resultD = (int) (desEncrypter.encrypt(resultB) >>> 48);
+
+			// steps E to G
+			int resultE = resultD ^ l2b;
+			l2b = r2b;
+			r2b = permute(resultE, i);
+		}
+
+		// step I: recombine l2b and r2b
+		return (l2b << 16) | r2b;
+	}
+
+	/**
+	 * Executes the time-coder algorithm with precomputed round functions, without any DES encryption.
+	 * @param input The time-coder input (Result-4)
+	 * @param tables The round functions for the key and user ID
+	 * @return The result of the time-coder algorithm (Result-5)
+	 */
+	protected int timeCoder(int input, TimeCoderTables tables) {
+		int l2b = input >>> 16;
+		int r2b = input & 0xFFFF;
+
+		for (int i = 1; i <= 6; i++) {
+			// steps B to D are looked up, E to G as above
+			int resultE = tables.roundFunction(r2b, i) ^ l2b;
+			l2b = r2b;
+			r2b = permute(resultE, i);
+		}
+
+		return (l2b << 16) | r2b;
+	}
+
+	/**
+	 * Converts 6 bytes of the time-coder padding into the right 48 bits of a DES block.
+	 * @param padding The time-coder padding, see {@link #generateTimeCoderPadding(String)}
+	 * @param offset 0 for the padding of rounds 1, 3 and 5; 6 for the padding of rounds 2, 4 and 6
+	 * @return The padding as a long
+	 */
+	protected static long toPaddingBlock(byte[] padding, int offset) {
+		return PassTicketUtils.byteArrayToLong(padding, offset, 6);
+	}
+
+	/**
+	 * Permutes the 16 bit input using the lookup tables belonging to the current round number.
+	 * @param input The 16 bit value to permute
+	 * @param roundNumber The current round number (1 to 6)
+	 * @return The permuted 16 bit value
+	 */
+	protected static int permute(int input, int roundNumber) {
+		char[][] lookup = PERMUTATION_LOOKUP[roundNumber-1];
+		return lookup[0][(input >>> 8) & 0xFF] | lookup[1][input & 0xFF];
+	}
+
+	/**
+	 * Creates the permutation lookup tables from the permutation tables.
+	 * @return The lookup tables, indexed by round, input byte and byte value
+	 */
+	private static char[][][] createPermutationLookupTables() {
+		char[][][] lookup = new char[6][2][256];
+		for (int round = 0; round < 6; round++) {
+			for (int outputPosition = 0; outputPosition < 16; outputPosition++) {
+				int inputPosition = PERMUTATION_TABLE[round][outputPosition] - 1;
+				int inputByte = inputPosition / 8;
+				int inputMask = 1 << (7 - (inputPosition % 8));
+				for (int value = 0; value < 256; value++) {
+					if ((value & inputMask) != 0) {
+						lookup[round][inputByte][value] |= 1 << (15 - outputPosition);
+					}
+				}
+			}
+		}
+		return lookup;
+	}
+}
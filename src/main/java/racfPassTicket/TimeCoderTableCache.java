@@ -0,0 +1,187 @@
+package racfPassTicket;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketException;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * <p>Precomputed time-coder tables for designated hot (key, user ID) pairs (see {@link PassTicketGenerator#setTimeCoderTableCache}).</p>
+ *
+ * <p>For a designated pair the six DES encryptions of the time coder are replaced by table lookups. Together with a
+ * {@link PassTicketPrefixCache} a PassTicket for such a user needs no DES encryption at all. The tables take 256 KB
+ * per pair and 131072 DES encryptions to build, so they only pay off for users who log on very often.</p>
+ *
+ * <p>The memory budget limits the number of pairs. If it is exceeded, the least recently used pair is evicted.
+ * Lookups do not lock. Recency is tracked with an epoch which advances with every designation: a lookup stores the
+ * current epoch in its entry only if it differs, so repeated hits do not write to memory shared between threads.</p>
+ */
+public class TimeCoderTableCache {
+	private final long memoryBudget;
+	private final Map<CacheKey, Entry> entries = new ConcurrentHashMap<>();
+	/** Advanced by each designation; the entries record the epoch they were last used in. */
+	private volatile int epoch;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates the cache.
+	 * @param memoryBudget The maximum memory used by the tables in bytes (at least 256 KB)
+	 */
+	public TimeCoderTableCache(long memoryBudget) {
+		if (memoryBudget < TimeCoderTables.BYTES) {
+			throw new IllegalArgumentException("The memory budget must be at least " + TimeCoderTables.BYTES + " bytes.");
+		}
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Builds the tables for a hot (key, user ID) pair in the calling thread.
+	 * @param key The secured signon application key
+	 * @param userId The user ID
+	 * @throws PassTicketException
+	 * @throws PassTicketInvalidInputException
+	 */
+	public void designate(PassTicketKey key, String userId) throws PassTicketException, PassTicketInvalidInputException {
+		userId = PassTicketUtils.validateUserIdOrApplicationName(userId);
+		try {
+			designate(key, UserId.fromPadded(userId));
+		} catch (UnsupportedEncodingException e) {
+			throw new PassTicketException(PassTicketError.ENCODING_NOT_SUPPORTED, "Cannot get bytes in EBCDIC. " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Builds the tables for a hot (key, user ID) pair in the calling thread.
+	 * @param key The secured signon application key
+	 * @param userId The user ID, see {@link UserId#of(String)}
+	 * @throws PassTicketException
+	 */
+	public void designate(PassTicketKey key, UserId userId) throws PassTicketException {
+		CacheKey cacheKey = new CacheKey(key, userId.getName());
+		if (entries.containsKey(cacheKey)) {
+			return;
+		}
+		TimeCoderTables tables = new TimeCoderTables(userId.getPadding1(), userId.getPadding2(), key.getDESEncrypter());
+
+		synchronized (this) {
+			while ((entries.size() + 1) * TimeCoderTables.BYTES > memoryBudget) {
+				evictLeastRecentlyUsed();
+			}
+			entries.put(cacheKey, new Entry(tables, epoch));
+			epoch++;
+		}
+	}
+
+	/**
+	 * Removes the tables of a (key, user ID) pair.
+	 * @param key The secured signon application key
+	 * @param userId The user ID
+	 * @throws PassTicketInvalidInputException
+	 */
+	public void remove(PassTicketKey key, String userId) throws PassTicketInvalidInputException {
+		entries.remove(new CacheKey(key, PassTicketUtils.validateUserIdOrApplicationName(userId)));
+	}
+
+	/**
+	 * Looks up the tables of a (key, user ID) pair.
+	 * @param key The secured signon application key
+	 * @param userId The validated user ID
+	 * @return The tables or null if the pair has not been designated
+	 */
+	TimeCoderTables get(PassTicketKey key, String userId) {
+		Entry entry = entries.get(new CacheKey(key, userId));
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		int epoch = this.epoch;
+		if (entry.lastUsed != epoch) {
+			entry.lastUsed = epoch;
+		}
+		return entry.tables;
+	}
+
+	/** @return The number of (key, user ID) pairs with tables */
+	public int size() {
+		return entries.size();
+	}
+
+	/** @return The memory used by the tables in bytes */
+	public long getMemoryUsage() {
+		return entries.size() * TimeCoderTables.BYTES;
+	}
+
+	/** @return The number of lookups which found tables */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/** @return The number of lookups which did not find tables */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/** @return The number of pairs removed because the memory budget was exceeded */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/** Removes the entry which has not been used for the longest time. */
+	private void evictLeastRecentlyUsed() {
+		CacheKey eldest = null;
+		int eldestLastUsed = 0;
+		for (Map.Entry<CacheKey, Entry> entry : entries.entrySet()) {
+			if (eldest == null || entry.getValue().lastUsed - eldestLastUsed < 0) {
+				eldest = entry.getKey();
+				eldestLastUsed = entry.getValue().lastUsed;
+			}
+		}
+		if (eldest != null && entries.remove(eldest) != null) {
+			evictions.increment();
+		}
+	}
+
+	/** The tables of a pair and the epoch they were last used in. */
+	private static class Entry {
+		final TimeCoderTables tables;
+		volatile int lastUsed;
+
+		Entry(TimeCoderTables tables, int lastUsed) {
+			this.tables = tables;
+			this.lastUsed = lastUsed;
+		}
+	}
+
+	/** The (key, user ID) pair identifying the tables. */
+	private static class CacheKey {
+		final PassTicketKey key;
+		final String userId;
+
+		CacheKey(PassTicketKey key, String userId) {
+			this.key = key;
+			this.userId = userId;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return key.equals(other.key) && userId.equals(other.userId);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * key.hashCode() + userId.hashCode();
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package racfPassTicket;
+
+import racfPassTicket.exceptions.PassTicketException;
+
+/**
+ * <p>Precomputed round functions of the time coder for one (key, user ID) pair.</p>
+ *
+ * <p>In each round of the time coder R2B is concatenated with a fixed 6 byte padding, encrypted, and the left 2 bytes
+ * are kept (steps B to D). For a given key and user ID this is a function from 16 to 16 bits, which can be stored in a table
+ * of 65536 entries: one table for the padding of rounds 1, 3 and 5, one for the padding of rounds 2, 4 and 6.</p>
+ */
+final class TimeCoderTables {
+	/** The memory used by the tables of one (key, user ID) pair: 2 tables with 65536 chars each. */
+	static final long BYTES = 2L * 65536 * Character.BYTES;
+
+	private final char[] roundFunction1 = new char[65536];
+	private final char[] roundFunction2 = new char[65536];
+
+	/**
+	 * Computes the tables, which takes 131072 DES encryptions.
+	 * @param padding1 The time-coder padding for rounds 1, 3 and 5, see {@link TimeCoder#toPaddingBlock(byte[], int)}
+	 * @param padding2 The time-coder padding for rounds 2, 4 and 6
+	 * @param desEncrypter The DES encrypter for the key
+	 * @throws PassTicketException
+	 */
+	TimeCoderTables(long padding1, long padding2, DESEncrypter desEncrypter) throws PassTicketException {
+		for (int r2b = 0; r2b <= 0xFFFF; r2b++) {
+			roundFunction1[r2b] = (char) (desEncrypter.encrypt(((long) r2b << 48) | padding1) >>> 48);
+			roundFunction2[r2b] = (char) (desEncrypter.encrypt(((long) r2b << 48) | padding2) >>> 48);
+		}
+	}
+
+	/**
+	 * Returns the result of the steps B to D of a time-coder round.
+	 * @param r2b The 16 bit input of the round
+	 * @param roundNumber The current round number (1 to 6)
+	 * @return The left 2 bytes of the encrypted block
+	 */
+	int roundFunction(int r2b, int roundNumber) {
+		return (roundNumber & 1) == 1 ? roundFunction1[r2b] : roundFunction2[r2b];
+	}
+}
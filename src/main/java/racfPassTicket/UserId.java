@@ -0,0 +1,101 @@
+package racfPassTicket;
+
+import java.io.UnsupportedEncodingException;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+/**
+ * <p>A validated RACF user ID, together with its EBCDIC encoding and the time-coder padding derived from it.</p>
+ *
+ * <p>The user ID is validated and encoded once, so that generating PassTickets for it needs no further string or
+ * charset work. Instances are immutable and can be kept or cached by the caller; they are equal if the user IDs are equal.</p>
+ */
+public final class UserId {
+	private final String name;
+	private final long ebcdic;
+	private final long padding1;
+	private final long padding2;
+
+	private UserId(String name, long ebcdic, long padding1, long padding2) {
+		this.name = name;
+		this.ebcdic = ebcdic;
+		this.padding1 = padding1;
+		this.padding2 = padding2;
+	}
+
+	/**
+	 * Validates a user ID: 1 to 8 of the characters A to Z, 0 to 9, # $ @. Leading and trailing blanks are ignored.
+	 * @param userId The user ID
+	 * @return The user ID
+	 * @throws PassTicketInvalidInputException
+	 */
+	public static UserId of(String userId) throws PassTicketInvalidInputException {
+		try {
+			return fromPadded(PassTicketUtils.validateRACFName(userId));
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e); // cannot happen, the allowed characters are in the table
+		}
+	}
+
+	/**
+	 * Checks a user ID without throwing an exception, see {@link #of(String)}.
+	 * @param userId The user ID
+	 * @return The error, or null if the user ID is valid
+	 */
+	public static PassTicketError check(String userId) {
+		return PassTicketUtils.checkRACFName(userId);
+	}
+
+	/**
+	 * Creates a user ID which has been validated by {@link PassTicketUtils#validateUserIdOrApplicationName(String)}.
+	 * @param paddedUserId The user ID, padded to 8 characters
+	 * @return The user ID
+	 * @throws UnsupportedEncodingException
+	 */
+	static UserId fromPadded(String paddedUserId) throws UnsupportedEncodingException {
+		// the time-coder padding is the user ID without blanks, padded to 12 bytes with X'55'
+		byte[] userIdBytes = Cp1047.getBytes(paddedUserId.trim());
+		byte[] padding = new byte[12];
+		System.arraycopy(userIdBytes, 0, padding, 0, userIdBytes.length);
+		for (int i = userIdBytes.length; i < padding.length; i++) {
+			padding[i] = (byte) 0x55;
+		}
+		return new UserId(paddedUserId, Cp1047.encode(paddedUserId), TimeCoder.toPaddingBlock(padding, 0), TimeCoder.toPaddingBlock(padding, 6));
+	}
+
+	/** @return The user ID, padded with blanks to 8 characters */
+	public String getName() {
+		return name;
+	}
+
+	/** @return The user ID in EBCDIC (8 bytes) */
+	long getEbcdic() {
+		return ebcdic;
+	}
+
+	/** @return The left 6 bytes of the time-coder padding */
+	long getPadding1() {
+		return padding1;
+	}
+
+	/** @return The right 6 bytes of the time-coder padding */
+	long getPadding2() {
+		return padding2;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof UserId && name.equals(((UserId) obj).name);
+	}
+
+	@Override
+	public int hashCode() {
+		return name.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return name.trim();
+	}
+}
@@ -0,0 +1,157 @@
+package racfPassTicket.example;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The little JSON needed by the {@link PassTicketServer}: objects whose values are strings, and arrays of such objects.
+ * Other values are rejected with an IllegalArgumentException.
+ */
+final class Json {
+	private final String text;
+	private int pos;
+
+	private Json(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * Parses an object with string values, e.g. <code>{"userId":"USERID","applicationName":"APPNAME"}</code>.
+	 * @param text The JSON text
+	 * @return The members of the object, in order
+	 */
+	static Map<String, String> parseObject(String text) {
+		Json json = new Json(text);
+		Map<String, String> object = json.readObject();
+		json.expectEnd();
+		return object;
+	}
+
+	/**
+	 * Parses an array of objects with string values.
+	 * @param text The JSON text
+	 * @return The objects, in order
+	 */
+	static List<Map<String, String>> parseArray(String text) {
+		Json json = new Json(text);
+		List<Map<String, String>> array = new ArrayList<>();
+		json.expect('[');
+		if (!json.consume(']')) {
+			do {
+				array.add(json.readObject());
+			} while (json.consume(','));
+			json.expect(']');
+		}
+		json.expectEnd();
+		return array;
+	}
+
+	/**
+	 * Appends a string as a JSON string literal.
+	 * @param out The output
+	 * @param str The string, may be null
+	 * @return The output
+	 */
+	static StringBuilder appendString(StringBuilder out, String str) {
+		if (str == null) {
+			return out.append("null");
+		}
+		out.append('"');
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if (c == '"' || c == '\\') {
+				out.append('\\').append(c);
+			} else if (c < 0x20) {
+				out.append(String.format("\\u%04x", (int) c));
+			} else {
+				out.append(c);
+			}
+		}
+		return out.append('"');
+	}
+
+	private Map<String, String> readObject() {
+		Map<String, String> object = new LinkedHashMap<>();
+		expect('{');
+		if (!consume('}')) {
+			do {
+				String name = readString();
+				expect(':');
+				object.put(name, readString());
+			} while (consume(','));
+			expect('}');
+		}
+		return object;
+	}
+
+	private String readString() {
+		expect('"');
+		StringBuilder str = new StringBuilder();
+		while (pos < text.length()) {
+			char c = text.charAt(pos++);
+			if (c == '"') {
+				return str.toString();
+			} else if (c != '\\') {
+				str.append(c);
+			} else if (pos >= text.length()) {
+				break;
+			} else {
+				char escaped = text.charAt(pos++);
+				switch (escaped) {
+					case 'b': str.append('\b'); break;
+					case 'f': str.append('\f'); break;
+					case 'n': str.append('\n'); break;
+					case 'r': str.append('\r'); break;
+					case 't': str.append('\t'); break;
+					case 'u':
+						if (pos + 4 > text.length()) {
+							throw error("Invalid escape");
+						}
+						try {
+							str.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+						} catch (NumberFormatException e) {
+							throw error("Invalid escape");
+						}
+						pos += 4;
+						break;
+					default: str.append(escaped);
+				}
+			}
+		}
+		throw error("Unterminated string");
+	}
+
+	private void skipWhitespace() {
+		while (pos < text.length() && (text.charAt(pos) == ' ' || text.charAt(pos) == '\t' || text.charAt(pos) == '\r' || text.charAt(pos) == '\n')) {
+			pos++;
+		}
+	}
+
+	private boolean consume(char c) {
+		skipWhitespace();
+		if (pos < text.length() && text.charAt(pos) == c) {
+			pos++;
+			return true;
+		}
+		return false;
+	}
+
+	private void expect(char c) {
+		if (!consume(c)) {
+			throw error("Expected '" + c + "'");
+		}
+	}
+
+	private void expectEnd() {
+		skipWhitespace();
+		if (pos != text.length()) {
+			throw error("Unexpected content");
+		}
+	}
+
+	private IllegalArgumentException error(String msg) {
+		return new IllegalArgumentException(msg + " at position " + pos + ".");
+	}
+}
@@ -1,22 +1,142 @@
 package racfPassTicket.example;
 
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 
+import racfPassTicket.DESImplementation;
+import racfPassTicket.PassTicketAuditLog;
+import racfPassTicket.PassTicketClock;
 import racfPassTicket.PassTicketGenerator;
+import racfPassTicket.PassTicketKeyRegistry;
+import racfPassTicket.PassTicketWarmUp;
 import racfPassTicket.exceptions.PassTicketException;
 import racfPassTicket.exceptions.PassTicketInvalidInputException;
 
-/** Example demonstrating how to use the PassTicket generator. */
+/**
+ * <p>Example demonstrating how to use the PassTicket generator.</p>
+ *
+ * <p>Without arguments one PassTicket is generated. Other modes:</p>
+ * <ul>
+ * <li><code>serve &lt;port&gt; &lt;key file&gt; [&lt;key store type&gt; &lt;password&gt;]</code> runs the {@link PassTicketServer}
+ * with the keys of a properties file, or of a JCEKS or PKCS12 key store. The key file is watched for changes, and the
+ * server is ready once the generator has been warmed up with the keys.</li>
+ * <li><code>loadtest &lt;url&gt; &lt;threads&gt; &lt;seconds&gt; [&lt;batch size&gt; [&lt;user ID&gt; &lt;application name&gt;]]</code>
+ * runs the {@link PassTicketLoadTest} against a server.</li>
+ * <li><code>bulk &lt;key file&gt; [&lt;key store type&gt; &lt;password&gt;] [&lt;input file&gt; ...]</code> runs the
+ * {@link PassTicketBulkGenerator} on the input files, or on standard input if there are none, and writes to standard
+ * output. A key file whose name ends with <code>.properties</code> is a properties file, anything else a key store.</li>
+ * <li><code>audit &lt;directory&gt;</code> exports the records of a {@link PassTicketAuditLog} to standard output as
+ * CSV: time of issue, time and date information, user ID, application name, key alias and the hash of the PassTicket.</li>
+ * </ul>
+ */
 public class Main {
 	private static final Logger LOG =  Logger.getLogger("passTicket");
 	/** Executes the PassTicket generator. */
 	public static void main(String[] args) {
 		try {			
-			PassTicketGenerator pt = new PassTicketGenerator();
-			String passTicket = pt.generate("USERID", "APPNAME", "A1B2C3D4E5F6A7B8");
-			LOG.info("PassTicket: " + passTicket);
-		} catch (PassTicketException | PassTicketInvalidInputException e) {
+			if (args.length >= 3 && "serve".equals(args[0])) {
+				serve(args);
+			} else if (args.length >= 4 && "loadtest".equals(args[0])) {
+				loadTest(args);
+			} else if (args.length >= 2 && "bulk".equals(args[0])) {
+				bulk(args);
+			} else if (args.length >= 2 && "audit".equals(args[0])) {
+				exportAuditLog(args);
+			} else {
+				PassTicketGenerator pt = new PassTicketGenerator();
+				String passTicket = pt.generate("USERID", "APPNAME", "A1B2C3D4E5F6A7B8");
+				LOG.info("PassTicket: " + passTicket);
+			}
+		} catch (PassTicketException | PassTicketInvalidInputException | IOException e) {
 			LOG.severe(e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
 	}
+
+	private static void serve(String[] args) throws PassTicketException, IOException {
+		// without TCP_NODELAY each response waits for a delayed ACK; read by the JDK when the first HTTP server is created
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+		PassTicketKeyRegistry keys = args.length >= 5
+				? PassTicketKeyRegistry.fromKeyStore(Paths.get(args[2]), args[3], args[4].toCharArray(), DESImplementation.LONG)
+				: PassTicketKeyRegistry.fromProperties(Paths.get(args[2]), DESImplementation.LONG);
+		keys.watch();
+
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.cached());
+		PassTicketServer server = new PassTicketServer(new InetSocketAddress(Integer.parseInt(args[1])), pt, keys, 10000);
+		PassTicketWarmUp warmUp = new PassTicketWarmUp(pt, PassTicketWarmUp.DEFAULT_ITERATIONS);
+		server.setWarmUp(warmUp);
+		server.start();
+		warmUp.start(keys.getKeys()).whenComplete((report, failure) -> {
+			if (failure != null) {
+				LOG.severe("Warm-up failed: " + failure.getMessage());
+			} else {
+				LOG.info(report.toString());
+			}
+		});
+		LOG.info("Serving PassTickets for " + keys.size() + " applications on port " + server.getPort()
+				+ (server.isUsingVirtualThreads() ? " (virtual threads)" : ""));
+	}
+
+	private static void bulk(String[] args) throws PassTicketException, IOException, InterruptedException {
+		boolean properties = args[1].endsWith(".properties");
+		if (!properties && args.length < 4) {
+			throw new PassTicketException("The type and password of the key store are missing.");
+		}
+		PassTicketKeyRegistry keys = properties
+				? PassTicketKeyRegistry.fromProperties(Paths.get(args[1]), DESImplementation.LONG)
+				: PassTicketKeyRegistry.fromKeyStore(Paths.get(args[1]), args[2], args[3].toCharArray(), DESImplementation.LONG);
+		List<Path> inputs = new ArrayList<>();
+		for (int i = properties ? 2 : 4; i < args.length; i++) {
+			inputs.add(Paths.get(args[i]));
+		}
+
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.cached());
+		PassTicketBulkGenerator bulkGenerator = new PassTicketBulkGenerator(pt, keys, Runtime.getRuntime().availableProcessors());
+		try (FileChannel out = new FileOutputStream(FileDescriptor.out).getChannel()) {
+			PassTicketBulkGenerator.Summary summary = inputs.isEmpty()
+					? bulkGenerator.generate(new FileInputStream(FileDescriptor.in).getChannel(), out)
+					: bulkGenerator.generate(inputs, out);
+			LOG.info(summary.toString());
+		}
+	}
+
+	private static void exportAuditLog(String[] args) throws IOException {
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8));
+		PassTicketAuditLog.read(Paths.get(args[1]), record -> {
+			StringBuilder hash = new StringBuilder();
+			for (byte b : record.getPassTicketHash()) {
+				hash.append(String.format("%02x", b));
+			}
+			out.print(Instant.ofEpochMilli(record.getIssuedMillis()) + "," + Integer.toUnsignedLong(record.getTimeInfo()) + ","
+					+ record.getUserId() + "," + record.getApplicationName() + "," + record.getKeyAlias() + "," + hash + "\n");
+		});
+		out.flush();
+	}
+
+	private static void loadTest(String[] args) throws IOException, InterruptedException {
+		int batchSize = args.length >= 5 ? Integer.parseInt(args[4]) : 1;
+		String userId = args.length >= 7 ? args[5] : "USERID";
+		String applicationName = args.length >= 7 ? args[6] : "APPNAME";
+		PassTicketLoadTest loadTest = new PassTicketLoadTest(new URL(args[1]), Integer.parseInt(args[2]), batchSize, userId, applicationName);
+		LOG.info(loadTest.run(Integer.parseInt(args[3])));
+	}
 }
\ No newline at end of file
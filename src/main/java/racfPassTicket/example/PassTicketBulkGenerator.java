@@ -0,0 +1,366 @@
+package racfPassTicket.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import racfPassTicket.ApplicationName;
+import racfPassTicket.PassTicketGenerator;
+import racfPassTicket.PassTicketKey;
+import racfPassTicket.PassTicketKeyRegistry;
+import racfPassTicket.PassTicketResult;
+import racfPassTicket.UserId;
+import racfPassTicket.exceptions.PassTicketError;
+
+/**
+ * <p>Generates the PassTickets of a file of records, for provisioning scripts.</p>
+ *
+ * <p>Each line of the input holds a user ID, an application name and the alias of a key in the
+ * {@link PassTicketKeyRegistry}, separated by tabs or commas. For each line the output holds these fields, the
+ * PassTicket and the error, in the same order and with the same separator; either the PassTicket or the error is
+ * empty. The errors are the names of the {@link PassTicketError}s, <code>UNKNOWN_KEY</code> or
+ * <code>INVALID_RECORD</code>. Blank lines are skipped.</p>
+ *
+ * <p>The input is cut into chunks of whole lines, which are generated by a pool of threads. Files are memory-mapped
+ * window by window, other channels are read into a buffer. At most two chunks per thread are in progress or waiting
+ * to be written, so memory does not grow with the input; each chunk is written with a single write, in input order.</p>
+ */
+public class PassTicketBulkGenerator {
+	private static final String UNKNOWN_KEY = "UNKNOWN_KEY";
+	private static final String INVALID_RECORD = "INVALID_RECORD";
+	private static final int CHUNK_SIZE = 1 << 20;
+	private static final long MAP_WINDOW = 256L << 20;
+
+	private final PassTicketGenerator passTicketGenerator;
+	private final PassTicketKeyRegistry keys;
+	private final int threads;
+	private final int chunkSize;
+	private final long mapWindow;
+
+	/**
+	 * @param passTicketGenerator The generator
+	 * @param keys The keys by alias
+	 * @param threads The number of generating threads, e.g. the number of cores
+	 */
+	public PassTicketBulkGenerator(PassTicketGenerator passTicketGenerator, PassTicketKeyRegistry keys, int threads) {
+		this(passTicketGenerator, keys, threads, CHUNK_SIZE, MAP_WINDOW);
+	}
+
+	/**
+	 * @param chunkSize The number of bytes of input per chunk, rounded up to whole lines
+	 * @param mapWindow The number of bytes of a file mapped at once; no line may be longer
+	 */
+	PassTicketBulkGenerator(PassTicketGenerator passTicketGenerator, PassTicketKeyRegistry keys, int threads, int chunkSize, long mapWindow) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("There must be at least one thread.");
+		}
+		this.passTicketGenerator = passTicketGenerator;
+		this.keys = keys;
+		this.threads = threads;
+		this.chunkSize = chunkSize;
+		this.mapWindow = mapWindow;
+	}
+
+	/**
+	 * Generates the PassTickets of files, one after the other.
+	 * @param inputs The input files
+	 * @param out The output
+	 * @return The summary
+	 * @throws IOException If a file cannot be read, contains a line longer than the map window, or the output fails
+	 * @throws InterruptedException
+	 */
+	public Summary generate(List<Path> inputs, WritableByteChannel out) throws IOException, InterruptedException {
+		try (Job job = new Job(out)) {
+			for (Path input : inputs) {
+				try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+					job.map(channel, input);
+				}
+			}
+			return job.finish();
+		}
+	}
+
+	/**
+	 * Generates the PassTickets of a channel, e.g. standard input.
+	 * @param in The input
+	 * @param out The output
+	 * @return The summary
+	 * @throws IOException If the input or output fails
+	 * @throws InterruptedException
+	 */
+	public Summary generate(ReadableByteChannel in, WritableByteChannel out) throws IOException, InterruptedException {
+		try (Job job = new Job(out)) {
+			job.read(in);
+			return job.finish();
+		}
+	}
+
+	/**
+	 * Generates the PassTickets of a chunk.
+	 * @param chunk Whole lines
+	 * @param job The job counting records and errors
+	 * @return The output lines
+	 */
+	private ByteBuffer generateChunk(ByteBuffer chunk, Job job) {
+		CharBuffer lines = StandardCharsets.UTF_8.decode(chunk);
+		StringBuilder out = new StringBuilder(lines.length() * 2);
+		int start = 0;
+		int length = lines.length();
+		while (start < length) {
+			int end = start;
+			while (end < length && lines.charAt(end) != '\n') {
+				end++;
+			}
+			int next = end + 1;
+			if (end > start && lines.charAt(end - 1) == '\r') {
+				end--;
+			}
+			String line = lines.subSequence(start, end).toString();
+			if (!line.trim().isEmpty()) {
+				generateLine(line, out, job);
+			}
+			start = next;
+		}
+		return ByteBuffer.wrap(out.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void generateLine(String line, StringBuilder out, Job job) {
+		char separator = line.indexOf('\t') >= 0 ? '\t' : ',';
+		String[] fields = line.split(separator == '\t' ? "\t" : ",", -1);
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = fields[i].trim();
+		}
+		String passTicket = "";
+		String error = null;
+		if (fields.length != 3) {
+			error = INVALID_RECORD;
+		} else {
+			// the naming rules of RACF are enforced, unlike by the lenient String API of the generator
+			PassTicketError inputError = UserId.check(fields[0]);
+			if (inputError == null) {
+				inputError = ApplicationName.check(fields[1]);
+			}
+			PassTicketKey key = keys.getKey(fields[2]);
+			if (inputError != null) {
+				error = inputError.name();
+			} else if (key == null) {
+				error = UNKNOWN_KEY;
+			} else {
+				PassTicketResult result = passTicketGenerator.tryGenerate(fields[0], fields[1], key);
+				if (result.isSuccess()) {
+					passTicket = result.getPassTicket();
+				} else {
+					error = result.getError() != null ? result.getError().name() : PassTicketError.ENCRYPTION_FAILED.name();
+				}
+			}
+		}
+		job.records.increment();
+		if (error != null) {
+			job.errors.increment();
+		}
+		for (int i = 0; i < 3; i++) {
+			out.append(i < fields.length ? fields[i] : "").append(separator);
+		}
+		out.append(passTicket).append(separator).append(error == null ? "" : error).append('\n');
+	}
+
+	/**
+	 * @param buffer The buffer
+	 * @param from The first index
+	 * @param to The index after the last
+	 * @return The index of the last line feed in the range, or -1
+	 */
+	private static int lastLineFeed(ByteBuffer buffer, int from, int to) {
+		for (int i = to - 1; i >= from; i--) {
+			if (buffer.get(i) == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param buffer The buffer
+	 * @param from The first index
+	 * @param to The index after the last
+	 * @return The index of the first line feed in the range, or -1
+	 */
+	private static int firstLineFeed(ByteBuffer buffer, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (buffer.get(i) == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/** One run: the thread pool, the chunks in progress and the counters. */
+	private class Job implements AutoCloseable {
+		private final WritableByteChannel out;
+		private final ExecutorService executor;
+		private final ArrayDeque<Future<ByteBuffer>> chunks = new ArrayDeque<>();
+		private final LongAdder records = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final long start = System.nanoTime();
+		private long bytesRead;
+
+		Job(WritableByteChannel out) {
+			this.out = out;
+			AtomicInteger count = new AtomicInteger();
+			this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+				Thread thread = new Thread(runnable, "passticket-bulk-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		/** Maps a file window by window and submits its lines in chunks. */
+		void map(FileChannel channel, Path input) throws IOException, InterruptedException {
+			long size = channel.size();
+			long position = 0;
+			while (position < size) {
+				int length = (int) Math.min(mapWindow, size - position);
+				boolean last = position + length == size;
+				ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				int offset = 0;
+				while (offset < length) {
+					int end = Math.min(offset + chunkSize, length);
+					int lineFeed = lastLineFeed(window, offset, end);
+					if (lineFeed < 0) {
+						// no line ends in the chunk: extend it to the end of its line
+						lineFeed = firstLineFeed(window, end, length);
+					}
+					if (lineFeed < 0) {
+						if (!last) {
+							// the line continues in the next window
+							break;
+						}
+						lineFeed = length - 1;
+					}
+					submit(window.slice(offset, lineFeed + 1 - offset));
+					offset = lineFeed + 1;
+				}
+				if (offset == 0) {
+					throw new IOException(input + " contains a line longer than " + mapWindow + " bytes.");
+				}
+				position += offset;
+				bytesRead += offset;
+			}
+		}
+
+		/** Reads a channel into a buffer and submits copies of its whole lines. */
+		void read(ReadableByteChannel in) throws IOException, InterruptedException {
+			ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+			boolean eof = false;
+			while (!eof) {
+				while (buffer.hasRemaining() && !eof) {
+					eof = in.read(buffer) < 0;
+				}
+				int lineFeed = eof ? buffer.position() - 1 : lastLineFeed(buffer, 0, buffer.position());
+				if (lineFeed < 0 && !eof) {
+					// a line longer than the buffer
+					buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+					continue;
+				}
+				int length = lineFeed + 1;
+				if (length > 0) {
+					byte[] chunk = new byte[length];
+					buffer.flip();
+					buffer.get(chunk);
+					buffer.compact();
+					submit(ByteBuffer.wrap(chunk));
+					bytesRead += length;
+				}
+			}
+		}
+
+		/** Submits a chunk, after writing the oldest chunks while too many are in progress. */
+		private void submit(ByteBuffer chunk) throws IOException, InterruptedException {
+			while (chunks.size() >= 2 * threads) {
+				writeOldest();
+			}
+			chunks.add(executor.submit(() -> generateChunk(chunk, this)));
+		}
+
+		private void writeOldest() throws IOException, InterruptedException {
+			ByteBuffer output;
+			try {
+				output = chunks.poll().get();
+			} catch (ExecutionException e) {
+				throw new IOException("Generation failed.", e.getCause());
+			}
+			while (output.hasRemaining()) {
+				out.write(output);
+			}
+		}
+
+		/** Writes the remaining chunks. */
+		Summary finish() throws IOException, InterruptedException {
+			while (!chunks.isEmpty()) {
+				writeOldest();
+			}
+			return new Summary(records.sum(), errors.sum(), bytesRead, System.nanoTime() - start);
+		}
+
+		@Override
+		public void close() {
+			executor.shutdownNow();
+		}
+	}
+
+	/** The numbers of a run. */
+	public static class Summary {
+		private final long records;
+		private final long errors;
+		private final long bytes;
+		private final long nanos;
+
+		Summary(long records, long errors, long bytes, long nanos) {
+			this.records = records;
+			this.errors = errors;
+			this.bytes = bytes;
+			this.nanos = nanos;
+		}
+
+		/** @return The number of records, without blank lines */
+		public long getRecords() {
+			return records;
+		}
+
+		/** @return The number of records without a PassTicket */
+		public long getErrors() {
+			return errors;
+		}
+
+		/** @return The number of bytes of input */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/** @return The duration in nanoseconds */
+		public long getNanos() {
+			return nanos;
+		}
+
+		@Override
+		public String toString() {
+			double seconds = Math.max(nanos, 1) / 1e9;
+			return String.format("%d records, %d PassTickets, %d errors in %.3f s, %.0f PassTickets/s, %.1f MB/s",
+					records, records - errors, errors, seconds, (records - errors) / seconds, bytes / seconds / 1e6);
+		}
+	}
+}
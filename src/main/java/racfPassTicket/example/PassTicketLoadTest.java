@@ -0,0 +1,138 @@
+package racfPassTicket.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A load-test client for the {@link PassTicketServer}.</p>
+ *
+ * <p>Each thread sends requests one after the other on a kept-alive connection for the given duration: single requests,
+ * or batches of the given size. The number of PassTickets per second and the latency percentiles of the requests are
+ * reported at the end.</p>
+ */
+public class PassTicketLoadTest {
+	private final URL baseUrl;
+	private final int threads;
+	private final int batchSize;
+	private final String userId;
+	private final String applicationName;
+
+	/**
+	 * @param baseUrl The URL of the server, e.g. http://localhost:8080
+	 * @param threads The number of client threads
+	 * @param batchSize The number of PassTickets per request, 1 for single requests
+	 * @param userId The user ID of the requests
+	 * @param applicationName The application name of the requests
+	 */
+	public PassTicketLoadTest(URL baseUrl, int threads, int batchSize, String userId, String applicationName) {
+		this.baseUrl = baseUrl;
+		this.threads = threads;
+		this.batchSize = batchSize;
+		this.userId = userId;
+		this.applicationName = applicationName;
+	}
+
+	/**
+	 * Runs the load test.
+	 * @param seconds The duration
+	 * @return The summary, e.g. for logging
+	 * @throws InterruptedException
+	 */
+	public String run(int seconds) throws InterruptedException {
+		long end = System.nanoTime() + seconds * 1000000000L;
+		AtomicLong errors = new AtomicLong();
+		long[][] latencies = new long[threads][];
+		int[] counts = new int[threads];
+		List<Thread> clients = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			int client = i;
+			// the latencies of the last 2^20 requests of each thread are kept
+			latencies[client] = new long[1 << 20];
+			Thread thread = new Thread(() -> {
+				while (System.nanoTime() < end) {
+					long start = System.nanoTime();
+					try {
+						if (send() != 200) {
+							errors.incrementAndGet();
+						}
+					} catch (IOException e) {
+						errors.incrementAndGet();
+					}
+					latencies[client][counts[client]++ & (latencies[client].length - 1)] = System.nanoTime() - start;
+				}
+			}, "passticket-load-test-" + i);
+			clients.add(thread);
+			thread.start();
+		}
+		for (Thread thread : clients) {
+			thread.join();
+		}
+
+		long requests = 0;
+		long[] sorted = new long[0];
+		for (int i = 0; i < threads; i++) {
+			requests += counts[i];
+			int recorded = Math.min(counts[i], latencies[i].length);
+			sorted = Arrays.copyOf(sorted, sorted.length + recorded);
+			System.arraycopy(latencies[i], 0, sorted, sorted.length - recorded, recorded);
+		}
+		Arrays.sort(sorted);
+		return String.format("%d requests, %d PassTickets/s, %d errors, latency p50 %d us, p99 %d us, max %d us",
+				requests, requests * batchSize / seconds, errors.get(),
+				percentile(sorted, 0.5) / 1000, percentile(sorted, 0.99) / 1000, percentile(sorted, 1.0) / 1000);
+	}
+
+	/**
+	 * Sends one request and reads the whole response, so that the connection can be reused.
+	 * @return The HTTP status
+	 * @throws IOException
+	 */
+	private int send() throws IOException {
+		HttpURLConnection connection;
+		if (batchSize == 1) {
+			// user IDs may contain '#', which would start the fragment of the URL
+			String query = "userId=" + URLEncoder.encode(userId, "UTF-8") + "&applicationName=" + URLEncoder.encode(applicationName, "UTF-8");
+			connection = (HttpURLConnection) new URL(baseUrl, "/passticket?" + query).openConnection();
+		} else {
+			StringBuilder body = new StringBuilder("[");
+			for (int i = 0; i < batchSize; i++) {
+				body.append(i > 0 ? "," : "").append("{\"userId\":\"").append(userId).append("\",\"applicationName\":\"").append(applicationName).append("\"}");
+			}
+			byte[] bytes = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+			connection = (HttpURLConnection) new URL(baseUrl, "/passtickets").openConnection();
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			connection.setFixedLengthStreamingMode(bytes.length);
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(bytes);
+			}
+		}
+		int status = connection.getResponseCode();
+		try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			if (in != null) {
+				byte[] buffer = new byte[8192];
+				while (in.read(buffer) != -1) {
+					// discard
+				}
+			}
+		}
+		return status;
+	}
+
+	private static long percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(p * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+}
@@ -0,0 +1,275 @@
+package racfPassTicket.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import racfPassTicket.ApplicationName;
+import racfPassTicket.PassTicketGenerator;
+import racfPassTicket.PassTicketKey;
+import racfPassTicket.PassTicketKeyRegistry;
+import racfPassTicket.PassTicketResult;
+import racfPassTicket.PassTicketWarmUp;
+import racfPassTicket.UserId;
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketUnavailableException;
+
+/**
+ * <p>A local HTTP service generating PassTickets, with the keys resolved from a {@link PassTicketKeyRegistry} by application name.</p>
+ *
+ * <ul>
+ * <li><code>GET /passticket?userId=USERID&amp;applicationName=APPNAME</code> or <code>POST /passticket</code> with
+ * <code>{"userId":"USERID","applicationName":"APPNAME"}</code> returns <code>{"passTicket":"..."}</code>, or
+ * <code>{"error":"...","message":"..."}</code> with status 400 for invalid input and 404 for an unknown application.
+ * If the {@link racfPassTicket.PassTicketIssuanceGuard} of the generator has no free second, the status is 429 and
+ * <code>retryAfterMillis</code> tells when a fresh PassTicket is available.</li>
+ * <li><code>POST /passtickets</code> with an array of such objects returns an array with the PassTicket or the error of
+ * each request, in order.</li>
+ * <li><code>GET /health</code> answers as long as the server runs, <code>GET /ready</code> only once keys are loaded
+ * and the {@link PassTicketWarmUp}, if there is one, has finished.</li>
+ * </ul>
+ *
+ * <p>Connections are kept alive, and requests can be pipelined: a client may send its next requests on a connection
+ * before the responses arrive. The JDK server handles the requests of a connection one after the other, so the
+ * responses come back in the order of the requests; requests are processed in parallel across connections only.
+ * Each exchange runs on its own virtual thread if the JRE supports them (Java 21 and later); otherwise on a fixed
+ * thread pool of four threads per core.</p>
+ *
+ * <p>Start the JVM with <code>-Dsun.net.httpserver.nodelay=true</code>, as {@link Main} does for <code>serve</code>.
+ * Without TCP_NODELAY the body of each response waits for the delayed ACK of its headers, about 40 ms per request.
+ * The JDK reads the property once, when its first HTTP server is created.</p>
+ */
+public class PassTicketServer implements AutoCloseable {
+	private static final String UNKNOWN_APPLICATION = "UNKNOWN_APPLICATION";
+	private static final String INVALID_REQUEST = "INVALID_REQUEST";
+
+	private final PassTicketGenerator passTicketGenerator;
+	private final PassTicketKeyRegistry keys;
+	private final int maximumBatchSize;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final boolean virtualThreads;
+	private volatile PassTicketWarmUp warmUp;
+
+	/**
+	 * Creates the server. It is started by {@link #start()}.
+	 * @param address The address to listen on, port 0 for any free port
+	 * @param passTicketGenerator The generator
+	 * @param keys The keys by application name
+	 * @param maximumBatchSize The maximum number of requests in a batch
+	 * @throws IOException If the address cannot be bound
+	 */
+	public PassTicketServer(InetSocketAddress address, PassTicketGenerator passTicketGenerator, PassTicketKeyRegistry keys, int maximumBatchSize) throws IOException {
+		this.passTicketGenerator = passTicketGenerator;
+		this.keys = keys;
+		this.maximumBatchSize = maximumBatchSize;
+		ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+		this.virtualThreads = virtualThreadExecutor != null;
+		this.executor = virtualThreads ? virtualThreadExecutor : Executors.newFixedThreadPool(4 * Runtime.getRuntime().availableProcessors());
+
+		this.server = HttpServer.create(address, 1024);
+		server.setExecutor(executor);
+		server.createContext("/passticket", this::handleSingle);
+		server.createContext("/passtickets", this::handleBatch);
+		server.createContext("/health", exchange -> send(exchange, 200, "{\"status\":\"UP\"}"));
+		server.createContext("/ready", exchange -> {
+			PassTicketWarmUp warmUp = this.warmUp;
+			if (keys.size() == 0) {
+				send(exchange, 503, "{\"status\":\"NO_KEYS\"}");
+			} else if (warmUp != null && !warmUp.isReady()) {
+				send(exchange, 503, "{\"status\":\"WARMING_UP\"}");
+			} else {
+				send(exchange, 200, "{\"status\":\"READY\"}");
+			}
+		});
+	}
+
+	/**
+	 * Reports the server as not ready until the warm-up has finished, so that no requests are routed to a cold JVM.
+	 * @param warmUp The warm-up of the generator, or null
+	 */
+	public void setWarmUp(PassTicketWarmUp warmUp) {
+		this.warmUp = warmUp;
+	}
+
+	/** Starts accepting requests. */
+	public void start() {
+		server.start();
+	}
+
+	/** Stops the server, waiting at most a second for running exchanges. */
+	@Override
+	public void close() {
+		server.stop(1);
+		executor.shutdown();
+		try {
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** @return The port the server listens on */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/** @return true if exchanges run on virtual threads */
+	public boolean isUsingVirtualThreads() {
+		return virtualThreads;
+	}
+
+	private void handleSingle(HttpExchange exchange) throws IOException {
+		Map<String, String> request;
+		try {
+			if ("GET".equals(exchange.getRequestMethod())) {
+				request = parseQuery(exchange.getRequestURI().getRawQuery());
+			} else if ("POST".equals(exchange.getRequestMethod())) {
+				request = Json.parseObject(readBody(exchange));
+			} else {
+				send(exchange, 405, error(new StringBuilder(), INVALID_REQUEST, "Use GET or POST.").toString());
+				return;
+			}
+		} catch (IllegalArgumentException e) {
+			send(exchange, 400, error(new StringBuilder(), INVALID_REQUEST, e.getMessage()).toString());
+			return;
+		}
+
+		StringBuilder out = new StringBuilder(64);
+		int status = generate(request.get("userId"), request.get("applicationName"), out);
+		send(exchange, status, out.toString());
+	}
+
+	private void handleBatch(HttpExchange exchange) throws IOException {
+		if (!"POST".equals(exchange.getRequestMethod())) {
+			send(exchange, 405, error(new StringBuilder(), INVALID_REQUEST, "Use POST.").toString());
+			return;
+		}
+		List<Map<String, String>> requests;
+		try {
+			requests = Json.parseArray(readBody(exchange));
+		} catch (IllegalArgumentException e) {
+			send(exchange, 400, error(new StringBuilder(), INVALID_REQUEST, e.getMessage()).toString());
+			return;
+		}
+		if (requests.size() > maximumBatchSize) {
+			send(exchange, 413, error(new StringBuilder(), INVALID_REQUEST, "At most " + maximumBatchSize + " requests per batch.").toString());
+			return;
+		}
+
+		StringBuilder out = new StringBuilder(requests.size() * 64 + 2).append('[');
+		for (int i = 0; i < requests.size(); i++) {
+			if (i > 0) {
+				out.append(',');
+			}
+			generate(requests.get(i).get("userId"), requests.get(i).get("applicationName"), out);
+		}
+		send(exchange, 200, out.append(']').toString());
+	}
+
+	/**
+	 * Generates a PassTicket and appends the JSON result.
+	 * @param userId The user ID
+	 * @param applicationName The application name, which selects the key
+	 * @param out The output
+	 * @return The HTTP status for the result
+	 */
+	private int generate(String userId, String applicationName, StringBuilder out) {
+		// the naming rules of RACF are enforced, unlike by the lenient String API of the generator
+		PassTicketError error = UserId.check(userId);
+		if (error == null) {
+			error = ApplicationName.check(applicationName);
+		}
+		if (error != null) {
+			error(out, error.name(), error.getMessage());
+			return 400;
+		}
+		PassTicketKey key = keys.getKey(applicationName);
+		if (key == null) {
+			error(out, UNKNOWN_APPLICATION, "No key for the application.");
+			return 404;
+		}
+		PassTicketResult result = passTicketGenerator.tryGenerate(userId, applicationName, key);
+		if (result.isSuccess()) {
+			Json.appendString(out.append("{\"passTicket\":"), result.getPassTicket()).append('}');
+			return 200;
+		}
+		error = result.getError();
+		if (error == null) {
+			error(out, "INTERNAL_ERROR", result.getException().getMessage());
+			return 500;
+		}
+		error(out, error.name(), error.getMessage());
+		if (result.getException() instanceof PassTicketUnavailableException) {
+			out.setLength(out.length() - 1);
+			out.append(",\"retryAfterMillis\":").append(((PassTicketUnavailableException) result.getException()).getRetryAfterMillis()).append('}');
+			return 429;
+		}
+		return error.isInvalidInput() ? 400 : 500;
+	}
+
+	private static StringBuilder error(StringBuilder out, String error, String message) {
+		Json.appendString(out.append("{\"error\":"), error).append(",\"message\":");
+		return Json.appendString(out, message).append('}');
+	}
+
+	private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+		Map<String, String> parameters = new HashMap<>();
+		if (query == null) {
+			return parameters;
+		}
+		for (String parameter : query.split("&")) {
+			int equals = parameter.indexOf('=');
+			if (equals > 0) {
+				parameters.put(URLDecoder.decode(parameter.substring(0, equals), "UTF-8"), URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+			}
+		}
+		return parameters;
+	}
+
+	private static String readBody(HttpExchange exchange) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		try (InputStream in = exchange.getRequestBody()) {
+			for (int read; (read = in.read(buffer)) != -1;) {
+				body.write(buffer, 0, read);
+			}
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Creates an executor starting a virtual thread per task, looked up by reflection so that the class runs on older JREs.
+	 * @return The executor, or null if the JRE has no virtual threads
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package racfPassTicket.exceptions;
+
+/** The reasons why a PassTicket cannot be generated. */
+public enum PassTicketError {
+	/** The user ID or application name is null. */
+	NULL_INPUT("Input cannot be null", true),
+	/** The user ID or application name is empty or consists of blanks. */
+	EMPTY_INPUT("Input cannot be empty.", true),
+	/** The user ID or application name is longer than 8 characters. */
+	INPUT_TOO_LONG("Input is too long.", true),
+	/** The user ID or application name contains a character RACF does not allow. */
+	INVALID_CHARACTER("Input contains a character which is not allowed.", true),
+	/** The secured signon application key is null. */
+	NULL_KEY("Key cannot be null.", true),
+	/** The secured signon application key does not consist of 16 characters. */
+	INVALID_KEY_LENGTH("Key must be 16 hex characters long.", true),
+	/** The secured signon application key contains a character which is not a hexadecimal digit. */
+	INVALID_KEY_CHARACTER("Key must consist of hexadecimal characters.", true),
+	/** The secured signon application key is one of the weak or semi-weak DES keys. */
+	WEAK_KEY("Key must not be a weak or semi-weak DES key.", true),
+	/** The JCE cannot create a DES key from the secured signon application key. */
+	KEY_GENERATION_FAILED("SecretKey cannot be generated.", true),
+	/** The JRE does not support the EBCDIC code page 1047. */
+	ENCODING_NOT_SUPPORTED("Cannot get bytes in EBCDIC.", false),
+	/** The DES cipher cannot be created or fails. */
+	ENCRYPTION_FAILED("Error during encryption.", false),
+	/** A PassTicket has already been issued for the second and all seconds the issuance guard may move ahead to. */
+	ALREADY_ISSUED("A PassTicket has already been issued for this second.", false);
+
+	private final String message;
+	private final boolean invalidInput;
+
+	private PassTicketError(String message, boolean invalidInput) {
+		this.message = message;
+		this.invalidInput = invalidInput;
+	}
+
+	/** @return The message of the exception thrown for this error */
+	public String getMessage() {
+		return message;
+	}
+
+	/** @return true if the error is caused by the input, false if it is an internal error */
+	public boolean isInvalidInput() {
+		return invalidInput;
+	}
+}
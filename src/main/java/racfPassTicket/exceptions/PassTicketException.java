@@ -3,11 +3,29 @@ package racfPassTicket.exceptions;
 @SuppressWarnings("serial")
 /** Thrown when an error occurs during PassTicket generation.*/
 public class PassTicketException extends Exception {
+	private final PassTicketError error;
+
 	public PassTicketException(String msg, Throwable cause) {
 		super(msg, cause);
+		this.error = null;
 	}
 	
 	public PassTicketException(String msg) {
 		super(msg);
+		this.error = null;
+	}
+
+	public PassTicketException(PassTicketError error, Throwable cause) {
+		this(error, error.getMessage(), cause);
+	}
+
+	public PassTicketException(PassTicketError error, String msg, Throwable cause) {
+		super(msg, cause);
+		this.error = error;
+	}
+
+	/** @return The error code, or null if the exception was not created for one */
+	public PassTicketError getError() {
+		return error;
 	}
 }
\ No newline at end of file
@@ -1,13 +1,34 @@
 package racfPassTicket.exceptions;
 
 @SuppressWarnings("serial")
-/** Thrown when user input is invalid.*/
+/**
+ * Thrown when user input is invalid.
+ * Exceptions created for an error code have no stack trace, as they are thrown for every invalid request.
+ */
 public class PassTicketInvalidInputException extends Exception {
+	private final PassTicketError error;
+
 	public PassTicketInvalidInputException(String msg, Throwable cause) {
 		super(msg, cause);
+		this.error = null;
 	}
 	
 	public PassTicketInvalidInputException(String msg) {
 		super(msg);
+		this.error = null;
+	}
+
+	public PassTicketInvalidInputException(PassTicketError error) {
+		this(error, null);
+	}
+
+	public PassTicketInvalidInputException(PassTicketError error, Throwable cause) {
+		super(error.getMessage(), cause, false, false);
+		this.error = error;
+	}
+
+	/** @return The error code, or null if the exception was not created for one */
+	public PassTicketError getError() {
+		return error;
 	}
 }
\ No newline at end of file
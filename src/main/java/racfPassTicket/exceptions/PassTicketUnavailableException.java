@@ -0,0 +1,33 @@
+package racfPassTicket.exceptions;
+
+@SuppressWarnings("serial")
+/**
+ * Thrown when a PassTicket has already been issued for the current second and for all the following seconds the
+ * issuance guard may move ahead to. A fresh PassTicket is available from the next second on.
+ * The exception has no stack trace, as it is thrown for every colliding request.
+ */
+public class PassTicketUnavailableException extends PassTicketException {
+	private final int availableAt;
+	private final long retryAfterMillis;
+
+	public PassTicketUnavailableException(int availableAt, long retryAfterMillis) {
+		super(PassTicketError.ALREADY_ISSUED, null);
+		this.availableAt = availableAt;
+		this.retryAfterMillis = retryAfterMillis;
+	}
+
+	/** @return The time and date information (seconds since 1.1.1970, 00:00 UTC) from which on a fresh PassTicket can be issued */
+	public int getAvailableAt() {
+		return availableAt;
+	}
+
+	/** @return The time until a fresh PassTicket can be issued, in milliseconds */
+	public long getRetryAfterMillis() {
+		return retryAfterMillis;
+	}
+
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+}
@@ -0,0 +1,75 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.DESKeySpec;
+
+import org.junit.Test;
+
+public class BitslicedDESEncrypterTest {
+	@Test
+	public void transposeShouldTransposeTheBitMatrix() {
+		Random random = new Random(1);
+		long[] rows = new long[64];
+		for (int i = 0; i < 64; i++) {
+			rows[i] = random.nextLong();
+		}
+		long[] transposed = rows.clone();
+		BitslicedDESEncrypter.transpose(transposed);
+
+		for (int k = 0; k < 64; k++) {
+			for (int c = 0; c < 64; c++) {
+				assertEquals((rows[k] >>> (63 - c)) & 1, (transposed[c] >>> (63 - k)) & 1);
+			}
+		}
+	}
+
+	@Test
+	public void encryptShouldEncryptALong() {
+		BitslicedDESEncrypter encrypter = new BitslicedDESEncrypter(new byte[] {(byte) 0x09, (byte) 0x8d, (byte) 0x61, (byte) 0xa8, (byte) 0x55, (byte) 0x85, (byte) 0xd2, (byte) 0xab});
+
+		// same test data as in DESEncrypterTest
+		long[] blocks = {PassTicketUtils.byteArrayToLong("TestByte".getBytes(), 0, 8)};
+		encrypter.encrypt(blocks, 0, 1);
+		assertEquals(0x1ec3753d7a79e3ceL, blocks[0]);
+	}
+
+	@Test
+	public void encryptShouldReturnTheSameResultAsTheJCE() {
+		try {
+			Random random = new Random(42);
+			SecretKeyFactory factory = SecretKeyFactory.getInstance("DES");
+			int[] counts = {1, 2, 37, 63, 64};
+			for (int count : counts) {
+				byte[] keyBytes = new byte[8];
+				random.nextBytes(keyBytes);
+				DESEncrypter jceEncrypter = new DESEncrypter(factory.generateSecret(new DESKeySpec(keyBytes)));
+				BitslicedDESEncrypter bitslicedEncrypter = new BitslicedDESEncrypter(keyBytes);
+
+				long[] blocks = new long[count + 3];
+				for (int i = 0; i < blocks.length; i++) {
+					blocks[i] = random.nextLong();
+				}
+				long[] encrypted = blocks.clone();
+				bitslicedEncrypter.encrypt(encrypted, 3, count);
+
+				for (int i = 0; i < 3; i++) {
+					assertEquals(blocks[i], encrypted[i]);
+				}
+				for (int i = 3; i < blocks.length; i++) {
+					assertEquals(jceEncrypter.encrypt(blocks[i]), encrypted[i]);
+				}
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void encryptShouldThrowAnExceptionIfThereAreTooManyBlocks() {
+		new BitslicedDESEncrypter(new byte[8]).encrypt(new long[65], 0, 65);
+	}
+}
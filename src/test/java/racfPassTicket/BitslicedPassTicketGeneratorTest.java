@@ -0,0 +1,110 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+public class BitslicedPassTicketGeneratorTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void generateShouldReturnTheSameResultAsTheGenerator() {
+		try {
+			PassTicketKey key = new PassTicketKey("A1B2C3D4E5F6A7B8");
+			List<String> userIds = new ArrayList<>();
+			List<String> applicationNames = new ArrayList<>();
+			for (int i = 0; i < 150; i++) { // more than two chunks of 64
+				userIds.add("USER" + i);
+				applicationNames.add(i % 2 == 0 ? "APPNAME" : "TSO" + i);
+			}
+			int timeInfo = 0x57E2C0DE;
+
+			List<String> passTickets = new BitslicedPassTicketGenerator().generate(userIds, applicationNames, key, timeInfo);
+
+			PassTicketGenerator pt = new PassTicketGenerator();
+			assertEquals(userIds.size(), passTickets.size());
+			for (int i = 0; i < userIds.size(); i++) {
+				assertEquals(pt.generate(userIds.get(i), applicationNames.get(i), key, timeInfo), passTickets.get(i));
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void generateShouldReturnOnePassTicketPerUser() {
+		try {
+			PassTicketKey key = new PassTicketKey("A1B2C3D4E5F6A7B8");
+			List<String> passTickets = new BitslicedPassTicketGenerator().generate(Arrays.asList("USER1", "USER2", "USER3"), "APPNAME", key);
+			assertEquals(3, passTickets.size());
+			for (String passTicket : passTickets) {
+				assertEquals(8, passTicket.length());
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void everyPassTicketOfABatchShouldBeAudited() throws Exception {
+		PassTicketKey key = new PassTicketKey("A1B2C3D4E5F6A7B8");
+		Path directory = folder.getRoot().toPath();
+		List<String> userIds = Arrays.asList("USER1", "user2", "USER3");
+		List<String> passTickets;
+		try (PassTicketAuditLog auditLog = new PassTicketAuditLog(directory, 16, 1 << 20)) {
+			BitslicedPassTicketGenerator generator = new BitslicedPassTicketGenerator();
+			generator.setClock(PassTicketClock.fixed(0x57E2C0DE));
+			generator.setAuditLog(auditLog);
+			passTickets = generator.generate(userIds, "APPNAME", key);
+		}
+
+		List<PassTicketAuditRecord> records = new ArrayList<>();
+		PassTicketAuditLog.read(directory, records::add);
+		assertEquals(userIds.size(), records.size());
+		for (int i = 0; i < records.size(); i++) {
+			assertEquals(userIds.get(i) + "   ", records.get(i).getUserId());
+			assertEquals("APPNAME ", records.get(i).getApplicationName());
+			assertEquals(0x57E2C0DE, records.get(i).getTimeInfo());
+			assertTrue(records.get(i).matches(passTickets.get(i)));
+		}
+	}
+
+	@Test
+	public void theIssuanceGuardShouldMoveRepeatedPassTicketsToTheNextSecond() throws Exception {
+		PassTicketKey key = new PassTicketKey("A1B2C3D4E5F6A7B8");
+		int timeInfo = 0x57E2C0DE;
+		PassTicketIssuanceGuard guard = new PassTicketIssuanceGuard(5);
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(timeInfo));
+		pt.setIssuanceGuard(guard);
+		BitslicedPassTicketGenerator generator = new BitslicedPassTicketGenerator();
+		generator.setClock(PassTicketClock.fixed(timeInfo));
+		generator.setIssuanceGuard(guard);
+
+		// a single logon next to the batch takes the current second of USER1
+		String single = pt.generate("USER1", "APPNAME", key);
+		List<String> passTickets = generator.generate(Arrays.asList("USER1", "USER2", "USER1"), "APPNAME", key);
+
+		PassTicketGenerator unguarded = new PassTicketGenerator();
+		assertEquals(unguarded.generate("USER1", "APPNAME", key, timeInfo), single);
+		assertEquals(unguarded.generate("USER1", "APPNAME", key, timeInfo + 1), passTickets.get(0));
+		assertEquals(unguarded.generate("USER2", "APPNAME", key, timeInfo), passTickets.get(1));
+		assertEquals(unguarded.generate("USER1", "APPNAME", key, timeInfo + 2), passTickets.get(2));
+	}
+
+	@Test(expected = PassTicketInvalidInputException.class)
+	public void generateShouldThrowAnExceptionIfAUserIdIsInvalid() throws Exception {
+		PassTicketKey key = new PassTicketKey("A1B2C3D4E5F6A7B8");
+		new BitslicedPassTicketGenerator().generate(Arrays.asList("USER1", "123456789"), "APPNAME", key);
+	}
+}
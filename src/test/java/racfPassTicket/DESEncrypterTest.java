@@ -29,4 +29,19 @@ public class DESEncrypterTest {
 			fail(e.getMessage());
 		}
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void encryptShouldEncryptALong() {
+		try {
+			byte[] keyBytes = DatatypeConverter.parseHexBinary("098d61a85585d2ab");
+			SecretKeyFactory factory = SecretKeyFactory.getInstance("DES");
+			SecretKey secretKey = factory.generateSecret(new DESKeySpec(keyBytes));
+			DESEncrypter encrypter = new DESEncrypter(secretKey);
+
+			long input = PassTicketUtils.byteArrayToLong("TestByte".getBytes(), 0, 8);
+			assertEquals(0x1ec3753d7a79e3ceL, encrypter.encrypt(input));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
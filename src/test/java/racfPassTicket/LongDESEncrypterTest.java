@@ -0,0 +1,83 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.DESKeySpec;
+
+import org.junit.Test;
+
+import racfPassTicket.exceptions.PassTicketException;
+
+public class LongDESEncrypterTest {
+	@Test
+	public void encryptShouldEncryptALong() {
+		LongDESEncrypter encrypter = new LongDESEncrypter(new byte[] {(byte) 0x09, (byte) 0x8d, (byte) 0x61, (byte) 0xa8, (byte) 0x55, (byte) 0x85, (byte) 0xd2, (byte) 0xab});
+
+		// same test data as in DESEncrypterTest
+		long input = PassTicketUtils.byteArrayToLong("TestByte".getBytes(), 0, 8);
+		assertEquals(0x1ec3753d7a79e3ceL, encrypter.encrypt(input));
+	}
+
+	@Test
+	public void encryptShouldEncryptAString() {
+		try {
+			LongDESEncrypter encrypter = new LongDESEncrypter(new byte[] {(byte) 0x09, (byte) 0x8d, (byte) 0x61, (byte) 0xa8, (byte) 0x55, (byte) 0x85, (byte) 0xd2, (byte) 0xab});
+
+			byte[] expectedResult = {(byte) 0x1e,(byte) 0xC3,(byte) 0x75,(byte) 0x3d,(byte) 0x7a,(byte) 0x79,(byte) 0xe3,(byte) 0xce};
+			assertArrayEquals(expectedResult, encrypter.encrypt("TestByte".getBytes()));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void encryptShouldReturnTheSameResultAsTheJCE() {
+		try {
+			Random random = new Random(42);
+			SecretKeyFactory factory = SecretKeyFactory.getInstance("DES");
+			for (int i = 0; i < 100; i++) {
+				byte[] keyBytes = new byte[8];
+				random.nextBytes(keyBytes);
+				SecretKey secretKey = factory.generateSecret(new DESKeySpec(keyBytes));
+				DESEncrypter jceEncrypter = new DESEncrypter(secretKey);
+				LongDESEncrypter longEncrypter = new LongDESEncrypter(keyBytes);
+
+				for (int j = 0; j < 100; j++) {
+					long block = random.nextLong();
+					assertEquals(jceEncrypter.encrypt(block), longEncrypter.encrypt(block));
+				}
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void generateShouldReturnTheSameResultWithBothImplementations() {
+		try {
+			PassTicketGenerator pt = new PassTicketGenerator();
+			PassTicketKey jceKey = PassTicketGenerator.forKey("A1B2C3D4E5F6A7B8", DESImplementation.JCE);
+			PassTicketKey longKey = PassTicketGenerator.forKey("A1B2C3D4E5F6A7B8", DESImplementation.LONG);
+
+			PassTicketPrefix jcePrefix = pt.computePrefix(UserId.of("USERID"), ApplicationName.of("APPNAME"), jceKey.getDESEncrypter());
+			PassTicketPrefix longPrefix = pt.computePrefix(UserId.of("USERID"), ApplicationName.of("APPNAME"), longKey.getDESEncrypter());
+			assertEquals(jcePrefix.getResult3(), longPrefix.getResult3());
+
+			TimeCoder tc = new TimeCoder();
+			int result4 = jcePrefix.getResult3() ^ 0x57E2C0DE;
+			assertEquals(tc.timeCoder(result4, jcePrefix.getPadding1(), jcePrefix.getPadding2(), jceKey.getDESEncrypter()),
+					tc.timeCoder(result4, longPrefix.getPadding1(), longPrefix.getPadding2(), longKey.getDESEncrypter()));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test(expected = PassTicketException.class)
+	public void encryptShouldThrowAnExceptionIfInputIsNotAMultipleOf8Bytes() throws Exception {
+		new LongDESEncrypter(new byte[8]).encrypt(new byte[] {1, 2, 3});
+	}
+}
@@ -0,0 +1,82 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import racfPassTicket.exceptions.PassTicketException;
+
+public class NativeDESEncrypterTest {
+	private static final byte[] KEY = {(byte) 0x09, (byte) 0x8d, (byte) 0x61, (byte) 0xa8, (byte) 0x55, (byte) 0x85, (byte) 0xd2, (byte) 0xab};
+
+	@Test
+	public void encryptShouldEncryptALong() throws PassTicketException {
+		assumeTrue(NativeDESEncrypter.isAvailable());
+		NativeDESEncrypter encrypter = new NativeDESEncrypter(KEY);
+
+		// same test data as in DESEncrypterTest
+		long input = PassTicketUtils.byteArrayToLong("TestByte".getBytes(), 0, 8);
+		assertEquals(0x1ec3753d7a79e3ceL, encrypter.encrypt(input));
+		assertArrayEquals(new byte[] {(byte) 0x1e, (byte) 0xC3, (byte) 0x75, (byte) 0x3d, (byte) 0x7a, (byte) 0x79, (byte) 0xe3, (byte) 0xce}, encrypter.encrypt("TestByte".getBytes()));
+	}
+
+	@Test
+	public void encryptShouldEncryptBlocksInPlaceLikeTheLongDESEncrypter() throws PassTicketException {
+		assumeTrue(NativeDESEncrypter.isAvailable());
+		Random random = new Random(42);
+		byte[] keyBytes = new byte[8];
+		random.nextBytes(keyBytes);
+		NativeDESEncrypter nativeEncrypter = new NativeDESEncrypter(keyBytes);
+		LongDESEncrypter longEncrypter = new LongDESEncrypter(keyBytes);
+
+		// more than one downcall, and blocks before and after the range which must be left alone
+		long[] blocks = new long[NativeDESEncrypter.BATCH_BLOCKS * 2 + 10];
+		for (int i = 0; i < blocks.length; i++) {
+			blocks[i] = random.nextLong();
+		}
+		long[] encrypted = blocks.clone();
+		nativeEncrypter.encrypt(encrypted, 3, blocks.length - 6);
+		for (int i = 0; i < blocks.length; i++) {
+			long expected = i < 3 || i >= blocks.length - 3 ? blocks[i] : longEncrypter.encrypt(blocks[i]);
+			assertEquals("block " + i, expected, encrypted[i]);
+		}
+		assertEquals(longEncrypter.encrypt(blocks[0]), nativeEncrypter.encrypt(blocks[0]));
+	}
+
+	@Test
+	public void generateShouldReturnTheSameResultWithTheJCEWhetherOrNotLibcryptoIsAvailable() throws Exception {
+		PassTicketKey nativeKey = PassTicketGenerator.forKey("A1B2C3D4E5F6A7B8", DESImplementation.NATIVE);
+		PassTicketKey jceKey = PassTicketGenerator.forKey("A1B2C3D4E5F6A7B8", DESImplementation.JCE);
+		assertEquals(NativeDESEncrypter.isAvailable(), nativeKey.getDESEncrypter() instanceof NativeDESEncrypter);
+
+		PassTicketGenerator generator = new PassTicketGenerator();
+		for (int timeInfo = 1_500_000_000; timeInfo < 1_500_000_100; timeInfo++) {
+			assertEquals(generator.generate("USERID", "APPNAME", jceKey, timeInfo), generator.generate("USERID", "APPNAME", nativeKey, timeInfo));
+		}
+
+		List<String> userIds = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			userIds.add("USER" + i);
+		}
+		BitslicedPassTicketGenerator bitslicedGenerator = new BitslicedPassTicketGenerator();
+		List<String> passTickets = bitslicedGenerator.generate(userIds, Collections.nCopies(100, "APPNAME"), nativeKey, 1_500_000_000);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(generator.generate(userIds.get(i), "APPNAME", jceKey, 1_500_000_000), passTickets.get(i));
+		}
+	}
+
+	@Test
+	public void nativeEngineShouldBeAvailableOnlyWithLibcrypto() {
+		boolean listed = PassTicketEngines.available().stream().anyMatch(engine -> engine.getName().equals(PassTicketEngines.NATIVE));
+		assertEquals(NativeDESEncrypter.isAvailable(), listed);
+		if (!NativeDESEncrypter.isAvailable()) {
+			assertNotNull(NativeDESEncrypter.getUnavailableReason());
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PassTicketAuditLogTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void issuedPassTicketsShouldBeRecordedAsHashes() throws Exception {
+		Path directory = folder.getRoot().toPath().resolve("audit");
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(0x57E2C0DE));
+		PassTicketKey key = PassTicketKey.fromKeyBytes(new byte[] {0x09, (byte) 0x8d, 0x61, (byte) 0xa8, 0x55, (byte) 0x85, (byte) 0xd2, (byte) 0xab}, DESImplementation.LONG, "APPKEY");
+		List<String> passTickets = new ArrayList<>();
+		long before = System.currentTimeMillis();
+		try (PassTicketAuditLog auditLog = new PassTicketAuditLog(directory, 16, 1 << 20);
+				PassTicketPrefetcher prefetcher = new PassTicketPrefetcher(pt, 2, 10, 0, TimeUnit.SECONDS)) {
+			pt.setAuditLog(auditLog);
+			passTickets.add(pt.generate("userid", "APPNAME", key));
+			passTickets.add(pt.generate(UserId.of("USER2"), ApplicationName.of("APPNAME"), key));
+			CharBuffer buffer = CharBuffer.allocate(8);
+			pt.generate(UserId.of("USER3"), ApplicationName.of("APPNAME"), key, buffer);
+			passTickets.add(buffer.flip().toString());
+			// computing ahead of time does not issue, the lookup does
+			prefetcher.register("USER4", "APPNAME", key);
+			passTickets.add(prefetcher.generate("USER4", "APPNAME", key));
+			assertNull(pt.tryGenerate("", "APPNAME", key).getPassTicket());
+		}
+
+		List<PassTicketAuditRecord> records = new ArrayList<>();
+		PassTicketAuditLog.read(directory, records::add);
+		assertEquals(4, records.size());
+		for (int i = 0; i < records.size(); i++) {
+			PassTicketAuditRecord record = records.get(i);
+			assertEquals(i == 0 ? "userid  " : "USER" + (i + 1) + "   ", record.getUserId());
+			assertEquals("APPNAME ", record.getApplicationName());
+			assertEquals("APPKEY", record.getKeyAlias());
+			assertEquals(0x57E2C0DE, record.getTimeInfo());
+			assertTrue(record.getIssuedMillis() >= before);
+			assertTrue(record.matches(passTickets.get(i)));
+			assertFalse(record.matches(passTickets.get((i + 1) % passTickets.size())));
+		}
+	}
+
+	@Test
+	public void namesShouldBeRecordedAsTheyWereEncoded() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(0x57E2C0DE));
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		List<String> passTickets = new ArrayList<>();
+		try (PassTicketAuditLog auditLog = new PassTicketAuditLog(directory, 16, 1 << 20)) {
+			pt.setAuditLog(auditLog);
+			passTickets.add(pt.generate("userid", "appname", key));
+			passTickets.add(pt.generate("USERID", "APPNAME", key));
+			passTickets.add(pt.generate("  userid", "appname", key));
+		}
+		assertNotEquals(passTickets.get(0), passTickets.get(1));
+
+		List<PassTicketAuditRecord> records = new ArrayList<>();
+		PassTicketAuditLog.read(directory, records::add);
+		assertEquals(3, records.size());
+		assertEquals("userid  ", records.get(0).getUserId());
+		assertEquals("appname ", records.get(0).getApplicationName());
+		assertEquals("USERID  ", records.get(1).getUserId());
+		assertEquals("APPNAME ", records.get(1).getApplicationName());
+		// leading blanks are not part of the encoded user ID
+		assertEquals("userid  ", records.get(2).getUserId());
+		for (int i = 0; i < records.size(); i++) {
+			assertTrue(records.get(i).matches(passTickets.get(i)));
+		}
+	}
+
+	@Test
+	public void concurrentRecordsShouldAllBeWrittenAcrossSegments() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		int threads = 4;
+		int perThread = 2000;
+		PassTicketAuditLog auditLog = new PassTicketAuditLog(directory, 8, 4096);
+		pt.setAuditLog(auditLog);
+		List<Thread> generators = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			generators.add(new Thread(() -> {
+				for (int i = 0; i < perThread; i++) {
+					pt.tryGenerate("U" + thread + "X" + i, "APPNAME", key);
+				}
+			}));
+		}
+		generators.forEach(Thread::start);
+		for (Thread thread : generators) {
+			thread.join();
+		}
+		auditLog.close();
+		assertEquals(threads * perThread, auditLog.getWrittenCount());
+		assertEquals(0, auditLog.getFailureCount());
+
+		Set<String> userIds = new HashSet<>();
+		PassTicketAuditLog.read(directory, record -> userIds.add(record.getUserId()));
+		assertEquals(threads * perThread, userIds.size());
+		List<Path> segments;
+		try (Stream<Path> files = Files.list(directory)) {
+			segments = files.sorted().collect(Collectors.toList());
+		}
+		assertTrue(segments.size() > 10);
+		assertTrue(Files.size(segments.get(0)) <= 4096);
+
+		// a new log continues after the existing segments
+		try (PassTicketAuditLog next = new PassTicketAuditLog(directory, 8, 4096)) {
+			pt.setAuditLog(next);
+			pt.generate("LAST", "APPNAME", key);
+		}
+		List<PassTicketAuditRecord> records = new ArrayList<>();
+		PassTicketAuditLog.read(directory, records::add);
+		assertEquals(threads * perThread + 1, records.size());
+		assertEquals("LAST    ", records.get(records.size() - 1).getUserId());
+		assertEquals(0, pt.getAuditLog().getDroppedCount());
+		pt.generate("CLOSED", "APPNAME", key);
+		assertEquals(1, pt.getAuditLog().getDroppedCount());
+	}
+
+	@Test
+	public void recordsRacingWithCloseShouldBeWrittenOrCountedAsDropped() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		LongAdder issued = new LongAdder();
+		PassTicketAuditLog auditLog = new PassTicketAuditLog(directory, 4, 1 << 20);
+		List<Thread> issuers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			issuers.add(new Thread(() -> {
+				for (int i = 0; auditLog.getDroppedCount() == 0; i++) {
+					auditLog.issued(i, "USERID", "APPNAME", key, i, null);
+					issued.increment();
+				}
+			}));
+		}
+		issuers.forEach(Thread::start);
+		while (auditLog.getWrittenCount() < 1000) {
+			Thread.yield();
+		}
+		auditLog.close();
+		for (Thread issuer : issuers) {
+			// threads waiting for a slot of the full ring buffer are not left behind
+			issuer.join(TimeUnit.SECONDS.toMillis(10));
+			assertFalse(issuer.isAlive());
+		}
+		assertEquals(issued.sum(), auditLog.getWrittenCount() + auditLog.getDroppedCount());
+
+		long[] records = new long[1];
+		PassTicketAuditLog.read(directory, record -> records[0]++);
+		assertEquals(auditLog.getWrittenCount(), records[0]);
+	}
+
+	@Test
+	public void aFailedRecordShouldLeaveTheSegmentTruncatedToItsCompleteRecords() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		PassTicketAuditLog auditLog = new PassTicketAuditLog(directory, 4, 1 << 20);
+		auditLog.issued(1, "USER1   ", "APPNAME ", key, 1, null);
+		// a PassTicket too short to hash makes the record fail
+		auditLog.issued(2, "USER2   ", "APPNAME ", key, 0, "SHORT");
+		auditLog.issued(3, "USER3   ", "APPNAME ", key, 3, null);
+		auditLog.close();
+		assertEquals(2, auditLog.getWrittenCount());
+		assertEquals(1, auditLog.getFailureCount());
+		assertTrue(auditLog.getLastFailure() instanceof StringIndexOutOfBoundsException);
+
+		List<Path> segments;
+		try (Stream<Path> files = Files.list(directory)) {
+			segments = files.sorted().collect(Collectors.toList());
+		}
+		assertEquals(2, segments.size());
+		assertEquals(Files.size(segments.get(0)), Files.size(segments.get(1)));
+		assertTrue(Files.size(segments.get(0)) < 1024);
+		List<Integer> timeInfos = new ArrayList<>();
+		PassTicketAuditLog.read(directory, record -> timeInfos.add(record.getTimeInfo()));
+		assertEquals(Arrays.asList(1, 3), timeInfos);
+	}
+}
@@ -0,0 +1,60 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+public class PassTicketBatchGeneratorTest {
+	@Test
+	public void generateShouldReturnTheResultsInTheOrderOfTheRequests() {
+		try (PassTicketBatchGenerator batchGenerator = new PassTicketBatchGenerator(new PassTicketGenerator(), 4)) {
+			PassTicketKey key = PassTicketGenerator.forKey("A1B2C3D4E5F6A7B8");
+			List<PassTicketRequest> requests = new ArrayList<>();
+			for (int i = 0; i < 1000; i++) {
+				if (i % 3 == 0) {
+					requests.add(new PassTicketRequest("USER" + i, "APPNAME", key));
+				} else {
+					requests.add(new PassTicketRequest("USER" + i, "APPNAME", i % 3 == 1 ? "A1B2C3D4E5F6A7B8" : "098d61a85585d2ab"));
+				}
+			}
+
+			List<PassTicketResult> results = batchGenerator.generate(requests);
+
+			assertEquals(requests.size(), results.size());
+			for (int i = 0; i < requests.size(); i++) {
+				assertSame(requests.get(i), results.get(i).getRequest());
+				assertTrue(results.get(i).isSuccess());
+				assertEquals(8, results.get(i).getPassTicket().length());
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void generateShouldReportErrorsPerRequest() {
+		try (PassTicketBatchGenerator batchGenerator = new PassTicketBatchGenerator(new PassTicketGenerator(), 2)) {
+			List<PassTicketResult> results = batchGenerator.generate(Stream.of(
+					new PassTicketRequest("USERID", "APPNAME", "A1B2C3D4E5F6A7B8"),
+					new PassTicketRequest("123456789", "APPNAME", "A1B2C3D4E5F6A7B8"),
+					new PassTicketRequest("USERID", "APPNAME", "NOT A KEY"),
+					new PassTicketRequest("USERID", "APPNAME", (String) null),
+					new PassTicketRequest("USERID", "APPNAME", "A1B2C3D4E5F6A7B8")));
+
+			assertTrue(results.get(0).isSuccess());
+			assertTrue(results.get(1).getException() instanceof PassTicketInvalidInputException);
+			assertTrue(results.get(2).getException() instanceof PassTicketInvalidInputException);
+			assertTrue(results.get(3).getException() instanceof PassTicketInvalidInputException);
+			assertNull(results.get(3).getPassTicket());
+			assertTrue(results.get(4).isSuccess());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class PassTicketClockTest {
+	@Test
+	public void systemClockShouldReturnTheSecondsSince1970() {
+		long before = System.currentTimeMillis() / 1000L;
+		long time = PassTicketClock.system().getTimeAndDateInformation() & 0xFFFFFFFFL;
+		long after = System.currentTimeMillis() / 1000L;
+		assertTrue(time >= before && time <= after);
+	}
+
+	@Test
+	public void cachedClockShouldFollowTheSystemClock() {
+		long before = System.currentTimeMillis() / 1000L;
+		long time = PassTicketClock.cached().getTimeAndDateInformation() & 0xFFFFFFFFL;
+		long after = System.currentTimeMillis() / 1000L;
+		// the cached second may lag behind by one right after a second boundary
+		assertTrue(time >= before - 1 && time <= after);
+		assertSame(PassTicketClock.cached(), PassTicketClock.cached());
+	}
+
+	@Test
+	public void fixedAndOffsetClocksShouldBeDeterministic() {
+		PassTicketClock fixed = PassTicketClock.fixed(0x57E2C0DE);
+		assertEquals(0x57E2C0DE, fixed.getTimeAndDateInformation());
+		assertEquals(0x57E2C0DE - 30, PassTicketClock.offset(fixed, -30).getTimeAndDateInformation());
+	}
+
+	@Test
+	public void generatorShouldUseItsClock() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		pt.setClock(PassTicketClock.fixed(0x57E2C0DE));
+		assertEquals(pt.generate("USERID", "APPNAME", key, 0x57E2C0DE), pt.generate("USERID", "APPNAME", key));
+		assertEquals(pt.generate("USERID", "APPNAME", key, 0x57E2C0DE), pt.generate(UserId.of("USERID"), ApplicationName.of("APPNAME"), key));
+	}
+}
@@ -0,0 +1,103 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import racfPassTicket.exceptions.PassTicketException;
+
+public class PassTicketEngineTest {
+	/** An engine with a defect: it flips the result for every tenth second. */
+	private static final PassTicketEngine FAULTY = new PassTicketEngine() {
+		@Override
+		public String getName() {
+			return "faulty";
+		}
+
+		@Override
+		public Prepared prepare(byte[] keyBytes) throws PassTicketException {
+			Prepared reference = PassTicketEngines.reference().prepare(keyBytes);
+			return (userId, applicationName, padding1, padding2, timeInfo) -> {
+				int result5 = reference.computeResult5(userId, applicationName, padding1, padding2, timeInfo);
+				return timeInfo % 10 == 0 ? ~result5 : result5;
+			};
+		}
+	};
+
+	@Test
+	public void builtInEnginesShouldGenerateTheSamePassTickets() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		String expected = pt.generate("USERID", "APPNAME", key, 0x57E2C0DE);
+		for (String name : Arrays.asList(PassTicketEngines.REFERENCE, PassTicketEngines.LONG)) {
+			pt.setEngine(PassTicketEngines.get(name));
+			assertEquals(expected, pt.generate("USERID", "APPNAME", key, 0x57E2C0DE));
+			assertEquals(expected, pt.generate(UserId.of("USERID"), ApplicationName.of("APPNAME"), key, 0x57E2C0DE));
+		}
+		assertSame(PassTicketEngines.reference(), PassTicketEngines.available().get(0));
+	}
+
+	@Test
+	public void builtInEngineShouldKeepTheCaches() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		String expected = pt.generate("USERID", "APPNAME", key, 0x57E2C0DE);
+
+		PassTicketMetricsRegistry metrics = new PassTicketMetricsRegistry();
+		TimeCoderTableCache timeCoderTableCache = new TimeCoderTableCache(TimeCoderTables.BYTES);
+		timeCoderTableCache.designate(key, "USERID");
+		pt.setMetrics(metrics);
+		pt.setPrefixCache(new PassTicketPrefixCache(100, 1, TimeUnit.HOURS));
+		pt.setTimeCoderTableCache(timeCoderTableCache);
+		pt.setEngine(PassTicketEngines.get(PassTicketEngines.LONG));
+		assertEquals(expected, pt.generate("USERID", "APPNAME", key, 0x57E2C0DE));
+		assertEquals(expected, pt.generate("USERID", "APPNAME", key, 0x57E2C0DE));
+		assertEquals(1, metrics.getCount(PassTicketMetrics.Counter.PREFIX_CACHE_MISS));
+		assertEquals(1, metrics.getCount(PassTicketMetrics.Counter.PREFIX_CACHE_HIT));
+		assertEquals(2, metrics.getCount(PassTicketMetrics.Counter.TIME_CODER_TABLE_HIT));
+		assertEquals(2, metrics.getHistogram(PassTicketMetrics.Stage.TIME_CODER).getCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownEngineShouldBeRejected() {
+		PassTicketEngines.get("unknown");
+	}
+
+	@Test
+	public void calibrationShouldRejectEnginesDifferingFromTheReference() {
+		PassTicketEngines.Calibration calibration = PassTicketEngines.calibrate(
+				Arrays.asList(PassTicketEngines.reference(), PassTicketEngines.get(PassTicketEngines.LONG), FAULTY), 20, TimeUnit.MILLISECONDS);
+		assertEquals(2, calibration.getNanosPerPassTicket().size());
+		assertTrue(calibration.getNanosPerPassTicket().get(PassTicketEngines.LONG) > 0);
+		assertTrue(calibration.getRejected().containsKey("faulty"));
+		assertNotEquals(FAULTY, calibration.getFastest());
+		assertTrue(calibration.toString().contains("faulty: rejected"));
+	}
+
+	@Test
+	public void checkedEngineShouldReportMismatchesAndUseTheReference() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		String expected = pt.generate("USERID", "APPNAME", key, 1000);
+
+		List<String> mismatches = new ArrayList<>();
+		CheckedPassTicketEngine checked = PassTicketEngines.checked(FAULTY, 1.0,
+				(engine, userId, applicationName, timeInfo, expectedResult5, actual) -> mismatches.add(engine.getName() + " " + timeInfo));
+		pt.setEngine(checked);
+		assertEquals(expected, pt.generate("USERID", "APPNAME", key, 1000));
+		pt.generate("USERID", "APPNAME", key, 1001);
+		assertEquals(Arrays.asList("faulty 1000"), mismatches);
+		assertEquals(2, checked.getCheckCount());
+		assertEquals(1, checked.getMismatchCount());
+
+		CheckedPassTicketEngine unchecked = PassTicketEngines.checked(FAULTY, 0, null);
+		pt.setEngine(unchecked);
+		assertNotEquals(expected, pt.generate("USERID", "APPNAME", key, 1000));
+		assertEquals(0, unchecked.getCheckCount());
+	}
+}
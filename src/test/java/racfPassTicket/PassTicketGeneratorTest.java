@@ -1,12 +1,23 @@
 package racfPassTicket;
 
+import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
 import javax.xml.bind.DatatypeConverter;
 import org.junit.Test;
 
 import racfPassTicket.PassTicketUtils;
 import racfPassTicket.PassTicketGenerator;
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
 
 public class PassTicketGeneratorTest {
 	@Test // Compare result with test data from PassTicket documentation
@@ -37,4 +48,160 @@ public class PassTicketGeneratorTest {
 			fail(e.getMessage());
 		}
 	}
-}
\ No newline at end of file
+
+	@Test // steps 1 to 6 on byte arrays, as in the original implementation
+	public void generateShouldMatchTheAlgorithmOnByteArrays() {
+		try {
+			PassTicketGenerator pt = new PassTicketGenerator();
+			PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+			DESEncrypter desEncrypter = new DESEncrypter(PassTicketUtils.validateRACFsecuredSignonApplicationKey("098d61a85585d2ab"));
+			int timeInfo = 0x57E2C0DE;
+
+			for (String userId : new String[] {"USERID", "IBMUSER", "TOM", "#$@12345"}) {
+				String paddedUserId = PassTicketUtils.validateUserIdOrApplicationName(userId);
+				byte[] result2 = desEncrypter.encrypt(PassTicketUtils.xor(desEncrypter.encrypt(paddedUserId.getBytes("CP1047")), "APPNAME ".getBytes("CP1047")));
+				byte[] result4 = PassTicketUtils.xor(Arrays.copyOfRange(result2, 0, 4), PassTicketUtils.intToByteArray(timeInfo));
+				String expected = pt.translate(new TimeCoder().timeCoder(result4, paddedUserId, desEncrypter));
+
+				assertEquals(expected, pt.generate(userId, "APPNAME", key, timeInfo));
+				assertEquals(expected, pt.generate(UserId.of(userId), ApplicationName.of("APPNAME"), key, timeInfo));
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void translateShouldGiveTheSameResultOnIntsAsOnByteArrays() {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		Random random = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			int result5 = random.nextInt();
+			assertEquals(pt.translate(PassTicketUtils.intToByteArray(result5)), PassTicketGenerator.translate(result5));
+		}
+	}
+
+	@Test // same test data as translateShouldReturnValidResult
+	public void translateShouldWriteASCIIAndEBCDICIntoByteBuffers() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		PassTicketGenerator.translate(0x07247F79, buffer, PassTicketEncoding.ASCII);
+		PassTicketGenerator.translate(0x07247F79, buffer, PassTicketEncoding.EBCDIC);
+
+		assertArrayEquals("QHOAH1TV".getBytes("US-ASCII"), Arrays.copyOfRange(buffer.array(), 0, 8));
+		assertArrayEquals("QHOAH1TV".getBytes("CP1047"), Arrays.copyOfRange(buffer.array(), 8, 16));
+	}
+
+	@Test
+	public void generateShouldWriteThePassTicketIntoCallerSuppliedBuffers() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		UserId userId = UserId.of("USERID");
+		ApplicationName applicationName = ApplicationName.of("APPNAME");
+
+		char[] chars = new char[10];
+		CharBuffer charBuffer = CharBuffer.allocate(8);
+		ByteBuffer byteBuffer = ByteBuffer.allocate(8);
+		String before = pt.generate(userId, applicationName, key);
+		pt.generate(userId, applicationName, key, chars, 2);
+		pt.generate(userId, applicationName, key, charBuffer);
+		pt.generate(userId, applicationName, key, byteBuffer, PassTicketEncoding.EBCDIC);
+		String after = pt.generate(userId, applicationName, key);
+
+		// a second boundary may have passed in between
+		assertThat(new String(chars, 2, 8), anyOf(equalTo(before), equalTo(after)));
+		assertThat(new String(charBuffer.array()), anyOf(equalTo(before), equalTo(after)));
+		assertThat(new String(byteBuffer.array(), "CP1047"), anyOf(equalTo(before), equalTo(after)));
+		assertEquals(0, byteBuffer.remaining());
+	}
+
+	@Test
+	public void generateShouldNotWriteIntoATooSmallBuffer() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		ByteBuffer buffer = ByteBuffer.allocate(7);
+		try {
+			pt.generate(UserId.of("USERID"), ApplicationName.of("APPNAME"), new PassTicketKey("098d61a85585d2ab"), buffer, PassTicketEncoding.ASCII);
+			fail();
+		} catch (BufferOverflowException e) {
+			assertEquals(0, buffer.position());
+		}
+	}
+
+	@Test
+	public void generateShouldReportTheErrorCodeForAMissingEncodedUserId() throws Exception {
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		PassTicketGenerator plain = new PassTicketGenerator();
+		PassTicketGenerator instrumented = new PassTicketGenerator();
+		instrumented.setMetrics(new PassTicketMetricsRegistry());
+		PassTicketGenerator guarded = new PassTicketGenerator();
+		guarded.setIssuanceGuard(new PassTicketIssuanceGuard(0));
+		for (PassTicketGenerator pt : new PassTicketGenerator[] {plain, instrumented, guarded}) {
+			try {
+				pt.generate((UserId) null, ApplicationName.of("APPNAME"), key);
+				fail();
+			} catch (PassTicketInvalidInputException e) {
+				assertEquals(PassTicketError.NULL_INPUT, e.getError());
+			}
+		}
+	}
+
+	@Test
+	public void tryGenerateShouldReturnTheErrorCodeForInvalidInput() {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		assertEquals(PassTicketError.NULL_INPUT, pt.tryGenerate(null, "APPNAME", "098d61a85585d2ab").getError());
+		assertEquals(PassTicketError.INPUT_TOO_LONG, pt.tryGenerate("USERID", "APPNAME12", "098d61a85585d2ab").getError());
+		assertEquals(PassTicketError.INVALID_KEY_CHARACTER, pt.tryGenerate("USERID", "APPNAME", "098d61a85585d2WW").getError());
+		assertEquals(PassTicketError.NULL_KEY, pt.tryGenerate("USERID", "APPNAME", (PassTicketKey) null).getError());
+
+		PassTicketResult result = pt.tryGenerate("", "APPNAME", "098d61a85585d2ab");
+		assertFalse(result.isSuccess());
+		assertNull(result.getPassTicket());
+		assertTrue(result.getException() instanceof PassTicketInvalidInputException);
+		assertEquals("Input cannot be empty.", result.getException().getMessage());
+	}
+
+	@Test
+	public void tryGenerateShouldReturnThePassTicketForValidInput() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+
+		String before = pt.generate("USERID", "APPNAME", key);
+		PassTicketResult result = pt.tryGenerate("USERID", "APPNAME", key);
+		PassTicketResult resultWithKeyString = pt.tryGenerate("USERID", "APPNAME", "098d61a85585d2ab");
+		String after = pt.generate("USERID", "APPNAME", key);
+
+		assertTrue(result.isSuccess());
+		assertNull(result.getError());
+		assertNull(result.getException());
+		assertThat(result.getPassTicket(), anyOf(equalTo(before), equalTo(after)));
+		assertThat(resultWithKeyString.getPassTicket(), anyOf(equalTo(before), equalTo(after)));
+	}
+
+	@Test
+	public void generateAsyncShouldCompleteOnTheAsyncExecutor() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(0x57E2C0DE));
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+
+		assertEquals(pt.generate("USERID", "APPNAME", key), pt.generateAsync("USERID", "APPNAME", key).get());
+		assertEquals(pt.generate("USERID", "APPNAME", key), pt.generateAsync("USERID", "APPNAME", "098d61a85585d2ab").get());
+
+		AtomicReference<String> threadName = new AtomicReference<>();
+		pt.setAsyncExecutor(runnable -> new Thread(() -> {
+			threadName.set(Thread.currentThread().getName());
+			runnable.run();
+		}, "custom-executor").start());
+		pt.generateAsync("USERID", "APPNAME", key).get();
+		assertEquals("custom-executor", threadName.get());
+	}
+
+	@Test
+	public void generateAsyncShouldFailExceptionallyForInvalidInput() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		try {
+			pt.generateAsync("", "APPNAME", "098d61a85585d2ab").get();
+			fail("The future should fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof PassTicketInvalidInputException);
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import racfPassTicket.exceptions.PassTicketError;
+import racfPassTicket.exceptions.PassTicketUnavailableException;
+
+public class PassTicketIssuanceGuardTest {
+	private static final int TIME = 0x57E2C0DE;
+
+	@Test
+	public void passTicketsOfTheSameSecondShouldMoveAheadUntilTheMaximum() throws Exception {
+		PassTicketKey key = PassTicketGenerator.forKey("098d61a85585d2ab");
+		PassTicketGenerator unguarded = new PassTicketGenerator();
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(TIME));
+		PassTicketIssuanceGuard guard = new PassTicketIssuanceGuard(2);
+		pt.setIssuanceGuard(guard);
+
+		assertEquals(unguarded.generate("USERID", "APPNAME", key, TIME), pt.generate("USERID", "APPNAME", key));
+		// the String and the encoded API share the guard
+		assertEquals(unguarded.generate("USERID", "APPNAME", key, TIME + 1), pt.generate("USERID", "APPNAME", key));
+		assertEquals(unguarded.generate("USERID", "APPNAME", key, TIME + 2), pt.generate(UserId.of("USERID"), ApplicationName.of("APPNAME"), key));
+		try {
+			pt.generate("USERID", "APPNAME", key);
+			fail();
+		} catch (PassTicketUnavailableException e) {
+			assertEquals(PassTicketError.ALREADY_ISSUED, e.getError());
+			assertEquals(TIME + 1, e.getAvailableAt());
+			assertTrue(e.getRetryAfterMillis() > 0 && e.getRetryAfterMillis() <= 1000);
+		}
+		PassTicketResult result = pt.tryGenerate("USERID", "APPNAME", key);
+		assertEquals(PassTicketError.ALREADY_ISSUED, result.getError());
+		assertEquals(2, guard.getMovedAheadCount());
+		assertEquals(2, guard.getRejectedCount());
+
+		// other users, applications and keys are not affected
+		assertEquals(unguarded.generate("USER2", "APPNAME", key, TIME), pt.generate("USER2", "APPNAME", key));
+		assertEquals(unguarded.generate("USERID", "OTHERAPP", key, TIME), pt.generate("USERID", "OTHERAPP", key));
+		PassTicketKey otherKey = PassTicketGenerator.forKey("A1B2C3D4E5F6A7B8");
+		assertEquals(unguarded.generate("USERID", "APPNAME", otherKey, TIME), pt.generate("USERID", "APPNAME", otherKey));
+
+		// a PassTicket for a given time is left to the caller
+		assertEquals(unguarded.generate("USERID", "APPNAME", key, TIME), pt.generate("USERID", "APPNAME", key, TIME));
+	}
+
+	@Test
+	public void expiredSecondsShouldBeForgottenAndNotReissued() throws Exception {
+		PassTicketKey key = PassTicketGenerator.forKey("098d61a85585d2ab");
+		PassTicketIssuanceGuard guard = new PassTicketIssuanceGuard(0);
+		UserId userId = UserId.of("USERID");
+		ApplicationName applicationName = ApplicationName.of("APPNAME");
+
+		assertEquals(TIME, guard.reserve(key, userId, applicationName, TIME));
+		assertEquals(TIME + 1, guard.reserve(key, userId, applicationName, TIME + 1));
+		assertEquals(TIME + 10, guard.reserve(key, userId, applicationName, TIME + 10));
+		// the second is not known anymore, so it cannot be told whether it has been issued
+		try {
+			guard.reserve(key, UserId.of("USER2"), applicationName, TIME + 7);
+			fail();
+		} catch (PassTicketUnavailableException e) {
+			assertEquals(TIME + 8, e.getAvailableAt());
+		}
+		// the time information overflows in 2038
+		assertEquals(Integer.MAX_VALUE, guard.reserve(key, userId, applicationName, Integer.MAX_VALUE));
+		assertEquals(Integer.MIN_VALUE, guard.reserve(key, userId, applicationName, Integer.MIN_VALUE));
+	}
+
+	@Test
+	public void concurrentIssuersShouldNeverGetTheSamePassTicket() throws Exception {
+		PassTicketKey key = PassTicketGenerator.forKey("098d61a85585d2ab");
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(TIME));
+		pt.setIssuanceGuard(new PassTicketIssuanceGuard(50));
+		Set<String> passTickets = Collections.synchronizedSet(new HashSet<>());
+		AtomicInteger issued = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					for (int i = 0; i < 20; i++) {
+						try {
+							passTickets.add(pt.generate("USERID", "APPNAME", key));
+							issued.incrementAndGet();
+						} catch (PassTicketUnavailableException e) {
+							rejected.incrementAndGet();
+						}
+					}
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join(TimeUnit.SECONDS.toMillis(10));
+		}
+		assertEquals(51, issued.get());
+		assertEquals(51, passTickets.size());
+		assertEquals(160 - 51, rejected.get());
+	}
+
+	@Test
+	public void prefetcherShouldHandOutThePassTicketOfTheReservedSecond() throws Exception {
+		PassTicketKey key = PassTicketGenerator.forKey("098d61a85585d2ab");
+		PassTicketGenerator unguarded = new PassTicketGenerator();
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(TIME));
+		pt.setIssuanceGuard(new PassTicketIssuanceGuard(5));
+		try (PassTicketPrefetcher prefetcher = new PassTicketPrefetcher(pt, 1, 10, 0, TimeUnit.SECONDS)) {
+			prefetcher.register("USERID", "APPNAME", key);
+			assertEquals(unguarded.generate("USERID", "APPNAME", key, TIME), prefetcher.generate("USERID", "APPNAME", key));
+			assertEquals(unguarded.generate("USERID", "APPNAME", key, TIME + 1), prefetcher.generate("USERID", "APPNAME", key));
+			assertEquals(2, prefetcher.getHitCount());
+			// beyond the precomputed window
+			assertEquals(unguarded.generate("USERID", "APPNAME", key, TIME + 2), prefetcher.generate("USERID", "APPNAME", key));
+			assertEquals(1, prefetcher.getMissCount());
+		}
+	}
+
+	@Test
+	public void prefetcherShouldAcceptWithTheGuardWhatTheGeneratorAccepts() throws Exception {
+		PassTicketKey key = PassTicketGenerator.forKey("098d61a85585d2ab");
+		PassTicketGenerator unguarded = new PassTicketGenerator();
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(TIME));
+		pt.setIssuanceGuard(new PassTicketIssuanceGuard(5));
+		try (PassTicketPrefetcher prefetcher = new PassTicketPrefetcher(pt, 1, 10, 0, TimeUnit.SECONDS)) {
+			// not a RACF name, but valid input for the generator
+			assertEquals(unguarded.generate("user-1", "APPNAME", key, TIME), prefetcher.generate("user-1", "APPNAME", key));
+			assertEquals(unguarded.generate("user-1", "APPNAME", key, TIME + 1), prefetcher.generate("user-1", "APPNAME", key));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorShouldRejectANegativeMaximum() {
+		new PassTicketIssuanceGuard(-1);
+	}
+}
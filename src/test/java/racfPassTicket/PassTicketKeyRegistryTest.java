@@ -0,0 +1,139 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.KeyStore;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import racfPassTicket.exceptions.PassTicketException;
+
+public class PassTicketKeyRegistryTest {
+	private static final byte[] KEY_BYTES = {(byte) 0x09, (byte) 0x8d, (byte) 0x61, (byte) 0xa8, (byte) 0x55, (byte) 0x85, (byte) 0xd2, (byte) 0xab};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void fromPropertiesShouldLoadTheKeys() throws Exception {
+		Path file = writeKeyFile(folder.getRoot().toPath().resolve("keys.properties"), "appname = 098d61a85585d2ab\nOTHERAPP=0123456789ABCDEF\n");
+		try (PassTicketKeyRegistry registry = PassTicketKeyRegistry.fromProperties(file, DESImplementation.LONG)) {
+			assertEquals(2, registry.size());
+			PassTicketKey key = registry.getKey("AppName");
+			assertEquals(new PassTicketKey("098d61a85585d2ab"), key);
+			assertEquals("APPNAME", key.getAlias());
+			assertSame(key, registry.getKey(" APPNAME "));
+			assertNull(registry.getKey("UNKNOWN"));
+			assertNull(registry.getKey(null));
+
+			// same PassTicket as with the key string
+			PassTicketGenerator pt = new PassTicketGenerator();
+			assertEquals(pt.generate("USERID", "APPNAME", "098d61a85585d2ab"), pt.generate("USERID", "APPNAME", key));
+		}
+	}
+
+	@Test
+	public void reloadShouldCarryOverUnchangedKeys() throws Exception {
+		Path file = writeKeyFile(folder.getRoot().toPath().resolve("keys.properties"), "APPNAME=098d61a85585d2ab\nOTHERAPP=0123456789ABCDEF\n");
+		try (PassTicketKeyRegistry registry = PassTicketKeyRegistry.fromProperties(file, DESImplementation.JCE)) {
+			PassTicketKey unchanged = registry.getKey("APPNAME");
+			PassTicketKey changed = registry.getKey("OTHERAPP");
+
+			writeKeyFile(file, "APPNAME=098d61a85585d2ab\nOTHERAPP=FEDCBA9876543210\nNEWAPP=1122334455667788\n");
+			registry.reload();
+
+			assertSame(unchanged, registry.getKey("APPNAME"));
+			assertNotSame(changed, registry.getKey("OTHERAPP"));
+			assertEquals(new PassTicketKey("FEDCBA9876543210"), registry.getKey("OTHERAPP"));
+			assertNotNull(registry.getKey("NEWAPP"));
+			assertEquals(2, registry.getReloadCount());
+		}
+	}
+
+	@Test
+	public void reloadShouldKeepTheKeysIfTheFileIsInvalid() throws Exception {
+		Path file = writeKeyFile(folder.getRoot().toPath().resolve("keys.properties"), "APPNAME=098d61a85585d2ab\n");
+		try (PassTicketKeyRegistry registry = PassTicketKeyRegistry.fromProperties(file, DESImplementation.JCE)) {
+			PassTicketKey key = registry.getKey("APPNAME");
+			writeKeyFile(file, "APPNAME=098d61a85585d2ab\nWEAKAPP=0101010101010101\n");
+			try {
+				registry.reload();
+				fail("A weak key should be rejected");
+			} catch (PassTicketException e) {
+				assertTrue(e.getMessage().contains("WEAKAPP"));
+			}
+			assertSame(key, registry.getKey("APPNAME"));
+			assertEquals(1, registry.size());
+			assertEquals(1, registry.getReloadFailureCount());
+			assertNotNull(registry.getLastReloadFailure());
+		}
+	}
+
+	@Test
+	public void fromPropertiesShouldRejectAKeyFileReadableByOthers() throws Exception {
+		Path file = writeKeyFile(folder.getRoot().toPath().resolve("keys.properties"), "APPNAME=098d61a85585d2ab\n");
+		if (Files.getFileAttributeView(file, java.nio.file.attribute.PosixFileAttributeView.class) == null) {
+			return; // no POSIX permissions on this file system
+		}
+		Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r--r--"));
+		try {
+			PassTicketKeyRegistry.fromProperties(file, DESImplementation.JCE);
+			fail("The key file should be rejected");
+		} catch (PassTicketException e) {
+			assertTrue(e.getMessage().contains("readable"));
+		}
+	}
+
+	@Test
+	public void fromKeyStoreShouldLoadDESSecretKeys() throws Exception {
+		for (String type : new String[] {"JCEKS", "PKCS12"}) {
+			char[] password = "changeit".toCharArray();
+			KeyStore keyStore = KeyStore.getInstance(type);
+			keyStore.load(null, password);
+			keyStore.setEntry("appname", new KeyStore.SecretKeyEntry(new SecretKeySpec(KEY_BYTES, "DES")), new KeyStore.PasswordProtection(password));
+			Path file = folder.getRoot().toPath().resolve("keys." + type.toLowerCase());
+			try (OutputStream out = Files.newOutputStream(file)) {
+				keyStore.store(out, password);
+			}
+
+			try (PassTicketKeyRegistry registry = PassTicketKeyRegistry.fromKeyStore(file, type, password, DESImplementation.JCE)) {
+				assertEquals(1, registry.size());
+				assertEquals(new PassTicketKey("098d61a85585d2ab"), registry.getKey("APPNAME"));
+			}
+		}
+	}
+
+	@Test
+	public void watchShouldReloadTheChangedFile() throws Exception {
+		Path file = writeKeyFile(folder.getRoot().toPath().resolve("keys.properties"), "APPNAME=098d61a85585d2ab\n");
+		try (PassTicketKeyRegistry registry = PassTicketKeyRegistry.fromProperties(file, DESImplementation.JCE)) {
+			registry.watch();
+			// replace the file like a deployment would
+			Path newFile = writeKeyFile(folder.getRoot().toPath().resolve("keys.properties.new"), "APPNAME=098d61a85585d2ab\nNEWAPP=0123456789ABCDEF\n");
+			Files.move(newFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			long deadline = System.currentTimeMillis() + 30000;
+			while (registry.getKey("NEWAPP") == null && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+			assertNotNull(registry.getKey("NEWAPP"));
+		}
+	}
+
+	private static Path writeKeyFile(Path file, String content) throws Exception {
+		Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+		if (Files.getFileAttributeView(file, java.nio.file.attribute.PosixFileAttributeView.class) != null) {
+			Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+		}
+		return file;
+	}
+}
@@ -0,0 +1,87 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+public class PassTicketKeyTest {
+	@Test
+	public void getDESEncrypterShouldEncryptWithTheKey() {
+		try {
+			PassTicketKey key = new PassTicketKey("09 8d 61 a8 55 85 d2 ab");
+
+			// same test data as in DESEncrypterTest
+			byte[] expectedResult = {(byte) 0x1e,(byte) 0xC3,(byte) 0x75,(byte) 0x3d,(byte) 0x7a,(byte) 0x79,(byte) 0xe3,(byte) 0xce};
+			byte[] result = key.getDESEncrypter().encrypt("TestByte".getBytes());
+
+			assertArrayEquals(expectedResult, result);
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void getDESEncrypterShouldReuseTheEncrypterWithinAThread() {
+		try {
+			PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+			assertSame(key.getDESEncrypter(), key.getDESEncrypter());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void getDESEncrypterShouldNotShareTheEncrypterBetweenThreads() throws Exception {
+		final PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		final AtomicReference<DESEncrypter> otherThreadsEncrypter = new AtomicReference<>();
+		Thread thread = new Thread(() -> {
+			try {
+				otherThreadsEncrypter.set(key.getDESEncrypter());
+			} catch (Exception e) {
+				fail(e.getMessage());
+			}
+		});
+		thread.start();
+		thread.join();
+
+		assertNotNull(otherThreadsEncrypter.get());
+		assertNotSame(key.getDESEncrypter(), otherThreadsEncrypter.get());
+	}
+
+	@Test
+	public void getDESEncrypterShouldShareTheLongEncrypterBetweenThreads() throws Exception {
+		final PassTicketKey key = new PassTicketKey("098d61a85585d2ab", DESImplementation.LONG);
+		final AtomicReference<DESEncrypter> otherThreadsEncrypter = new AtomicReference<>();
+		Thread thread = new Thread(() -> {
+			try {
+				otherThreadsEncrypter.set(key.getDESEncrypter());
+			} catch (Exception e) {
+				fail(e.getMessage());
+			}
+		});
+		thread.start();
+		thread.join();
+
+		assertTrue(key.getDESEncrypter() instanceof LongDESEncrypter);
+		assertSame(key.getDESEncrypter(), otherThreadsEncrypter.get());
+	}
+
+	@Test
+	public void singleUseKeyShouldKeepItsOwnEncrypter() throws Exception {
+		PassTicketKey key = PassTicketKey.forSingleUse("098d61a85585d2ab");
+		DESEncrypter desEncrypter = key.getDESEncrypter();
+
+		assertSame(desEncrypter, key.getDESEncrypter());
+		assertEquals(new PassTicketKey("098d61a85585d2ab").getDESEncrypter().encrypt(0x0123456789ABCDEFL), desEncrypter.encrypt(0x0123456789ABCDEFL));
+		assertEquals(new PassTicketKey("098d61a85585d2ab"), key);
+	}
+
+	@Test(expected = PassTicketInvalidInputException.class)
+	public void constructorShouldThrowAnExceptionIfInputKeyIsNot16CharactersLong() throws PassTicketInvalidInputException {
+		new PassTicketKey("098d61a85585d2");
+	}
+}
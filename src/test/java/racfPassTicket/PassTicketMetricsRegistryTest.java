@@ -0,0 +1,189 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import racfPassTicket.PassTicketMetrics.Counter;
+import racfPassTicket.PassTicketMetrics.Stage;
+
+public class PassTicketMetricsRegistryTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void generatorShouldRecordTheStagesAndCounters() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		String expected = pt.generate("USERID", "APPNAME", key, 0x57E2C0DE);
+
+		PassTicketMetricsRegistry metrics = new PassTicketMetricsRegistry();
+		pt.setMetrics(metrics);
+		pt.setPrefixCache(new PassTicketPrefixCache(100, 1, TimeUnit.HOURS));
+		assertEquals(expected, pt.generate("USERID", "APPNAME", key, 0x57E2C0DE));
+		assertEquals(expected, pt.generate(UserId.of("USERID"), ApplicationName.of("APPNAME"), key, 0x57E2C0DE));
+		try {
+			pt.generate("", "APPNAME", key, 0x57E2C0DE);
+			fail("Empty user ID should be rejected");
+		} catch (Exception e) {
+			// counted as failure
+		}
+
+		assertEquals(2, metrics.getCount(Counter.GENERATED));
+		assertEquals(1, metrics.getCount(Counter.FAILED));
+		assertEquals(1, metrics.getCount(Counter.PREFIX_CACHE_MISS));
+		assertEquals(1, metrics.getCount(Counter.PREFIX_CACHE_HIT));
+		assertEquals(1, metrics.getHistogram(Stage.VALIDATION).getCount());
+		assertEquals(2, metrics.getHistogram(Stage.KEY_SETUP).getCount());
+		assertEquals(1, metrics.getHistogram(Stage.PREFIX).getCount());
+		assertEquals(2, metrics.getHistogram(Stage.TIME_CODER).getCount());
+		assertEquals(2, metrics.getHistogram(Stage.TRANSLATION).getCount());
+		assertEquals(2, metrics.getHistogram(Stage.TOTAL).getCount());
+		assertTrue(metrics.getHistogram(Stage.TOTAL).getMax() > 0);
+	}
+
+	@Test
+	public void bufferGenerationShouldBeRecordedLikeStringGeneration() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketMetricsRegistry metrics = new PassTicketMetricsRegistry();
+		pt.setMetrics(metrics);
+		pt.setClock(() -> 0x57E2C0DE);
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		UserId userId = UserId.of("USERID");
+		ApplicationName applicationName = ApplicationName.of("APPNAME");
+		String expected = pt.generate(userId, applicationName, key);
+
+		char[] chars = new char[8];
+		pt.generate(userId, applicationName, key, chars, 0);
+		CharBuffer charBuffer = CharBuffer.allocate(8);
+		pt.generate(userId, applicationName, key, charBuffer);
+		ByteBuffer byteBuffer = ByteBuffer.allocate(8);
+		pt.generate(userId, applicationName, key, byteBuffer, PassTicketEncoding.ASCII);
+		try {
+			pt.generate(null, applicationName, key, chars, 0);
+			fail("A missing user ID should be rejected");
+		} catch (PassTicketInvalidInputException e) {
+			// counted as failure
+		}
+
+		assertEquals(expected, new String(chars));
+		assertEquals(expected, new String(charBuffer.array()));
+		assertEquals(expected, new String(byteBuffer.array(), StandardCharsets.US_ASCII));
+		assertEquals(4, metrics.getCount(Counter.GENERATED));
+		assertEquals(1, metrics.getCount(Counter.FAILED));
+		assertEquals(0, metrics.getHistogram(Stage.VALIDATION).getCount());
+		assertEquals(4, metrics.getHistogram(Stage.KEY_SETUP).getCount());
+		assertEquals(4, metrics.getHistogram(Stage.PREFIX).getCount());
+		assertEquals(4, metrics.getHistogram(Stage.TIME_CODER).getCount());
+		assertEquals(4, metrics.getHistogram(Stage.TRANSLATION).getCount());
+		assertEquals(4, metrics.getHistogram(Stage.TOTAL).getCount());
+	}
+
+	@Test
+	public void prefetchedPassTicketsShouldBeCountedWhenTheyAreLookedUp() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketMetricsRegistry metrics = new PassTicketMetricsRegistry();
+		pt.setMetrics(metrics);
+		pt.setClock(() -> 0x57E2C0DE);
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		try (PassTicketPrefetcher prefetcher = new PassTicketPrefetcher(pt, 3, 10, 0, TimeUnit.SECONDS)) {
+			// computing ahead of time is neither counted nor measured
+			prefetcher.register("USERID", "APPNAME", key);
+			assertEquals(0, metrics.getCount(Counter.GENERATED));
+			assertEquals(0, metrics.getHistogram(Stage.TOTAL).getCount());
+
+			for (int i = 0; i < 5; i++) {
+				prefetcher.generate("USERID", "APPNAME", key);
+			}
+			assertEquals(5, prefetcher.getHitCount());
+			assertEquals(5, metrics.getCount(Counter.GENERATED));
+			assertEquals(0, metrics.getHistogram(Stage.TOTAL).getCount());
+
+			// a miss is generated and measured in the calling thread
+			prefetcher.generate("USER2", "APPNAME", key);
+			assertEquals(6, metrics.getCount(Counter.GENERATED));
+			assertEquals(1, metrics.getHistogram(Stage.TOTAL).getCount());
+		}
+	}
+
+	@Test
+	public void histogramShouldReportPercentilesWithinItsPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 100000; value++) {
+			histogram.record(value);
+		}
+		assertEquals(100000, histogram.getCount());
+		assertEquals(50000.5, histogram.getMean(), 0.001);
+		assertEquals(100000, histogram.getMax());
+		assertEquals(50000, histogram.getPercentile(50), 50000 * 0.07);
+		assertEquals(99000, histogram.getPercentile(99), 99000 * 0.07);
+		assertTrue(histogram.getPercentile(50) >= 50000);
+		assertEquals(100000, histogram.getPercentile(100));
+
+		for (long value : new long[] {0, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE}) {
+			int index = LatencyHistogram.bucketIndex(value);
+			assertTrue(LatencyHistogram.highestValue(index) >= value);
+			assertTrue(index == 0 || LatencyHistogram.highestValue(index - 1) < value);
+		}
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(99));
+	}
+
+	@Test
+	public void registryShouldBePublishedThroughJMX() throws Exception {
+		PassTicketMetricsRegistry metrics = new PassTicketMetricsRegistry();
+		metrics.increment(Counter.PREFIX_CACHE_HIT);
+		metrics.recordLatency(Stage.TIME_CODER, 1000);
+		String name = "racfPassTicket:type=Metrics,name=test";
+		metrics.registerMBean(name);
+		try {
+			ObjectName objectName = new ObjectName(name);
+			assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "PREFIX_CACHE_HIT"));
+			assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "TIME_CODER_count"));
+			assertEquals(1000L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "TIME_CODER_p99"));
+			ManagementFactory.getPlatformMBeanServer().invoke(objectName, "reset", null, null);
+			assertEquals(0L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "TIME_CODER_count"));
+		} finally {
+			metrics.unregisterMBean();
+		}
+	}
+
+	@Test
+	public void generatorShouldEmitFlightRecorderEventsWhenEnabled() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		pt.generate("USERID", "APPNAME", key); // not recorded
+
+		Path file = folder.getRoot().toPath().resolve("passticket.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("racfPassTicket.Generation");
+			recording.start();
+			pt.generate("USERID", "APPNAME", key);
+			recording.stop();
+			recording.dump(file);
+		}
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		events.removeIf(event -> !"racfPassTicket.Generation".equals(event.getEventType().getName()));
+		assertEquals(1, events.size());
+		assertEquals("APPNAME", events.get(0).getString("applicationName"));
+		assertFalse(events.get(0).getBoolean("prefixCacheHit"));
+	}
+}
@@ -0,0 +1,109 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+public class PassTicketPrefetcherTest {
+	private static final int NOW = 0x57E2C0DE;
+	private static PassTicketKey key;
+	private static PassTicketGenerator pt;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		key = new PassTicketKey("098d61a85585d2ab");
+		pt = new PassTicketGenerator();
+	}
+
+	@Test
+	public void generateShouldReturnThePrecomputedPassTicketOfTheCurrentSecond() throws Exception {
+		AtomicInteger clock = new AtomicInteger(NOW);
+		try (PassTicketPrefetcher prefetcher = new PassTicketPrefetcher(generatorWithClock(clock), 2, 10, 0, TimeUnit.SECONDS)) {
+			prefetcher.register("USERID", "APPNAME", key);
+			for (int second = NOW; second <= NOW + 2; second++) {
+				clock.set(second);
+				assertEquals(pt.generate("USERID", "APPNAME", key, second), prefetcher.generate("USERID", "APPNAME", key));
+			}
+			assertEquals(3, prefetcher.getHitCount());
+			assertEquals(0, prefetcher.getMissCount());
+		}
+	}
+
+	@Test
+	public void generateShouldFallBackToTheGeneratorOutsideTheWindowAndForUnregisteredTriples() throws Exception {
+		AtomicInteger clock = new AtomicInteger(NOW);
+		try (PassTicketPrefetcher prefetcher = new PassTicketPrefetcher(generatorWithClock(clock), 1, 10, 0, TimeUnit.SECONDS)) {
+			prefetcher.register("USERID", "APPNAME", key);
+			clock.set(NOW + 2);
+			assertEquals(pt.generate("USERID", "APPNAME", key, NOW + 2), prefetcher.generate("USERID", "APPNAME", key));
+			assertEquals(pt.generate("OTHER", "APPNAME", key, NOW + 2), prefetcher.generate("OTHER", "APPNAME", key));
+			assertEquals(0, prefetcher.getHitCount());
+			assertEquals(2, prefetcher.getMissCount());
+		}
+	}
+
+	@Test
+	public void refreshShouldMoveTheWindowToTheCurrentSecond() throws Exception {
+		AtomicInteger clock = new AtomicInteger(NOW);
+		try (PassTicketPrefetcher prefetcher = new PassTicketPrefetcher(generatorWithClock(clock), 1, 10, 0, TimeUnit.SECONDS)) {
+			prefetcher.register("USERID", "APPNAME", key);
+			clock.set(NOW + 5);
+			prefetcher.refresh();
+			assertEquals(pt.generate("USERID", "APPNAME", key, NOW + 5), prefetcher.generate("USERID", "APPNAME", key));
+			clock.set(NOW + 6);
+			assertEquals(pt.generate("USERID", "APPNAME", key, NOW + 6), prefetcher.generate("USERID", "APPNAME", key));
+			assertEquals(2, prefetcher.getHitCount());
+		}
+	}
+
+	@Test
+	public void refreshShouldRemoveIdleTriples() throws Exception {
+		AtomicInteger clock = new AtomicInteger(NOW);
+		try (PassTicketPrefetcher prefetcher = new PassTicketPrefetcher(generatorWithClock(clock), 1, 10, 60, TimeUnit.SECONDS)) {
+			prefetcher.register("USERID", "APPNAME", key);
+			prefetcher.register("IDLE", "APPNAME", key);
+			clock.set(NOW + 30);
+			prefetcher.generate("USERID", "APPNAME", key);
+			clock.set(NOW + 61);
+			prefetcher.refresh();
+			assertEquals(1, prefetcher.size());
+			assertEquals(1, prefetcher.getEvictionCount());
+		}
+	}
+
+	@Test
+	public void registerShouldEvictTheLeastRecentlyUsedTripleIfTheMaximumSizeIsReached() throws Exception {
+		AtomicInteger clock = new AtomicInteger(NOW);
+		try (PassTicketPrefetcher prefetcher = new PassTicketPrefetcher(generatorWithClock(clock), 1, 2, 0, TimeUnit.SECONDS)) {
+			prefetcher.register("USER1", "APPNAME", key);
+			prefetcher.register("USER2", "APPNAME", key);
+			clock.set(NOW + 1);
+			prefetcher.generate("USER1", "APPNAME", key);
+			prefetcher.register("USER3", "APPNAME", key);
+
+			assertEquals(2, prefetcher.size());
+			assertEquals(1, prefetcher.getEvictionCount());
+			prefetcher.generate("USER2", "APPNAME", key);
+			assertEquals(1, prefetcher.getMissCount());
+		}
+	}
+
+	@Test(expected = PassTicketInvalidInputException.class)
+	public void registerShouldRejectAnInvalidUserId() throws Exception {
+		try (PassTicketPrefetcher prefetcher = new PassTicketPrefetcher(pt, 1, 10, 0, TimeUnit.SECONDS)) {
+			prefetcher.register("TOOLONGUSERID", "APPNAME", key);
+		}
+	}
+
+	private static PassTicketGenerator generatorWithClock(AtomicInteger clock) {
+		PassTicketGenerator generator = new PassTicketGenerator();
+		generator.setClock(clock::get);
+		return generator;
+	}
+}
@@ -0,0 +1,112 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PassTicketPrefixCacheTest {
+	private static PassTicketKey key;
+	private static PassTicketPrefix prefix;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		key = new PassTicketKey("098d61a85585d2ab");
+		prefix = new PassTicketPrefix(0x01020304, 0x555555555555L, 0x555555555555L);
+	}
+
+	@Test
+	public void getShouldReturnAStoredPrefixAndCountHitsAndMisses() {
+		PassTicketPrefixCache cache = new PassTicketPrefixCache(10, 0, TimeUnit.SECONDS);
+		assertNull(cache.get(key, "USERID  ", "APPNAME "));
+
+		cache.put(key, "USERID  ", "APPNAME ", prefix);
+		assertSame(prefix, cache.get(key, "USERID  ", "APPNAME "));
+		assertNull(cache.get(key, "USERID  ", "OTHERAPP"));
+
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void getShouldFindAPrefixStoredWithAnEqualKey() throws Exception {
+		PassTicketPrefixCache cache = new PassTicketPrefixCache(10, 0, TimeUnit.SECONDS);
+		cache.put(key, "USERID  ", "APPNAME ", prefix);
+		assertSame(prefix, cache.get(new PassTicketKey("09 8D 61 A8 55 85 D2 AB"), "USERID  ", "APPNAME "));
+	}
+
+	@Test
+	public void putShouldEvictTheLeastRecentlyUsedEntryIfTheCacheIsFull() {
+		// 16 segments with a size of 1 each
+		PassTicketPrefixCache cache = new PassTicketPrefixCache(16, 0, TimeUnit.SECONDS);
+		for (int i = 0; i < 1000; i++) {
+			cache.put(key, "USER" + i, "APPNAME ", prefix);
+		}
+		assertTrue(cache.size() <= 16);
+		assertEquals(1000 - cache.size(), cache.getEvictionCount());
+	}
+
+	@Test
+	public void putShouldNeverExceedTheMaximumSize() {
+		for (int maximumSize : new int[] {1, 3, 20, 100}) {
+			PassTicketPrefixCache cache = new PassTicketPrefixCache(maximumSize, 0, TimeUnit.SECONDS);
+			for (int i = 0; i < 1000; i++) {
+				cache.put(key, "USER" + i, "APPNAME ", prefix);
+				assertTrue(cache.size() <= maximumSize);
+			}
+		}
+	}
+
+	@Test
+	public void getShouldNotReturnExpiredEntries() {
+		AtomicLong nanos = new AtomicLong();
+		PassTicketPrefixCache cache = new PassTicketPrefixCache(10, 60, TimeUnit.SECONDS, nanos::get);
+		cache.put(key, "USERID  ", "APPNAME ", prefix);
+
+		nanos.set(TimeUnit.SECONDS.toNanos(59));
+		assertSame(prefix, cache.get(key, "USERID  ", "APPNAME "));
+
+		nanos.set(TimeUnit.SECONDS.toNanos(60));
+		assertNull(cache.get(key, "USERID  ", "APPNAME "));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void generateShouldUseTheCache() {
+		try {
+			PassTicketPrefixCache cache = new PassTicketPrefixCache(10, 0, TimeUnit.SECONDS);
+			PassTicketGenerator pt = new PassTicketGenerator();
+			pt.setPrefixCache(cache);
+
+			String passTicket = pt.generate("USERID", "APPNAME", key);
+			pt.generate("USERID", "APPNAME", key);
+
+			assertEquals(8, passTicket.length());
+			assertEquals(1, cache.getMissCount());
+			assertEquals(1, cache.getHitCount());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void cachedPrefixShouldBeEqualToComputedPrefix() {
+		try {
+			PassTicketPrefixCache cache = new PassTicketPrefixCache(10, 0, TimeUnit.SECONDS);
+			PassTicketGenerator pt = new PassTicketGenerator();
+			pt.setPrefixCache(cache);
+			pt.generate("USERID", "APPNAME", key);
+
+			PassTicketPrefix cached = cache.get(key, "USERID  ", "APPNAME ");
+			PassTicketPrefix computed = pt.computePrefix(UserId.of("USERID"), ApplicationName.of("APPNAME"), key.getDESEncrypter());
+			assertEquals(computed.getResult3(), cached.getResult3());
+			assertEquals(computed.getPadding1(), cached.getPadding1());
+			assertEquals(computed.getPadding2(), cached.getPadding2());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+
+import racfPassTicket.exceptions.PassTicketError;
+
+public class PassTicketProcessorTest {
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void processorShouldPublishTheResultsInOrder() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(0x57E2C0DE));
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		PassTicketProcessor processor = new PassTicketProcessor(pt, executor, 8);
+		CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+		processor.subscribe(subscriber);
+
+		List<PassTicketRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			requests.add(new PassTicketRequest(i == 7 ? "" : "USER" + i, "APPNAME", key));
+		}
+		new ListPublisher(requests).subscribe(processor);
+
+		assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+		assertEquals(200, subscriber.results.size());
+		for (int i = 0; i < 200; i++) {
+			PassTicketResult result = subscriber.results.get(i);
+			assertSame(requests.get(i), result.getRequest());
+			if (i == 7) {
+				assertEquals(PassTicketError.EMPTY_INPUT, result.getError());
+			} else {
+				assertEquals(pt.generate("USER" + i, "APPNAME", key), result.getPassTicket());
+			}
+		}
+	}
+
+	@Test
+	public void processorShouldNotRequestMoreThanTheBufferAheadOfTheSubscriber() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		PassTicketProcessor processor = new PassTicketProcessor(pt, executor, 4);
+		CollectingSubscriber subscriber = new CollectingSubscriber(3);
+		processor.subscribe(subscriber);
+
+		List<PassTicketRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			requests.add(new PassTicketRequest("USER" + i, "APPNAME", key));
+		}
+		ListPublisher publisher = new ListPublisher(requests);
+		publisher.subscribe(processor);
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while (subscriber.results.size() < 3 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(100);
+		assertEquals(3, subscriber.results.size());
+		assertEquals(4 + 3, publisher.requested.get());
+
+		subscriber.subscription.request(Long.MAX_VALUE);
+		assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+		assertEquals(100, subscriber.results.size());
+	}
+
+	/** Publishes the elements of a list in the subscribing thread, as far as they are requested. */
+	private static class ListPublisher implements Flow.Publisher<PassTicketRequest> {
+		final List<PassTicketRequest> requests;
+		final AtomicLong requested = new AtomicLong();
+
+		ListPublisher(List<PassTicketRequest> requests) {
+			this.requests = requests;
+		}
+
+		@Override
+		public void subscribe(Flow.Subscriber<? super PassTicketRequest> subscriber) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+				int next;
+
+				@Override
+				public synchronized void request(long n) {
+					requested.addAndGet(n);
+					for (long i = 0; i < n && next < requests.size(); i++) {
+						subscriber.onNext(requests.get(next++));
+					}
+					if (next == requests.size()) {
+						next++;
+						subscriber.onComplete();
+					}
+				}
+
+				@Override
+				public void cancel() {}
+			});
+		}
+	}
+
+	/** Collects the results, requesting a fixed number at first. */
+	private static class CollectingSubscriber implements Flow.Subscriber<PassTicketResult> {
+		final List<PassTicketResult> results = new CopyOnWriteArrayList<>();
+		final CountDownLatch completed = new CountDownLatch(1);
+		final long initialRequest;
+		volatile Flow.Subscription subscription;
+
+		CollectingSubscriber(long initialRequest) {
+			this.initialRequest = initialRequest;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(initialRequest);
+		}
+
+		@Override
+		public void onNext(PassTicketResult item) {
+			results.add(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			completed.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			completed.countDown();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+public class PassTicketShardedExecutorTest {
+	private static final int TIME = 0x57E2C0DE;
+
+	@Test
+	public void submitShouldGenerateOnTheShardOfTheKey() throws Exception {
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		PassTicketKey otherKey = new PassTicketKey("0123456789ABCDEF");
+		PassTicketGenerator pt = fixedTimeGenerator();
+		try (PassTicketShardedExecutor executor = new PassTicketShardedExecutor(4, 100, PassTicketShardedExecutorTest::fixedTimeGenerator, false)) {
+			assertEquals(executor.shardIndex("USER1", key), executor.shardIndex("USER2", key));
+
+			List<CompletableFuture<String>> futures = new ArrayList<>();
+			for (int i = 0; i < 50; i++) {
+				futures.add(executor.submit("USER" + i, "APPNAME", i % 2 == 0 ? key : otherKey));
+			}
+			for (int i = 0; i < 50; i++) {
+				assertEquals(pt.generate("USER" + i, "APPNAME", i % 2 == 0 ? key : otherKey), futures.get(i).get(10, TimeUnit.SECONDS));
+			}
+			long completed = 0;
+			for (int shard = 0; shard < executor.getShardCount(); shard++) {
+				completed += executor.getCompletedCount(shard);
+			}
+			assertEquals(50, completed);
+		}
+	}
+
+	@Test
+	public void submitShouldFailForInvalidInput() throws Exception {
+		try (PassTicketShardedExecutor executor = new PassTicketShardedExecutor(2, 10, PassTicketGenerator::new, true)) {
+			executor.submit("", "APPNAME", new PassTicketKey("098d61a85585d2ab")).get(10, TimeUnit.SECONDS);
+			fail("The future should fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof PassTicketInvalidInputException);
+		}
+	}
+
+	@Test
+	public void idleShardShouldStealAndFullQueueShouldReject() throws Exception {
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		AtomicReference<String> blockedThread = new AtomicReference<>();
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		// the first generation blocks its shard until released
+		PassTicketClock clock = () -> {
+			if (blockedThread.compareAndSet(null, Thread.currentThread().getName())) {
+				blocked.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return TIME;
+		};
+		try (PassTicketShardedExecutor executor = new PassTicketShardedExecutor(2, 4, () -> {
+			PassTicketGenerator pt = new PassTicketGenerator();
+			pt.setClock(clock);
+			return pt;
+		}, true)) {
+			CompletableFuture<String> first = executor.submit("USER0", "APPNAME", key);
+			assertTrue(blocked.await(10, TimeUnit.SECONDS));
+			int blockedShard = blockedThread.get().endsWith("-0") ? 0 : 1;
+
+			// the other shard steals the requests queued for the blocked shard; the rest is rejected once the queue is full
+			List<String> userIds = new ArrayList<>();
+			for (int i = 1; userIds.size() < 20; i++) {
+				if (executor.shardIndex("USER" + i, key) == blockedShard) {
+					userIds.add("USER" + i);
+				}
+			}
+			List<CompletableFuture<String>> futures = new ArrayList<>();
+			for (String userId : userIds) {
+				futures.add(executor.submit(userId, "APPNAME", key));
+			}
+			PassTicketGenerator pt = fixedTimeGenerator();
+			int generated = 0;
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					assertEquals(pt.generate(userIds.get(i), "APPNAME", key), futures.get(i).get(10, TimeUnit.SECONDS));
+					generated++;
+				} catch (ExecutionException e) {
+					assertTrue(e.getCause() instanceof RejectedExecutionException);
+				}
+			}
+			assertTrue(generated > 0);
+			assertEquals(generated, executor.getStolenCount(1 - blockedShard));
+			assertEquals(futures.size() - generated, executor.getRejectedCount(blockedShard));
+			assertEquals(0, executor.getQueueDepth(blockedShard));
+
+			release.countDown();
+			assertEquals(pt.generate("USER0", "APPNAME", key), first.get(10, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void requestsShouldStayOnTheirShardWithinTheStealDelayAndIdleShardsShouldPark() throws Exception {
+		PassTicketKey key = new PassTicketKey("098d61a85585d2ab");
+		try (PassTicketShardedExecutor executor = new PassTicketShardedExecutor(4, 1000, PassTicketShardedExecutorTest::fixedTimeGenerator, false, 1, TimeUnit.HOURS)) {
+			List<CompletableFuture<String>> futures = new ArrayList<>();
+			for (int i = 0; i < 500; i++) {
+				futures.add(executor.submit("USER" + i, "APPNAME", key));
+			}
+			for (CompletableFuture<String> future : futures) {
+				future.get(10, TimeUnit.SECONDS);
+			}
+			int shard = executor.shardIndex("USER0", key);
+			assertEquals(500, executor.getCompletedCount(shard));
+			for (int i = 0; i < executor.getShardCount(); i++) {
+				assertEquals(0, executor.getStolenCount(i));
+			}
+
+			// idle shards wait without polling: without a timeout, or once until a waiting request reaches the steal delay of an hour
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			int parked;
+			do {
+				parked = 0;
+				for (Thread thread : Thread.getAllStackTraces().keySet()) {
+					if (thread.getName().startsWith("passticket-shard-") && thread.isAlive()
+							&& (thread.getState() == Thread.State.WAITING || thread.getState() == Thread.State.TIMED_WAITING)) {
+						parked++;
+					}
+				}
+			} while (parked < executor.getShardCount() && System.nanoTime() < deadline);
+			assertTrue(parked >= executor.getShardCount());
+		}
+	}
+
+	private static PassTicketGenerator fixedTimeGenerator() {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(TIME));
+		pt.setPrefixCache(new PassTicketPrefixCache(1000, 1, TimeUnit.HOURS));
+		return pt;
+	}
+}
@@ -7,6 +7,7 @@ import javax.crypto.SecretKey;
 import org.junit.Test;
 
 import racfPassTicket.PassTicketUtils;
+import racfPassTicket.exceptions.PassTicketError;
 import racfPassTicket.exceptions.PassTicketInvalidInputException;
 
 public class PassTicketUtilsTest {
@@ -23,6 +24,13 @@ public class PassTicketUtilsTest {
 		}
 	}
 	
+	@Test
+	public void validateUserIdOrApplicationNameShouldTrimLeadingWhitespaceOnly() throws PassTicketInvalidInputException {
+		assertEquals("user    ", PassTicketUtils.validateUserIdOrApplicationName("\t\r\n user"));
+		assertEquals("us er   ", PassTicketUtils.validateUserIdOrApplicationName("us er"));
+		assertEquals("12345678", PassTicketUtils.validateUserIdOrApplicationName("12345678"));
+	}
+
 	@Test(expected = PassTicketInvalidInputException.class)
 	public void validateUserIdOrApplicationNameShouldThrowAnExceptionIfIputIsNull() throws PassTicketInvalidInputException {
 		PassTicketUtils.validateUserIdOrApplicationName(null);
@@ -53,6 +61,64 @@ public class PassTicketUtilsTest {
 		PassTicketUtils.validateRACFsecuredSignonApplicationKey("09 8d 61 a8 55 85 d2 ab WW");
 	}	
 	
+	@Test(expected = PassTicketInvalidInputException.class)
+	public void validateRACFsecuredSignonApplicationKeyShouldThrowAnExceptionIfInputKeyIsNotHexadecimal() throws PassTicketInvalidInputException {
+		PassTicketUtils.validateRACFsecuredSignonApplicationKey("09 8d 61 a8 55 85 d2 WW");
+	}
+
+	@Test
+	public void validateRACFsecuredSignonApplicationKeyShouldRejectWeakKeys() {
+		for (String weakKey : new String[] {"0101010101010101", "FEFEFEFEFEFEFEFE", "01FE01FE01FE01FE"}) {
+			try {
+				PassTicketUtils.validateRACFsecuredSignonApplicationKey(weakKey);
+				fail(weakKey);
+			} catch (PassTicketInvalidInputException e) {
+				assertEquals(PassTicketError.WEAK_KEY, e.getError());
+			}
+		}
+	}
+
+	@Test
+	public void validationExceptionsShouldCarryAnErrorCodeAndNoStackTrace() {
+		try {
+			PassTicketUtils.validateUserIdOrApplicationName("123456789");
+			fail();
+		} catch (PassTicketInvalidInputException e) {
+			assertEquals(PassTicketError.INPUT_TOO_LONG, e.getError());
+			assertEquals("Input is too long.", e.getMessage());
+			assertEquals(0, e.getStackTrace().length);
+		}
+	}
+
+	@Test
+	public void checkShouldReturnTheErrorCodeWithoutThrowing() {
+		assertNull(PassTicketUtils.checkUserIdOrApplicationName("  user"));
+		assertEquals(PassTicketError.NULL_INPUT, PassTicketUtils.checkUserIdOrApplicationName(null));
+		assertEquals(PassTicketError.EMPTY_INPUT, PassTicketUtils.checkUserIdOrApplicationName(" \t"));
+		assertEquals(PassTicketError.INPUT_TOO_LONG, PassTicketUtils.checkUserIdOrApplicationName("123456789"));
+		assertEquals(PassTicketError.INVALID_CHARACTER, PassTicketUtils.checkRACFName("user"));
+
+		assertNull(PassTicketKey.check("09 8d 61 a8 55 85 d2 ab"));
+		assertEquals(PassTicketError.NULL_KEY, PassTicketKey.check(null));
+		assertEquals(PassTicketError.INVALID_KEY_LENGTH, PassTicketKey.check("098d61a85585d2"));
+		assertEquals(PassTicketError.INVALID_KEY_CHARACTER, PassTicketKey.check("098d61a85585d2WW"));
+	}
+
+	@Test
+	public void parseRACFsecuredSignonApplicationKeyShouldIgnoreWhitespace() {
+		byte[] keyBytes = new byte[8];
+		assertNull(PassTicketUtils.parseRACFsecuredSignonApplicationKey(" 09 8d 61\ta8 55 85 d2 AB\n", keyBytes));
+		assertArrayEquals(new byte[] {(byte) 0x09, (byte) 0x8d, (byte) 0x61, (byte) 0xa8, (byte) 0x55, (byte) 0x85, (byte) 0xd2, (byte) 0xab}, keyBytes);
+	}
+
+	@Test
+	public void getTimeAndDateInformationShouldAlwaysReturn4Bytes() {
+		byte[] timeInfo = PassTicketUtils.getTimeAndDateInformation();
+		assertEquals(4, timeInfo.length);
+		long seconds = PassTicketUtils.byteArrayToLong(timeInfo, 0, 4);
+		assertTrue(Math.abs(seconds - System.currentTimeMillis() / 1000L) <= 1);
+	}
+
 	@Test
 	public void xorShouldReturnValidResult() {
 		try {
@@ -73,4 +139,19 @@ public class PassTicketUtilsTest {
 		int[] result = PassTicketUtils.byteArrayToBitArray(input);
 		assertArrayEquals(expectedResult, result);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void byteArrayToLongShouldReturnValidResult() {
+		byte[] input = {(byte) 0xFF, 1, 123, (byte) 0x80};
+		assertEquals(0x017B80L, PassTicketUtils.byteArrayToLong(input, 1, 3));
+		assertEquals(0xFF017B80L, PassTicketUtils.byteArrayToLong(input, 0, 4));
+	}
+
+	@Test
+	public void longToByteArrayShouldReturnValidResult() {
+		byte[] result = new byte[8];
+		PassTicketUtils.longToByteArray(0x1ec3753d7a79e3ceL, result);
+		byte[] expectedResult = {(byte) 0x1e,(byte) 0xC3,(byte) 0x75,(byte) 0x3d,(byte) 0x7a,(byte) 0x79,(byte) 0xe3,(byte) 0xce};
+		assertArrayEquals(expectedResult, result);
+	}
+}
@@ -0,0 +1,71 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.util.OptionalLong;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PassTicketVerifierTest {
+	private static final int NOW = 0x57E2C0DE;
+	private static PassTicketKey key;
+	private static PassTicketGenerator pt;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		key = PassTicketGenerator.forKey("A1B2C3D4E5F6A7B8");
+		pt = new PassTicketGenerator();
+	}
+
+	@Test
+	public void verifyShouldReturnTheTimeThePassTicketWasGeneratedFor() {
+		try {
+			PassTicketVerifier verifier = new PassTicketVerifier(pt);
+			int[] offsets = {0, -1, 1, -600, 600, 123};
+			for (int offset : offsets) {
+				String passTicket = pt.generate("USERID", "APPNAME", key, NOW + offset);
+				OptionalLong time = verifier.verify("USERID", "APPNAME", key, passTicket, 600, NOW);
+				assertEquals(NOW + offset, time.getAsLong());
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void verifyShouldRejectPassTicketsOutsideTheTolerance() {
+		try {
+			PassTicketVerifier verifier = new PassTicketVerifier(pt);
+			String passTicket = pt.generate("USERID", "APPNAME", key, NOW - 61);
+			assertFalse(verifier.verify("USERID", "APPNAME", key, passTicket, 60, NOW).isPresent());
+			assertFalse(verifier.verify("OTHER", "APPNAME", key, passTicket, 600, NOW).isPresent());
+			assertFalse(verifier.verify("USERID", "APPNAME", key, "SHORT", 600, NOW).isPresent());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void verifyShouldFindThePassTicketInParallelLanes() {
+		try {
+			PassTicketVerifier verifier = new PassTicketVerifier(pt, new ForkJoinPool(4));
+			String passTicket = pt.generate("USERID", "APPNAME", key, NOW + 599);
+			assertEquals(NOW + 599, verifier.verify("USERID", "APPNAME", key, passTicket, 600, NOW).getAsLong());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void verifyShouldAcceptAPassTicketGeneratedNow() {
+		try {
+			PassTicketVerifier verifier = new PassTicketVerifier(pt);
+			String passTicket = pt.generate("USERID", "APPNAME", key);
+			assertTrue(verifier.verify("USERID", "APPNAME", key, passTicket).isPresent());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import racfPassTicket.exceptions.PassTicketException;
+
+public class PassTicketWarmUpTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void runShouldSetUpTheKeysAndReportTheTimings() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		AtomicInteger prepared = new AtomicInteger();
+		pt.setEngine(new PassTicketEngine() {
+			@Override
+			public String getName() {
+				return "counting";
+			}
+
+			@Override
+			public Prepared prepare(byte[] keyBytes) throws PassTicketException {
+				prepared.incrementAndGet();
+				return PassTicketEngines.reference().prepare(keyBytes);
+			}
+		});
+		PassTicketKey key1 = PassTicketGenerator.forKey("098d61a85585d2ab", DESImplementation.LONG);
+		PassTicketKey key2 = PassTicketGenerator.forKey("A1B2C3D4E5F6A7B8");
+		PassTicketWarmUp warmUp = new PassTicketWarmUp(pt, 1000);
+		assertFalse(warmUp.isReady());
+		assertNull(warmUp.getReport());
+
+		PassTicketWarmUp.Report report = warmUp.run(Arrays.asList(key1, key2));
+		assertTrue(warmUp.isReady());
+		assertSame(report, warmUp.getReport());
+		assertSame(report, warmUp.whenReady().getNow(null));
+		assertEquals(2, report.getKeyCount());
+		assertEquals(1000, report.getIterations());
+		assertEquals(2, prepared.get());
+		assertTrue(report.getTotalNanos() >= report.getProviderNanos() + report.getKeySetupNanos() + report.getFirstPassTicketNanos() + report.getGenerationNanos());
+		assertTrue(report.getNanosPerPassTicket() > 0);
+		assertTrue(report.toString().startsWith("Warmed up in "));
+
+		// the warm-up leaves the generator as it was
+		assertEquals(new PassTicketGenerator().generate("USERID", "APPNAME", key1, 0x57E2C0DE), pt.generate("USERID", "APPNAME", key1, 0x57E2C0DE));
+	}
+
+	@Test
+	public void startShouldWarmUpInTheBackgroundWithASyntheticKey() throws Exception {
+		PassTicketWarmUp warmUp = new PassTicketWarmUp(new PassTicketGenerator(), 1);
+		PassTicketWarmUp.Report report = warmUp.start(Collections.emptyList()).get(10, TimeUnit.SECONDS);
+		assertTrue(warmUp.isReady());
+		assertEquals(1, report.getKeyCount());
+		assertEquals(1, report.getIterations());
+		assertEquals(report.getFirstPassTicketNanos(), (long) report.getNanosPerPassTicket());
+	}
+
+	@Test
+	public void syntheticPassTicketsShouldNotBeAudited() throws Exception {
+		Path directory = folder.getRoot().toPath().resolve("audit");
+		PassTicketGenerator pt = new PassTicketGenerator();
+		try (PassTicketAuditLog auditLog = new PassTicketAuditLog(directory, 16, 1 << 20)) {
+			pt.setAuditLog(auditLog);
+			new PassTicketWarmUp(pt, 100).run(Collections.singletonList(PassTicketGenerator.forKey("098d61a85585d2ab")));
+		}
+		AtomicInteger records = new AtomicInteger();
+		PassTicketAuditLog.read(directory, record -> records.incrementAndGet());
+		assertEquals(0, records.get());
+	}
+
+	@Test
+	public void syntheticPassTicketsShouldNotShowInTheMetricsOrTheCaches() throws Exception {
+		PassTicketGenerator pt = new PassTicketGenerator();
+		PassTicketMetricsRegistry metrics = new PassTicketMetricsRegistry();
+		PassTicketPrefixCache prefixCache = new PassTicketPrefixCache(100, 1, TimeUnit.HOURS);
+		TimeCoderTableCache timeCoderTableCache = new TimeCoderTableCache(TimeCoderTables.BYTES);
+		pt.setMetrics(metrics);
+		pt.setPrefixCache(prefixCache);
+		pt.setTimeCoderTableCache(timeCoderTableCache);
+		new PassTicketWarmUp(pt, 100).run(Collections.singletonList(PassTicketGenerator.forKey("098d61a85585d2ab")));
+
+		assertEquals(0, metrics.getCount(PassTicketMetrics.Counter.GENERATED));
+		assertEquals(0, metrics.getHistogram(PassTicketMetrics.Stage.TOTAL).getCount());
+		assertEquals(0, prefixCache.size());
+		assertEquals(0, timeCoderTableCache.getMissCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorShouldRejectZeroIterations() {
+		new PassTicketWarmUp(new PassTicketGenerator(), 0);
+	}
+}
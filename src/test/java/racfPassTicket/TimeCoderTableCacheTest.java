@@ -0,0 +1,80 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TimeCoderTableCacheTest {
+	private static PassTicketKey key;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		key = new PassTicketKey("098d61a85585d2ab");
+	}
+
+	@Test
+	public void timeCoderShouldReturnTheSameResultWithAndWithoutTables() {
+		try {
+			TimeCoderTableCache cache = new TimeCoderTableCache(TimeCoderTables.BYTES);
+			cache.designate(key, "IBMUSER");
+			TimeCoderTables tables = cache.get(key, "IBMUSER ");
+			assertNotNull(tables);
+
+			TimeCoder tc = new TimeCoder();
+			byte[] padding = tc.generateTimeCoderPadding("IBMUSER");
+			long padding1 = TimeCoder.toPaddingBlock(padding, 0);
+			long padding2 = TimeCoder.toPaddingBlock(padding, 6);
+			int[] inputs = {0, -1, 0x07247F79, 0x5FD1B2C3, 0x80000001};
+
+			for (int input : inputs) {
+				int expectedResult = tc.timeCoder(input, padding1, padding2, key.getDESEncrypter());
+				assertEquals(expectedResult, tc.timeCoder(input, tables));
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void designateShouldEvictTheLeastRecentlyUsedPairIfTheBudgetIsExceeded() {
+		try {
+			TimeCoderTableCache cache = new TimeCoderTableCache(2 * TimeCoderTables.BYTES);
+			cache.designate(key, "USER1");
+			cache.designate(key, "USER2");
+			cache.get(key, "USER1   ");
+			cache.designate(key, "USER3");
+
+			assertEquals(2, cache.size());
+			assertEquals(1, cache.getEvictionCount());
+			assertNotNull(cache.get(key, "USER1   "));
+			assertNull(cache.get(key, "USER2   "));
+			assertNotNull(cache.get(key, "USER3   "));
+			assertEquals(2 * TimeCoderTables.BYTES, cache.getMemoryUsage());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void generateShouldUseTheTablesOfDesignatedUsers() {
+		try {
+			TimeCoderTableCache cache = new TimeCoderTableCache(TimeCoderTables.BYTES);
+			cache.designate(key, "IBMUSER");
+			PassTicketGenerator pt = new PassTicketGenerator();
+			pt.setTimeCoderTableCache(cache);
+
+			assertEquals(8, pt.generate("IBMUSER", "APPNAME", key).length());
+			assertEquals(8, pt.generate("OTHER", "APPNAME", key).length());
+			assertEquals(1, cache.getHitCount());
+			assertEquals(1, cache.getMissCount());
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorShouldThrowAnExceptionIfTheBudgetIsTooSmall() {
+		new TimeCoderTableCache(1024);
+	}
+}
@@ -98,4 +98,54 @@ public class TimeCoderTest {
 		byte[] input = {1,123};
 		tc.permute(input,7);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void permuteShouldReturnValidResultForPrimitiveInput() {
+		int permutationOutput = TimeCoder.permute(0x017B, 1); // {1,123}
+		assertEquals(Integer.parseInt("1010001100101010", 2), permutationOutput);
+	}
+
+	@Test
+	public void permuteShouldReturnTheSameResultForPrimitiveAndByteArrayInput() {
+		try {
+			for (int round = 1; round <= 6; round++) {
+				for (int input = 0; input <= 0xFFFF; input++) {
+					byte[] expectedResult = tc.permute(new byte[] {(byte) (input >>> 8), (byte) input}, round);
+					int result = TimeCoder.permute(input, round);
+					assertEquals((int) PassTicketUtils.byteArrayToLong(expectedResult, 0, 2), result);
+				}
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void timeCoderShouldReturnTheSameResultForPrimitiveAndByteArrayInput() {
+		try {
+			byte[] padding = tc.generateTimeCoderPadding("IBMUSER");
+			long padding1 = TimeCoder.toPaddingBlock(padding, 0);
+			long padding2 = TimeCoder.toPaddingBlock(padding, 6);
+			int[] inputs = {0, -1, 0x07247F79, 0x5FD1B2C3, 0x80000001};
+
+			for (int input : inputs) {
+				byte[] expectedResult = tc.timeCoder(PassTicketUtils.intToByteArray(input), "IBMUSER", encrypter);
+				int result = tc.timeCoder(input, padding1, padding2, encrypter);
+				assertArrayEquals(expectedResult, PassTicketUtils.intToByteArray(result));
+			}
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void toPaddingBlockShouldReturnValidResult() {
+		try {
+			byte[] padding = tc.generateTimeCoderPadding("IBMUSER"); // C9C2D4E4E2C5D95555555555
+			assertEquals(0xC9C2D4E4E2C5L, TimeCoder.toPaddingBlock(padding, 0));
+			assertEquals(0xD95555555555L, TimeCoder.toPaddingBlock(padding, 6));
+		} catch (Exception e) {
+			fail(e.getMessage());
+		}
+	}
+}
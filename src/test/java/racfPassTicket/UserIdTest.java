@@ -0,0 +1,69 @@
+package racfPassTicket;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import racfPassTicket.exceptions.PassTicketInvalidInputException;
+
+public class UserIdTest {
+	@Test
+	public void ofShouldPadAndEncodeTheUserId() throws Exception {
+		UserId userId = UserId.of("  IBMUSER");
+		assertEquals("IBMUSER ", userId.getName());
+		assertEquals("IBMUSER", userId.toString());
+		assertEquals(PassTicketUtils.byteArrayToLong("IBMUSER ".getBytes("CP1047"), 0, 8), userId.getEbcdic());
+	}
+
+	@Test
+	public void ofShouldDeriveTheTimeCoderPadding() throws Exception {
+		for (String name : new String[] {"TOM", "IBMUSER", "#$@12345"}) {
+			byte[] padding = new TimeCoder().generateTimeCoderPadding(name);
+			UserId userId = UserId.of(name);
+			assertEquals(TimeCoder.toPaddingBlock(padding, 0), userId.getPadding1());
+			assertEquals(TimeCoder.toPaddingBlock(padding, 6), userId.getPadding2());
+		}
+	}
+
+	@Test
+	public void ofShouldIgnoreTrailingBlanks() throws Exception {
+		assertEquals(UserId.of("USERID"), UserId.of("USERID    "));
+		assertEquals(UserId.of("USERID").hashCode(), UserId.of(" USERID ").hashCode());
+	}
+
+	@Test
+	public void ofShouldRejectCharactersRACFDoesNotAllow() {
+		for (String name : new String[] {"userid", "USER ID", "USER-ID", "USER\u00C4"}) {
+			try {
+				UserId.of(name);
+				fail(name);
+			} catch (PassTicketInvalidInputException e) {
+				assertTrue(e.getMessage().startsWith("Input contains a character"));
+			}
+		}
+	}
+
+	@Test(expected = PassTicketInvalidInputException.class)
+	public void ofShouldRejectATooLongUserId() throws PassTicketInvalidInputException {
+		UserId.of("USERID123");
+	}
+
+	@Test(expected = PassTicketInvalidInputException.class)
+	public void ofShouldRejectABlankUserId() throws PassTicketInvalidInputException {
+		UserId.of("   ");
+	}
+
+	@Test
+	public void applicationNameOfShouldPadAndEncodeTheName() throws Exception {
+		ApplicationName applicationName = ApplicationName.of("TSOSYS1");
+		assertEquals("TSOSYS1 ", applicationName.getName());
+		assertEquals(PassTicketUtils.byteArrayToLong("TSOSYS1 ".getBytes("CP1047"), 0, 8), applicationName.getEbcdic());
+		assertEquals(applicationName, ApplicationName.of(" TSOSYS1 "));
+	}
+
+	@Test
+	public void fromPaddedShouldEncodeCharactersOutsideTheTableWithTheCharset() throws Exception {
+		UserId userId = UserId.fromPadded("us\u00E4r    ");
+		assertEquals(PassTicketUtils.byteArrayToLong("us\u00E4r    ".getBytes("CP1047"), 0, 8), userId.getEbcdic());
+	}
+}
@@ -0,0 +1,96 @@
+package racfPassTicket.example;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import racfPassTicket.DESImplementation;
+import racfPassTicket.PassTicketClock;
+import racfPassTicket.PassTicketGenerator;
+import racfPassTicket.PassTicketKeyRegistry;
+
+public class PassTicketBulkGeneratorTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private PassTicketGenerator pt;
+	private PassTicketKeyRegistry keys;
+	private StringBuilder input;
+	private StringBuilder expected;
+
+	@Before
+	public void createInput() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("keys.properties");
+		Files.write(file, "APPNAME=098d61a85585d2ab\n".getBytes(StandardCharsets.ISO_8859_1));
+		if (Files.getFileAttributeView(file, PosixFileAttributeView.class) != null) {
+			Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+		}
+		keys = PassTicketKeyRegistry.fromProperties(file, DESImplementation.LONG);
+		pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(0x57E2C0DE));
+
+		input = new StringBuilder();
+		expected = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			String userId = "USER" + i;
+			input.append(userId).append(i % 2 == 0 ? ",APPNAME,appname\n" : "\tAPPNAME\tAPPNAME\r\n");
+			String separator = i % 2 == 0 ? "," : "\t";
+			expected.append(String.join(separator, userId, "APPNAME", i % 2 == 0 ? "appname" : "APPNAME",
+					pt.generate(userId, "APPNAME", keys.getKey("APPNAME")), "")).append('\n');
+		}
+		input.append("\nUSERID,APPNAME,OTHER\nUSER_ID,APPNAME,APPNAME\nUSERID,APPNAME\nLAST,APPNAME,APPNAME");
+		expected.append("USERID,APPNAME,OTHER,,UNKNOWN_KEY\n")
+				.append("USER_ID,APPNAME,APPNAME,,INVALID_CHARACTER\n")
+				.append("USERID,APPNAME,,,INVALID_RECORD\n")
+				.append("LAST,APPNAME,APPNAME,").append(pt.generate("LAST", "APPNAME", keys.getKey("APPNAME"))).append(",\n");
+	}
+
+	@Test
+	public void filesShouldBeGeneratedInInputOrder() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("input.csv");
+		Files.write(file, input.toString().getBytes(StandardCharsets.UTF_8));
+		// small chunks and windows, so that lines cross both
+		PassTicketBulkGenerator bulkGenerator = new PassTicketBulkGenerator(pt, keys, 3, 100, 1000);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PassTicketBulkGenerator.Summary summary = bulkGenerator.generate(Arrays.asList(file, file), Channels.newChannel(out));
+
+		assertEquals(expected.toString() + expected, out.toString("UTF-8"));
+		assertEquals(2 * 1004, summary.getRecords());
+		assertEquals(2 * 3, summary.getErrors());
+		assertEquals(2 * Files.size(file), summary.getBytes());
+	}
+
+	@Test
+	public void channelsShouldBeGeneratedInInputOrder() throws Exception {
+		PassTicketBulkGenerator bulkGenerator = new PassTicketBulkGenerator(pt, keys, 3, 64, 1000);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PassTicketBulkGenerator.Summary summary = bulkGenerator.generate(
+				Channels.newChannel(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8))), Channels.newChannel(out));
+
+		assertEquals(expected.toString(), out.toString("UTF-8"));
+		assertEquals(1004, summary.getRecords());
+		assertEquals(3, summary.getErrors());
+	}
+
+	@Test(expected = java.io.IOException.class)
+	public void linesLongerThanTheMapWindowShouldBeRejected() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("input.csv");
+		char[] line = new char[200];
+		Arrays.fill(line, 'A');
+		Files.write(file, (new String(line) + "\nUSERID,APPNAME,APPNAME\n").getBytes(StandardCharsets.UTF_8));
+		new PassTicketBulkGenerator(pt, keys, 1, 10, 100).generate(Arrays.asList(file), Channels.newChannel(new ByteArrayOutputStream()));
+	}
+}
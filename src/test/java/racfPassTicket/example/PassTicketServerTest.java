@@ -0,0 +1,177 @@
+package racfPassTicket.example;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import racfPassTicket.DESImplementation;
+import racfPassTicket.PassTicketClock;
+import racfPassTicket.PassTicketGenerator;
+import racfPassTicket.PassTicketIssuanceGuard;
+import racfPassTicket.PassTicketKeyRegistry;
+import racfPassTicket.PassTicketWarmUp;
+
+public class PassTicketServerTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private PassTicketGenerator pt;
+	private PassTicketServer server;
+
+	@BeforeClass
+	public static void enableNoDelay() {
+		// as Main does before it starts the server
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	@Before
+	public void startServer() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("keys.properties");
+		Files.write(file, "APPNAME=098d61a85585d2ab\n".getBytes(StandardCharsets.ISO_8859_1));
+		if (Files.getFileAttributeView(file, PosixFileAttributeView.class) != null) {
+			Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+		}
+		pt = new PassTicketGenerator();
+		pt.setClock(PassTicketClock.fixed(0x57E2C0DE));
+		server = new PassTicketServer(new InetSocketAddress("127.0.0.1", 0), pt, PassTicketKeyRegistry.fromProperties(file, DESImplementation.LONG), 100);
+		server.start();
+	}
+
+	@After
+	public void stopServer() {
+		server.close();
+	}
+
+	@Test
+	public void singleRequestShouldReturnThePassTicket() throws Exception {
+		String expected = "{\"passTicket\":\"" + pt.generate("USERID", "APPNAME", "098d61a85585d2ab") + "\"}";
+		assertEquals("200 " + expected, request("GET", "/passticket?userId=USERID&applicationName=APPNAME", null));
+		assertEquals("200 " + expected, request("POST", "/passticket", "{\"userId\":\"USERID\", \"applicationName\":\"APPNAME\"}"));
+	}
+
+	@Test
+	public void singleRequestShouldReportErrors() throws Exception {
+		assertTrue(request("GET", "/passticket?userId=USERID&applicationName=OTHERAPP", null).startsWith("404 {\"error\":\"UNKNOWN_APPLICATION\""));
+		assertTrue(request("GET", "/passticket?userId=USER_ID&applicationName=APPNAME", null).startsWith("400 {\"error\":\"INVALID_CHARACTER\""));
+		assertTrue(request("POST", "/passticket", "{\"userId\":").startsWith("400 {\"error\":\"INVALID_REQUEST\""));
+	}
+
+	@Test
+	public void batchRequestShouldReturnTheResultsInOrder() throws Exception {
+		String response = request("POST", "/passtickets", "[{\"userId\":\"USER1\",\"applicationName\":\"APPNAME\"},"
+				+ "{\"userId\":\"\",\"applicationName\":\"APPNAME\"},{\"userId\":\"USER2\",\"applicationName\":\"APPNAME\"}]");
+		assertEquals("200 [{\"passTicket\":\"" + pt.generate("USER1", "APPNAME", "098d61a85585d2ab") + "\"},"
+				+ "{\"error\":\"EMPTY_INPUT\",\"message\":\"Input cannot be empty.\"},"
+				+ "{\"passTicket\":\"" + pt.generate("USER2", "APPNAME", "098d61a85585d2ab") + "\"}]", response);
+	}
+
+	@Test
+	public void healthAndReadinessShouldBeReported() throws Exception {
+		assertEquals("200 {\"status\":\"UP\"}", request("GET", "/health", null));
+		assertEquals("200 {\"status\":\"READY\"}", request("GET", "/ready", null));
+	}
+
+	@Test
+	public void collidingRequestsShouldBeToldWhenToRetry() throws Exception {
+		pt.setIssuanceGuard(new PassTicketIssuanceGuard(0));
+		assertTrue(request("GET", "/passticket?userId=USERID&applicationName=APPNAME", null).startsWith("200 {\"passTicket\":"));
+		String response = request("GET", "/passticket?userId=USERID&applicationName=APPNAME", null);
+		assertTrue(response, response.matches("429 \\{\"error\":\"ALREADY_ISSUED\",\"message\":\"[^\"]*\",\"retryAfterMillis\":\\d+}"));
+	}
+
+	@Test
+	public void readinessShouldWaitForTheWarmUp() throws Exception {
+		PassTicketWarmUp warmUp = new PassTicketWarmUp(pt, 100);
+		server.setWarmUp(warmUp);
+		assertEquals("503 {\"status\":\"WARMING_UP\"}", request("GET", "/ready", null));
+		warmUp.run(Collections.emptyList());
+		assertEquals("200 {\"status\":\"READY\"}", request("GET", "/ready", null));
+	}
+
+	@Test
+	public void pipelinedRequestsShouldBeAnsweredInOrder() throws Exception {
+		String expected1 = "{\"passTicket\":\"" + pt.generate("USER1", "APPNAME", "098d61a85585d2ab") + "\"}";
+		String expected2 = "{\"passTicket\":\"" + pt.generate("USER2", "APPNAME", "098d61a85585d2ab") + "\"}";
+		String body = "{\"userId\":\"USER2\",\"applicationName\":\"APPNAME\"}";
+		try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+			socket.setSoTimeout(10000);
+			// all requests are sent before the first response is read
+			String requests = "GET /passticket?userId=USER1&applicationName=APPNAME HTTP/1.1\r\nHost: localhost\r\n\r\n"
+					+ "POST /passticket HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + body.length() + "\r\n\r\n" + body
+					+ "GET /health HTTP/1.1\r\nHost: localhost\r\n\r\n";
+			socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+			socket.getOutputStream().flush();
+			InputStream in = socket.getInputStream();
+			assertEquals("200 " + expected1, readResponse(in));
+			assertEquals("200 " + expected2, readResponse(in));
+			assertTrue(readResponse(in).startsWith("200 "));
+		}
+	}
+
+	private static String readResponse(InputStream in) throws Exception {
+		String status = readLine(in).split(" ")[1];
+		int length = 0;
+		for (String header; !(header = readLine(in)).isEmpty();) {
+			if (header.toLowerCase().startsWith("content-length:")) {
+				length = Integer.parseInt(header.substring(header.indexOf(':') + 1).trim());
+			}
+		}
+		byte[] body = new byte[length];
+		for (int read = 0; read < length;) {
+			int n = in.read(body, read, length - read);
+			assertTrue(n > 0);
+			read += n;
+		}
+		return status + " " + new String(body, StandardCharsets.UTF_8);
+	}
+
+	private static String readLine(InputStream in) throws Exception {
+		StringBuilder line = new StringBuilder();
+		for (int c; (c = in.read()) != '\n';) {
+			assertTrue(c != -1);
+			if (c != '\r') {
+				line.append((char) c);
+			}
+		}
+		return line.toString();
+	}
+
+	private String request(String method, String path, String body) throws Exception {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+		connection.setRequestMethod(method);
+		if (body != null) {
+			connection.setDoOutput(true);
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		int status = connection.getResponseCode();
+		ByteArrayOutputStream response = new ByteArrayOutputStream();
+		try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			byte[] buffer = new byte[1024];
+			for (int read; (read = in.read(buffer)) != -1;) {
+				response.write(buffer, 0, read);
+			}
+		}
+		return status + " " + new String(response.toByteArray(), StandardCharsets.UTF_8);
+	}
+}